@@ -0,0 +1,140 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.mifosplatform.organisation.holiday.domain.Holiday;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.organisation.workingdays.domain.RepaymentRescheduleType;
+import org.mifosplatform.organisation.workingdays.domain.WorkingDays;
+import org.mifosplatform.portfolio.common.domain.DaysInMonthType;
+import org.mifosplatform.portfolio.common.domain.DaysInYearType;
+import org.mifosplatform.portfolio.common.domain.PeriodFrequencyType;
+import org.mifosplatform.portfolio.loanaccount.data.DisbursementData;
+import org.mifosplatform.portfolio.loanaccount.data.HolidayDetailDTO;
+import org.mifosplatform.portfolio.loanaccount.data.LoanTermVariationsData;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanInterestRecalculationDetails;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModelPeriod;
+import org.mifosplatform.portfolio.loanproduct.domain.AmortizationMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestCalculationPeriodMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestRecalculationCompoundingMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.LoanProductRelatedDetail;
+import org.mifosplatform.portfolio.loanproduct.domain.LoanRescheduleStrategyMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.RecalculationFrequencyType;
+
+/**
+ * Creates the synthetic loans the benchmarks run on: a weekly repaid loan of
+ * 100,000 USD at 24% a year with a configurable number of installments,
+ * without holidays and with every day a working day.
+ */
+public class LoanBenchmarkDataHelper {
+
+    public static final MathContext MATH_CONTEXT = new MathContext(8, RoundingMode.HALF_EVEN);
+
+    private static final MonetaryCurrency USD = new MonetaryCurrencyBuilder().withCode("USD").withDigitsAfterDecimal(2).build();
+    private static final String EVERY_DAY_IS_A_WORKING_DAY = "FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,TU,WE,TH,FR,SA,SU";
+
+    public static MonetaryCurrency currency() {
+        return USD;
+    }
+
+    public static HolidayDetailDTO noHolidays() {
+        final WorkingDays workingDays = new WorkingDays(EVERY_DAY_IS_A_WORKING_DAY, RepaymentRescheduleType.SAME_DAY.getValue()) {
+            // only to reach the protected constructor
+        };
+        return new HolidayDetailDTO(false, new ArrayList<Holiday>(), workingDays);
+    }
+
+    /**
+     * @param disbursementDate
+     *            the expected disbursement date of the loan
+     */
+    public static LoanApplicationTerms loanApplicationTerms(final InterestMethod interestMethod, final int numberOfRepayments,
+            final LocalDate disbursementDate, final boolean interestRecalculationEnabled) {
+
+        final BigDecimal principal = BigDecimal.valueOf(100000);
+        final BigDecimal annualNominalInterestRate = BigDecimal.valueOf(24);
+        final LoanProductRelatedDetail loanProductRelatedDetail = new LoanProductRelatedDetail(USD, principal, annualNominalInterestRate,
+                PeriodFrequencyType.YEARS, annualNominalInterestRate, interestMethod, InterestCalculationPeriodMethod.DAILY,
+                Integer.valueOf(1), PeriodFrequencyType.WEEKS, Integer.valueOf(numberOfRepayments), Integer.valueOf(0),
+                Integer.valueOf(0), Integer.valueOf(0), AmortizationMethod.EQUAL_INSTALLMENTS, BigDecimal.ZERO, Integer.valueOf(0),
+                DaysInMonthType.ACTUAL.getValue(), DaysInYearType.ACTUAL.getValue(), interestRecalculationEnabled);
+
+        LoanInterestRecalculationDetails interestRecalculationDetails = null;
+        RecalculationFrequencyType recalculationFrequencyType = null;
+        if (interestRecalculationEnabled) {
+            recalculationFrequencyType = RecalculationFrequencyType.SAME_AS_REPAYMENT_PERIOD;
+            interestRecalculationDetails = LoanInterestRecalculationDetails.createFrom(
+                    InterestRecalculationCompoundingMethod.NONE.getValue(), LoanRescheduleStrategyMethod.REDUCE_EMI_AMOUNT.getValue(),
+                    recalculationFrequencyType.getValue(), Integer.valueOf(1), null);
+        }
+
+        final ApplicationCurrency applicationCurrency = new ApplicationCurrency() {
+            // only to reach the protected constructor, schedule generation
+            // takes the currency from the principal
+        };
+
+        return LoanApplicationTerms.assembleFrom(applicationCurrency, Integer.valueOf(numberOfRepayments), PeriodFrequencyType.WEEKS,
+                disbursementDate, null, null, Money.zero(USD), loanProductRelatedDetail, false, null,
+                new ArrayList<DisbursementData>(), null, new ArrayList<LoanTermVariationsData>(), null, interestRecalculationDetails,
+                null, recalculationFrequencyType);
+    }
+
+    /**
+     * Same conversion the schedule generator applies to its own model, so the
+     * processors get installments without a loan.
+     */
+    public static List<LoanRepaymentScheduleInstallment> installmentsFrom(final LoanScheduleModel loanScheduleModel) {
+        final List<LoanRepaymentScheduleInstallment> installments = new ArrayList<>();
+        for (final LoanScheduleModelPeriod period : loanScheduleModel.getPeriods()) {
+            if (period.isRepaymentPeriod()) {
+                installments.add(new LoanRepaymentScheduleInstallment(null, period.periodNumber(), period.periodFromDate(), period
+                        .periodDueDate(), period.principalDue(), period.interestDue(), period.feeChargesDue(), period.penaltyChargesDue(),
+                        period.isRecalculatedInterestComponent()));
+            }
+        }
+        return installments;
+    }
+
+    /**
+     * One repayment per installment due on or before <code>upTo</code>. Every
+     * third one is paid three days late and every fifth one short by a tenth,
+     * so the processors and interest recalculation have both late and partial
+     * payments to deal with.
+     */
+    public static List<LoanTransaction> repaymentsUpTo(final List<LoanRepaymentScheduleInstallment> installments, final LocalDate upTo) {
+        final List<LoanTransaction> repayments = new ArrayList<>();
+        final LocalDateTime createdDate = new LocalDateTime();
+        int count = 0;
+        for (final LoanRepaymentScheduleInstallment installment : installments) {
+            if (installment.getDueDate().isAfter(upTo)) {
+                break;
+            }
+            count++;
+            final LocalDate paidOn = count % 3 == 0 ? installment.getDueDate().plusDays(3) : installment.getDueDate();
+            Money amount = installment.getTotalOutstanding(USD);
+            if (count % 5 == 0) {
+                amount = amount.minus(amount.dividedBy(10, RoundingMode.HALF_EVEN));
+            }
+            repayments.add(LoanTransaction.repayment(null, amount, null, paidOn, null, createdDate, null));
+        }
+        return repayments;
+    }
+}
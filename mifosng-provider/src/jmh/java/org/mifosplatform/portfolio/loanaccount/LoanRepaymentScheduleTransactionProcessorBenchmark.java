@@ -0,0 +1,116 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.portfolio.loanaccount.domain.ChangedTransactionDetail;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.LoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.CreocoreLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.EarlyPaymentLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.HeavensFamilyLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.MifosStyleLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.RBILoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.DecliningBalanceInterestLoanScheduleGenerator;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full reprocessing of the repayments of a loan against its schedule, as done
+ * on every repayment adjustment or backdated transaction, for each of the
+ * transaction processing strategies.
+ *
+ * Reprocessing starts by resetting the derived fields of the installments and
+ * transactions, so the same schedule can be processed over and over.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LoanRepaymentScheduleTransactionProcessorBenchmark {
+
+    @Param({ "mifos-standard-strategy", "heavensfamily-strategy", "creocore-strategy", "rbi-india-strategy",
+            "principal-interest-penalties-fees-order-strategy", "interest-principal-penalties-fees-order-strategy",
+            "early-repayment-strategy" })
+    private String strategy;
+
+    @Param({ "12", "52", "104", "260", "520" })
+    private int numberOfRepayments;
+
+    private LoanRepaymentScheduleTransactionProcessor processor;
+    private final Set<LoanCharge> charges = new HashSet<>();
+
+    private LocalDate disbursementDate;
+    private List<LoanRepaymentScheduleInstallment> installments;
+    private List<LoanTransaction> repayments;
+
+    @Setup
+    public void setUp() {
+        this.processor = processorFor(this.strategy);
+
+        this.disbursementDate = new LocalDate(2014, 1, 6);
+        final LoanApplicationTerms loanApplicationTerms = LoanBenchmarkDataHelper.loanApplicationTerms(InterestMethod.DECLINING_BALANCE,
+                this.numberOfRepayments, this.disbursementDate, false);
+        final LoanScheduleModel schedule = new DecliningBalanceInterestLoanScheduleGenerator().generate(
+                LoanBenchmarkDataHelper.MATH_CONTEXT, loanApplicationTerms, this.charges, LoanBenchmarkDataHelper.noHolidays());
+
+        this.installments = LoanBenchmarkDataHelper.installmentsFrom(schedule);
+        // all but the last quarter of the installments repaid
+        final LoanRepaymentScheduleInstallment lastRepaid = this.installments.get(this.installments.size() * 3 / 4);
+        this.repayments = LoanBenchmarkDataHelper.repaymentsUpTo(this.installments, lastRepaid.getDueDate());
+    }
+
+    @Benchmark
+    public ChangedTransactionDetail reprocessAllRepayments() {
+        final LocalDate recalculateChargesFrom = null;
+        return this.processor.handleTransaction(this.disbursementDate, this.repayments, LoanBenchmarkDataHelper.currency(),
+                this.installments, this.charges, recalculateChargesFrom);
+    }
+
+    private static LoanRepaymentScheduleTransactionProcessor processorFor(final String strategy) {
+        switch (strategy) {
+            case "mifos-standard-strategy":
+                return new MifosStyleLoanRepaymentScheduleTransactionProcessor();
+            case "heavensfamily-strategy":
+                return new HeavensFamilyLoanRepaymentScheduleTransactionProcessor();
+            case "creocore-strategy":
+                return new CreocoreLoanRepaymentScheduleTransactionProcessor();
+            case "rbi-india-strategy":
+                return new RBILoanRepaymentScheduleTransactionProcessor();
+            case "principal-interest-penalties-fees-order-strategy":
+                return new PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor();
+            case "interest-principal-penalties-fees-order-strategy":
+                return new InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor();
+            case "early-repayment-strategy":
+                return new EarlyPaymentLoanRepaymentScheduleTransactionProcessor();
+            default:
+                throw new IllegalArgumentException("Unknown transaction processing strategy: " + strategy);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.portfolio.loanaccount.data.HolidayDetailDTO;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.LoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.RBILoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.DecliningBalanceInterestLoanScheduleGenerator;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleGenerator;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Recalculation of a declining balance schedule with interest recalculation
+ * enabled, for a loan disbursed so that half of its installments are due and
+ * (partly late, partly short) repaid.
+ *
+ * The schedule and repayments are rebuilt before every invocation as the
+ * recalculation changes both; a single invocation takes long enough for
+ * that not to distort the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LoanRescheduleNextInstallmentsBenchmark {
+
+    @Param({ "12", "52", "104", "260", "520" })
+    private int numberOfRepayments;
+
+    private final LoanScheduleGenerator generator = new DecliningBalanceInterestLoanScheduleGenerator();
+    private final LoanRepaymentScheduleTransactionProcessor processor = new RBILoanRepaymentScheduleTransactionProcessor();
+    private final Set<LoanCharge> charges = new HashSet<>();
+    private final HolidayDetailDTO holidayDetail = LoanBenchmarkDataHelper.noHolidays();
+
+    private LoanApplicationTerms loanApplicationTerms;
+    private LoanScheduleModel originalSchedule;
+    private LocalDate lastTransactionDate;
+
+    private List<LoanRepaymentScheduleInstallment> installments;
+    private List<LoanTransaction> repayments;
+
+    @Setup(Level.Trial)
+    public void setUpLoan() {
+        // recalculation runs up to today, so the loan has to be dated relative to it
+        final LocalDate disbursementDate = LocalDate.now().minusWeeks(this.numberOfRepayments / 2);
+        this.loanApplicationTerms = LoanBenchmarkDataHelper.loanApplicationTerms(InterestMethod.DECLINING_BALANCE, this.numberOfRepayments,
+                disbursementDate, true);
+        this.originalSchedule = this.generator.generate(LoanBenchmarkDataHelper.MATH_CONTEXT, this.loanApplicationTerms, this.charges,
+                this.holidayDetail);
+        this.lastTransactionDate = LocalDate.now();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpScheduleAndRepayments() {
+        this.installments = LoanBenchmarkDataHelper.installmentsFrom(this.originalSchedule);
+        this.repayments = LoanBenchmarkDataHelper.repaymentsUpTo(this.installments, this.lastTransactionDate);
+    }
+
+    @Benchmark
+    public LoanScheduleModel rescheduleNextInstallments() {
+        final LocalDate recalculateFrom = this.loanApplicationTerms.getExpectedDisbursementDate();
+        final int penaltyWaitPeriod = 0;
+        return this.generator.rescheduleNextInstallments(LoanBenchmarkDataHelper.MATH_CONTEXT, this.loanApplicationTerms, this.charges,
+                this.holidayDetail, this.repayments, this.processor, this.installments, recalculateFrom, this.lastTransactionDate,
+                penaltyWaitPeriod);
+    }
+}
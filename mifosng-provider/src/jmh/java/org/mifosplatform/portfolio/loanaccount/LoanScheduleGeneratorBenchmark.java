@@ -0,0 +1,67 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.portfolio.loanaccount.data.HolidayDetailDTO;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.DefaultLoanScheduleGeneratorFactory;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleGenerator;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generation of a new repayment schedule by the flat and declining balance
+ * {@link LoanScheduleGenerator}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LoanScheduleGeneratorBenchmark {
+
+    @Param({ "FLAT", "DECLINING_BALANCE" })
+    private InterestMethod interestMethod;
+
+    @Param({ "12", "52", "104", "260", "520" })
+    private int numberOfRepayments;
+
+    private LoanScheduleGenerator generator;
+    private LoanApplicationTerms loanApplicationTerms;
+    private final Set<LoanCharge> charges = new HashSet<>();
+    private final HolidayDetailDTO holidayDetail = LoanBenchmarkDataHelper.noHolidays();
+
+    @Setup
+    public void setUp() {
+        this.generator = new DefaultLoanScheduleGeneratorFactory().create(this.interestMethod);
+        // a fixed date keeps every run on exactly the same schedule
+        this.loanApplicationTerms = LoanBenchmarkDataHelper.loanApplicationTerms(this.interestMethod, this.numberOfRepayments,
+                new LocalDate(2014, 1, 6), false);
+    }
+
+    @Benchmark
+    public LoanScheduleModel generate() {
+        return this.generator.generate(LoanBenchmarkDataHelper.MATH_CONTEXT, this.loanApplicationTerms, this.charges, this.holidayDetail);
+    }
+}
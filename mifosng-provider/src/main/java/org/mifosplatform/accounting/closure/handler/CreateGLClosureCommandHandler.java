@@ -6,6 +6,7 @@
 package org.mifosplatform.accounting.closure.handler;
 
 import org.mifosplatform.accounting.closure.service.GLClosureWritePlatformService;
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -13,6 +14,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+@CommandType(entity = "GLCLOSURE", action = "CREATE")
 @Service
 public class CreateGLClosureCommandHandler implements NewCommandSourceHandler {
 
@@ -7,6 +7,7 @@ package org.mifosplatform.accounting.glaccount.api;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -24,11 +25,15 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.UriInfo;
 
+import org.joda.time.LocalDate;
 import org.mifosplatform.accounting.common.AccountingConstants;
 import org.mifosplatform.accounting.common.AccountingDropdownReadPlatformService;
+import org.mifosplatform.accounting.glaccount.data.GLAccountBalanceData;
 import org.mifosplatform.accounting.glaccount.data.GLAccountData;
 import org.mifosplatform.accounting.glaccount.domain.GLAccountType;
+import org.mifosplatform.accounting.glaccount.service.GLAccountBalanceReadPlatformService;
 import org.mifosplatform.accounting.glaccount.service.GLAccountReadPlatformService;
+import org.mifosplatform.accounting.journalentry.api.DateParam;
 import org.mifosplatform.accounting.journalentry.data.JournalEntryAssociationParametersData;
 import org.mifosplatform.commands.domain.CommandWrapper;
 import org.mifosplatform.commands.service.CommandWrapperBuilder;
@@ -56,6 +61,9 @@ public class GLAccountsApiResource {
             "nameDecorated", "tagId", "allowedAssetsTagOptions", "allowedLiabilitiesTagOptions", "allowedEquityTagOptions",
             "allowedIncomeTagOptions", "allowedExpensesTagOptions", "creditAccounts", "debitAccounts"));
 
+    private static final Set<String> BALANCE_RESPONSE_DATA_PARAMETERS = new HashSet<>(Arrays.asList("glAccountId", "glAccountName",
+            "glCode", "type", "officeId", "asOfDate", "balance", "recomputedBalance", "consistent"));
+
     private final String resourceNameForPermission = "GLACCOUNT";
 
     private final GLAccountReadPlatformService glAccountReadPlatformService;
@@ -65,13 +73,17 @@ public class GLAccountsApiResource {
     private final PlatformSecurityContext context;
     private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
     private final CodeValueReadPlatformService codeValueReadPlatformService;
+    private final GLAccountBalanceReadPlatformService glAccountBalanceReadPlatformService;
+    private final DefaultToApiJsonSerializer<GLAccountBalanceData> balanceJsonSerializerService;
 
     @Autowired
     public GLAccountsApiResource(final PlatformSecurityContext context, final GLAccountReadPlatformService glAccountReadPlatformService,
             final DefaultToApiJsonSerializer<GLAccountData> toApiJsonSerializer, final ApiRequestParameterHelper apiRequestParameterHelper,
             final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService,
             final AccountingDropdownReadPlatformService dropdownReadPlatformService,
-            final CodeValueReadPlatformService codeValueReadPlatformService) {
+            final CodeValueReadPlatformService codeValueReadPlatformService,
+            final GLAccountBalanceReadPlatformService glAccountBalanceReadPlatformService,
+            final DefaultToApiJsonSerializer<GLAccountBalanceData> balanceJsonSerializerService) {
         this.context = context;
         this.apiRequestParameterHelper = apiRequestParameterHelper;
         this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
@@ -79,6 +91,8 @@ public class GLAccountsApiResource {
         this.glAccountReadPlatformService = glAccountReadPlatformService;
         this.dropdownReadPlatformService = dropdownReadPlatformService;
         this.codeValueReadPlatformService = codeValueReadPlatformService;
+        this.glAccountBalanceReadPlatformService = glAccountBalanceReadPlatformService;
+        this.balanceJsonSerializerService = balanceJsonSerializerService;
     }
 
     @GET
@@ -113,6 +127,27 @@ public class GLAccountsApiResource {
         return this.apiJsonSerializerService.serialize(settings, glAccountDatas, RESPONSE_DATA_PARAMETERS);
     }
 
+    @GET
+    @Path("balances")
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String retrieveBalances(@Context final UriInfo uriInfo, @QueryParam("officeId") final Long officeId,
+            @QueryParam("asOfDate") final DateParam asOfDateParam, @QueryParam("verify") final boolean verify,
+            @QueryParam("locale") final String locale, @QueryParam("dateFormat") final String dateFormat) {
+
+        this.context.authenticatedUser().validateHasReadPermission(this.resourceNameForPermission);
+
+        LocalDate asOfDate = null;
+        if (asOfDateParam != null) {
+            final Date date = asOfDateParam.getDate("asOfDate", dateFormat, locale);
+            asOfDate = new LocalDate(date);
+        }
+        final List<GLAccountBalanceData> balances = this.glAccountBalanceReadPlatformService.retrieveBalances(officeId, asOfDate, verify);
+
+        final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.balanceJsonSerializerService.serialize(settings, balances, BALANCE_RESPONSE_DATA_PARAMETERS);
+    }
+
     @GET
     @Path("{glAccountId}")
     @Consumes({ MediaType.APPLICATION_JSON })
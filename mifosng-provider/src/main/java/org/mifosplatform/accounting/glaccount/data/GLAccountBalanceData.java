@@ -0,0 +1,70 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.glaccount.data;
+
+import java.math.BigDecimal;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.infrastructure.core.data.EnumOptionData;
+
+/**
+ * Immutable object representing the balance of a General Ledger Account as of
+ * a date, for a single office or for the whole organization.
+ * 
+ * Note: no getter/setters required as google-gson will produce json from fields
+ * of object.
+ */
+public class GLAccountBalanceData {
+
+    private final Long glAccountId;
+    private final String glAccountName;
+    private final String glCode;
+    private final EnumOptionData type;
+    private final Long officeId;
+    private final LocalDate asOfDate;
+    private final BigDecimal balance;
+
+    // verification
+    private final BigDecimal recomputedBalance;
+    private final Boolean consistent;
+
+    public static GLAccountBalanceData instance(final Long glAccountId, final String glAccountName, final String glCode,
+            final EnumOptionData type, final Long officeId, final LocalDate asOfDate, final BigDecimal balance) {
+        return new GLAccountBalanceData(glAccountId, glAccountName, glCode, type, officeId, asOfDate, balance, null, null);
+    }
+
+    public static GLAccountBalanceData verified(final GLAccountBalanceData balanceData, final BigDecimal recomputedBalance) {
+        final boolean consistent = balanceData.balance.compareTo(recomputedBalance) == 0;
+        return new GLAccountBalanceData(balanceData.glAccountId, balanceData.glAccountName, balanceData.glCode, balanceData.type,
+                balanceData.officeId, balanceData.asOfDate, balanceData.balance, recomputedBalance, consistent);
+    }
+
+    private GLAccountBalanceData(final Long glAccountId, final String glAccountName, final String glCode, final EnumOptionData type,
+            final Long officeId, final LocalDate asOfDate, final BigDecimal balance, final BigDecimal recomputedBalance,
+            final Boolean consistent) {
+        this.glAccountId = glAccountId;
+        this.glAccountName = glAccountName;
+        this.glCode = glCode;
+        this.type = type;
+        this.officeId = officeId;
+        this.asOfDate = asOfDate;
+        this.balance = balance;
+        this.recomputedBalance = recomputedBalance;
+        this.consistent = consistent;
+    }
+
+    public Long getGlAccountId() {
+        return this.glAccountId;
+    }
+
+    public BigDecimal getBalance() {
+        return this.balance;
+    }
+
+    public boolean isConsistent() {
+        return this.consistent == null || this.consistent;
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.glaccount.service;
+
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.accounting.glaccount.data.GLAccountBalanceData;
+
+public interface GLAccountBalanceReadPlatformService {
+
+    /**
+     * Balances of every GL account with journal entries on or before
+     * <code>asOfDate</code>, read from the daily balance snapshot maintained
+     * by the running balance update job plus the entries it has not processed
+     * yet. When <code>verify</code> is set every balance is also recomputed
+     * from the journal entries and flagged when the two differ.
+     */
+    List<GLAccountBalanceData> retrieveBalances(Long officeId, LocalDate asOfDate, boolean verify);
+
+}
@@ -0,0 +1,215 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.glaccount.service;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.accounting.common.AccountingEnumerations;
+import org.mifosplatform.accounting.glaccount.data.GLAccountBalanceData;
+import org.mifosplatform.accounting.journalentry.service.JournalEntryBatchWriter;
+import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
+import org.mifosplatform.infrastructure.core.service.DateUtils;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+@Service
+public class GLAccountBalanceReadPlatformServiceImpl implements GLAccountBalanceReadPlatformService {
+
+    private final static Logger logger = LoggerFactory.getLogger(GLAccountBalanceReadPlatformServiceImpl.class);
+
+    /**
+     * Amount of an entry signed by whether it increases the balance of its
+     * account: debits (2) do for asset (1) and expense (5) accounts, credits
+     * for liability, equity and income accounts. Matches the running balance
+     * calculation.
+     */
+    private static final String SIGNED_AMOUNT = "case when (glAccount.classification_enum in (1, 5)) = (je.type_enum = 2) "
+            + "then je.amount else -je.amount end";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JournalEntryBatchWriter journalEntryBatchWriter;
+
+    @Autowired
+    public GLAccountBalanceReadPlatformServiceImpl(final RoutingDataSource dataSource,
+            final JournalEntryBatchWriter journalEntryBatchWriter) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.journalEntryBatchWriter = journalEntryBatchWriter;
+    }
+
+    @Override
+    public List<GLAccountBalanceData> retrieveBalances(final Long officeId, final LocalDate asOfDate, final boolean verify) {
+        this.journalEntryBatchWriter.flush();
+        final LocalDate balanceDate = asOfDate == null ? DateUtils.getLocalDateOfTenant() : asOfDate;
+
+        // snapshot rows from the first date the running balance job still has
+        // to (re)process onwards are incomplete or about to be rewritten
+        LocalDate snapshotDate = balanceDate;
+        final LocalDate pendingFromDate = retrievePendingFromDate();
+        if (pendingFromDate != null && !snapshotDate.isBefore(pendingFromDate)) {
+            snapshotDate = pendingFromDate.minusDays(1);
+        }
+
+        final Map<Long, BigDecimal> balances = retrieveSnapshotBalances(officeId, snapshotDate);
+        addJournalEntryBalances(balances, officeId, snapshotDate, balanceDate);
+
+        Map<Long, BigDecimal> recomputedBalances = null;
+        if (verify) {
+            recomputedBalances = new HashMap<>();
+            addJournalEntryBalances(recomputedBalances, officeId, null, balanceDate);
+            for (final Long accountId : recomputedBalances.keySet()) {
+                if (!balances.containsKey(accountId)) {
+                    balances.put(accountId, BigDecimal.ZERO);
+                }
+            }
+        }
+
+        final GLAccountBalanceMapper rm = new GLAccountBalanceMapper(officeId, balanceDate, balances);
+        final List<GLAccountBalanceData> accountBalances = new ArrayList<>(balances.size());
+        for (final GLAccountBalanceData accountBalance : this.jdbcTemplate.query(rm.schema(), rm)) {
+            if (accountBalance == null) {
+                continue;
+            }
+            if (recomputedBalances == null) {
+                accountBalances.add(accountBalance);
+            } else {
+                BigDecimal recomputedBalance = recomputedBalances.get(accountBalance.getGlAccountId());
+                if (recomputedBalance == null) {
+                    recomputedBalance = BigDecimal.ZERO;
+                }
+                final GLAccountBalanceData verifiedBalance = GLAccountBalanceData.verified(accountBalance, recomputedBalance);
+                if (!verifiedBalance.isConsistent()) {
+                    logger.warn("GL account " + accountBalance.getGlAccountId() + " balance snapshot for office " + officeId + " as of "
+                            + balanceDate + " is " + accountBalance.getBalance() + " but journal entries add up to " + recomputedBalance);
+                }
+                accountBalances.add(verifiedBalance);
+            }
+        }
+        return accountBalances;
+    }
+
+    private LocalDate retrievePendingFromDate() {
+        final Date pendingEntryDate = this.jdbcTemplate.queryForObject(
+                "select MIN(je.entry_date) from acc_gl_journal_entry je where je.is_running_balance_calculated = 0", Date.class);
+        final Date checkpointDate = this.jdbcTemplate.queryForObject(
+                "select MIN(cp.resume_from_date) from acc_gl_running_balance_checkpoint cp", Date.class);
+        Date pendingFromDate = pendingEntryDate;
+        if (pendingFromDate == null || (checkpointDate != null && checkpointDate.before(pendingFromDate))) {
+            pendingFromDate = checkpointDate;
+        }
+        return pendingFromDate == null ? null : new LocalDate(pendingFromDate);
+    }
+
+    private Map<Long, BigDecimal> retrieveSnapshotBalances(final Long officeId, final LocalDate snapshotDate) {
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select b.account_id as accountId, sum(b.closing_balance) as balance ")
+                .append("from acc_gl_account_daily_balance b ")
+                .append("inner join (select office_id, account_id, max(balance_date) as balance_date ")
+                .append("from acc_gl_account_daily_balance where balance_date <= ? ");
+        final List<Object> params = new ArrayList<>();
+        params.add(snapshotDate.toDate());
+        if (officeId != null) {
+            sqlBuilder.append("and office_id = ? ");
+            params.add(officeId);
+        }
+        sqlBuilder.append("group by office_id, account_id) latest on latest.office_id = b.office_id ")
+                .append("and latest.account_id = b.account_id and latest.balance_date = b.balance_date ")
+                .append("group by b.account_id");
+
+        final Map<Long, BigDecimal> balances = new HashMap<>();
+        this.jdbcTemplate.query(sqlBuilder.toString(), new BalanceCallbackHandler(balances), params.toArray());
+        return balances;
+    }
+
+    /**
+     * Adds the signed amounts of the journal entries after
+     * <code>fromDateExclusive</code>, or of all entries when it is null, up to
+     * and including <code>toDate</code>.
+     */
+    private void addJournalEntryBalances(final Map<Long, BigDecimal> balances, final Long officeId, final LocalDate fromDateExclusive,
+            final LocalDate toDate) {
+        if (fromDateExclusive != null && !fromDateExclusive.isBefore(toDate)) { return; }
+
+        final StringBuilder sqlBuilder = new StringBuilder(300);
+        sqlBuilder.append("select je.account_id as accountId, sum(").append(SIGNED_AMOUNT).append(") as balance ")
+                .append("from acc_gl_journal_entry je join acc_gl_account glAccount on glAccount.id = je.account_id ")
+                .append("where je.entry_date <= ? ");
+        final List<Object> params = new ArrayList<>();
+        params.add(toDate.toDate());
+        if (fromDateExclusive != null) {
+            sqlBuilder.append("and je.entry_date > ? ");
+            params.add(fromDateExclusive.toDate());
+        }
+        if (officeId != null) {
+            sqlBuilder.append("and je.office_id = ? ");
+            params.add(officeId);
+        }
+        sqlBuilder.append("group by je.account_id");
+
+        this.jdbcTemplate.query(sqlBuilder.toString(), new BalanceCallbackHandler(balances), params.toArray());
+    }
+
+    private static final class BalanceCallbackHandler implements RowCallbackHandler {
+
+        private final Map<Long, BigDecimal> balances;
+
+        BalanceCallbackHandler(final Map<Long, BigDecimal> balances) {
+            this.balances = balances;
+        }
+
+        @Override
+        public void processRow(final ResultSet rs) throws SQLException {
+            final Long accountId = rs.getLong("accountId");
+            final BigDecimal balance = rs.getBigDecimal("balance");
+            final BigDecimal existing = this.balances.get(accountId);
+            this.balances.put(accountId, existing == null ? balance : existing.add(balance));
+        }
+    }
+
+    private static final class GLAccountBalanceMapper implements RowMapper<GLAccountBalanceData> {
+
+        private final Long officeId;
+        private final LocalDate asOfDate;
+        private final Map<Long, BigDecimal> balances;
+
+        GLAccountBalanceMapper(final Long officeId, final LocalDate asOfDate, final Map<Long, BigDecimal> balances) {
+            this.officeId = officeId;
+            this.asOfDate = asOfDate;
+            this.balances = balances;
+        }
+
+        public String schema() {
+            return "select gl.id as id, gl.name as name, gl.gl_code as glCode, gl.classification_enum as classification "
+                    + "from acc_gl_account gl order by gl.gl_code";
+        }
+
+        @Override
+        public GLAccountBalanceData mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            final Long id = rs.getLong("id");
+            final BigDecimal balance = this.balances.get(id);
+            if (balance == null) { return null; }
+
+            final String name = rs.getString("name");
+            final String glCode = rs.getString("glCode");
+            final Integer classification = JdbcSupport.getInteger(rs, "classification");
+            return GLAccountBalanceData.instance(id, name, glCode, AccountingEnumerations.gLAccountType(classification), this.officeId,
+                    this.asOfDate, balance);
+        }
+    }
+}
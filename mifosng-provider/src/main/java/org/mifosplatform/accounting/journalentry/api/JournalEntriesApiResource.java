@@ -19,11 +19,15 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.commons.lang.StringUtils;
 import org.mifosplatform.accounting.journalentry.data.JournalEntryAssociationParametersData;
 import org.mifosplatform.accounting.journalentry.data.JournalEntryData;
+import org.mifosplatform.accounting.journalentry.data.JournalEntryExportFormat;
 import org.mifosplatform.accounting.journalentry.service.JournalEntryReadPlatformService;
 import org.mifosplatform.commands.domain.CommandWrapper;
 import org.mifosplatform.commands.service.CommandWrapperBuilder;
@@ -104,6 +108,47 @@ public class JournalEntriesApiResource {
         return this.apiJsonSerializerService.serialize(settings, glJournalEntries, RESPONSE_DATA_PARAMETERS);
     }
 
+    /**
+     * Streams journal entries as CSV or JSON lines straight from the database
+     * cursor to the client, for exports too large to page through
+     * {@link #retrieveAll}.
+     */
+    @GET
+    @Path("export")
+    @Produces({ "text/csv", "application/x-ndjson", "application/x-gzip" })
+    public Response exportJournalEntries(@QueryParam("officeId") final Long officeId, @QueryParam("glAccountId") final Long glAccountId,
+            @QueryParam("fromDate") final DateParam fromDateParam, @QueryParam("toDate") final DateParam toDateParam,
+            @QueryParam("format") final String formatParam, @QueryParam("gzip") final boolean gzip,
+            @QueryParam("locale") final String locale, @QueryParam("dateFormat") final String dateFormat) {
+
+        this.context.authenticatedUser().validateHasReadPermission(this.resourceNameForPermission);
+
+        final JournalEntryExportFormat format = JournalEntryExportFormat.fromString(formatParam);
+        if (format == null) { throw new UnrecognizedQueryParamException("format", formatParam); }
+
+        Date fromDate = null;
+        if (fromDateParam != null) {
+            fromDate = fromDateParam.getDate("fromDate", dateFormat, locale);
+        }
+        Date toDate = null;
+        if (toDateParam != null) {
+            toDate = toDateParam.getDate("toDate", dateFormat, locale);
+        }
+
+        final StreamingOutput result = this.journalEntryReadPlatformService.exportJournalEntries(officeId, glAccountId, fromDate, toDate,
+                format, gzip);
+
+        String fileName = "journalentries." + format.getExtension();
+        final ResponseBuilder response = Response.ok(result);
+        if (gzip) {
+            fileName = fileName + ".gz";
+            response.type("application/x-gzip");
+        } else {
+            response.type(format.getMediaType() + ";charset=UTF-8");
+        }
+        return response.header("Content-Disposition", "attachment; filename=\"" + fileName + "\"").build();
+    }
+
     @GET
     @Path("{journalEntryId}")
     @Consumes({ MediaType.APPLICATION_JSON })
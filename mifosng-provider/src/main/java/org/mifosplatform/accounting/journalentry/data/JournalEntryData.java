@@ -122,4 +122,8 @@ public class JournalEntryData {
     public Long getOfficeId() {
         return this.officeId;
     }
-}
\ No newline at end of file
+
+    public LocalDate getTransactionDate() {
+        return this.transactionDate;
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.data;
+
+/**
+ * Output formats supported by the streaming journal entry export.
+ */
+public enum JournalEntryExportFormat {
+
+    CSV("csv", "text/csv"), JSONL("jsonl", "application/x-ndjson");
+
+    private final String extension;
+    private final String mediaType;
+
+    private JournalEntryExportFormat(final String extension, final String mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return this.extension;
+    }
+
+    public String getMediaType() {
+        return this.mediaType;
+    }
+
+    public static JournalEntryExportFormat fromString(final String format) {
+        if (format == null) { return CSV; }
+        for (final JournalEntryExportFormat exportFormat : JournalEntryExportFormat.values()) {
+            if (exportFormat.extension.equalsIgnoreCase(format)) { return exportFormat; }
+        }
+        return null;
+    }
+}
@@ -10,6 +10,8 @@ import java.util.List;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.mifosplatform.accounting.journalentry.service.JournalEntryBatchWriter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -18,9 +20,13 @@ public class JournalEntryRepositoryImpl implements JournalEntryRepositoryCustom
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private JournalEntryBatchWriter journalEntryBatchWriter;
+
     @Override
     @SuppressWarnings("unchecked")
     public List<JournalEntry> findFirstJournalEntryForAccount(final long glAccountId) {
+        this.journalEntryBatchWriter.flush();
         final List<JournalEntry> journalEntries = this.entityManager
                 .createQuery("SELECT journalEntry FROM JournalEntry journalEntry where journalEntry.glAccount.id= :glAccountId")
                 .setParameter("glAccountId", glAccountId).setFirstResult(0).setMaxResults(1).getResultList();
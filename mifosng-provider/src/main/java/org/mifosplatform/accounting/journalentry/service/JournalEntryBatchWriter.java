@@ -0,0 +1,160 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryType;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Writes the journal entries of portfolio transactions with plain JDBC rather
+ * than persisting and flushing a
+ * {@link org.mifosplatform.accounting.journalentry.domain.JournalEntry} at a
+ * time.
+ * 
+ * Within a transaction the entries are buffered and inserted with multi-row
+ * statements just before the transaction commits, or whenever
+ * {@link #MAX_BUFFERED_ENTRIES} are waiting. Entries written outside of a
+ * transaction are inserted straight away. Anything reading journal entries in
+ * the transaction that generated them has to {@link #flush()} first, as the
+ * journal entry and GL account balance read services and
+ * {@link org.mifosplatform.accounting.journalentry.domain.JournalEntryRepositoryCustom#findFirstJournalEntryForAccount(long)}
+ * do.
+ * 
+ * The rows are the ones the JPA mapping would write: not reversed, not manual
+ * and audited with the current user. Their running balances are left to the
+ * defaults, flagged as not calculated, for the running balance update to work
+ * out like for any other new entry.
+ */
+@Component
+public class JournalEntryBatchWriter {
+
+    static final int ROWS_PER_INSERT = 100;
+    static final int MAX_BUFFERED_ENTRIES = 1000;
+
+    private static final String INSERT_SQL = "insert into acc_gl_journal_entry (office_id, account_id, currency_code, transaction_id, "
+            + "loan_transaction_id, savings_transaction_id, entry_date, type_enum, amount, entity_type_enum, entity_id, created_date, "
+            + "lastmodified_date, createdby_id, lastmodifiedby_id, reversed, manual_entry) values ";
+    private static final String ROW_VALUES = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<AppUser> auditorAware;
+
+    @Autowired
+    public JournalEntryBatchWriter(final RoutingDataSource dataSource, final AuditorAware<AppUser> auditorAware) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.auditorAware = auditorAware;
+    }
+
+    public void write(final Long officeId, final Long accountId, final String currencyCode, final String transactionId,
+            final Long loanTransactionId, final Long savingsTransactionId, final Date transactionDate,
+            final JournalEntryType journalEntryType, final BigDecimal amount, final Integer entityType, final Long entityId) {
+        final Date now = new Date();
+        final Object[] entry = new Object[] { officeId, accountId, currencyCode, transactionId, loanTransactionId, savingsTransactionId,
+                transactionDate, journalEntryType.getValue(), amount, entityType, entityId, now, now };
+
+        final List<Object[]> buffer = currentBuffer();
+        if (buffer == null) {
+            insert(Collections.singletonList(entry));
+        } else {
+            buffer.add(entry);
+            if (buffer.size() >= MAX_BUFFERED_ENTRIES) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Inserts the entries buffered in the current transaction.
+     */
+    public void flush() {
+        @SuppressWarnings("unchecked")
+        final List<Object[]> buffer = (List<Object[]>) TransactionSynchronizationManager.getResource(this);
+        if (buffer != null && !buffer.isEmpty()) {
+            insert(buffer);
+            buffer.clear();
+        }
+    }
+
+    private List<Object[]> currentBuffer() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) { return null; }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> buffer = (List<Object[]>) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new BufferSynchronization(buffer));
+        }
+        return buffer;
+    }
+
+    private void insert(final List<Object[]> entries) {
+        final Long auditorId = this.auditorAware.getCurrentAuditor().getId();
+        for (int fromIndex = 0; fromIndex < entries.size(); fromIndex += ROWS_PER_INSERT) {
+            final List<Object[]> rows = entries.subList(fromIndex, Math.min(fromIndex + ROWS_PER_INSERT, entries.size()));
+            final StringBuilder sql = new StringBuilder(INSERT_SQL.length() + rows.size() * (ROW_VALUES.length() + 1));
+            final List<Object> args = new ArrayList<>(rows.size() * 15);
+            sql.append(INSERT_SQL);
+            for (final Object[] row : rows) {
+                if (args.size() > 0) {
+                    sql.append(',');
+                }
+                sql.append(ROW_VALUES);
+                Collections.addAll(args, row);
+                args.add(auditorId);
+                args.add(auditorId);
+            }
+            this.jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+    }
+
+    /**
+     * Writes out the buffer of a transaction before it commits, and keeps it
+     * apart from the buffers of transactions started while it is suspended.
+     */
+    private final class BufferSynchronization extends TransactionSynchronizationAdapter {
+
+        private final List<Object[]> buffer;
+
+        BufferSynchronization(final List<Object[]> buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(JournalEntryBatchWriter.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(JournalEntryBatchWriter.this, this.buffer);
+        }
+
+        @Override
+        public void beforeCommit(@SuppressWarnings("unused") final boolean readOnly) {
+            flush();
+        }
+
+        @Override
+        public void afterCompletion(@SuppressWarnings("unused") final int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(JournalEntryBatchWriter.this);
+        }
+    }
+}
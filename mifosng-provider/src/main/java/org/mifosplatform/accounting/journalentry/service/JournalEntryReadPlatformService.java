@@ -7,8 +7,11 @@ package org.mifosplatform.accounting.journalentry.service;
 
 import java.util.Date;
 
+import javax.ws.rs.core.StreamingOutput;
+
 import org.mifosplatform.accounting.journalentry.data.JournalEntryAssociationParametersData;
 import org.mifosplatform.accounting.journalentry.data.JournalEntryData;
+import org.mifosplatform.accounting.journalentry.data.JournalEntryExportFormat;
 import org.mifosplatform.infrastructure.core.service.Page;
 import org.mifosplatform.infrastructure.core.service.SearchParameters;
 
@@ -19,4 +22,12 @@ public interface JournalEntryReadPlatformService {
     Page<JournalEntryData> retrieveAll(SearchParameters searchParameters, Long glAccountId, Boolean onlyManualEntries, Date fromDate,
             Date toDate, String transactionId, Integer entityType, JournalEntryAssociationParametersData associationParametersData);
 
+    /**
+     * Returns an output that streams the matching journal entries row by row
+     * from a forward-only cursor, so memory use does not grow with the size
+     * of the export.
+     */
+    StreamingOutput exportJournalEntries(Long officeId, Long glAccountId, Date fromDate, Date toDate, JournalEntryExportFormat format,
+            boolean gzip);
+
 }
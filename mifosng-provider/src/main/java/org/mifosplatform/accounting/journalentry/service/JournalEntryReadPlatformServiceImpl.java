@@ -5,25 +5,40 @@
  */
 package org.mifosplatform.accounting.journalentry.service;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.lang.StringUtils;
 import org.joda.time.LocalDate;
 import org.mifosplatform.accounting.common.AccountingEnumerations;
 import org.mifosplatform.accounting.journalentry.data.JournalEntryAssociationParametersData;
 import org.mifosplatform.accounting.journalentry.data.JournalEntryData;
+import org.mifosplatform.accounting.journalentry.data.JournalEntryExportFormat;
 import org.mifosplatform.accounting.journalentry.data.TransactionDetailData;
 import org.mifosplatform.accounting.journalentry.data.TransactionTypeEnumData;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryType;
 import org.mifosplatform.accounting.journalentry.exception.JournalEntriesNotFoundException;
 import org.mifosplatform.infrastructure.codes.data.CodeValueData;
 import org.mifosplatform.infrastructure.core.data.EnumOptionData;
 import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
+import org.mifosplatform.infrastructure.core.domain.StreamingPreparedStatementCreator;
 import org.mifosplatform.infrastructure.core.service.Page;
 import org.mifosplatform.infrastructure.core.service.PaginationHelper;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
@@ -37,21 +52,28 @@ import org.mifosplatform.portfolio.paymentdetail.data.PaymentDetailData;
 import org.mifosplatform.portfolio.savings.data.SavingsAccountTransactionEnumData;
 import org.mifosplatform.portfolio.savings.service.SavingsEnumerations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
 @Service
 public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlatformService {
 
     private final JdbcTemplate jdbcTemplate;
+    private final JournalEntryBatchWriter journalEntryBatchWriter;
 
     private final PaginationHelper<JournalEntryData> paginationHelper = new PaginationHelper<>();
 
     @Autowired
-    public JournalEntryReadPlatformServiceImpl(final RoutingDataSource dataSource) {
+    public JournalEntryReadPlatformServiceImpl(final RoutingDataSource dataSource, final JournalEntryBatchWriter journalEntryBatchWriter) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.journalEntryBatchWriter = journalEntryBatchWriter;
     }
 
     private static final class GLJournalEntryMapper implements RowMapper<JournalEntryData> {
@@ -212,6 +234,8 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
             final Boolean onlyManualEntries, final Date fromDate, final Date toDate, final String transactionId, final Integer entityType,
             final JournalEntryAssociationParametersData associationParametersData) {
 
+        this.journalEntryBatchWriter.flush();
+
         GLJournalEntryMapper rm = new GLJournalEntryMapper(associationParametersData);
         final StringBuilder sqlBuilder = new StringBuilder(200);
         sqlBuilder.append("select SQL_CALC_FOUND_ROWS ");
@@ -320,6 +344,7 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
     @Override
     public JournalEntryData retrieveGLJournalEntryById(final long glJournalEntryId,
             JournalEntryAssociationParametersData associationParametersData) {
+        this.journalEntryBatchWriter.flush();
         try {
 
             final GLJournalEntryMapper rm = new GLJournalEntryMapper(associationParametersData);
@@ -333,4 +358,212 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
         }
     }
 
+    @Override
+    public StreamingOutput exportJournalEntries(final Long officeId, final Long glAccountId, final Date fromDate, final Date toDate,
+            final JournalEntryExportFormat format, final boolean gzip) {
+
+        final StringBuilder sqlBuilder = new StringBuilder(200);
+        sqlBuilder.append("select ").append(JournalEntryExportRowHandler.SCHEMA);
+
+        final List<Object> params = new ArrayList<>();
+        String whereClose = " where ";
+        if (officeId != null) {
+            sqlBuilder.append(whereClose).append(" journalEntry.office_id = ?");
+            params.add(officeId);
+            whereClose = " and ";
+        }
+        if (glAccountId != null && glAccountId != 0) {
+            sqlBuilder.append(whereClose).append(" journalEntry.account_id = ?");
+            params.add(glAccountId);
+            whereClose = " and ";
+        }
+        final DateFormat df = new SimpleDateFormat("yyyy-MM-dd");
+        if (fromDate != null) {
+            sqlBuilder.append(whereClose).append(" journalEntry.entry_date >= ?");
+            params.add(df.format(fromDate));
+            whereClose = " and ";
+        }
+        if (toDate != null) {
+            sqlBuilder.append(whereClose).append(" journalEntry.entry_date <= ?");
+            params.add(df.format(toDate));
+            whereClose = " and ";
+        }
+        sqlBuilder.append(" order by journalEntry.entry_date, journalEntry.id");
+
+        final String sql = sqlBuilder.toString();
+        final Object[] args = params.toArray();
+        final JdbcTemplate template = this.jdbcTemplate;
+
+        return new StreamingOutput() {
+
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                final GZIPOutputStream gzipOutput = gzip ? new GZIPOutputStream(output, 8192) : null;
+                final Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? gzipOutput : output, StandardCharsets.UTF_8),
+                        8192);
+                final JournalEntryExportRowHandler handler = JournalEntryExportFormat.JSONL.equals(format) ? new JsonLinesRowHandler(
+                        writer) : new CsvRowHandler(writer);
+                try {
+                    handler.writeHeader();
+                    template.query(StreamingPreparedStatementCreator.forMysql(sql, args), handler);
+                } catch (final ExportWriteException e) {
+                    throw e.getCause();
+                } catch (final DataAccessException e) {
+                    // the response is already committed, so a truncated
+                    // body is the only way left to signal the failure
+                    throw new IOException("Journal entry export aborted", e);
+                }
+                writer.flush();
+                if (gzipOutput != null) {
+                    gzipOutput.finish();
+                }
+            }
+        };
+    }
+
+    /**
+     * Signals that writing to the client failed while the cursor was open.
+     * {@link RowCallbackHandler} can only throw {@link SQLException} so the
+     * {@link IOException} is carried out of the jdbc template unchecked.
+     */
+    private static final class ExportWriteException extends RuntimeException {
+
+        ExportWriteException(final IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    private abstract static class JournalEntryExportRowHandler implements RowCallbackHandler {
+
+        static final String SCHEMA = " journalEntry.id as id, journalEntry.entry_date as transactionDate, "
+                + " journalEntry.office_id as officeId, office.name as officeName, "
+                + " glAccount.id as glAccountId, glAccount.gl_code as glAccountCode, glAccount.name as glAccountName, "
+                + " journalEntry.type_enum as entryType, journalEntry.amount as amount, journalEntry.currency_code as currencyCode, "
+                + " journalEntry.transaction_id as transactionId, journalEntry.entity_type_enum as entityType, "
+                + " journalEntry.entity_id as entityId, journalEntry.manual_entry as manualEntry, journalEntry.reversed as reversed, "
+                + " journalEntry.ref_num as referenceNumber, creatingUser.username as createdByUserName, "
+                + " journalEntry.created_date as createdDate, journalEntry.description as comments "
+                + " from acc_gl_journal_entry as journalEntry "
+                + " left join acc_gl_account as glAccount on glAccount.id = journalEntry.account_id "
+                + " left join m_office as office on office.id = journalEntry.office_id "
+                + " left join m_appuser as creatingUser on creatingUser.id = journalEntry.createdby_id ";
+
+        static final String[] COLUMNS = { "id", "transactionDate", "officeId", "officeName", "glAccountId", "glAccountCode",
+                "glAccountName", "entryType", "amount", "currencyCode", "transactionId", "entityType", "entityId", "manualEntry",
+                "reversed", "referenceNumber", "createdByUserName", "createdDate", "comments" };
+
+        protected final Writer writer;
+
+        JournalEntryExportRowHandler(final Writer writer) {
+            this.writer = writer;
+        }
+
+        abstract void writeHeader() throws IOException;
+
+        abstract void writeRow(Object[] values) throws IOException;
+
+        @Override
+        public void processRow(final ResultSet rs) throws SQLException {
+            final Object[] values = new Object[COLUMNS.length];
+            values[0] = rs.getLong("id");
+            values[1] = formatDate(JdbcSupport.getLocalDate(rs, "transactionDate"));
+            values[2] = JdbcSupport.getLong(rs, "officeId");
+            values[3] = rs.getString("officeName");
+            values[4] = JdbcSupport.getLong(rs, "glAccountId");
+            values[5] = rs.getString("glAccountCode");
+            values[6] = rs.getString("glAccountName");
+            final Integer entryType = JdbcSupport.getInteger(rs, "entryType");
+            values[7] = entryType == null ? null : JournalEntryType.fromInt(entryType).name();
+            values[8] = rs.getBigDecimal("amount");
+            values[9] = rs.getString("currencyCode");
+            values[10] = rs.getString("transactionId");
+            final Integer entityType = JdbcSupport.getInteger(rs, "entityType");
+            values[11] = entityType == null ? null : AccountingEnumerations.portfolioProductType(entityType).getValue();
+            values[12] = JdbcSupport.getLong(rs, "entityId");
+            values[13] = rs.getBoolean("manualEntry");
+            values[14] = rs.getBoolean("reversed");
+            values[15] = rs.getString("referenceNumber");
+            values[16] = rs.getString("createdByUserName");
+            values[17] = formatDate(JdbcSupport.getLocalDate(rs, "createdDate"));
+            values[18] = rs.getString("comments");
+            try {
+                writeRow(values);
+            } catch (final IOException e) {
+                throw new ExportWriteException(e);
+            }
+        }
+
+        private static String formatDate(final LocalDate date) {
+            return date == null ? null : date.toString();
+        }
+    }
+
+    private static final class CsvRowHandler extends JournalEntryExportRowHandler {
+
+        CsvRowHandler(final Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void writeHeader() throws IOException {
+            writeRow(COLUMNS);
+        }
+
+        @Override
+        void writeRow(final Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    this.writer.write(',');
+                }
+                final Object value = values[i];
+                if (value != null) {
+                    final String text = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+                    if (StringUtils.containsAny(text, ",\"\r\n")) {
+                        this.writer.write('"');
+                        this.writer.write(text.replace("\"", "\"\""));
+                        this.writer.write('"');
+                    } else {
+                        this.writer.write(text);
+                    }
+                }
+            }
+            this.writer.write("\r\n");
+        }
+    }
+
+    private static final class JsonLinesRowHandler extends JournalEntryExportRowHandler {
+
+        private final Gson gson = new Gson();
+
+        JsonLinesRowHandler(final Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void writeHeader() {
+            // each line is a self describing json object
+        }
+
+        @Override
+        void writeRow(final Object[] values) throws IOException {
+            final JsonObject row = new JsonObject();
+            for (int i = 0; i < values.length; i++) {
+                final Object value = values[i];
+                if (value instanceof Number) {
+                    row.addProperty(COLUMNS[i], (Number) value);
+                } else if (value instanceof Boolean) {
+                    row.addProperty(COLUMNS[i], (Boolean) value);
+                } else if (value != null) {
+                    row.addProperty(COLUMNS[i], value.toString());
+                }
+            }
+            this.gson.toJson(row, this.writer);
+            this.writer.write('\n');
+        }
+    }
 }
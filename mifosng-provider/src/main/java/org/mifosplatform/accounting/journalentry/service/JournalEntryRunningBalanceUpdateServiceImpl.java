@@ -8,11 +8,18 @@ package org.mifosplatform.accounting.journalentry.service;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.joda.time.LocalDate;
 import org.mifosplatform.accounting.common.AccountingEnumerations;
 import org.mifosplatform.accounting.glaccount.domain.GLAccountType;
 import org.mifosplatform.accounting.journalentry.api.JournalEntryJsonInputParams;
@@ -22,10 +29,14 @@ import org.mifosplatform.accounting.journalentry.domain.JournalEntryType;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.mifosplatform.infrastructure.core.data.EnumOptionData;
 import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
+import org.mifosplatform.infrastructure.core.domain.StreamingPreparedStatementCreator;
+import org.mifosplatform.infrastructure.core.exception.PlatformInternalServerException;
 import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextAwareCallable;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
 import org.mifosplatform.organisation.office.domain.Office;
@@ -36,23 +47,38 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 @Service
 public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntryRunningBalanceUpdateService {
 
     private final static Logger logger = LoggerFactory.getLogger(JournalEntryRunningBalanceUpdateServiceImpl.class);
 
+    /**
+     * Number of journal entry updates sent to the database and committed
+     * together; bounds the memory used by a run regardless of the number of
+     * entries to be processed.
+     */
+    private static final int UPDATE_BATCH_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
 
+    private final JpaTransactionManager transactionManager;
+
     private final OfficeRepository officeRepository;
 
     private final JournalEntryDataValidator dataValidator;
 
     private final FromJsonHelper fromApiJsonHelper;
 
+    private final ConfigurationDomainService configurationDomainService;
+
     private final GLJournalEntryMapper entryMapper = new GLJournalEntryMapper();
     private final String officeRunningBalanceSql = "select je.office_running_balance as runningBalance,je.account_id as accountId from acc_gl_journal_entry je "
             + "inner join (select max(id) as id from acc_gl_journal_entry where office_id=?  and entry_date < ? group by account_id,entry_date) je2 "
@@ -70,13 +96,28 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
             + "inner join (select max(entry_date) as date from acc_gl_journal_entry where entry_date < ? group by office_id,account_id) je3 "
             + "where je2.id = je.id and je.entry_date = je3.date group by je.id order by je.entry_date DESC";
 
+    private final String organizationRunningBalanceUpdateSql = "UPDATE acc_gl_journal_entry je SET je.is_running_balance_calculated=1, "
+            + "je.organization_running_balance=?, je.office_running_balance=? WHERE je.id=?";
+
+    private final String organizationRunningBalanceOnlyUpdateSql = "UPDATE acc_gl_journal_entry je SET je.is_running_balance_calculated=1, "
+            + "je.organization_running_balance=? WHERE je.id=?";
+
+    private final String officeRunningBalanceUpdateSql = "UPDATE acc_gl_journal_entry je SET je.office_running_balance=? WHERE je.id=?";
+
+    private final String dailyBalanceUpsertSql = "INSERT INTO acc_gl_account_daily_balance (office_id, account_id, balance_date, "
+            + "debit_amount, credit_amount, closing_balance) VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "debit_amount=VALUES(debit_amount), credit_amount=VALUES(credit_amount), closing_balance=VALUES(closing_balance)";
+
     @Autowired
     public JournalEntryRunningBalanceUpdateServiceImpl(final RoutingDataSource dataSource, final OfficeRepository officeRepository,
-            final JournalEntryDataValidator dataValidator, final FromJsonHelper fromApiJsonHelper) {
+            final JournalEntryDataValidator dataValidator, final FromJsonHelper fromApiJsonHelper,
+            final JpaTransactionManager transactionManager, final ConfigurationDomainService configurationDomainService) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionManager = transactionManager;
         this.officeRepository = officeRepository;
         this.dataValidator = dataValidator;
         this.fromApiJsonHelper = fromApiJsonHelper;
+        this.configurationDomainService = configurationDomainService;
     }
 
     @Override
@@ -85,8 +126,16 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
         String dateFinder = "select MIN(je.entry_date) as entityDate from acc_gl_journal_entry  je "
                 + "where je.is_running_balance_calculated=0 ";
         try {
-            Date entityDate = this.jdbcTemplate.queryForObject(dateFinder, Date.class);
-            updateOrganizationRunningBalance(entityDate);
+            final Date entityDate = resumeFrom(null, this.jdbcTemplate.queryForObject(dateFinder, Date.class));
+            if (entityDate != null) {
+                final Integer poolSize = this.configurationDomainService.retrieveParallelRunningBalanceUpdatePoolSize();
+                if (poolSize != null && poolSize > 1) {
+                    updateOfficeRunningBalancesInParallel(poolSize);
+                    updateOrganizationRunningBalance(entityDate, false);
+                } else {
+                    updateOrganizationRunningBalance(entityDate, true);
+                }
+            }
         } catch (EmptyResultDataAccessException e) {
             logger.debug("No results found for updation of running balance ");
         }
@@ -108,8 +157,10 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
             String dateFinder = "select MIN(je.entry_date) as entityDate " + "from acc_gl_journal_entry  je "
                     + "where je.is_running_balance_calculated=0  and je.office_id=?";
             try {
-                Date entityDate = this.jdbcTemplate.queryForObject(dateFinder, Date.class, officeId);
-                updateRunningBalance(officeId, entityDate);
+                final Date entityDate = resumeFrom(officeId, this.jdbcTemplate.queryForObject(dateFinder, Date.class, officeId));
+                if (entityDate != null) {
+                    updateRunningBalance(officeId, entityDate);
+                }
             } catch (EmptyResultDataAccessException e) {
                 logger.debug("No results found for updation of office running balance with office id:" + officeId);
             }
@@ -118,10 +169,20 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
         return commandProcessingResultBuilder.build();
     }
 
-    @Transactional
-    private void updateOrganizationRunningBalance(Date entityDate) {
-        Map<Long, BigDecimal> runningBalanceMap = new HashMap<>(5);
-        Map<Long, Map<Long, BigDecimal>> officesRunningBalance = new HashMap<>();
+    /**
+     * Streams every journal entry on or after <code>entityDate</code> through
+     * a forward-only cursor and writes the recomputed balances back in chunks
+     * of {@link #UPDATE_BATCH_SIZE}, each committed in its own transaction.
+     * Only the per account running balances are held in memory.
+     * 
+     * When <code>withOfficeRunningBalance</code> is false the office running
+     * balances, and with them the daily GL account balances, are expected to
+     * be up to date already and only the organization running balance is
+     * written.
+     */
+    private void updateOrganizationRunningBalance(final Date entityDate, final boolean withOfficeRunningBalance) {
+        final Map<Long, BigDecimal> runningBalanceMap = new HashMap<>(5);
+        final Map<Long, Map<Long, BigDecimal>> officesRunningBalance = new HashMap<>();
 
         List<Map<String, Object>> list = jdbcTemplate.queryForList(organizationRunningBalanceSql, entityDate, entityDate);
         for (Map<String, Object> entries : list) {
@@ -131,6 +192,25 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
             }
         }
 
+        if (!withOfficeRunningBalance) {
+            final RunningBalanceUpdateBatch batch = new RunningBalanceUpdateBatch(null, this.organizationRunningBalanceOnlyUpdateSql);
+            this.jdbcTemplate.query(
+                    StreamingPreparedStatementCreator.forMysql(this.entryMapper.organizationRunningBalanceSchema(), entityDate),
+                    new RowCallbackHandler() {
+
+                        @Override
+                        public void processRow(final ResultSet rs) throws SQLException {
+                            final JournalEntryData entryData = JournalEntryRunningBalanceUpdateServiceImpl.this.entryMapper.mapRow(rs,
+                                    rs.getRow());
+                            final BigDecimal runningBalance = calculateRunningBalance(entryData, runningBalanceMap);
+                            batch.add(entryData.getTransactionDate(), new Object[] { runningBalance, entryData.getId() });
+                        }
+                    });
+            batch.flush();
+            clearCheckpoint(null);
+            return;
+        }
+
         List<Map<String, Object>> officesRunningBalanceList = jdbcTemplate.queryForList(officesRunningBalanceSql, entityDate, entityDate);
         for (Map<String, Object> entries : officesRunningBalanceList) {
             Long accountId = (Long) entries.get("accountId");
@@ -147,33 +227,37 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
             }
         }
 
-        List<JournalEntryData> entryDatas = jdbcTemplate.query(entryMapper.organizationRunningBalanceSchema(), entryMapper,
-                new Object[] { entityDate });
-        if (entryDatas.size() > 0) {
-            String[] updateSql = new String[entryDatas.size()];
-            int i = 0;
-            for (JournalEntryData entryData : entryDatas) {
-                Map<Long, BigDecimal> officeRunningBalanceMap = null;
-                if (officesRunningBalance.containsKey(entryData.getOfficeId())) {
-                    officeRunningBalanceMap = officesRunningBalance.get(entryData.getOfficeId());
-                } else {
-                    officeRunningBalanceMap = new HashMap<>();
-                    officesRunningBalance.put(entryData.getOfficeId(), officeRunningBalanceMap);
-                }
-                BigDecimal officeRunningBalance = calculateRunningBalance(entryData, officeRunningBalanceMap);
-                BigDecimal runningBalance = calculateRunningBalance(entryData, runningBalanceMap);
-                String sql = "UPDATE acc_gl_journal_entry je SET je.is_running_balance_calculated=1, je.organization_running_balance="
-                        + runningBalance + ",je.office_running_balance=" + officeRunningBalance + " WHERE  je.id=" + entryData.getId();
-                updateSql[i++] = sql;
-            }
-            this.jdbcTemplate.batchUpdate(updateSql);
-        }
+        this.jdbcTemplate.update("delete from acc_gl_account_daily_balance where balance_date >= ?", entityDate);
+        final RunningBalanceUpdateBatch batch = new RunningBalanceUpdateBatch(null, this.organizationRunningBalanceUpdateSql);
+        final DailyBalanceSnapshot dailyBalances = new DailyBalanceSnapshot(batch);
+        this.jdbcTemplate.query(StreamingPreparedStatementCreator.forMysql(this.entryMapper.organizationRunningBalanceSchema(), entityDate),
+                new RowCallbackHandler() {
 
+                    @Override
+                    public void processRow(final ResultSet rs) throws SQLException {
+                        final JournalEntryData entryData = JournalEntryRunningBalanceUpdateServiceImpl.this.entryMapper.mapRow(rs,
+                                rs.getRow());
+                        Map<Long, BigDecimal> officeRunningBalanceMap = officesRunningBalance.get(entryData.getOfficeId());
+                        if (officeRunningBalanceMap == null) {
+                            officeRunningBalanceMap = new HashMap<>();
+                            officesRunningBalance.put(entryData.getOfficeId(), officeRunningBalanceMap);
+                        }
+                        final BigDecimal officeRunningBalance = calculateRunningBalance(entryData, officeRunningBalanceMap);
+                        final BigDecimal runningBalance = calculateRunningBalance(entryData, runningBalanceMap);
+                        dailyBalances.add(entryData, officeRunningBalance);
+                        batch.add(entryData.getTransactionDate(), new Object[] { runningBalance, officeRunningBalance, entryData.getId() });
+                    }
+                });
+        dailyBalances.finish();
+        batch.flush();
+        clearCheckpoint(null);
+        // every office was recomputed from entityDate as well
+        this.jdbcTemplate.update("delete from acc_gl_running_balance_checkpoint where office_id is not null and resume_from_date >= ?",
+                entityDate);
     }
 
-    @Transactional
-    private void updateRunningBalance(Long officeId, Date entityDate) {
-        Map<Long, BigDecimal> runningBalanceMap = new HashMap<>(5);
+    private void updateRunningBalance(final Long officeId, final Date entityDate) {
+        final Map<Long, BigDecimal> runningBalanceMap = new HashMap<>(5);
 
         List<Map<String, Object>> list = jdbcTemplate.queryForList(officeRunningBalanceSql, officeId, entityDate, officeId, entityDate);
         for (Map<String, Object> entries : list) {
@@ -182,17 +266,124 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
                 runningBalanceMap.put(accountId, (BigDecimal) entries.get("runningBalance"));
             }
         }
-        List<JournalEntryData> entryDatas = jdbcTemplate.query(entryMapper.officeRunningBalanceSchema(), entryMapper, new Object[] {
-                officeId, entityDate });
-        String[] updateSql = new String[entryDatas.size()];
-        int i = 0;
-        for (JournalEntryData entryData : entryDatas) {
-            BigDecimal runningBalance = calculateRunningBalance(entryData, runningBalanceMap);
-            String sql = "UPDATE acc_gl_journal_entry je SET je.office_running_balance=" + runningBalance + " WHERE  je.id="
-                    + entryData.getId();
-            updateSql[i++] = sql;
+
+        this.jdbcTemplate.update("delete from acc_gl_account_daily_balance where office_id = ? and balance_date >= ?", officeId,
+                entityDate);
+        final RunningBalanceUpdateBatch batch = new RunningBalanceUpdateBatch(officeId, this.officeRunningBalanceUpdateSql);
+        final DailyBalanceSnapshot dailyBalances = new DailyBalanceSnapshot(batch);
+        this.jdbcTemplate.query(
+                StreamingPreparedStatementCreator.forMysql(this.entryMapper.officeRunningBalanceSchema(), officeId, entityDate),
+                new RowCallbackHandler() {
+
+                    @Override
+                    public void processRow(final ResultSet rs) throws SQLException {
+                        final JournalEntryData entryData = JournalEntryRunningBalanceUpdateServiceImpl.this.entryMapper.mapRow(rs,
+                                rs.getRow());
+                        final BigDecimal runningBalance = calculateRunningBalance(entryData, runningBalanceMap);
+                        dailyBalances.add(entryData, runningBalance);
+                        batch.add(entryData.getTransactionDate(), new Object[] { runningBalance, entryData.getId() });
+                    }
+                });
+        dailyBalances.finish();
+        batch.flush();
+        clearCheckpoint(officeId);
+    }
+
+    /**
+     * Office running balances are independent of each other, so each office
+     * with pending entries is handed to a bounded pool of workers. Every
+     * worker streams and updates its office on its own connection from the
+     * tenant's {@link RoutingDataSource}. The organization running balance,
+     * which depends on the order of entries across all offices, is computed
+     * afterwards by the caller.
+     */
+    private void updateOfficeRunningBalancesInParallel(final int poolSize) {
+        final Map<Long, Date> officeEntityDates = new LinkedHashMap<>();
+        final List<Map<String, Object>> pendingOffices = this.jdbcTemplate.queryForList("select je.office_id as officeId, "
+                + "MIN(je.entry_date) as entityDate from acc_gl_journal_entry je where je.is_running_balance_calculated=0 "
+                + "group by je.office_id");
+        for (final Map<String, Object> pendingOffice : pendingOffices) {
+            officeEntityDates.put((Long) pendingOffice.get("officeId"), (Date) pendingOffice.get("entityDate"));
+        }
+        final List<Long> checkpointedOffices = this.jdbcTemplate.queryForList(
+                "select distinct cp.office_id from acc_gl_running_balance_checkpoint cp where cp.office_id is not null", Long.class);
+        for (final Long officeId : checkpointedOffices) {
+            if (!officeEntityDates.containsKey(officeId)) {
+                officeEntityDates.put(officeId, null);
+            }
+        }
+        if (officeEntityDates.isEmpty()) { return; }
+
+        final long startTime = System.currentTimeMillis();
+        final ExecutorService executorService = Executors.newFixedThreadPool(Math.min(poolSize, officeEntityDates.size()));
+        final Map<Long, Future<Void>> officeUpdates = new LinkedHashMap<>();
+        try {
+            for (final Map.Entry<Long, Date> officeEntityDate : officeEntityDates.entrySet()) {
+                final Long officeId = officeEntityDate.getKey();
+                final Date firstUncalculatedEntryDate = officeEntityDate.getValue();
+                officeUpdates.put(officeId, executorService.submit(new ThreadLocalContextAwareCallable<Void>() {
+
+                    @Override
+                    protected Void callInContext() {
+                        final Date entityDate = resumeFrom(officeId, firstUncalculatedEntryDate);
+                        if (entityDate != null) {
+                            updateRunningBalance(officeId, entityDate);
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            final StringBuilder failures = new StringBuilder();
+            for (final Map.Entry<Long, Future<Void>> officeUpdate : officeUpdates.entrySet()) {
+                try {
+                    officeUpdate.getValue().get();
+                } catch (final ExecutionException e) {
+                    logger.error("Running balance update failed for office " + officeUpdate.getKey(), e.getCause());
+                    failures.append(" ").append(officeUpdate.getKey());
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new PlatformInternalServerException("error.msg.running.balance.update.interrupted",
+                            "Running balance update was interrupted");
+                }
+            }
+            if (failures.length() > 0) {
+                // the organization pass flags entries as calculated, so it must
+                // not run while any office balance is incomplete
+                throw new PlatformInternalServerException("error.msg.running.balance.update.failed",
+                        "Running balance update failed for offices:" + failures, failures.toString().trim());
+            }
+        } finally {
+            executorService.shutdownNow();
         }
-        this.jdbcTemplate.batchUpdate(updateSql);
+        logger.info("Office running balances for " + officeEntityDates.size() + " offices updated using " + poolSize + " workers in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    /**
+     * A previous run that did not complete leaves a checkpoint behind; entries
+     * flagged as calculated after that date may still carry stale balances, so
+     * processing has to restart from the earlier of the two dates.
+     */
+    private Date resumeFrom(final Long officeId, final Date firstUncalculatedEntryDate) {
+        final Date checkpoint = this.jdbcTemplate.queryForObject(
+                "select MIN(cp.resume_from_date) from acc_gl_running_balance_checkpoint cp where cp.office_id <=> ?", Date.class,
+                officeId);
+        if (checkpoint == null) { return firstUncalculatedEntryDate; }
+        logger.info("Resuming running balance update for office " + officeId + " from checkpoint " + checkpoint);
+        if (firstUncalculatedEntryDate == null || checkpoint.before(firstUncalculatedEntryDate)) { return checkpoint; }
+        return firstUncalculatedEntryDate;
+    }
+
+    private void saveCheckpoint(final Long officeId, final LocalDate resumeFromDate) {
+        clearCheckpoint(officeId);
+        this.jdbcTemplate.update(
+                "insert into acc_gl_running_balance_checkpoint (office_id, resume_from_date, lastmodified_date) values (?, ?, now())",
+                officeId, resumeFromDate.toDate());
+    }
+
+    private void clearCheckpoint(final Long officeId) {
+        this.jdbcTemplate.update("delete from acc_gl_running_balance_checkpoint where office_id <=> ?", officeId);
     }
 
     private BigDecimal calculateRunningBalance(JournalEntryData entry, Map<Long, BigDecimal> runningBalanceMap) {
@@ -239,18 +430,128 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
         return runningBalance;
     }
 
+    /**
+     * Buffers parameterized running balance updates and commits them, together
+     * with the resume checkpoint, every {@link #UPDATE_BATCH_SIZE} entries.
+     * Entries arrive ordered by entry date, so once a chunk is committed every
+     * entry before the date of its last entry has been processed. Daily GL
+     * account balances completed while the chunk was collected are written in
+     * the same transaction.
+     */
+    private final class RunningBalanceUpdateBatch {
+
+        private final Long officeId;
+        private final String updateSql;
+        private final List<Object[]> batchArgs = new ArrayList<>(UPDATE_BATCH_SIZE);
+        private final List<Object[]> dailyBalanceArgs = new ArrayList<>();
+        private LocalDate lastEntryDate;
+
+        RunningBalanceUpdateBatch(final Long officeId, final String updateSql) {
+            this.officeId = officeId;
+            this.updateSql = updateSql;
+        }
+
+        void add(final LocalDate entryDate, final Object[] args) {
+            this.batchArgs.add(args);
+            this.lastEntryDate = entryDate;
+            if (this.batchArgs.size() >= UPDATE_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void addDailyBalance(final Object[] args) {
+            this.dailyBalanceArgs.add(args);
+        }
+
+        void flush() {
+            if (this.batchArgs.isEmpty() && this.dailyBalanceArgs.isEmpty()) { return; }
+            // the streaming cursor still holds its own connection, so each
+            // chunk is written and committed on a new one
+            final TransactionStatus transactionStatus = JournalEntryRunningBalanceUpdateServiceImpl.this.transactionManager
+                    .getTransaction(new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+            try {
+                if (!this.batchArgs.isEmpty()) {
+                    JournalEntryRunningBalanceUpdateServiceImpl.this.jdbcTemplate.batchUpdate(this.updateSql, this.batchArgs);
+                }
+                if (!this.dailyBalanceArgs.isEmpty()) {
+                    JournalEntryRunningBalanceUpdateServiceImpl.this.jdbcTemplate.batchUpdate(
+                            JournalEntryRunningBalanceUpdateServiceImpl.this.dailyBalanceUpsertSql, this.dailyBalanceArgs);
+                }
+                saveCheckpoint(this.officeId, this.lastEntryDate);
+            } catch (final RuntimeException e) {
+                JournalEntryRunningBalanceUpdateServiceImpl.this.transactionManager.rollback(transactionStatus);
+                throw e;
+            }
+            JournalEntryRunningBalanceUpdateServiceImpl.this.transactionManager.commit(transactionStatus);
+            this.batchArgs.clear();
+            this.dailyBalanceArgs.clear();
+        }
+    }
+
+    /**
+     * Totals the debits and credits of each office and GL account for the day
+     * being streamed and keeps the office running balance after the last entry
+     * of the day. Entries arrive ordered by entry date, so a day is complete,
+     * and handed to the batch, as soon as an entry of the next day is seen.
+     */
+    private static final class DailyBalanceSnapshot {
+
+        private final RunningBalanceUpdateBatch batch;
+        private final Map<Long, Map<Long, BigDecimal[]>> officeAccountTotals = new HashMap<>();
+        private LocalDate balanceDate;
+
+        DailyBalanceSnapshot(final RunningBalanceUpdateBatch batch) {
+            this.batch = batch;
+        }
+
+        void add(final JournalEntryData entry, final BigDecimal officeRunningBalance) {
+            if (this.balanceDate != null && !this.balanceDate.equals(entry.getTransactionDate())) {
+                finish();
+            }
+            this.balanceDate = entry.getTransactionDate();
+
+            Map<Long, BigDecimal[]> accountTotals = this.officeAccountTotals.get(entry.getOfficeId());
+            if (accountTotals == null) {
+                accountTotals = new HashMap<>();
+                this.officeAccountTotals.put(entry.getOfficeId(), accountTotals);
+            }
+            BigDecimal[] totals = accountTotals.get(entry.getGlAccountId());
+            if (totals == null) {
+                totals = new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO, null };
+                accountTotals.put(entry.getGlAccountId(), totals);
+            }
+            if (JournalEntryType.fromInt(entry.getEntryType().getId().intValue()).isDebitType()) {
+                totals[0] = totals[0].add(entry.getAmount());
+            } else {
+                totals[1] = totals[1].add(entry.getAmount());
+            }
+            totals[2] = officeRunningBalance;
+        }
+
+        void finish() {
+            for (final Map.Entry<Long, Map<Long, BigDecimal[]>> officeTotals : this.officeAccountTotals.entrySet()) {
+                for (final Map.Entry<Long, BigDecimal[]> accountTotals : officeTotals.getValue().entrySet()) {
+                    final BigDecimal[] totals = accountTotals.getValue();
+                    this.batch.addDailyBalance(new Object[] { officeTotals.getKey(), accountTotals.getKey(), this.balanceDate.toDate(),
+                            totals[0], totals[1], totals[2] });
+                }
+            }
+            this.officeAccountTotals.clear();
+        }
+    }
+
     private static final class GLJournalEntryMapper implements RowMapper<JournalEntryData> {
 
         public String officeRunningBalanceSchema() {
             return "select je.id as id,je.account_id as glAccountId,je.type_enum as entryType,je.amount as amount, "
-                    + "glAccount.classification_enum as classification,je.office_id as officeId "
+                    + "je.entry_date as entryDate, glAccount.classification_enum as classification,je.office_id as officeId "
                     + "from acc_gl_journal_entry je , acc_gl_account glAccount " + "where je.account_id = glAccount.id "
                     + "and je.office_id=? and je.entry_date >= ? order by je.entry_date,je.id";
         }
 
         public String organizationRunningBalanceSchema() {
             return "select je.id as id,je.account_id as glAccountId," + "je.type_enum as entryType,je.amount as amount, "
-                    + "glAccount.classification_enum as classification,je.office_id as officeId  "
+                    + "je.entry_date as entryDate, glAccount.classification_enum as classification,je.office_id as officeId  "
                     + "from acc_gl_journal_entry je , acc_gl_account glAccount " + "where je.account_id = glAccount.id "
                     + "and je.entry_date >= ? order by je.entry_date,je.id";
         }
@@ -266,9 +567,10 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
             final BigDecimal amount = rs.getBigDecimal("amount");
             final int entryTypeId = JdbcSupport.getInteger(rs, "entryType");
             final EnumOptionData entryType = AccountingEnumerations.journalEntryType(entryTypeId);
+            final LocalDate transactionDate = JdbcSupport.getLocalDate(rs, "entryDate");
 
-            return new JournalEntryData(id, officeId, null, null, glAccountId, null, accountType, null, entryType, amount, null, null,
-                    null, null, null, null, null, null, null, null, null, null, null, null, null);
+            return new JournalEntryData(id, officeId, null, null, glAccountId, null, accountType, transactionDate, entryType, amount, null,
+                    null, null, null, null, null, null, null, null, null, null, null, null, null, null);
         }
     }
 
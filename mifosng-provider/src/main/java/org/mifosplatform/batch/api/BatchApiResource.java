@@ -78,6 +78,9 @@ public class BatchApiResource {
      * 
      * @param jsonRequestString
      * @param enclosingTransaction
+     * @param parallel
+     *            processes independent requests concurrently, only applies
+     *            without an enclosing transaction
      * @param uriInfo
      * @return serialized JSON
      */
@@ -85,7 +88,8 @@ public class BatchApiResource {
     @Consumes({ MediaType.APPLICATION_JSON })
     @Produces({ MediaType.APPLICATION_JSON })
     public String handleBatchRequests(@DefaultValue("false") @QueryParam("enclosingTransaction") final boolean enclosingTransaction,
-            final String jsonRequestString, @Context UriInfo uriInfo) {
+            @DefaultValue("false") @QueryParam("parallel") final boolean parallel, final String jsonRequestString,
+            @Context UriInfo uriInfo) {
 
         // Handles user authentication
         this.context.authenticatedUser();
@@ -100,6 +104,8 @@ public class BatchApiResource {
         // be rolled back on error
         if (enclosingTransaction) {
             result = service.handleBatchRequestsWithEnclosingTransaction(requestList, uriInfo);
+        } else if (parallel) {
+            result = service.handleBatchRequestsInParallelWithoutEnclosingTransaction(requestList, uriInfo);
         } else {
             result = service.handleBatchRequestsWithoutEnclosingTransaction(requestList, uriInfo);
         }
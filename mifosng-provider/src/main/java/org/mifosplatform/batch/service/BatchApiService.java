@@ -36,6 +36,21 @@ public interface BatchApiService {
      */
     List<BatchResponse> handleBatchRequestsWithoutEnclosingTransaction(List<BatchRequest> requestList, UriInfo uriInfo);
 
+    /**
+     * Returns the same list of
+     * {@link org.mifosplatform.batch.domain.BatchResponse}s as
+     * {@link #handleBatchRequestsWithoutEnclosingTransaction(List, UriInfo)},
+     * but processes requests that do not depend on each other concurrently.
+     * Each root request is processed along with the requests depending on it,
+     * which are still processed in order. It will be used when the Query
+     * Parameter "parallel" is set to 'true' and "enclosingTransaction" is not.
+     * 
+     * @param requestList
+     * @param uriInfo
+     * @return List<BatchResponse> ordered by requestId
+     */
+    List<BatchResponse> handleBatchRequestsInParallelWithoutEnclosingTransaction(List<BatchRequest> requestList, UriInfo uriInfo);
+
     /**
      * returns a list of {@link org.mifosplatform.batch.domain.BatchResponse}s
      * by getting the appropriate CommandStrategy for every
@@ -8,6 +8,14 @@ package org.mifosplatform.batch.service;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
 
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -21,7 +29,9 @@ import org.mifosplatform.batch.domain.BatchResponse;
 import org.mifosplatform.batch.exception.ErrorHandler;
 import org.mifosplatform.batch.exception.ErrorInfo;
 import org.mifosplatform.batch.service.ResolutionHelper.BatchRequestNode;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextAwareCallable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionStatus;
@@ -46,9 +56,20 @@ import edu.emory.mathcs.backport.java.util.Collections;
 @Service
 public class BatchApiServiceImpl implements BatchApiService {
 
+    public final static String PARALLEL_THREADS = "mifos.batch.parallel-threads";
+
+    private static final Comparator<BatchResponse> BY_REQUEST_ID = new Comparator<BatchResponse>() {
+
+        @Override
+        public int compare(BatchResponse source, BatchResponse testee) {
+            return source.getRequestId().compareTo(testee.getRequestId());
+        }
+    };
+
     private final CommandStrategyProvider strategyProvider;
     private final ResolutionHelper resolutionHelper;
     private final TransactionTemplate transactionTemplate;
+    private final ExecutorService parallelExecutor;
     private List<BatchResponse> checkList = new ArrayList<>();
 
     /**
@@ -58,13 +79,32 @@ public class BatchApiServiceImpl implements BatchApiService {
      * @param strategyProvider
      * @param resolutionHelper
      * @param transactionTemplate
+     * @param parallelThreads
+     *            number of threads shared by all batches processed in
+     *            parallel, <code>mifos.batch.parallel-threads</code>
      */
     @Autowired
     public BatchApiServiceImpl(final CommandStrategyProvider strategyProvider, final ResolutionHelper resolutionHelper,
-            final TransactionTemplate transactionTemplate) {
+            final TransactionTemplate transactionTemplate, @Value("${" + PARALLEL_THREADS + ":8}") final int parallelThreads) {
         this.strategyProvider = strategyProvider;
         this.resolutionHelper = resolutionHelper;
         this.transactionTemplate = transactionTemplate;
+        this.parallelExecutor = Executors.newFixedThreadPool(Math.max(1, parallelThreads), new ThreadFactory() {
+
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "batch-request-worker-" + this.threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.parallelExecutor.shutdownNow();
     }
 
     /**
@@ -93,13 +133,7 @@ public class BatchApiServiceImpl implements BatchApiService {
             responseList.addAll(this.processChildRequests(rootNode, rootResponse, uriInfo));
         }
 
-        Collections.sort(responseList, new Comparator<BatchResponse>() {
-
-            @Override
-            public int compare(BatchResponse source, BatchResponse testee) {
-                return source.getRequestId().compareTo(testee.getRequestId());
-            }
-        });
+        Collections.sort(responseList, BY_REQUEST_ID);
 
         checkList = responseList;
         return responseList;
@@ -160,6 +194,88 @@ public class BatchApiServiceImpl implements BatchApiService {
         return handleBatchRequests(requestList, uriInfo);
     }
 
+    @Override
+    public List<BatchResponse> handleBatchRequestsInParallelWithoutEnclosingTransaction(final List<BatchRequest> requestList,
+            final UriInfo uriInfo) {
+
+        final List<BatchRequestNode> batchRequestNodes = this.resolutionHelper.getDependingRequests(requestList);
+
+        // root requests do not depend on each other, each one is processed
+        // along with its dependents on a thread of its own
+        final List<Future<List<BatchResponse>>> requestTreeResponses = new ArrayList<>(batchRequestNodes.size());
+        for (final BatchRequestNode rootNode : batchRequestNodes) {
+            requestTreeResponses.add(this.parallelExecutor.submit(new ThreadLocalContextAwareCallable<List<BatchResponse>>() {
+
+                @Override
+                protected List<BatchResponse> callInContext() {
+                    return handleRequestTree(rootNode, uriInfo);
+                }
+            }));
+        }
+
+        final List<BatchResponse> responseList = new ArrayList<>(requestList.size());
+        for (int i = 0; i < batchRequestNodes.size(); i++) {
+            final Future<List<BatchResponse>> requestTreeResponse = requestTreeResponses.get(i);
+            try {
+                responseList.addAll(requestTreeResponse.get());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                requestTreeResponse.cancel(true);
+                responseList.addAll(failedRequestTree(batchRequestNodes.get(i), e));
+            } catch (final ExecutionException e) {
+                responseList.addAll(failedRequestTree(batchRequestNodes.get(i), e.getCause()));
+            }
+        }
+
+        Collections.sort(responseList, BY_REQUEST_ID);
+
+        return responseList;
+    }
+
+    private List<BatchResponse> handleRequestTree(final BatchRequestNode rootNode, final UriInfo uriInfo) {
+
+        final BatchRequest rootRequest = rootNode.getRequest();
+        BatchResponse rootResponse;
+        try {
+            final CommandStrategy commandStrategy = this.strategyProvider.getCommandStrategy(CommandContext
+                    .resource(rootRequest.getRelativeUrl()).method(rootRequest.getMethod()).build());
+            rootResponse = commandStrategy.execute(rootRequest, uriInfo);
+        } catch (final RuntimeException ex) {
+            rootResponse = errorResponse(rootRequest, ex);
+        }
+
+        final List<BatchResponse> responseList = new ArrayList<>();
+        responseList.add(rootResponse);
+        responseList.addAll(this.processChildRequests(rootNode, rootResponse, uriInfo));
+        return responseList;
+    }
+
+    private List<BatchResponse> failedRequestTree(final BatchRequestNode rootNode, final Throwable cause) {
+
+        final BatchResponse rootResponse = errorResponse(rootNode.getRequest(), cause);
+
+        // dependents of the failed root are answered with a conflict
+        final List<BatchResponse> responseList = new ArrayList<>();
+        responseList.add(rootResponse);
+        responseList.addAll(this.processChildRequests(rootNode, rootResponse, null));
+        return responseList;
+    }
+
+    private static BatchResponse errorResponse(final BatchRequest request, final Throwable cause) {
+
+        final BatchResponse errResponse = new BatchResponse();
+        errResponse.setRequestId(request.getRequestId());
+        if (cause instanceof RuntimeException) {
+            final ErrorInfo e = ErrorHandler.handler((RuntimeException) cause);
+            errResponse.setStatusCode(e.getStatusCode());
+            errResponse.setBody(e.getMessage());
+        } else {
+            errResponse.setStatusCode(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode());
+            errResponse.setBody(cause == null ? null : cause.getMessage());
+        }
+        return errResponse;
+    }
+
     @Override
     public List<BatchResponse> handleBatchRequestsWithEnclosingTransaction(final List<BatchRequest> requestList, final UriInfo uriInfo) {
 
@@ -0,0 +1,30 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+
+/**
+ * Annotation that marks a {@link NewCommandSourceHandler} as the handler of
+ * the commands with the given entity and action name.
+ * 
+ * @see org.mifosplatform.commands.provider.CommandHandlerProvider
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CommandType {
+
+    String entity();
+
+    String action();
+}
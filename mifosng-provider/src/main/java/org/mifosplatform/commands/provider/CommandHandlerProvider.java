@@ -0,0 +1,127 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.provider;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mifosplatform.commands.annotation.CommandType;
+import org.mifosplatform.commands.domain.CommandWrapper;
+import org.mifosplatform.commands.exception.UnsupportedCommandException;
+import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of the {@link NewCommandSourceHandler}s by the entity and action
+ * they declare through {@link CommandType}.
+ * 
+ * The registry is built once the application context is refreshed and fails
+ * the startup if a handler does not declare a {@link CommandType} or if two
+ * handlers declare the same one; looking up the handler of a command is then a
+ * single map lookup.
+ */
+@Component
+public class CommandHandlerProvider implements ApplicationListener<ContextRefreshedEvent> {
+
+    /*
+     * Entity names used for commands whose entity name is not fixed: datatable
+     * and survey commands carry the name of the datatable and notes the kind
+     * of note.
+     */
+    public static final String DATATABLE = "DATATABLE";
+    public static final String DATATABLE_ENTRY = "DATATABLE_ENTRY";
+    public static final String SURVEY = "SURVEY";
+    public static final String NOTE = "NOTE";
+
+    public static final String UPDATE_ONE_TO_ONE = "UPDATE_ONE_TO_ONE";
+    public static final String UPDATE_ONE_TO_MANY = "UPDATE_ONE_TO_MANY";
+    public static final String DELETE_ONE_TO_ONE = "DELETE_ONE_TO_ONE";
+    public static final String DELETE_ONE_TO_MANY = "DELETE_ONE_TO_MANY";
+
+    private final ApplicationContext applicationContext;
+    private volatile Map<String, NewCommandSourceHandler> registeredHandlers;
+
+    @Autowired
+    public CommandHandlerProvider(final ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void onApplicationEvent(final ContextRefreshedEvent event) {
+        if (event.getApplicationContext() == this.applicationContext) {
+            this.registeredHandlers = buildRegistry();
+        }
+    }
+
+    /**
+     * @throws UnsupportedCommandException
+     *             if no handler is registered for the command
+     */
+    public NewCommandSourceHandler getHandler(final CommandWrapper wrapper) {
+        Map<String, NewCommandSourceHandler> handlers = this.registeredHandlers;
+        if (handlers == null) {
+            synchronized (this) {
+                if (this.registeredHandlers == null) {
+                    this.registeredHandlers = buildRegistry();
+                }
+                handlers = this.registeredHandlers;
+            }
+        }
+
+        final NewCommandSourceHandler handler = handlers.get(keyOf(wrapper));
+        if (handler == null) { throw new UnsupportedCommandException(wrapper.commandName()); }
+        return handler;
+    }
+
+    private Map<String, NewCommandSourceHandler> buildRegistry() {
+        final Map<String, NewCommandSourceHandler> beans = this.applicationContext.getBeansOfType(NewCommandSourceHandler.class);
+        final Map<String, NewCommandSourceHandler> handlers = new HashMap<>(beans.size() * 2);
+        final Map<String, String> beanNames = new HashMap<>(beans.size() * 2);
+
+        for (final Map.Entry<String, NewCommandSourceHandler> bean : beans.entrySet()) {
+            final CommandType commandType = this.applicationContext.findAnnotationOnBean(bean.getKey(), CommandType.class);
+            if (commandType == null) { throw new IllegalStateException("Command handler " + bean.getKey() + " does not declare the "
+                    + CommandType.class.getSimpleName() + " it handles."); }
+
+            final String key = keyOf(commandType.entity(), commandType.action());
+            final String registeredBeanName = beanNames.put(key, bean.getKey());
+            if (registeredBeanName != null) { throw new IllegalStateException("Command handlers " + registeredBeanName + " and "
+                    + bean.getKey() + " are both declared to handle " + key + "."); }
+
+            handlers.put(key, bean.getValue());
+        }
+
+        return handlers;
+    }
+
+    private static String keyOf(final CommandWrapper wrapper) {
+        final String actionName = wrapper.actionName().toUpperCase();
+
+        if (wrapper.isDatatableResource()) {
+            if (wrapper.getEntityId() == null) { return keyOf(DATATABLE, actionName); }
+
+            String datatableEntryAction = actionName;
+            if (wrapper.isUpdateOperation()) {
+                datatableEntryAction = wrapper.getSubentityId() == null ? UPDATE_ONE_TO_ONE : UPDATE_ONE_TO_MANY;
+            } else if (wrapper.isDeleteOperation()) {
+                datatableEntryAction = wrapper.getSubentityId() == null ? DELETE_ONE_TO_ONE : DELETE_ONE_TO_MANY;
+            }
+            return keyOf(DATATABLE_ENTRY, datatableEntryAction);
+        }
+        if (wrapper.isSurveyResource()) { return keyOf(SURVEY, actionName); }
+        if (wrapper.isNoteResource()) { return keyOf(NOTE, actionName); }
+
+        return keyOf(wrapper.entityName(), actionName);
+    }
+
+    private static String keyOf(final String entityName, final String actionName) {
+        return entityName.toUpperCase() + "|" + actionName.toUpperCase();
+    }
+}
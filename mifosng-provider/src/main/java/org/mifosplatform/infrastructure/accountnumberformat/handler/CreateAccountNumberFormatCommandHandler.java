@@ -7,6 +7,7 @@ package org.mifosplatform.infrastructure.accountnumberformat.handler;
 
 import javax.transaction.Transactional;
 
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.accountnumberformat.service.AccountNumberFormatWritePlatformService;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
@@ -14,6 +15,7 @@ import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+@CommandType(entity = "ACCOUNTNUMBERFORMAT", action = "CREATE")
 @Service
 public class CreateAccountNumberFormatCommandHandler implements NewCommandSourceHandler {
 
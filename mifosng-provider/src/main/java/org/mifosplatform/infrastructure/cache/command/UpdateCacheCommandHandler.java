@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.cache.CacheApiConstants;
 import org.mifosplatform.infrastructure.cache.domain.CacheType;
@@ -28,6 +29,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.google.gson.reflect.TypeToken;
 
+@CommandType(entity = "CACHE", action = "UPDATE")
 @Service
 public class UpdateCacheCommandHandler implements NewCommandSourceHandler {
 
@@ -0,0 +1,52 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.data;
+
+/**
+ * Immutable message telling other application nodes to drop an entry, or all
+ * entries, of one of their local caches.
+ */
+public class CacheInvalidationMessage {
+
+    private final String originNodeId;
+    private final String cacheName;
+    private final String key;
+
+    public static CacheInvalidationMessage evict(final String originNodeId, final String cacheName, final String key) {
+        return new CacheInvalidationMessage(originNodeId, cacheName, key);
+    }
+
+    public static CacheInvalidationMessage clear(final String originNodeId, final String cacheName) {
+        return new CacheInvalidationMessage(originNodeId, cacheName, null);
+    }
+
+    public CacheInvalidationMessage(final String originNodeId, final String cacheName, final String key) {
+        this.originNodeId = originNodeId;
+        this.cacheName = cacheName;
+        this.key = key;
+    }
+
+    public String getOriginNodeId() {
+        return this.originNodeId;
+    }
+
+    public String getCacheName() {
+        return this.cacheName;
+    }
+
+    public String getKey() {
+        return this.key;
+    }
+
+    public boolean isClearAll() {
+        return this.key == null;
+    }
+
+    @Override
+    public String toString() {
+        return this.cacheName + (isClearAll() ? " (all entries)" : " [" + this.key + "]") + " from node " + this.originNodeId;
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import org.mifosplatform.infrastructure.cache.data.CacheInvalidationMessage;
+import org.mifosplatform.infrastructure.cache.domain.CacheType;
+
+/**
+ * Carries {@link CacheInvalidationMessage}s between the application nodes of a
+ * cluster running with the {@link CacheType#MULTI_NODE} cache type.
+ * 
+ * A transport delivers every published message to all subscribed listeners,
+ * including those on the publishing node; listeners are expected to ignore
+ * their own messages.
+ */
+public interface CacheInvalidationTransport {
+
+    void publish(CacheInvalidationMessage message);
+
+    void subscribe(CacheInvalidationListener listener);
+
+    void unsubscribe(CacheInvalidationListener listener);
+}
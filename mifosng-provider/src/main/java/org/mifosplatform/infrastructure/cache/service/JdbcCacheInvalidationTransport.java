@@ -0,0 +1,159 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.mifosplatform.infrastructure.cache.data.CacheInvalidationMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link CacheInvalidationTransport} backed by the
+ * <code>cache_invalidation_event</code> table of the tenants database, which
+ * every node of a cluster already shares.
+ *
+ * Published messages are inserted into the table; while at least one listener
+ * is subscribed each node polls for events it has not seen yet, so other nodes
+ * drop stale entries within {@link #POLL_INTERVAL_MILLIS}. Events older than
+ * {@link #RETENTION_MINUTES} are purged as part of polling.
+ */
+@Component
+public class JdbcCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    private final static Logger logger = LoggerFactory.getLogger(JdbcCacheInvalidationTransport.class);
+
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+    private static final int RETENTION_MINUTES = 60;
+    private static final long PURGE_INTERVAL_MILLIS = 10 * 60 * 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CopyOnWriteArrayList<CacheInvalidationListener> listeners = new CopyOnWriteArrayList<>();
+    private final CacheInvalidationEventMapper mapper = new CacheInvalidationEventMapper();
+
+    private ScheduledExecutorService poller;
+    private long lastSeenEventId;
+    private long lastPurgeTime;
+
+    @Autowired
+    public JdbcCacheInvalidationTransport(@Qualifier("tenantDataSourceJndi") final DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void publish(final CacheInvalidationMessage message) {
+        final String sql = "insert into cache_invalidation_event (node_id, cache_name, cache_key, created_time) values (?, ?, ?, now())";
+        this.jdbcTemplate.update(sql, message.getOriginNodeId(), message.getCacheName(), message.getKey());
+    }
+
+    @Override
+    public synchronized void subscribe(final CacheInvalidationListener listener) {
+        this.listeners.addIfAbsent(listener);
+        if (this.poller == null) {
+            // only events published from now on are of interest
+            final Long maxEventId = this.jdbcTemplate.queryForObject("select max(id) from cache_invalidation_event", Long.class);
+            this.lastSeenEventId = maxEventId == null ? 0 : maxEventId;
+            this.lastPurgeTime = System.currentTimeMillis();
+
+            this.poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "cache-invalidation-poller");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.poller.scheduleWithFixedDelay(new Runnable() {
+
+                @Override
+                public void run() {
+                    poll();
+                }
+            }, POLL_INTERVAL_MILLIS, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void unsubscribe(final CacheInvalidationListener listener) {
+        this.listeners.remove(listener);
+        if (this.listeners.isEmpty()) {
+            shutdown();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (this.poller != null) {
+            this.poller.shutdownNow();
+            this.poller = null;
+        }
+    }
+
+    private void poll() {
+        try {
+            final String sql = "select " + this.mapper.schema() + " where e.id > ? order by e.id";
+            final List<CacheInvalidationEvent> events = this.jdbcTemplate.query(sql, this.mapper, this.lastSeenEventId);
+            for (final CacheInvalidationEvent event : events) {
+                for (final CacheInvalidationListener listener : this.listeners) {
+                    listener.onInvalidation(event.message);
+                }
+                this.lastSeenEventId = event.id;
+            }
+
+            if (System.currentTimeMillis() - this.lastPurgeTime > PURGE_INTERVAL_MILLIS) {
+                this.jdbcTemplate.update("delete from cache_invalidation_event where created_time < date_sub(now(), interval "
+                        + RETENTION_MINUTES + " minute)");
+                this.lastPurgeTime = System.currentTimeMillis();
+            }
+        } catch (final RuntimeException e) {
+            // keep polling, a failure must not stop the scheduled task
+            logger.error("Failed to poll for cache invalidation events", e);
+        }
+    }
+
+    private static final class CacheInvalidationEvent {
+
+        private final long id;
+        private final CacheInvalidationMessage message;
+
+        CacheInvalidationEvent(final long id, final CacheInvalidationMessage message) {
+            this.id = id;
+            this.message = message;
+        }
+    }
+
+    private static final class CacheInvalidationEventMapper implements RowMapper<CacheInvalidationEvent> {
+
+        public String schema() {
+            return " e.id as id, e.node_id as nodeId, e.cache_name as cacheName, e.cache_key as cacheKey from cache_invalidation_event e ";
+        }
+
+        @Override
+        public CacheInvalidationEvent mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            final long id = rs.getLong("id");
+            final String nodeId = rs.getString("nodeId");
+            final String cacheName = rs.getString("cacheName");
+            final String cacheKey = rs.getString("cacheKey");
+            return new CacheInvalidationEvent(id, new CacheInvalidationMessage(nodeId, cacheName, cacheKey));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.mifosplatform.infrastructure.cache.data.CacheInvalidationMessage;
+
+/**
+ * In-process {@link CacheInvalidationTransport} that synchronously hands every
+ * published message to the listeners subscribed in the same JVM.
+ * 
+ * Useful for tests where several {@link MultiNodeCacheManager}s sharing one
+ * instance stand in for the nodes of a cluster.
+ */
+public class LoopbackCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    private final CopyOnWriteArrayList<CacheInvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(final CacheInvalidationMessage message) {
+        for (final CacheInvalidationListener listener : this.listeners) {
+            listener.onInvalidation(message);
+        }
+    }
+
+    @Override
+    public void subscribe(final CacheInvalidationListener listener) {
+        this.listeners.addIfAbsent(listener);
+    }
+
+    @Override
+    public void unsubscribe(final CacheInvalidationListener listener) {
+        this.listeners.remove(listener);
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mifosplatform.infrastructure.cache.data.CacheInvalidationMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * {@link CacheManager} for a cluster of application nodes.
+ *
+ * Each node keeps a local near-cache (the caches of the wrapped
+ * {@link CacheManager}, normally ehcache) so reads are served as in single
+ * node mode. Evictions and clears, i.e. what <code>@CacheEvict</code> does
+ * after a write, are applied locally and then published through the
+ * {@link CacheInvalidationTransport} so the other nodes drop the same entries.
+ *
+ * Keys that are not strings cannot be matched reliably on another node, so
+ * their eviction clears the whole cache on the other nodes.
+ */
+public class MultiNodeCacheManager implements CacheManager, CacheInvalidationListener {
+
+    private final static Logger logger = LoggerFactory.getLogger(MultiNodeCacheManager.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheManager localCacheManager;
+    private final CacheInvalidationTransport transport;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public MultiNodeCacheManager(final CacheManager localCacheManager, final CacheInvalidationTransport transport) {
+        this.localCacheManager = localCacheManager;
+        this.transport = transport;
+    }
+
+    /**
+     * Starts listening for invalidations published by the other nodes.
+     */
+    public void start() {
+        this.transport.subscribe(this);
+    }
+
+    public void stop() {
+        this.transport.unsubscribe(this);
+    }
+
+    @Override
+    public Cache getCache(final String name) {
+        Cache cache = this.caches.get(name);
+        if (cache == null) {
+            final Cache localCache = this.localCacheManager.getCache(name);
+            if (localCache == null) { return null; }
+            final Cache existing = this.caches.putIfAbsent(name, new InvalidationPublishingCache(localCache));
+            cache = existing == null ? this.caches.get(name) : existing;
+        }
+        return cache;
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return this.localCacheManager.getCacheNames();
+    }
+
+    @Override
+    public void onInvalidation(final CacheInvalidationMessage message) {
+        if (this.nodeId.equals(message.getOriginNodeId())) { return; }
+
+        final Cache localCache = this.localCacheManager.getCache(message.getCacheName());
+        if (localCache == null) { return; }
+
+        if (message.isClearAll()) {
+            localCache.clear();
+        } else {
+            localCache.evict(message.getKey());
+        }
+        logger.debug("Applied cache invalidation of " + message);
+    }
+
+    public String getNodeId() {
+        return this.nodeId;
+    }
+
+    private void publish(final CacheInvalidationMessage message) {
+        try {
+            this.transport.publish(message);
+        } catch (final RuntimeException e) {
+            // the write itself already succeeded, do not fail it because
+            // other nodes could not be told about it
+            logger.error("Failed to publish cache invalidation of " + message, e);
+        }
+    }
+
+    /**
+     * Local cache that broadcasts its evictions and clears to the other
+     * nodes. Puts are not broadcast: every node populates its near-cache from
+     * the shared database on a miss.
+     */
+    private final class InvalidationPublishingCache implements Cache {
+
+        private final Cache localCache;
+
+        InvalidationPublishingCache(final Cache localCache) {
+            this.localCache = localCache;
+        }
+
+        @Override
+        public String getName() {
+            return this.localCache.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return this.localCache.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(final Object key) {
+            return this.localCache.get(key);
+        }
+
+        @Override
+        public <T> T get(final Object key, final Class<T> type) {
+            return this.localCache.get(key, type);
+        }
+
+        @Override
+        public void put(final Object key, final Object value) {
+            this.localCache.put(key, value);
+        }
+
+        @Override
+        public void evict(final Object key) {
+            this.localCache.evict(key);
+            if (key instanceof String) {
+                publish(CacheInvalidationMessage.evict(MultiNodeCacheManager.this.nodeId, getName(), (String) key));
+            } else {
+                publish(CacheInvalidationMessage.clear(MultiNodeCacheManager.this.nodeId, getName()));
+            }
+        }
+
+        @Override
+        public void clear() {
+            this.localCache.clear();
+            publish(CacheInvalidationMessage.clear(MultiNodeCacheManager.this.nodeId, getName()));
+        }
+    }
+}
@@ -29,17 +29,25 @@ import org.springframework.stereotype.Component;
  * By default it is {@link NoOpCacheManager} but we can change that by checking
  * some persisted configuration in the database on startup and allow user to
  * switch implementation through UI/API
+ * 
+ * When several nodes run behind a load balancer, {@link CacheType#MULTI_NODE}
+ * keeps the ehcache caches as a local near-cache on every node and propagates
+ * evictions between nodes through a {@link CacheInvalidationTransport}. Nodes
+ * pick up a changed cache type on their next startup.
  */
 @Component(value = "runtimeDelegatingCacheManager")
 public class RuntimeDelegatingCacheManager implements CacheManager {
 
     private final EhCacheCacheManager ehcacheCacheManager;
+    private final MultiNodeCacheManager multiNodeCacheManager;
     private final CacheManager noOpCacheManager = new NoOpCacheManager();
     private CacheManager currentCacheManager;
 
     @Autowired
-    public RuntimeDelegatingCacheManager(final EhCacheCacheManager ehCacheCacheManager) {
+    public RuntimeDelegatingCacheManager(final EhCacheCacheManager ehCacheCacheManager,
+            final CacheInvalidationTransport cacheInvalidationTransport) {
         this.ehcacheCacheManager = ehCacheCacheManager;
+        this.multiNodeCacheManager = new MultiNodeCacheManager(ehCacheCacheManager, cacheInvalidationTransport);
         this.currentCacheManager = this.noOpCacheManager;
     }
 
@@ -55,31 +63,28 @@ public class RuntimeDelegatingCacheManager implements CacheManager {
 
     public Collection<CacheData> retrieveAll() {
 
-        final boolean noCacheEnabled = this.currentCacheManager instanceof NoOpCacheManager;
-        final boolean ehcacheEnabled = this.currentCacheManager instanceof EhCacheCacheManager;
-
-        // final boolean distributedCacheEnabled = false;
+        final boolean noCacheEnabled = this.currentCacheManager == this.noOpCacheManager;
+        final boolean ehcacheEnabled = this.currentCacheManager == this.ehcacheCacheManager;
+        final boolean distributedCacheEnabled = this.currentCacheManager == this.multiNodeCacheManager;
 
         final EnumOptionData noCacheType = CacheEnumerations.cacheType(CacheType.NO_CACHE);
         final EnumOptionData singleNodeCacheType = CacheEnumerations.cacheType(CacheType.SINGLE_NODE);
-        // final EnumOptionData multiNodeCacheType =
-        // CacheEnumerations.cacheType(CacheType.MULTI_NODE);
+        final EnumOptionData multiNodeCacheType = CacheEnumerations.cacheType(CacheType.MULTI_NODE);
 
         final CacheData noCache = CacheData.instance(noCacheType, noCacheEnabled);
         final CacheData singleNodeCache = CacheData.instance(singleNodeCacheType, ehcacheEnabled);
-        // final CacheData distributedCache =
-        // CacheData.instance(multiNodeCacheType, distributedCacheEnabled);
+        final CacheData distributedCache = CacheData.instance(multiNodeCacheType, distributedCacheEnabled);
 
-        final Collection<CacheData> caches = Arrays.asList(noCache, singleNodeCache);
+        final Collection<CacheData> caches = Arrays.asList(noCache, singleNodeCache, distributedCache);
         return caches;
     }
 
-    public Map<String, Object> switchToCache(final boolean ehcacheEnabled, final CacheType toCacheType) {
+    public Map<String, Object> switchToCache(final boolean ehcacheEnabled, final boolean distributedCacheEnabled,
+            final CacheType toCacheType) {
 
         final Map<String, Object> changes = new HashMap<>();
 
-        final boolean noCacheEnabled = !ehcacheEnabled;
-        final boolean distributedCacheEnabled = !ehcacheEnabled;
+        final boolean noCacheEnabled = !ehcacheEnabled && !distributedCacheEnabled;
 
         switch (toCacheType) {
             case INVALID:
@@ -88,6 +93,7 @@ public class RuntimeDelegatingCacheManager implements CacheManager {
                 if (!noCacheEnabled) {
                     changes.put(CacheApiConstants.cacheTypeParameter, toCacheType.getValue());
                 }
+                this.multiNodeCacheManager.stop();
                 this.currentCacheManager = this.noOpCacheManager;
             break;
             case SINGLE_NODE:
@@ -95,12 +101,20 @@ public class RuntimeDelegatingCacheManager implements CacheManager {
                     changes.put(CacheApiConstants.cacheTypeParameter, toCacheType.getValue());
                     clearEhCache();
                 }
+                this.multiNodeCacheManager.stop();
                 this.currentCacheManager = this.ehcacheCacheManager;
             break;
             case MULTI_NODE:
                 if (!distributedCacheEnabled) {
                     changes.put(CacheApiConstants.cacheTypeParameter, toCacheType.getValue());
                 }
+                if (this.currentCacheManager != this.multiNodeCacheManager) {
+                    // entries cached while not listening for invalidations
+                    // may already be stale
+                    clearEhCache();
+                    this.multiNodeCacheManager.start();
+                }
+                this.currentCacheManager = this.multiNodeCacheManager;
             break;
         }
 
@@ -5,6 +5,7 @@
  */
 package org.mifosplatform.infrastructure.codes.handler;
 
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.codes.service.CodeValueWritePlatformService;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
@@ -13,6 +14,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+@CommandType(entity = "CODEVALUE", action = "UPDATE")
 @Service
 public class UpdateCodeValueCommandHandler implements NewCommandSourceHandler {
 
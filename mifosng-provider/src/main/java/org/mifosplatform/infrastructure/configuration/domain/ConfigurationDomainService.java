@@ -25,6 +25,8 @@ public interface ConfigurationDomainService {
 
     boolean isEhcacheEnabled();
 
+    boolean isDistributedCacheEnabled();
+
     void updateCache(CacheType cacheType);
 
     Long retrievePenaltyWaitPeriod();
@@ -45,4 +47,10 @@ public interface ConfigurationDomainService {
 
     boolean isMeetingMandatoryForJLGLoans();
 
+    Integer retrieveParallelRunningBalanceUpdatePoolSize();
+
+    Integer retrieveJobWorkerThreadPoolSize();
+
+    boolean isIncrementalLoanJobsUpdateEnabled();
+
 }
\ No newline at end of file
@@ -99,6 +99,11 @@ public class ConfigurationDomainServiceJpa implements ConfigurationDomainService
         return this.cacheTypeRepository.findOne(Long.valueOf(1)).isEhcacheEnabled();
     }
 
+    @Override
+    public boolean isDistributedCacheEnabled() {
+        return this.cacheTypeRepository.findOne(Long.valueOf(1)).isDistributedCacheEnabled();
+    }
+
     @Transactional
     @Override
     public void updateCache(final CacheType cacheType) {
@@ -173,4 +178,27 @@ public class ConfigurationDomainServiceJpa implements ConfigurationDomainService
         return property.isEnabled();
     }
 
+    @Override
+    public Integer retrieveParallelRunningBalanceUpdatePoolSize() {
+        final String propertyName = "parallel-running-balance-update";
+        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        if (property.isEnabled() && property.getValue() != null) { return property.getValue().intValue(); }
+        return null;
+    }
+
+    @Override
+    public Integer retrieveJobWorkerThreadPoolSize() {
+        final String propertyName = "job-worker-threads";
+        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        if (property.isEnabled() && property.getValue() != null) { return property.getValue().intValue(); }
+        return null;
+    }
+
+    @Override
+    public boolean isIncrementalLoanJobsUpdateEnabled() {
+        final String propertyName = "incremental-loan-jobs-update";
+        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        return property.isEnabled();
+    }
+
 }
\ No newline at end of file
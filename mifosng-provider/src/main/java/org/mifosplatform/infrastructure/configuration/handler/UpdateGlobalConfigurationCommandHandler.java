@@ -5,6 +5,7 @@
  */
 package org.mifosplatform.infrastructure.configuration.handler;
 
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.configuration.service.GlobalConfigurationWritePlatformService;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
@@ -13,6 +14,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+@CommandType(entity = "CONFIGURATION", action = "UPDATE")
 @Service
 public class UpdateGlobalConfigurationCommandHandler implements NewCommandSourceHandler {
 
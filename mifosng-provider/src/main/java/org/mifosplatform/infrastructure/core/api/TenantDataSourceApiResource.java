@@ -0,0 +1,73 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.api;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriInfo;
+
+import org.mifosplatform.infrastructure.core.data.TenantDataSourceMetricsData;
+import org.mifosplatform.infrastructure.core.serialization.ApiRequestJsonSerializationSettings;
+import org.mifosplatform.infrastructure.core.serialization.DefaultToApiJsonSerializer;
+import org.mifosplatform.infrastructure.core.service.TenantDataSourceMetricsService;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the connection pool metrics of the tenant of the request; pools of
+ * other tenants are deliberately not visible.
+ */
+@Path("/datasource")
+@Consumes({ MediaType.APPLICATION_JSON })
+@Produces({ MediaType.APPLICATION_JSON })
+@Component
+@Scope("singleton")
+public class TenantDataSourceApiResource {
+
+    private final Set<String> RESPONSE_DATA_PARAMETERS = new HashSet<>(Arrays.asList("tenantIdentifier", "poolName", "size", "active",
+            "idle", "waiting", "maxActive", "minIdle", "maxIdle", "borrowCount", "failedBorrowCount", "averageBorrowMicros",
+            "maxBorrowMicros"));
+    private final String resourceNameForPermissions = "DATASOURCE";
+
+    private final PlatformSecurityContext context;
+    private final TenantDataSourceMetricsService dataSourceMetricsService;
+    private final DefaultToApiJsonSerializer<TenantDataSourceMetricsData> toApiJsonSerializer;
+    private final ApiRequestParameterHelper apiRequestParameterHelper;
+
+    @Autowired
+    public TenantDataSourceApiResource(final PlatformSecurityContext context, final TenantDataSourceMetricsService dataSourceMetricsService,
+            final DefaultToApiJsonSerializer<TenantDataSourceMetricsData> toApiJsonSerializer,
+            final ApiRequestParameterHelper apiRequestParameterHelper) {
+        this.context = context;
+        this.dataSourceMetricsService = dataSourceMetricsService;
+        this.toApiJsonSerializer = toApiJsonSerializer;
+        this.apiRequestParameterHelper = apiRequestParameterHelper;
+    }
+
+    @GET
+    @Path("metrics")
+    public String retrieveMetrics(@Context final UriInfo uriInfo) {
+
+        this.context.authenticatedUser().validateHasReadPermission(this.resourceNameForPermissions);
+
+        final Long tenantId = ThreadLocalContextUtil.getTenant().getId();
+        final TenantDataSourceMetricsData metrics = this.dataSourceMetricsService.retrieveMetrics(tenantId);
+
+        final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.toApiJsonSerializer.serialize(settings, metrics, this.RESPONSE_DATA_PARAMETERS);
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.data;
+
+/**
+ * Immutable snapshot of the connection pool of a tenant.
+ * 
+ * Note: no getter/setters required as google-gson will produce json from fields
+ * of object.
+ */
+public class TenantDataSourceMetricsData {
+
+    @SuppressWarnings("unused")
+    private final String tenantIdentifier;
+    @SuppressWarnings("unused")
+    private final String poolName;
+    @SuppressWarnings("unused")
+    private final int size;
+    private final int active;
+    private final int idle;
+    private final int waiting;
+    @SuppressWarnings("unused")
+    private final int maxActive;
+    @SuppressWarnings("unused")
+    private final int minIdle;
+    @SuppressWarnings("unused")
+    private final int maxIdle;
+    private final long borrowCount;
+    @SuppressWarnings("unused")
+    private final long failedBorrowCount;
+    private final long averageBorrowMicros;
+    private final long maxBorrowMicros;
+
+    public TenantDataSourceMetricsData(final String tenantIdentifier, final String poolName, final int size, final int active,
+            final int idle, final int waiting, final int maxActive, final int minIdle, final int maxIdle, final long borrowCount,
+            final long failedBorrowCount, final long averageBorrowMicros, final long maxBorrowMicros) {
+        this.tenantIdentifier = tenantIdentifier;
+        this.poolName = poolName;
+        this.size = size;
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.maxActive = maxActive;
+        this.minIdle = minIdle;
+        this.maxIdle = maxIdle;
+        this.borrowCount = borrowCount;
+        this.failedBorrowCount = failedBorrowCount;
+        this.averageBorrowMicros = averageBorrowMicros;
+        this.maxBorrowMicros = maxBorrowMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "active=" + this.active + ", idle=" + this.idle + ", waiting=" + this.waiting + ", borrows=" + this.borrowCount
+                + ", avgBorrowMicros=" + this.averageBorrowMicros + ", maxBorrowMicros=" + this.maxBorrowMicros;
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.domain;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.SqlProvider;
+
+/**
+ * {@link PreparedStatementCreator} that opens a forward-only, read-only cursor
+ * so that rows are streamed from the database one at a time rather than
+ * materialized in memory by the driver.
+ *
+ * MySQL Connector/J only streams when the fetch size is
+ * {@link Integer#MIN_VALUE}. While such a result set is open no other
+ * statement can be issued on the same connection, so any writes performed
+ * while iterating must happen on a different connection (e.g. in a
+ * REQUIRES_NEW transaction).
+ */
+public class StreamingPreparedStatementCreator implements PreparedStatementCreator, SqlProvider {
+
+    public static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private final String sql;
+    private final Object[] args;
+    private final int fetchSize;
+
+    public static StreamingPreparedStatementCreator forMysql(final String sql, final Object... args) {
+        return new StreamingPreparedStatementCreator(sql, args, MYSQL_STREAMING_FETCH_SIZE);
+    }
+
+    public StreamingPreparedStatementCreator(final String sql, final Object[] args, final int fetchSize) {
+        this.sql = sql;
+        this.args = args;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public PreparedStatement createPreparedStatement(final Connection con) throws SQLException {
+        final PreparedStatement ps = con.prepareStatement(this.sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(this.fetchSize);
+        new ArgumentPreparedStatementSetter(this.args).setValues(ps);
+        return ps;
+    }
+
+    @Override
+    public String getSql() {
+        return this.sql;
+    }
+}
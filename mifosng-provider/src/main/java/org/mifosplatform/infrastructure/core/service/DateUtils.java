@@ -60,6 +60,19 @@ public class DateUtils {
     }
     	
 
+    /**
+     * Time zone of the current tenant, or the default one when the tenant has
+     * none set.
+     */
+    public static DateTimeZone getDateTimeZoneOfTenant() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant != null) {
+            final DateTimeZone zone = DateTimeZone.forID(tenant.getTimezoneId());
+            if (zone != null) { return zone; }
+        }
+        return DateTimeZone.getDefault();
+    }
+
     public static LocalDate parseLocalDate(final String stringDate, final String pattern) {
 
         try {
@@ -0,0 +1,104 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.tomcat.jdbc.pool.ConnectionPool;
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.mifosplatform.infrastructure.core.data.TenantDataSourceMetricsData;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * The tomcat jdbc connection pool of a single tenant, recording how many
+ * connections were borrowed from it and how long borrowing took, which
+ * includes any time spent waiting for a connection to be returned or opened.
+ */
+public class MeteredTenantDataSource extends DelegatingDataSource {
+
+    private final String tenantIdentifier;
+    private final DataSource pool;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowNanos = new AtomicLong();
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
+    private final AtomicLong failedBorrowCount = new AtomicLong();
+
+    public MeteredTenantDataSource(final String tenantIdentifier, final DataSource pool) {
+        super(pool);
+        this.tenantIdentifier = tenantIdentifier;
+        this.pool = pool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final long start = System.nanoTime();
+        boolean borrowed = false;
+        try {
+            final Connection connection = super.getConnection();
+            borrowed = true;
+            return connection;
+        } finally {
+            recordBorrow(System.nanoTime() - start, borrowed);
+        }
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        final long start = System.nanoTime();
+        boolean borrowed = false;
+        try {
+            final Connection connection = super.getConnection(username, password);
+            borrowed = true;
+            return connection;
+        } finally {
+            recordBorrow(System.nanoTime() - start, borrowed);
+        }
+    }
+
+    private void recordBorrow(final long nanos, final boolean borrowed) {
+        if (!borrowed) {
+            this.failedBorrowCount.incrementAndGet();
+            return;
+        }
+        this.borrowCount.incrementAndGet();
+        this.borrowNanos.addAndGet(nanos);
+        long max = this.maxBorrowNanos.get();
+        while (nanos > max && !this.maxBorrowNanos.compareAndSet(max, nanos)) {
+            max = this.maxBorrowNanos.get();
+        }
+    }
+
+    /**
+     * Opens the initial connections of the pool so that the first requests
+     * for the tenant do not pay for them.
+     */
+    public void warmUp() throws SQLException {
+        this.pool.createPool();
+    }
+
+    public void close() {
+        this.pool.close(true);
+    }
+
+    public TenantDataSourceMetricsData toMetrics() {
+        final long borrows = this.borrowCount.get();
+        final long averageBorrowMicros = borrows == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(this.borrowNanos.get() / borrows);
+        final long maxBorrowMicros = TimeUnit.NANOSECONDS.toMicros(this.maxBorrowNanos.get());
+        // the pool itself only exists once the first connection was asked for
+        final ConnectionPool connectionPool = this.pool.getPool();
+        final int size = connectionPool == null ? 0 : connectionPool.getSize();
+        final int active = connectionPool == null ? 0 : connectionPool.getActive();
+        final int idle = connectionPool == null ? 0 : connectionPool.getIdle();
+        final int waiting = connectionPool == null ? 0 : connectionPool.getWaitCount();
+        return new TenantDataSourceMetricsData(this.tenantIdentifier, this.pool.getName(), size, active, idle, waiting,
+                this.pool.getMaxActive(), this.pool.getMinIdle(), this.pool.getMaxIdle(), borrows, this.failedBorrowCount.get(),
+                averageBorrowMicros, maxBorrowMicros);
+    }
+}
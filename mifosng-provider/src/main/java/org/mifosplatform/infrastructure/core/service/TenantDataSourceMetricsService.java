@@ -0,0 +1,20 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import org.mifosplatform.infrastructure.core.data.TenantDataSourceMetricsData;
+
+/**
+ * A service for reading the metrics of the connection pools kept per tenant.
+ */
+public interface TenantDataSourceMetricsService {
+
+    /**
+     * Metrics of the pool of the given tenant, or null when no pool has been
+     * created for it yet.
+     */
+    TenantDataSourceMetricsData retrieveMetrics(Long tenantId);
+}
@@ -5,7 +5,19 @@
  */
 package org.mifosplatform.infrastructure.core.service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
 import javax.sql.DataSource;
@@ -13,8 +25,11 @@ import javax.sql.DataSource;
 import org.mifosplatform.infrastructure.core.boot.db.TenantDataSourcePortFixService;
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.googlecode.flyway.core.Flyway;
@@ -23,45 +38,213 @@ import com.googlecode.flyway.core.api.FlywayException;
 /**
  * A service that picks up on tenants that are configured to auto-update their
  * specific schema on application startup.
+ * 
+ * By default tenants are upgraded one after another and the first failure
+ * stops the application from starting. With
+ * <code>mifos.tenants.upgrade-threads</code> above 1 tenants are upgraded by a
+ * bounded pool of workers instead, and a tenant whose upgrade fails is only
+ * logged and kept unavailable while the others are served. With
+ * <code>mifos.tenants.upgrade-in-background</code> the application starts
+ * without waiting for the upgrades and serves each tenant as soon as its
+ * schema is upgraded; see {@link #isTenantAvailable(String)}.
  */
 @Service
 public class TenantDatabaseUpgradeService {
 
+    public final static String UPGRADE_THREADS = "mifos.tenants.upgrade-threads";
+    public final static String UPGRADE_IN_BACKGROUND = "mifos.tenants.upgrade-in-background";
+
+    private final static Logger logger = LoggerFactory.getLogger(TenantDatabaseUpgradeService.class);
+
+    private static enum UpgradeState {
+        PENDING, UPGRADED, FAILED
+    }
+
     private final TenantDetailsService tenantDetailsService;
     protected final DataSource tenantDataSource;
     protected final TenantDataSourcePortFixService tenantDataSourcePortFixService;
+    private final int upgradeThreads;
+    private final boolean upgradeInBackground;
+    private final ConcurrentMap<String, UpgradeState> upgradeStates = new ConcurrentHashMap<>();
+    private final Map<String, List<Runnable>> availabilityCallbacks = new HashMap<>();
+
+    public TenantDatabaseUpgradeService(final TenantDetailsService detailsService, final DataSource dataSource,
+            final TenantDataSourcePortFixService tenantDataSourcePortFixService) {
+        this(detailsService, dataSource, tenantDataSourcePortFixService, 1, false);
+    }
 
     @Autowired
 	public TenantDatabaseUpgradeService(
 			final TenantDetailsService detailsService,
 			@Qualifier("tenantDataSourceJndi") final DataSource dataSource,
-			TenantDataSourcePortFixService tenantDataSourcePortFixService)
+			TenantDataSourcePortFixService tenantDataSourcePortFixService,
+			@Value("${" + UPGRADE_THREADS + ":1}") final int upgradeThreads,
+			@Value("${" + UPGRADE_IN_BACKGROUND + ":false}") final boolean upgradeInBackground)
     {
         this.tenantDetailsService = detailsService;
         this.tenantDataSource = dataSource;
         this.tenantDataSourcePortFixService = tenantDataSourcePortFixService;
+        this.upgradeThreads = Math.max(1, upgradeThreads);
+        this.upgradeInBackground = upgradeInBackground;
     }
 
     @PostConstruct
     public void upgradeAllTenants() {
 	upgradeTenantDB();
         final List<MifosPlatformTenant> tenants = this.tenantDetailsService.findAllTenants();
+        final List<MifosPlatformTenant> tenantsToUpgrade = new ArrayList<>(tenants.size());
         for (final MifosPlatformTenant tenant : tenants) {
             if (tenant.isAutoUpdateEnabled()) {
-                final Flyway flyway = new Flyway();
-                flyway.setDataSource(tenant.databaseURL(), tenant.getSchemaUsername(), tenant.getSchemaPassword());
-                flyway.setLocations("sql/migrations/core_db");
-                flyway.setOutOfOrder(true);
-                try {
-			flyway.migrate();
-                } catch (FlywayException e) {
-					String betterMessage = e.getMessage()
-							+ "; for Tenant DB URL: " + tenant.databaseURL()
-							+ ", username: " + tenant.getSchemaUsername();
-					throw new FlywayException(betterMessage, e.getCause());
+                this.upgradeStates.put(tenant.getTenantIdentifier(), UpgradeState.PENDING);
+                tenantsToUpgrade.add(tenant);
+            }
+        }
+        if (tenantsToUpgrade.isEmpty()) { return; }
+
+        if (this.upgradeThreads == 1 && !this.upgradeInBackground) {
+            for (final MifosPlatformTenant tenant : tenantsToUpgrade) {
+                upgrade(tenant);
+            }
+        } else {
+            upgradeInParallel(tenantsToUpgrade);
+        }
+    }
+
+    /**
+     * False while the schema of the tenant is still waiting to be upgraded or
+     * when its upgrade failed; requests and jobs for the tenant must not run
+     * against it then.
+     */
+    public boolean isTenantAvailable(final String tenantIdentifier) {
+        final UpgradeState state = this.upgradeStates.get(tenantIdentifier);
+        return state == null || state == UpgradeState.UPGRADED;
+    }
+
+    /**
+     * Runs the callback as soon as the tenant is available: right away if it
+     * already is, otherwise on the thread that finishes upgrading its schema.
+     * The callback is dropped if the upgrade fails.
+     */
+    public void whenTenantAvailable(final String tenantIdentifier, final Runnable callback) {
+        synchronized (this.availabilityCallbacks) {
+            if (this.upgradeStates.get(tenantIdentifier) == UpgradeState.PENDING) {
+                List<Runnable> callbacks = this.availabilityCallbacks.get(tenantIdentifier);
+                if (callbacks == null) {
+                    callbacks = new ArrayList<>();
+                    this.availabilityCallbacks.put(tenantIdentifier, callbacks);
+                }
+                callbacks.add(callback);
+                return;
+            }
+        }
+        if (isTenantAvailable(tenantIdentifier)) {
+            callback.run();
+        }
+    }
+
+    private void upgradeInParallel(final List<MifosPlatformTenant> tenants) {
+        final long startTime = System.currentTimeMillis();
+        final int threads = Math.min(this.upgradeThreads, tenants.size());
+        final AtomicInteger completed = new AtomicInteger();
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "tenant-upgrade-" + this.threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        logger.info("Upgrading " + tenants.size() + " tenant databases using " + threads + " workers"
+                + (this.upgradeInBackground ? " in the background" : ""));
+
+        final List<Future<?>> upgrades = new ArrayList<>(tenants.size());
+        for (final MifosPlatformTenant tenant : tenants) {
+            upgrades.add(executorService.submit(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        upgrade(tenant);
+                    } catch (final RuntimeException e) {
+                        logger.error("Upgrade of tenant " + tenant.getTenantIdentifier() + " failed, it stays unavailable", e);
+                    }
+                    final int done = completed.incrementAndGet();
+                    if (done == tenants.size()) {
+                        logger.info("Upgrade of " + done + " tenant databases finished in " + (System.currentTimeMillis() - startTime)
+                                + " ms, failed tenants: " + failedTenants());
+                    }
                 }
+            }));
+        }
+        // lets the workers finish the queued upgrades and then exit
+        executorService.shutdown();
+        if (this.upgradeInBackground) { return; }
+
+        for (final Future<?> upgrade : upgrades) {
+            try {
+                upgrade.get();
+            } catch (final ExecutionException e) {
+                logger.error("Tenant upgrade worker failed", e.getCause());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void upgrade(final MifosPlatformTenant tenant) {
+        final long startTime = System.currentTimeMillis();
+        logger.info("Upgrading database of tenant " + tenant.getTenantIdentifier());
+        final Flyway flyway = new Flyway();
+        flyway.setDataSource(tenant.databaseURL(), tenant.getSchemaUsername(), tenant.getSchemaPassword());
+        flyway.setLocations("sql/migrations/core_db");
+        flyway.setOutOfOrder(true);
+        try {
+            final int migrations = flyway.migrate();
+            logger.info("Database of tenant " + tenant.getTenantIdentifier() + " upgraded with " + migrations + " migrations in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+        } catch (FlywayException e) {
+            updateUpgradeState(tenant.getTenantIdentifier(), UpgradeState.FAILED);
+            String betterMessage = e.getMessage() + "; for Tenant DB URL: " + tenant.databaseURL() + ", username: "
+                    + tenant.getSchemaUsername();
+            throw new FlywayException(betterMessage, e.getCause());
+        } catch (RuntimeException e) {
+            updateUpgradeState(tenant.getTenantIdentifier(), UpgradeState.FAILED);
+            throw e;
+        }
+
+        for (final Runnable callback : updateUpgradeState(tenant.getTenantIdentifier(), UpgradeState.UPGRADED)) {
+            try {
+                callback.run();
+            } catch (final RuntimeException e) {
+                logger.error("Failed to run a callback on tenant " + tenant.getTenantIdentifier() + " becoming available", e);
+            }
+        }
+    }
+
+    /**
+     * @return the callbacks waiting for the tenant to become available
+     */
+    private List<Runnable> updateUpgradeState(final String tenantIdentifier, final UpgradeState state) {
+        synchronized (this.availabilityCallbacks) {
+            this.upgradeStates.put(tenantIdentifier, state);
+            final List<Runnable> callbacks = this.availabilityCallbacks.remove(tenantIdentifier);
+            if (callbacks == null || state != UpgradeState.UPGRADED) { return Collections.emptyList(); }
+            return callbacks;
+        }
+    }
+
+    private List<String> failedTenants() {
+        final List<String> failedTenants = new ArrayList<>();
+        for (final Map.Entry<String, UpgradeState> upgradeState : this.upgradeStates.entrySet()) {
+            if (upgradeState.getValue() == UpgradeState.FAILED) {
+                failedTenants.add(upgradeState.getKey());
             }
         }
+        return failedTenants;
     }
 
 	/**
@@ -0,0 +1,72 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.util.concurrent.Callable;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * A {@link Callable} that carries the {@link ThreadLocalContextUtil} tenant,
+ * data source context and auth token, along with the spring security context,
+ * of the thread that created it over to the thread that executes it.
+ *
+ * Work handed to an executor therefore routes to the same tenant database
+ * through {@link RoutingDataSource} and sees the same authenticated user. The
+ * executing thread's own context is restored once the work completes.
+ */
+public abstract class ThreadLocalContextAwareCallable<V> implements Callable<V> {
+
+    private final MifosPlatformTenant tenant;
+    private final String dataSourceContext;
+    private final String authToken;
+    private final SecurityContext securityContext;
+
+    protected ThreadLocalContextAwareCallable() {
+        this.tenant = ThreadLocalContextUtil.getTenant();
+        this.dataSourceContext = ThreadLocalContextUtil.getDataSourceContext();
+        this.authToken = ThreadLocalContextUtil.getAuthToken();
+        this.securityContext = SecurityContextHolder.getContext();
+    }
+
+    @Override
+    public final V call() throws Exception {
+        final MifosPlatformTenant previousTenant = ThreadLocalContextUtil.getTenant();
+        final String previousDataSourceContext = ThreadLocalContextUtil.getDataSourceContext();
+        final String previousAuthToken = ThreadLocalContextUtil.getAuthToken();
+        final SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+
+        apply(this.tenant, this.dataSourceContext, this.authToken, this.securityContext);
+        try {
+            return callInContext();
+        } finally {
+            apply(previousTenant, previousDataSourceContext, previousAuthToken, previousSecurityContext);
+        }
+    }
+
+    /**
+     * The work to perform once the creating thread's context is in place.
+     */
+    protected abstract V callInContext() throws Exception;
+
+    private static void apply(final MifosPlatformTenant tenant, final String dataSourceContext, final String authToken,
+            final SecurityContext securityContext) {
+        if (tenant == null) {
+            ThreadLocalContextUtil.clearTenant();
+        } else {
+            ThreadLocalContextUtil.setTenant(tenant);
+        }
+        if (dataSourceContext == null) {
+            ThreadLocalContextUtil.clearDataSourceContext();
+        } else {
+            ThreadLocalContextUtil.setDataSourceContext(dataSourceContext);
+        }
+        ThreadLocalContextUtil.setAuthToken(authToken);
+        SecurityContextHolder.setContext(securityContext);
+    }
+}
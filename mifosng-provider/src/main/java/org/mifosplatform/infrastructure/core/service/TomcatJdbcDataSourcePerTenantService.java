@@ -5,16 +5,30 @@
  */
 package org.mifosplatform.infrastructure.core.service;
 
-import java.util.HashMap;
-import java.util.Map;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
 
 import org.apache.tomcat.jdbc.pool.PoolConfiguration;
 import org.apache.tomcat.jdbc.pool.PoolProperties;
+import org.mifosplatform.infrastructure.core.data.TenantDataSourceMetricsData;
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.stereotype.Service;
 
 /**
@@ -24,16 +38,36 @@ import org.springframework.stereotype.Service;
  * 
  * {@link ThreadLocalContextUtil} is used to retrieve the
  * {@link MifosPlatformTenant} for the request.
+ * 
+ * Every JdbcTemplate and JPA access goes through
+ * {@link #retrieveDataSource()}, so pools are kept in a
+ * {@link ConcurrentMap} that is read without locking. Once the application
+ * context has started the pools of all tenants are created and filled with
+ * their initial connections, unless <code>mifos.datasource.warmup</code> is
+ * false.
  */
 @Service
-public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceService {
+public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceService, TenantDataSourceMetricsService,
+        ApplicationListener<ContextRefreshedEvent> {
+
+    public final static String WARM_UP = "mifos.datasource.warmup";
+
+    private final static Logger logger = LoggerFactory.getLogger(TomcatJdbcDataSourcePerTenantService.class);
 
-    private final Map<Long, DataSource> tenantToDataSourceMap = new HashMap<>(1);
+    private static final int MAX_WARM_UP_THREADS = 8;
+
+    private final ConcurrentMap<Long, MeteredTenantDataSource> tenantToDataSourceMap = new ConcurrentHashMap<>();
     private final DataSource tenantDataSource;
+    private final TenantDetailsService tenantDetailsService;
+    private final boolean warmUpEnabled;
+    private final AtomicBoolean warmedUp = new AtomicBoolean();
 
     @Autowired
-    public TomcatJdbcDataSourcePerTenantService(final @Qualifier("tenantDataSourceJndi") DataSource tenantDataSource) {
+    public TomcatJdbcDataSourcePerTenantService(final @Qualifier("tenantDataSourceJndi") DataSource tenantDataSource,
+            final TenantDetailsService tenantDetailsService, @Value("${" + WARM_UP + ":true}") final boolean warmUpEnabled) {
         this.tenantDataSource = tenantDataSource;
+        this.tenantDetailsService = tenantDetailsService;
+        this.warmUpEnabled = warmUpEnabled;
     }
 
     @Override
@@ -44,23 +78,80 @@ public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceSe
 
         final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
         if (tenant != null) {
-            synchronized (this.tenantToDataSourceMap) {
-                // if tenant information available switch to appropriate
-                // datasource
-                // for that tenant.
-                if (this.tenantToDataSourceMap.containsKey(tenant.getId())) {
-                    tenantDataSource = this.tenantToDataSourceMap.get(tenant.getId());
-                } else {
-                    tenantDataSource = createNewDataSourceFor(tenant);
-                    this.tenantToDataSourceMap.put(tenant.getId(), tenantDataSource);
-                }
-            }
+            // if tenant information available switch to appropriate
+            // datasource for that tenant.
+            tenantDataSource = dataSourceFor(tenant);
         }
 
         return tenantDataSource;
     }
 
-    private DataSource createNewDataSourceFor(final MifosPlatformTenant tenant) {
+    private MeteredTenantDataSource dataSourceFor(final MifosPlatformTenant tenant) {
+        final MeteredTenantDataSource dataSource = this.tenantToDataSourceMap.get(tenant.getId());
+        if (dataSource != null) { return dataSource; }
+
+        // tomcat only opens connections on first use, so the pool of a thread
+        // that loses the race is discarded before it has any
+        final MeteredTenantDataSource newDataSource = new MeteredTenantDataSource(tenant.getTenantIdentifier(),
+                createNewDataSourceFor(tenant));
+        final MeteredTenantDataSource existingDataSource = this.tenantToDataSourceMap.putIfAbsent(tenant.getId(), newDataSource);
+        if (existingDataSource != null) {
+            newDataSource.close();
+            return existingDataSource;
+        }
+        return newDataSource;
+    }
+
+    @Override
+    public void onApplicationEvent(@SuppressWarnings("unused") final ContextRefreshedEvent event) {
+        if (!this.warmUpEnabled || !this.warmedUp.compareAndSet(false, true)) { return; }
+
+        final List<MifosPlatformTenant> tenants = this.tenantDetailsService.findAllTenants();
+        if (tenants.isEmpty()) { return; }
+
+        final long startTime = System.currentTimeMillis();
+        final ExecutorService executorService = Executors.newFixedThreadPool(Math.min(MAX_WARM_UP_THREADS, tenants.size()));
+        try {
+            final List<Callable<Void>> warmUps = new ArrayList<>(tenants.size());
+            for (final MifosPlatformTenant tenant : tenants) {
+                warmUps.add(new Callable<Void>() {
+
+                    @Override
+                    public Void call() {
+                        try {
+                            dataSourceFor(tenant).warmUp();
+                        } catch (final Exception e) {
+                            // the pool is retried on first use like any other
+                            logger.warn("Could not warm up connection pool of tenant " + tenant.getTenantIdentifier(), e);
+                        }
+                        return null;
+                    }
+                });
+            }
+            executorService.invokeAll(warmUps);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executorService.shutdownNow();
+        }
+        logger.info("Connection pools of " + tenants.size() + " tenants warmed up in " + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    @Override
+    public TenantDataSourceMetricsData retrieveMetrics(final Long tenantId) {
+        final MeteredTenantDataSource dataSource = this.tenantToDataSourceMap.get(tenantId);
+        return dataSource == null ? null : dataSource.toMetrics();
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        for (final MeteredTenantDataSource dataSource : this.tenantToDataSourceMap.values()) {
+            dataSource.close();
+        }
+        this.tenantToDataSourceMap.clear();
+    }
+
+    private org.apache.tomcat.jdbc.pool.DataSource createNewDataSourceFor(final MifosPlatformTenant tenant) {
         // see
         // http://www.tomcatexpert.com/blog/2010/04/01/configuring-jdbc-pool-high-concurrency
 
@@ -75,8 +166,6 @@ public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceSe
         poolConfiguration.setUsername(tenant.getSchemaUsername());
         poolConfiguration.setPassword(tenant.getSchemaPassword());
 
-        poolConfiguration.setInitialSize(tenant.getInitialSize());
-
         poolConfiguration.setTestOnBorrow(tenant.isTestOnBorrow());
         poolConfiguration.setValidationQuery("SELECT 1");
         poolConfiguration.setValidationInterval(tenant.getValidationInterval());
@@ -86,20 +175,34 @@ public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceSe
         poolConfiguration.setLogAbandoned(tenant.isLogAbandoned());
         poolConfiguration.setAbandonWhenPercentageFull(tenant.getAbandonWhenPercentageFull());
 
-        /**
-         * Vishwas- Do we need to enable the below properties and add
-         * ResetAbandonedTimer for long running batch Jobs?
-         **/
-        // poolConfiguration.setMaxActive(tenant.getMaxActive());
-        // poolConfiguration.setMinIdle(tenant.getMinIdle());
-        // poolConfiguration.setMaxIdle(tenant.getMaxIdle());
+        // pools use the tomcat defaults for any setting left at zero, and the
+        // tenant defaults (min idle 20, max idle 10) are made consistent
+        if (tenant.getMaxActive() > 0) {
+            poolConfiguration.setMaxActive(tenant.getMaxActive());
+        }
+        if (tenant.getMinIdle() > 0) {
+            poolConfiguration.setMinIdle(Math.min(tenant.getMinIdle(), poolConfiguration.getMaxActive()));
+        }
+        if (tenant.getMaxIdle() > 0) {
+            poolConfiguration.setMaxIdle(Math.max(tenant.getMaxIdle(), poolConfiguration.getMinIdle()));
+        }
+        poolConfiguration.setInitialSize(Math.min(tenant.getInitialSize(), poolConfiguration.getMaxActive()));
 
-        // poolConfiguration.setSuspectTimeout(tenant.getSuspectTimeout());
-        // poolConfiguration.setTimeBetweenEvictionRunsMillis(tenant.getTimeBetweenEvictionRunsMillis());
-        // poolConfiguration.setMinEvictableIdleTimeMillis(tenant.getMinEvictableIdleTimeMillis());
+        if (tenant.getSuspectTimeout() > 0) {
+            poolConfiguration.setSuspectTimeout(tenant.getSuspectTimeout());
+        }
+        if (tenant.getTimeBetweenEvictionRunsMillis() > 0) {
+            poolConfiguration.setTimeBetweenEvictionRunsMillis(tenant.getTimeBetweenEvictionRunsMillis());
+        }
+        if (tenant.getMinEvictableIdleTimeMillis() > 0) {
+            poolConfiguration.setMinEvictableIdleTimeMillis(tenant.getMinEvictableIdleTimeMillis());
+        }
 
+        // ResetAbandonedTimer keeps connections of long running batch jobs that
+        // are still issuing statements from being taken as abandoned
         poolConfiguration.setJdbcInterceptors("org.apache.tomcat.jdbc.pool.interceptor.ConnectionState;"
-                + "org.apache.tomcat.jdbc.pool.interceptor.StatementFinalizer;org.apache.tomcat.jdbc.pool.interceptor.SlowQueryReport");
+                + "org.apache.tomcat.jdbc.pool.interceptor.StatementFinalizer;org.apache.tomcat.jdbc.pool.interceptor.SlowQueryReport;"
+                + "org.apache.tomcat.jdbc.pool.interceptor.ResetAbandonedTimer");
 
         return new org.apache.tomcat.jdbc.pool.DataSource(poolConfiguration);
     }
@@ -0,0 +1,70 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
+
+/**
+ * Writes a generic result set as CSV: quoted column names on the first line,
+ * numeric values as they are and any other value quoted.
+ */
+public class CsvGenericResultsetWriter implements GenericResultsetWriter {
+
+    private static final String DOUBLE_QUOTE = "\"";
+    private static final String TWO_DOUBLE_QUOTES = DOUBLE_QUOTE + DOUBLE_QUOTE;
+
+    private final Writer writer;
+    private boolean[] numericColumns;
+
+    public CsvGenericResultsetWriter(final Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void writeColumnHeaders(final List<ResultsetColumnHeaderData> columnHeaders) throws IOException {
+        final int chSize = columnHeaders.size();
+        this.numericColumns = new boolean[chSize];
+        for (int i = 0; i < chSize; i++) {
+            final String columnType = columnHeaders.get(i).getColumnType();
+            this.numericColumns[i] = columnType.equals("DECIMAL") || columnType.equals("DOUBLE") || columnType.equals("BIGINT")
+                    || columnType.equals("SMALLINT") || columnType.equals("INT");
+
+            this.writer.write('"' + columnHeaders.get(i).getColumnName() + '"');
+            if (i < (chSize - 1)) {
+                this.writer.write(',');
+            }
+        }
+        this.writer.write('\n');
+    }
+
+    @Override
+    public void writeRow(final List<String> row) throws IOException {
+        final int rSize = row.size();
+        for (int j = 0; j < rSize; j++) {
+            final String currVal = row.get(j);
+            if (currVal != null) {
+                if (this.numericColumns[j]) {
+                    this.writer.write(currVal);
+                } else {
+                    this.writer.write('"' + currVal.replace(DOUBLE_QUOTE, TWO_DOUBLE_QUOTES) + '"');
+                }
+            }
+            if (j < (rSize - 1)) {
+                this.writer.write(',');
+            }
+        }
+        this.writer.write('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        this.writer.flush();
+    }
+}
@@ -5,6 +5,7 @@
  */
 package org.mifosplatform.infrastructure.dataqueries.service;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
@@ -14,6 +15,13 @@ public interface GenericDataService {
 
     GenericResultsetData fillGenericResultSet(final String sql);
 
+    /**
+     * Runs the query on a forward only cursor and hands each row to the
+     * writer as it is read, so the result set is never held in memory. The
+     * connection is held until the last row has been written.
+     */
+    void streamGenericResultSet(String sql, GenericResultsetWriter resultsetWriter) throws IOException;
+
     String generateJsonFromGenericResultsetData(GenericResultsetData grs);
 
     String replace(String str, String pattern, String replace);
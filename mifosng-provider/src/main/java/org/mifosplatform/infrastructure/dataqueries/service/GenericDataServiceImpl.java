@@ -5,13 +5,17 @@
  */
 package org.mifosplatform.infrastructure.dataqueries.service;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.sql.DataSource;
 
-import org.joda.time.LocalDate;
-import org.joda.time.LocalDateTime;
+import org.mifosplatform.infrastructure.core.domain.StreamingPreparedStatementCreator;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
 import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
@@ -21,7 +25,9 @@ import org.mifosplatform.infrastructure.dataqueries.exception.DatatableNotFoundE
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.jdbc.support.rowset.SqlRowSetMetaData;
 import org.springframework.stereotype.Service;
@@ -104,81 +110,62 @@ public class GenericDataServiceImpl implements GenericDataService {
     }
 
     @Override
-    public String generateJsonFromGenericResultsetData(final GenericResultsetData grs) {
-
-        final StringBuffer writer = new StringBuffer();
-
-        writer.append("[");
-
-        final List<ResultsetColumnHeaderData> columnHeaders = grs.getColumnHeaders();
-
-        final List<ResultsetRowData> data = grs.getData();
-        List<String> row;
-        Integer rSize;
-        final String doubleQuote = "\"";
-        final String slashDoubleQuote = "\\\"";
-        String currColType;
-        String currVal;
-
-        for (int i = 0; i < data.size(); i++) {
-            writer.append("\n{");
-
-            row = data.get(i).getRow();
-            rSize = row.size();
-            for (int j = 0; j < rSize; j++) {
-
-                writer.append(doubleQuote + columnHeaders.get(j).getColumnName() + doubleQuote + ": ");
-                currColType = columnHeaders.get(j).getColumnDisplayType();
-                final String colType = columnHeaders.get(j).getColumnType();
-                if (currColType == null && colType.equalsIgnoreCase("INT")) {
-                    currColType = "INTEGER";
-                }
-                if (currColType == null && colType.equalsIgnoreCase("VARCHAR")) {
-                    currColType = "VARCHAR";
-                }
-                if (currColType == null && colType.equalsIgnoreCase("DATE")) {
-                    currColType = "DATE";
-                }
-                currVal = row.get(j);
-                if (currVal != null && currColType != null) {
-                    if (currColType.equals("DECIMAL") || currColType.equals("INTEGER")) {
-                        writer.append(currVal);
-                    } else {
-                        if (currColType.equals("DATE")) {
-                            final LocalDate localDate = new LocalDate(currVal);
-                            writer.append("[" + localDate.getYear() + ", " + localDate.getMonthOfYear() + ", " + localDate.getDayOfMonth()
-                                    + "]");
-                        } else if (currColType.equals("DATETIME")) {
-                            final LocalDateTime localDateTime = new LocalDateTime(currVal);
-                            writer.append("[" + localDateTime.getYear() + ", " + localDateTime.getMonthOfYear() + ", "
-                                    + localDateTime.getDayOfMonth() + " " + localDateTime.getHourOfDay() + ", "
-                                    + localDateTime.getMinuteOfHour() + ", " + localDateTime.getSecondOfMinute() + ", "
-                                    + localDateTime.getMillisOfSecond() + "]");
-                        } else {
-                            writer.append(doubleQuote + replace(currVal, doubleQuote, slashDoubleQuote) + doubleQuote);
+    public void streamGenericResultSet(final String sql, final GenericResultsetWriter resultsetWriter) throws IOException {
+        try {
+            this.jdbcTemplate.query(StreamingPreparedStatementCreator.forMysql(sql), new ResultSetExtractor<Void>() {
+
+                @Override
+                public Void extractData(final ResultSet rs) throws SQLException {
+                    try {
+                        final ResultSetMetaData rsmd = rs.getMetaData();
+                        final int columnCount = rsmd.getColumnCount();
+
+                        final List<ResultsetColumnHeaderData> columnHeaders = new ArrayList<>(columnCount);
+                        for (int i = 1; i <= columnCount; i++) {
+                            columnHeaders.add(ResultsetColumnHeaderData.basic(rsmd.getColumnLabel(i), rsmd.getColumnTypeName(i)));
+                        }
+                        resultsetWriter.writeColumnHeaders(columnHeaders);
+
+                        final List<String> row = new ArrayList<>(columnCount);
+                        while (rs.next()) {
+                            row.clear();
+                            for (int i = 1; i <= columnCount; i++) {
+                                row.add(rs.getString(i));
+                            }
+                            resultsetWriter.writeRow(row);
                         }
+                        resultsetWriter.finish();
+                    } catch (final IOException e) {
+                        throw new ResultsetWriteException(e);
                     }
-                } else {
-                    writer.append("null");
+                    return null;
                 }
-                if (j < (rSize - 1)) {
-                    writer.append(",\n");
-                }
-            }
+            });
+        } catch (final ResultsetWriteException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public String generateJsonFromGenericResultsetData(final GenericResultsetData grs) {
 
-            if (i < (data.size() - 1)) {
-                writer.append("},");
-            } else {
-                writer.append("}");
+        final StringWriter writer = new StringWriter();
+        final GenericResultsetWriter resultsetWriter = new JsonGenericResultsetWriter(writer);
+        try {
+            resultsetWriter.writeColumnHeaders(grs.getColumnHeaders());
+            for (final ResultsetRowData rowData : grs.getData()) {
+                resultsetWriter.writeRow(rowData.getRow());
             }
+            resultsetWriter.finish();
+        } catch (final IOException e) {
+            // not expected when writing to a StringWriter
+            throw new IllegalStateException(e);
         }
-
-        writer.append("\n]");
         return writer.toString();
-
     }
 
     @Override
+    @Cacheable(value = "datatables", key = "T(org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil).getTenant().getTenantIdentifier().concat(#datatable+'dt')")
     public List<ResultsetColumnHeaderData> fillResultsetColumnHeaders(final String datatable) {
 
         logger.debug("::3 Was inside the fill ResultSetColumnHeader");
@@ -283,10 +270,9 @@ public class GenericDataServiceImpl implements GenericDataService {
     private SqlRowSet getDatatableMetaData(final String datatable) {
 
         final String sql = "select COLUMN_NAME, IS_NULLABLE, DATA_TYPE, CHARACTER_MAXIMUM_LENGTH, COLUMN_KEY"
-                + " from INFORMATION_SCHEMA.COLUMNS " + " where TABLE_SCHEMA = schema() and TABLE_NAME = '" + datatable
-                + "'order by ORDINAL_POSITION";
+                + " from INFORMATION_SCHEMA.COLUMNS where TABLE_SCHEMA = schema() and TABLE_NAME = ? order by ORDINAL_POSITION";
 
-        final SqlRowSet columnDefinitions = this.jdbcTemplate.queryForRowSet(sql);
+        final SqlRowSet columnDefinitions = this.jdbcTemplate.queryForRowSet(sql, datatable);
         if (columnDefinitions.next()) { return columnDefinitions; }
 
         throw new DatatableNotFoundException(datatable);
@@ -294,10 +280,27 @@ public class GenericDataServiceImpl implements GenericDataService {
 
     private SqlRowSet getDatatableCodeData(final String datatable, final String columnName) {
 
-        final String sql = "select mc.id,mc.code_name from m_code mc join x_table_column_code_mappings xcc on xcc.code_id = mc.id where xcc.column_alias_name='"
-                + datatable.toLowerCase().replaceAll("\\s", "_") + "_" + columnName + "'";
-        final SqlRowSet rsValues = this.jdbcTemplate.queryForRowSet(sql);
+        final String sql = "select mc.id,mc.code_name from m_code mc join x_table_column_code_mappings xcc on xcc.code_id = mc.id"
+                + " where xcc.column_alias_name = ?";
+        final SqlRowSet rsValues = this.jdbcTemplate.queryForRowSet(sql, datatable.toLowerCase().replaceAll("\\s", "_") + "_" + columnName);
 
         return rsValues;
     }
-}
\ No newline at end of file
+
+    /**
+     * Carries an {@link IOException} raised by the output out of the
+     * {@link ResultSetExtractor} so it can be rethrown once the connection has
+     * been released.
+     */
+    private static final class ResultsetWriteException extends RuntimeException {
+
+        ResultsetWriteException(final IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
+import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes a generic result set in the json form of
+ * {@link GenericResultsetData}, the column headers followed by the rows, the
+ * same as serializing it with gson but without holding the rows in memory.
+ */
+public class GenericResultsetDataJsonWriter implements GenericResultsetWriter {
+
+    // column headers hold no joda types so a default instance is sufficient
+    private static final Gson GSON = new Gson();
+
+    private final JsonWriter jsonWriter;
+
+    public GenericResultsetDataJsonWriter(final Writer writer, final boolean prettyPrint) {
+        this.jsonWriter = new JsonWriter(writer);
+        // match the defaults of a Gson instance
+        this.jsonWriter.setHtmlSafe(true);
+        if (prettyPrint) {
+            this.jsonWriter.setIndent("  ");
+        }
+    }
+
+    @Override
+    public void writeColumnHeaders(final List<ResultsetColumnHeaderData> columnHeaders) throws IOException {
+        this.jsonWriter.beginObject();
+        this.jsonWriter.name("columnHeaders");
+        this.jsonWriter.beginArray();
+        for (final ResultsetColumnHeaderData columnHeader : columnHeaders) {
+            GSON.toJson(columnHeader, ResultsetColumnHeaderData.class, this.jsonWriter);
+        }
+        this.jsonWriter.endArray();
+        this.jsonWriter.name("data");
+        this.jsonWriter.beginArray();
+    }
+
+    @Override
+    public void writeRow(final List<String> row) throws IOException {
+        this.jsonWriter.beginObject();
+        this.jsonWriter.name("row");
+        this.jsonWriter.beginArray();
+        for (final String value : row) {
+            this.jsonWriter.value(value);
+        }
+        this.jsonWriter.endArray();
+        this.jsonWriter.endObject();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        this.jsonWriter.endArray();
+        this.jsonWriter.endObject();
+        this.jsonWriter.flush();
+    }
+}
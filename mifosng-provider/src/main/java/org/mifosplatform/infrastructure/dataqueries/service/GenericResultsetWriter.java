@@ -0,0 +1,31 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
+import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
+
+/**
+ * Receives a generic result set one row at a time, as it is read from the
+ * database, instead of as a complete {@link GenericResultsetData}.
+ * 
+ * @see GenericDataService#streamGenericResultSet(String,
+ *      GenericResultsetWriter)
+ */
+public interface GenericResultsetWriter {
+
+    void writeColumnHeaders(List<ResultsetColumnHeaderData> columnHeaders) throws IOException;
+
+    /**
+     * The list is reused for the next row, so it must not be kept.
+     */
+    void writeRow(List<String> row) throws IOException;
+
+    void finish() throws IOException;
+}
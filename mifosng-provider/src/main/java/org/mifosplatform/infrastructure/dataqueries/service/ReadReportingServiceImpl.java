@@ -5,13 +5,13 @@
  */
 package org.mifosplatform.infrastructure.dataqueries.service;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.ResultSet;
@@ -22,15 +22,21 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.lang.StringUtils;
 import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
+import org.mifosplatform.infrastructure.core.exception.PlatformServiceUnavailableException;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
@@ -60,6 +66,8 @@ import org.pentaho.reporting.libraries.resourceloader.ResourceManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
@@ -75,15 +83,25 @@ public class ReadReportingServiceImpl implements ReadReportingService {
 
     private final static Logger logger = LoggerFactory.getLogger(ReadReportingServiceImpl.class);
 
+    public final static String PENTAHO_MAX_CONCURRENT_RENDERS = "mifos.reporting.pentaho.max-concurrent-renders";
+    public final static String PENTAHO_RENDER_WAIT_SECONDS = "mifos.reporting.pentaho.render-wait-seconds";
+
     private final JdbcTemplate jdbcTemplate;
     private final DataSource dataSource;
     private final PlatformSecurityContext context;
     private final GenericDataService genericDataService;
     private boolean noPentaho = false;
 
+    private final ResourceManager pentahoResourceManager;
+    private final ConcurrentHashMap<String, PentahoReportDefinition> pentahoReportDefinitions = new ConcurrentHashMap<>();
+    private final Semaphore pentahoRenderPermits;
+    private final int pentahoRenderWaitSeconds;
+
     @Autowired
     public ReadReportingServiceImpl(final PlatformSecurityContext context, final RoutingDataSource dataSource,
-            final GenericDataService genericDataService) {
+            final GenericDataService genericDataService,
+            @Value("${" + PENTAHO_MAX_CONCURRENT_RENDERS + ":4}") final int pentahoMaxConcurrentRenders,
+            @Value("${" + PENTAHO_RENDER_WAIT_SECONDS + ":30}") final int pentahoRenderWaitSeconds) {
         // kick off pentaho reports server
         ClassicEngineBoot.getInstance().start();
         this.noPentaho = false;
@@ -92,87 +110,66 @@ public class ReadReportingServiceImpl implements ReadReportingService {
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(this.dataSource);
         this.genericDataService = genericDataService;
+
+        this.pentahoResourceManager = new ResourceManager();
+        this.pentahoResourceManager.registerDefaults();
+        this.pentahoRenderPermits = new Semaphore(Math.max(1, pentahoMaxConcurrentRenders), true);
+        this.pentahoRenderWaitSeconds = pentahoRenderWaitSeconds;
     }
 
     @Override
     public StreamingOutput retrieveReportCSV(final String name, final String type, final Map<String, String> queryParams) {
 
+        // resolved up front so an unknown report or a bad parameter is still
+        // reported before the response is committed
+        final String sql = getSQLtoRun(name, type, queryParams);
+
         return new StreamingOutput() {
 
             @Override
-            public void write(final OutputStream out) {
-                try {
+            public void write(final OutputStream out) throws IOException {
+                final Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
+                streamReport(name, type, sql, new CsvGenericResultsetWriter(writer));
+            }
+        };
+    }
 
-                    final GenericResultsetData result = retrieveGenericResultset(name, type, queryParams);
-                    final StringBuffer sb = generateCsvFileBuffer(result);
+    @Override
+    public StreamingOutput retrieveReportJson(final String name, final String type, final Map<String, String> queryParams,
+            final boolean genericResultSet, final boolean prettyPrint) {
 
-                    final InputStream in = new ByteArrayInputStream(sb.toString().getBytes("UTF-8"));
+        final String sql = getSQLtoRun(name, type, queryParams);
 
-                    final byte[] outputByte = new byte[4096];
-                    Integer readLen = in.read(outputByte, 0, 4096);
+        return new StreamingOutput() {
 
-                    while (readLen != -1) {
-                        out.write(outputByte, 0, readLen);
-                        readLen = in.read(outputByte, 0, 4096);
-                    }
-                    // in.close();
-                    // out.flush();
-                    // out.close();
-                } catch (final Exception e) {
-                    throw new PlatformDataIntegrityException("error.msg.exception.error", e.getMessage());
+            @Override
+            public void write(final OutputStream out) throws IOException {
+                final Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
+                final GenericResultsetWriter resultsetWriter;
+                if (genericResultSet) {
+                    resultsetWriter = new GenericResultsetDataJsonWriter(writer, prettyPrint);
+                } else {
+                    resultsetWriter = new JsonGenericResultsetWriter(writer);
                 }
+                streamReport(name, type, sql, resultsetWriter);
             }
         };
-
     }
 
-    private StringBuffer generateCsvFileBuffer(final GenericResultsetData result) {
-        final StringBuffer writer = new StringBuffer();
+    private void streamReport(final String name, final String type, final String sql, final GenericResultsetWriter resultsetWriter)
+            throws IOException {
 
-        final List<ResultsetColumnHeaderData> columnHeaders = result.getColumnHeaders();
-        logger.info("NO. of Columns: " + columnHeaders.size());
-        final Integer chSize = columnHeaders.size();
-        for (int i = 0; i < chSize; i++) {
-            writer.append('"' + columnHeaders.get(i).getColumnName() + '"');
-            if (i < (chSize - 1)) {
-                writer.append(",");
-            }
-        }
-        writer.append('\n');
-
-        final List<ResultsetRowData> data = result.getData();
-        List<String> row;
-        Integer rSize;
-        // String currCol;
-        String currColType;
-        String currVal;
-        final String doubleQuote = "\"";
-        final String twoDoubleQuotes = doubleQuote + doubleQuote;
-        logger.info("NO. of Rows: " + data.size());
-        for (int i = 0; i < data.size(); i++) {
-            row = data.get(i).getRow();
-            rSize = row.size();
-            for (int j = 0; j < rSize; j++) {
-                // currCol = columnHeaders.get(j).getColumnName();
-                currColType = columnHeaders.get(j).getColumnType();
-                currVal = row.get(j);
-                if (currVal != null) {
-                    if (currColType.equals("DECIMAL") || currColType.equals("DOUBLE") || currColType.equals("BIGINT")
-                            || currColType.equals("SMALLINT") || currColType.equals("INT")) {
-                        writer.append(currVal);
-                    } else {
-                        writer.append('"' + this.genericDataService.replace(currVal, doubleQuote, twoDoubleQuotes) + '"');
-                    }
+        final long startTime = System.currentTimeMillis();
+        logger.info("STARTING REPORT: " + name + "   Type: " + type);
 
-                }
-                if (j < (rSize - 1)) {
-                    writer.append(",");
-                }
-            }
-            writer.append('\n');
+        try {
+            this.genericDataService.streamGenericResultSet(sql, resultsetWriter);
+        } catch (final DataAccessException e) {
+            throw new PlatformDataIntegrityException("error.msg.exception.error", e.getMessage());
         }
 
-        return writer;
+        final long elapsed = System.currentTimeMillis() - startTime;
+        logger.info("FINISHING Report/Request Name: " + name + " - " + type + "     Elapsed Time: " + elapsed);
     }
 
     @Override
@@ -259,54 +256,106 @@ public class ReadReportingServiceImpl implements ReadReportingService {
                 + reportName + ".prpt";
         logger.info("Report path: " + reportPath);
 
-        // load report definition
-        final ResourceManager manager = new ResourceManager();
-        manager.registerDefaults();
-        Resource res;
-
         try {
-            res = manager.createDirectly(reportPath, MasterReport.class);
-            final MasterReport masterReport = (MasterReport) res.getResource();
-            final DefaultReportEnvironment reportEnvironment = (DefaultReportEnvironment) masterReport.getReportEnvironment();
+            final MasterReport masterReport = loadPentahoReport(reportPath);
             if (locale != null) {
+                final DefaultReportEnvironment reportEnvironment = new DefaultReportEnvironment(masterReport.getConfiguration());
                 reportEnvironment.setLocale(locale);
+                masterReport.setReportEnvironment(reportEnvironment);
             }
             addParametersToReport(masterReport, queryParams);
 
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            final StreamingOutput result = renderPentahoReport(masterReport, outputType);
 
-            if ("PDF".equalsIgnoreCase(outputType)) {
-                PdfReportUtil.createPDF(masterReport, baos);
-                return Response.ok().entity(baos.toByteArray()).type("application/pdf").build();
-            }
+            if ("PDF".equalsIgnoreCase(outputType)) { return Response.ok().entity(result).type("application/pdf").build(); }
 
             if ("XLS".equalsIgnoreCase(outputType)) {
-                ExcelReportUtil.createXLS(masterReport, baos);
-                return Response.ok().entity(baos.toByteArray()).type("application/vnd.ms-excel")
+                return Response.ok().entity(result).type("application/vnd.ms-excel")
                         .header("Content-Disposition", "attachment;filename=" + reportName.replaceAll(" ", "") + ".xls").build();
             }
 
             if ("CSV".equalsIgnoreCase(outputType)) {
-                CSVReportUtil.createCSV(masterReport, baos, "UTF-8");
-                return Response.ok().entity(baos.toByteArray()).type("application/x-msdownload")
+                return Response.ok().entity(result).type("application/x-msdownload")
                         .header("Content-Disposition", "attachment;filename=" + reportName.replaceAll(" ", "") + ".csv").build();
             }
 
-            if ("HTML".equalsIgnoreCase(outputType)) {
-                HtmlReportUtil.createStreamHTML(masterReport, baos);
-                return Response.ok().entity(baos.toByteArray()).type("text/html").build();
-            }
+            if ("HTML".equalsIgnoreCase(outputType)) { return Response.ok().entity(result).type("text/html").build(); }
         } catch (final ResourceException e) {
             throw new PlatformDataIntegrityException("error.msg.reporting.error", e.getMessage());
-        } catch (final ReportProcessingException e) {
-            throw new PlatformDataIntegrityException("error.msg.reporting.error", e.getMessage());
-        } catch (final IOException e) {
-            throw new PlatformDataIntegrityException("error.msg.reporting.error", e.getMessage());
         }
 
         throw new PlatformDataIntegrityException("error.msg.invalid.outputType", "No matching Output Type: " + outputType);
     }
 
+    /**
+     * Returns a private copy of the parsed report definition. The definition is
+     * parsed once and kept until the .prpt file's modification time changes;
+     * each request gets its own clone as parameters and locale are set on it.
+     */
+    private MasterReport loadPentahoReport(final String reportPath) throws ResourceException {
+        final long lastModified = new File(reportPath).lastModified();
+
+        PentahoReportDefinition definition = this.pentahoReportDefinitions.get(reportPath);
+        if (definition == null || definition.lastModified != lastModified) {
+            final Resource res = this.pentahoResourceManager.createDirectly(reportPath, MasterReport.class);
+            definition = new PentahoReportDefinition((MasterReport) res.getResource(), lastModified);
+            this.pentahoReportDefinitions.put(reportPath, definition);
+            logger.info("Parsed report definition: " + reportPath);
+        }
+
+        return (MasterReport) definition.report.clone();
+    }
+
+    /**
+     * Renders straight to the response. At most
+     * {@link #PENTAHO_MAX_CONCURRENT_RENDERS} reports are rendered at once,
+     * further requests wait for a permit and are turned away with a 503 once
+     * {@link #PENTAHO_RENDER_WAIT_SECONDS} have passed. The permit is taken
+     * here, before the response is built, so that the 503 goes through the
+     * usual exception mapping; it is given back once the report is written.
+     */
+    private StreamingOutput renderPentahoReport(final MasterReport masterReport, final String outputType) {
+
+        acquirePentahoRenderPermit();
+
+        return new StreamingOutput() {
+
+            @Override
+            public void write(final OutputStream out) throws IOException {
+                try {
+                    if ("PDF".equalsIgnoreCase(outputType)) {
+                        PdfReportUtil.createPDF(masterReport, out);
+                    } else if ("XLS".equalsIgnoreCase(outputType)) {
+                        ExcelReportUtil.createXLS(masterReport, out);
+                    } else if ("CSV".equalsIgnoreCase(outputType)) {
+                        CSVReportUtil.createCSV(masterReport, out, "UTF-8");
+                    } else {
+                        HtmlReportUtil.createStreamHTML(masterReport, out);
+                    }
+                    out.flush();
+                } catch (final ReportProcessingException e) {
+                    // platform exceptions are not mapped once the entity is
+                    // being written
+                    logger.error("error.msg.reporting.error:" + e.getMessage());
+                    throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
+                } finally {
+                    ReadReportingServiceImpl.this.pentahoRenderPermits.release();
+                }
+            }
+        };
+    }
+
+    private void acquirePentahoRenderPermit() {
+        boolean acquired = false;
+        try {
+            acquired = this.pentahoRenderPermits.tryAcquire(this.pentahoRenderWaitSeconds, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!acquired) { throw new PlatformServiceUnavailableException("error.msg.reporting.busy",
+                "Too many reports are being rendered at the moment, please try again later"); }
+    }
+
     private void addParametersToReport(final MasterReport report, final Map<String, String> queryParams) {
 
         final AppUser currentUser = this.context.authenticatedUser();
@@ -621,4 +670,15 @@ public class ReadReportingServiceImpl implements ReadReportingService {
         }
     }
 
-}
\ No newline at end of file
+
+    private static final class PentahoReportDefinition {
+
+        private final MasterReport report;
+        private final long lastModified;
+
+        PentahoReportDefinition(final MasterReport report, final long lastModified) {
+            this.report = report;
+            this.lastModified = lastModified;
+        }
+    }
+}
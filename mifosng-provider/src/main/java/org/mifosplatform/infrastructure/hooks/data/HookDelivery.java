@@ -0,0 +1,138 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.data;
+
+import org.mifosplatform.useradministration.domain.AppUser;
+
+/**
+ * A pending delivery of the payload of an event to one hook.
+ * 
+ * The user and auth token of the request that raised the event are only held
+ * in memory and are not available for deliveries loaded back from the outbox;
+ * the token is a credential and is deliberately not stored with the row.
+ * Processors that need them defer such deliveries.
+ */
+public class HookDelivery {
+
+	private final Long id;
+	private final String tenantIdentifier;
+	private final Long hookId;
+	private final String entityName;
+	private final String actionName;
+	private final String payload;
+	private final int attempts;
+	private final long createdTime;
+
+	private final AppUser appUser;
+	private final String authToken;
+
+	// local time until which the claim on the outbox row is known to be held
+	private final long claimedUntil;
+
+	public static HookDelivery newDelivery(final String tenantIdentifier,
+			final Long hookId, final String entityName,
+			final String actionName, final String payload,
+			final AppUser appUser, final String authToken) {
+		return new HookDelivery(null, tenantIdentifier, hookId, entityName,
+				actionName, payload, 0, System.currentTimeMillis(), appUser,
+				authToken, 0);
+	}
+
+	public static HookDelivery existing(final Long id,
+			final String tenantIdentifier, final Long hookId,
+			final String entityName, final String actionName,
+			final String payload, final int attempts, final long createdTime) {
+		return new HookDelivery(id, tenantIdentifier, hookId, entityName,
+				actionName, payload, attempts, createdTime, null, null, 0);
+	}
+
+	private HookDelivery(final Long id, final String tenantIdentifier,
+			final Long hookId, final String entityName,
+			final String actionName, final String payload, final int attempts,
+			final long createdTime, final AppUser appUser,
+			final String authToken, final long claimedUntil) {
+		this.id = id;
+		this.tenantIdentifier = tenantIdentifier;
+		this.hookId = hookId;
+		this.entityName = entityName;
+		this.actionName = actionName;
+		this.payload = payload;
+		this.attempts = attempts;
+		this.createdTime = createdTime;
+		this.appUser = appUser;
+		this.authToken = authToken;
+		this.claimedUntil = claimedUntil;
+	}
+
+	public HookDelivery withId(final Long id) {
+		return new HookDelivery(id, this.tenantIdentifier, this.hookId,
+				this.entityName, this.actionName, this.payload, this.attempts,
+				this.createdTime, this.appUser, this.authToken,
+				this.claimedUntil);
+	}
+
+	/**
+	 * @param claimedUntil
+	 *            local time in milliseconds until which the calling node holds
+	 *            the claim on the delivery
+	 */
+	public HookDelivery withClaimUntil(final long claimedUntil) {
+		return new HookDelivery(this.id, this.tenantIdentifier, this.hookId,
+				this.entityName, this.actionName, this.payload, this.attempts,
+				this.createdTime, this.appUser, this.authToken, claimedUntil);
+	}
+
+	public Long getId() {
+		return this.id;
+	}
+
+	public String getTenantIdentifier() {
+		return this.tenantIdentifier;
+	}
+
+	public Long getHookId() {
+		return this.hookId;
+	}
+
+	public String getEntityName() {
+		return this.entityName;
+	}
+
+	public String getActionName() {
+		return this.actionName;
+	}
+
+	public String getPayload() {
+		return this.payload;
+	}
+
+	public int getAttempts() {
+		return this.attempts;
+	}
+
+	public long getCreatedTime() {
+		return this.createdTime;
+	}
+
+	public AppUser getAppUser() {
+		return this.appUser;
+	}
+
+	public String getAuthToken() {
+		return this.authToken;
+	}
+
+	public long getClaimedUntil() {
+		return this.claimedUntil;
+	}
+
+	/**
+	 * @return key of the endpoint the payload is delivered to
+	 */
+	public String endpointKey() {
+		return this.tenantIdentifier + ":" + this.hookId;
+	}
+}
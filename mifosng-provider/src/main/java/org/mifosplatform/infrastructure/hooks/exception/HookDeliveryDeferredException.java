@@ -0,0 +1,19 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.exception;
+
+/**
+ * Thrown by a hook processor when a delivery cannot be made yet, e.g. because
+ * the hook still needs a step that only the original request can perform. The
+ * delivery stays pending and is tried again later, without it counting as a
+ * failed attempt.
+ */
+public class HookDeliveryDeferredException extends RuntimeException {
+
+	public HookDeliveryDeferredException(final String message) {
+		super(message);
+	}
+}
@@ -5,62 +5,75 @@
  */
 package org.mifosplatform.infrastructure.hooks.listener;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
-import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.hooks.data.HookDelivery;
 import org.mifosplatform.infrastructure.hooks.domain.Hook;
 import org.mifosplatform.infrastructure.hooks.event.HookEvent;
 import org.mifosplatform.infrastructure.hooks.event.HookEventSource;
-import org.mifosplatform.infrastructure.hooks.processor.HookProcessor;
-import org.mifosplatform.infrastructure.hooks.processor.HookProcessorProvider;
+import org.mifosplatform.infrastructure.hooks.service.HookDeliveryDispatcher;
 import org.mifosplatform.infrastructure.hooks.service.HookReadPlatformService;
-import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
-import org.mifosplatform.useradministration.domain.AppUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+/**
+ * Hands an event over to the {@link HookDeliveryDispatcher} for every hook
+ * listening to it.
+ * 
+ * Events are published on the thread processing the command, so when there is
+ * a transaction the deliveries are only handed over once it commits; events of
+ * commands that are rolled back are not delivered.
+ */
 @Service
 public class MifosHookListener implements HookListener {
 
-	private final HookProcessorProvider hookProcessorProvider;
 	private final HookReadPlatformService hookReadPlatformService;
-	private final TenantDetailsService tenantDetailsService;
+	private final HookDeliveryDispatcher hookDeliveryDispatcher;
 
 	@Autowired
-	public MifosHookListener(final HookProcessorProvider hookProcessorProvider,
-                        final HookReadPlatformService hookReadPlatformService,
-			final TenantDetailsService tenantDetailsService) {
-                this.hookReadPlatformService = hookReadPlatformService;
-		this.hookProcessorProvider = hookProcessorProvider;
-		this.tenantDetailsService = tenantDetailsService;
+	public MifosHookListener(
+			final HookReadPlatformService hookReadPlatformService,
+			final HookDeliveryDispatcher hookDeliveryDispatcher) {
+		this.hookReadPlatformService = hookReadPlatformService;
+		this.hookDeliveryDispatcher = hookDeliveryDispatcher;
 	}
 
 	@Override
 	public void onApplicationEvent(final HookEvent event) {
 
-		final String tenantIdentifier = event.getTenantIdentifier();
-		final MifosPlatformTenant tenant = this.tenantDetailsService
-				.loadTenantById(tenantIdentifier);
-		ThreadLocalContextUtil.setTenant(tenant);
-
-		final AppUser appUser = event.getAppUser();
-		final String authToken = event.getAuthToken();
-
 		final HookEventSource hookEventSource = event.getSource();
 		final String entityName = hookEventSource.getEntityName();
 		final String actionName = hookEventSource.getActionName();
-		final String payload = event.getPayload();
-		
+
 		final List<Hook> hooks = this.hookReadPlatformService
-		        .retrieveHooksByEvent(hookEventSource.getEntityName(),
-		                hookEventSource.getActionName());
+				.retrieveHooksByEvent(entityName, actionName);
+		if (hooks.isEmpty()) {
+			return;
+		}
 
+		final List<HookDelivery> deliveries = new ArrayList<>(hooks.size());
 		for (final Hook hook : hooks) {
-			final HookProcessor processor = this.hookProcessorProvider
-					.getProcessor(hook);
-			processor.process(hook, appUser, payload, entityName, actionName,
-					tenantIdentifier, authToken);
+			deliveries.add(HookDelivery.newDelivery(
+					event.getTenantIdentifier(), hook.getId(), entityName,
+					actionName, event.getPayload(), event.getAppUser(),
+					event.getAuthToken()));
+		}
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager
+					.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+						@Override
+						public void afterCommit() {
+							MifosHookListener.this.hookDeliveryDispatcher
+									.dispatch(deliveries);
+						}
+					});
+		} else {
+			this.hookDeliveryDispatcher.dispatch(deliveries);
 		}
 	}
 
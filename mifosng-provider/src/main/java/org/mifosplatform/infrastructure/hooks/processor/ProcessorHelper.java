@@ -8,6 +8,9 @@ package org.mifosplatform.infrastructure.hooks.processor;
 import java.security.SecureRandom;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
@@ -32,6 +35,14 @@ public class ProcessorHelper {
 	private final static Logger logger = LoggerFactory
 			.getLogger(ProcessorHelper.class);
 
+	private static final long CONNECT_TIMEOUT_SECONDS = 10;
+	private static final long READ_TIMEOUT_SECONDS = 30;
+
+	// hooks are delivered synchronously by the dispatcher's workers, one
+	// client shares its connection pool across all of them
+	private static final OkHttpClient sharedClient = createClient();
+	private static final ConcurrentMap<String, WebHookService> webHookServices = new ConcurrentHashMap<>();
+
 	@SuppressWarnings("null")
 	public static OkHttpClient configureClient(final OkHttpClient client) {
 		final TrustManager[] certs = new TrustManager[] { new X509TrustManager() {
@@ -77,6 +88,8 @@ public class ProcessorHelper {
 
 	public static OkHttpClient createClient() {
 		final OkHttpClient client = new OkHttpClient();
+		client.setConnectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		client.setReadTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
 		return configureClient(client);
 	}
 
@@ -99,12 +112,19 @@ public class ProcessorHelper {
 
 	public static WebHookService createWebHookService(final String url) {
 
-		final OkHttpClient client = ProcessorHelper.createClient();
+		final WebHookService service = webHookServices.get(url);
+		if (service != null) {
+			return service;
+		}
 
 		final RestAdapter restAdapter = new RestAdapter.Builder()
-				.setEndpoint(url).setClient(new OkClient(client)).build();
+				.setEndpoint(url).setClient(new OkClient(sharedClient)).build();
 
-		return restAdapter.create(WebHookService.class);
+		final WebHookService newService = restAdapter
+				.create(WebHookService.class);
+		final WebHookService existingService = webHookServices.putIfAbsent(
+				url, newService);
+		return existingService == null ? newService : existingService;
 	}
 
 }
\ No newline at end of file
@@ -10,19 +10,20 @@ import static org.mifosplatform.infrastructure.hooks.api.HookApiConstants.apiKey
 import org.mifosplatform.infrastructure.hooks.domain.Hook;
 import org.mifosplatform.infrastructure.hooks.domain.HookConfiguration;
 import org.mifosplatform.infrastructure.hooks.domain.HookConfigurationRepository;
+import org.mifosplatform.infrastructure.hooks.exception.HookDeliveryDeferredException;
 import org.mifosplatform.infrastructure.hooks.processor.data.SmsProviderData;
 import org.mifosplatform.useradministration.domain.AppUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import retrofit.Callback;
-
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 @Service
 public class TwilioHookProcessor implements HookProcessor {
 
+	private static final JsonParser jsonParser = new JsonParser();
+
 	private final HookConfigurationRepository hookConfigurationRepository;
 
 	@Autowired
@@ -45,21 +46,25 @@ public class TwilioHookProcessor implements HookProcessor {
 				tenantIdentifier, authToken, hook);
 	}
 
-	@SuppressWarnings("unchecked")
 	private void sendRequest(final SmsProviderData smsProviderData,
 			final String payload, final String entityName,
 			final String actionName, final String tenantIdentifier,
 			final String authToken, final Hook hook) {
 
+		String apiKey = this.hookConfigurationRepository
+				.findOneByHookIdAndFieldName(hook.getId(), apiKeyName);
+		if (apiKey == null && authToken == null) {
+			// retried and recovered deliveries do not carry the token of the
+			// request that raised the event; registering the bridge without
+			// one would store an api key that can never call back
+			throw new HookDeliveryDeferredException("SMS bridge of hook "
+					+ hook.getId()
+					+ " is not configured yet and the delivery has no auth token to configure it with");
+		}
+
 		final WebHookService service = ProcessorHelper
 				.createWebHookService(smsProviderData.getUrl());
 
-		@SuppressWarnings("rawtypes")
-		final Callback callback = ProcessorHelper
-				.createCallback(smsProviderData.getUrl());
-
-		String apiKey = this.hookConfigurationRepository
-				.findOneByHookIdAndFieldName(hook.getId(), apiKeyName);
 		if (apiKey == null) {
 			smsProviderData.setUrl(null);
 			smsProviderData.setEndpoint(System.getProperty("baseUrl"));
@@ -72,10 +77,10 @@ public class TwilioHookProcessor implements HookProcessor {
 		}
 
 		if (apiKey != null && !apiKey.equals("")) {
-			final JsonObject json = new JsonParser().parse(payload)
+			final JsonObject json = jsonParser.parse(payload)
 					.getAsJsonObject();
 			service.sendSmsBridgeRequest(entityName, actionName,
-					tenantIdentifier, apiKey, json, callback);
+					tenantIdentifier, apiKey, json);
 		}
 
 	}
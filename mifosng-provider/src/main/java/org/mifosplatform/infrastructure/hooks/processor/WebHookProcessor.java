@@ -8,7 +8,6 @@ package org.mifosplatform.infrastructure.hooks.processor;
 import static org.mifosplatform.infrastructure.hooks.api.HookApiConstants.contentTypeName;
 import static org.mifosplatform.infrastructure.hooks.api.HookApiConstants.payloadURLName;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -17,8 +16,6 @@ import org.mifosplatform.infrastructure.hooks.domain.HookConfiguration;
 import org.mifosplatform.useradministration.domain.AppUser;
 import org.springframework.stereotype.Service;
 
-import retrofit.Callback;
-
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -26,6 +23,9 @@ import com.google.gson.JsonParser;
 @Service
 public class WebHookProcessor implements HookProcessor {
 
+	private static final JsonParser jsonParser = new JsonParser();
+	private static final Gson gson = new Gson();
+
 	@Override
 	public void process(final Hook hook,
 			@SuppressWarnings("unused") final AppUser appUser,
@@ -53,7 +53,6 @@ public class WebHookProcessor implements HookProcessor {
 
 	}
 
-	@SuppressWarnings("unchecked")
 	private void sendRequest(final String url, final String contentType,
 			final String payload, final String entityName,
 			final String actionName, final String tenantIdentifier,
@@ -63,20 +62,17 @@ public class WebHookProcessor implements HookProcessor {
 		final WebHookService service = ProcessorHelper
 				.createWebHookService(url);
 
-		@SuppressWarnings("rawtypes")
-		final Callback callback = ProcessorHelper.createCallback(url);
-
 		if (contentType.equalsIgnoreCase("json")
 				|| contentType.contains("json")) {
-			final JsonObject json = new JsonParser().parse(payload)
+			final JsonObject json = jsonParser.parse(payload)
 					.getAsJsonObject();
 			service.sendJsonRequest(entityName, actionName, tenantIdentifier,
-					mifosEndpointUrl, json, callback);
+					mifosEndpointUrl, json);
 		} else {
-			Map<String, String> map = new HashMap<>();
-			map = new Gson().fromJson(payload, map.getClass());
+			@SuppressWarnings("unchecked")
+			final Map<String, String> map = gson.fromJson(payload, Map.class);
 			service.sendFormRequest(entityName, actionName, tenantIdentifier,
-					mifosEndpointUrl, map, callback);
+					mifosEndpointUrl, map);
 		}
 
 	}
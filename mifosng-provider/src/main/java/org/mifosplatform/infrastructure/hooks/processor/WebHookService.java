@@ -40,6 +40,13 @@ public interface WebHookService {
 			@Header(ENDPOINT_HEADER) String endpointHeader,
 			@Body JsonObject result, Callback<Response> callBack);
 
+	@POST("/")
+	Response sendJsonRequest(@Header(ENTITY_HEADER) String entityHeader,
+			@Header(ACTION_HEADER) String actionHeader,
+			@Header(TENANT_HEADER) String tenantHeader,
+			@Header(ENDPOINT_HEADER) String endpointHeader,
+			@Body JsonObject result);
+
 	@FormUrlEncoded
 	@POST("/")
 	void sendFormRequest(@Header(ENTITY_HEADER) String entityHeader,
@@ -48,6 +55,14 @@ public interface WebHookService {
 			@Header(ENDPOINT_HEADER) String endpointHeader,
 			@FieldMap Map<String, String> params, Callback<Response> callBack);
 
+	@FormUrlEncoded
+	@POST("/")
+	Response sendFormRequest(@Header(ENTITY_HEADER) String entityHeader,
+			@Header(ACTION_HEADER) String actionHeader,
+			@Header(TENANT_HEADER) String tenantHeader,
+			@Header(ENDPOINT_HEADER) String endpointHeader,
+			@FieldMap Map<String, String> params);
+
 	// Template - SMS Bridge
 	@POST("/")
 	void sendSmsBridgeRequest(@Header(ENTITY_HEADER) String entityHeader,
@@ -56,6 +71,13 @@ public interface WebHookService {
 			@Header(API_KEY_HEADER) String apiKeyHeader,
 			@Body JsonObject result, Callback<Response> callBack);
 
+	@POST("/")
+	Response sendSmsBridgeRequest(@Header(ENTITY_HEADER) String entityHeader,
+			@Header(ACTION_HEADER) String actionHeader,
+			@Header(TENANT_HEADER) String tenantHeader,
+			@Header(API_KEY_HEADER) String apiKeyHeader,
+			@Body JsonObject result);
+
 	@POST("/configuration")
 	String sendSmsBridgeConfigRequest(@Body SmsProviderData config);
 
@@ -0,0 +1,509 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.service;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.TenantDatabaseUpgradeService;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.hooks.data.HookDelivery;
+import org.mifosplatform.infrastructure.hooks.domain.Hook;
+import org.mifosplatform.infrastructure.hooks.domain.HookRepository;
+import org.mifosplatform.infrastructure.hooks.exception.HookDeliveryDeferredException;
+import org.mifosplatform.infrastructure.hooks.processor.HookProcessor;
+import org.mifosplatform.infrastructure.hooks.processor.HookProcessorProvider;
+import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers hook payloads on a bounded pool of worker threads.
+ * 
+ * Deliveries are saved to the {@link HookDeliveryOutbox} before they are
+ * queued in memory, grouped by endpoint (the hook they are for). A worker
+ * takes a batch of deliveries of one endpoint at a time, so an endpoint never
+ * occupies more than one worker. A failed delivery is retried with an
+ * exponential backoff, up to <code>mifos.hooks.max-attempts</code> attempts;
+ * deliveries still queued for the failing endpoint are postponed along with
+ * it rather than tried against an endpoint that is known to be down. A
+ * processor that cannot deliver yet (see
+ * {@link HookDeliveryDeferredException}) leaves the delivery pending without
+ * using up an attempt.
+ * 
+ * Retries, deliveries that did not fit the in-memory queue and deliveries
+ * left over by a restart are picked up from the outbox by a poller. Deliveries
+ * of a tenant whose database is not upgraded yet stay in the outbox.
+ * 
+ * A delivery is claimed in the outbox for a lease period when it is queued.
+ * The claim is extended right before each attempt; a delivery that waited in
+ * memory past its lease is only attempted if no other node claimed it in the
+ * meantime, so it is not sent twice.
+ * 
+ * The size of the worker pool and of the in-memory queue are configured with
+ * <code>mifos.hooks.delivery-threads</code> (4 by default) and
+ * <code>mifos.hooks.delivery-queue-capacity</code> (10000 by default). Backlog,
+ * outcome counts and delivery latency are exposed over JMX.
+ */
+@Component
+@ManagedResource(objectName = "org.mifosplatform:type=HookDeliveryDispatcher", description = "Asynchronous delivery of hook payloads")
+public class HookDeliveryDispatcher {
+
+	private final static Logger logger = LoggerFactory
+			.getLogger(HookDeliveryDispatcher.class);
+
+	public final static String DELIVERY_THREADS = "mifos.hooks.delivery-threads";
+	public final static String QUEUE_CAPACITY = "mifos.hooks.delivery-queue-capacity";
+	public final static String MAX_ATTEMPTS = "mifos.hooks.max-attempts";
+
+	private static final int BATCH_SIZE = 50;
+	private static final int LEASE_SECONDS = 10 * 60;
+	private static final long POLL_INTERVAL_SECONDS = 5;
+	private static final int INITIAL_RETRY_DELAY_SECONDS = 10;
+	private static final int MAX_RETRY_DELAY_SECONDS = 60 * 60;
+	private static final int DEFERRED_RETRY_DELAY_SECONDS = 5 * 60;
+
+	private final HookDeliveryOutbox outbox;
+	private final HookRepository hookRepository;
+	private final HookProcessorProvider hookProcessorProvider;
+	private final TenantDetailsService tenantDetailsService;
+	private final TenantDatabaseUpgradeService tenantDatabaseUpgradeService;
+	private final int deliveryThreads;
+	private final int queueCapacity;
+	private final int maxAttempts;
+	private final int leaseSeconds;
+
+	private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+	private final AtomicInteger backlog = new AtomicInteger();
+	private final AtomicLong deliveredCount = new AtomicLong();
+	private final AtomicLong failedAttemptCount = new AtomicLong();
+	private final AtomicLong abandonedCount = new AtomicLong();
+	private final AtomicLong totalLatencyMillis = new AtomicLong();
+	private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+	private ExecutorService workers;
+	private ScheduledExecutorService poller;
+
+	@Autowired
+	public HookDeliveryDispatcher(final HookDeliveryOutbox outbox,
+			final HookRepository hookRepository,
+			final HookProcessorProvider hookProcessorProvider,
+			final TenantDetailsService tenantDetailsService,
+			final TenantDatabaseUpgradeService tenantDatabaseUpgradeService,
+			@Value("${" + DELIVERY_THREADS + ":4}") final int deliveryThreads,
+			@Value("${" + QUEUE_CAPACITY + ":10000}") final int queueCapacity,
+			@Value("${" + MAX_ATTEMPTS + ":10}") final int maxAttempts) {
+		this(outbox, hookRepository, hookProcessorProvider,
+				tenantDetailsService, tenantDatabaseUpgradeService,
+				deliveryThreads, queueCapacity, maxAttempts, LEASE_SECONDS);
+	}
+
+	HookDeliveryDispatcher(final HookDeliveryOutbox outbox,
+			final HookRepository hookRepository,
+			final HookProcessorProvider hookProcessorProvider,
+			final TenantDetailsService tenantDetailsService,
+			final TenantDatabaseUpgradeService tenantDatabaseUpgradeService,
+			final int deliveryThreads, final int queueCapacity,
+			final int maxAttempts, final int leaseSeconds) {
+		this.outbox = outbox;
+		this.hookRepository = hookRepository;
+		this.hookProcessorProvider = hookProcessorProvider;
+		this.tenantDetailsService = tenantDetailsService;
+		this.tenantDatabaseUpgradeService = tenantDatabaseUpgradeService;
+		this.deliveryThreads = Math.max(1, deliveryThreads);
+		this.queueCapacity = Math.max(1, queueCapacity);
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.leaseSeconds = leaseSeconds;
+	}
+
+	@PostConstruct
+	public void start() {
+		start(Executors.newFixedThreadPool(this.deliveryThreads,
+				daemonThreadFactory("hook-delivery-worker")),
+				Executors
+						.newSingleThreadScheduledExecutor(daemonThreadFactory("hook-delivery-poller")));
+	}
+
+	void start(final ExecutorService workers,
+			final ScheduledExecutorService poller) {
+		this.workers = workers;
+		this.poller = poller;
+		this.poller.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				pollOutbox();
+			}
+		}, POLL_INTERVAL_SECONDS, POLL_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		this.poller.shutdownNow();
+		this.workers.shutdownNow();
+
+		// hand what is still queued back to the outbox right away instead of
+		// leaving it until the lease expires
+		for (final Endpoint endpoint : this.endpoints.values()) {
+			HookDelivery delivery;
+			while ((delivery = endpoint.deliveries.poll()) != null) {
+				if (!holdsClaim(delivery)) {
+					// may be claimed by another node by now
+					continue;
+				}
+				try {
+					this.outbox.release(delivery.getId());
+				} catch (final RuntimeException e) {
+					logger.warn("Failed to release hook delivery "
+							+ delivery.getId(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Saves the deliveries to the outbox and queues them for delivery.
+	 */
+	public void dispatch(final List<HookDelivery> deliveries) {
+		try {
+			final long claimedUntil = claimedUntil();
+			for (final HookDelivery delivery : this.outbox.saveClaimed(
+					deliveries, this.leaseSeconds)) {
+				if (!enqueue(delivery.withClaimUntil(claimedUntil))) {
+					this.outbox.release(delivery.getId());
+				}
+			}
+		} catch (final RuntimeException e) {
+			logger.error("Failed to save hook deliveries", e);
+		}
+	}
+
+	@ManagedAttribute(description = "Number of deliveries queued in memory")
+	public int getBacklog() {
+		return this.backlog.get();
+	}
+
+	@ManagedAttribute(description = "Number of pending deliveries in the outbox, including those queued in memory")
+	public long getOutboxPendingCount() {
+		return this.outbox.countPending();
+	}
+
+	@ManagedAttribute(description = "Number of payloads delivered")
+	public long getDeliveredCount() {
+		return this.deliveredCount.get();
+	}
+
+	@ManagedAttribute(description = "Number of delivery attempts that failed")
+	public long getFailedAttemptCount() {
+		return this.failedAttemptCount.get();
+	}
+
+	@ManagedAttribute(description = "Number of deliveries given up after the maximum number of attempts")
+	public long getAbandonedCount() {
+		return this.abandonedCount.get();
+	}
+
+	@ManagedAttribute(description = "Average time from the event to its delivery in milliseconds")
+	public long getAverageDeliveryLatencyMillis() {
+		final long delivered = this.deliveredCount.get();
+		return delivered == 0 ? 0 : this.totalLatencyMillis.get() / delivered;
+	}
+
+	@ManagedAttribute(description = "Longest time from an event to its delivery in milliseconds")
+	public long getMaxDeliveryLatencyMillis() {
+		return this.maxLatencyMillis.get();
+	}
+
+	private boolean enqueue(final HookDelivery delivery) {
+		if (this.backlog.incrementAndGet() > this.queueCapacity) {
+			this.backlog.decrementAndGet();
+			return false;
+		}
+
+		final String key = delivery.endpointKey();
+		Endpoint endpoint = this.endpoints.get(key);
+		if (endpoint == null) {
+			final Endpoint newEndpoint = new Endpoint();
+			endpoint = this.endpoints.putIfAbsent(key, newEndpoint);
+			if (endpoint == null) {
+				endpoint = newEndpoint;
+			}
+		}
+		endpoint.deliveries.add(delivery);
+		schedule(endpoint);
+		return true;
+	}
+
+	private void schedule(final Endpoint endpoint) {
+		if (endpoint.scheduled.compareAndSet(false, true)) {
+			this.workers.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					deliverBatch(endpoint);
+				}
+			});
+		}
+	}
+
+	private void deliverBatch(final Endpoint endpoint) {
+		try {
+			for (int i = 0; i < BATCH_SIZE; i++) {
+				final HookDelivery delivery = endpoint.deliveries.poll();
+				if (delivery == null) {
+					break;
+				}
+				this.backlog.decrementAndGet();
+
+				// the delivery may have waited in the queue longer than its
+				// lease, in which case the outbox poller may have handed it
+				// out again
+				if (!renewClaim(delivery)) {
+					continue;
+				}
+
+				final int retryDelaySeconds = deliver(delivery);
+				if (retryDelaySeconds > 0) {
+					postponeQueued(endpoint, retryDelaySeconds);
+					break;
+				}
+			}
+		} finally {
+			endpoint.scheduled.set(false);
+			if (!endpoint.deliveries.isEmpty()) {
+				schedule(endpoint);
+			}
+		}
+	}
+
+	/**
+	 * @return the delay in seconds before the delivery is retried, 0 if it
+	 *         needs no retry
+	 */
+	private int deliver(final HookDelivery delivery) {
+		final int attempt = delivery.getAttempts() + 1;
+		try {
+			if (!this.tenantDatabaseUpgradeService.isTenantAvailable(delivery
+					.getTenantIdentifier())) {
+				throw new HookDeliveryDeferredException("Database of tenant "
+						+ delivery.getTenantIdentifier()
+						+ " is not upgraded yet");
+			}
+			final MifosPlatformTenant tenant = this.tenantDetailsService
+					.loadTenantById(delivery.getTenantIdentifier());
+			ThreadLocalContextUtil.setTenant(tenant);
+
+			final Hook hook = this.hookRepository.findOne(delivery.getHookId());
+			final HookProcessor processor = hook == null ? null
+					: this.hookProcessorProvider.getProcessor(hook);
+			if (processor != null) {
+				processor.process(hook, delivery.getAppUser(),
+						delivery.getPayload(), delivery.getEntityName(),
+						delivery.getActionName(),
+						delivery.getTenantIdentifier(),
+						delivery.getAuthToken());
+				recordDelivered(delivery);
+			}
+		} catch (final HookDeliveryDeferredException e) {
+			// not a failure of the endpoint, so neither counted as an attempt
+			// nor holding back the other deliveries queued for it
+			logger.info("Hook delivery " + delivery.getId() + " deferred: " + e.getMessage());
+			postpone(delivery, delivery.getAttempts(), DEFERRED_RETRY_DELAY_SECONDS, e.getMessage());
+			return 0;
+		} catch (final RuntimeException e) {
+			this.failedAttemptCount.incrementAndGet();
+			if (attempt >= this.maxAttempts) {
+				logger.warn("Giving up on hook delivery " + delivery.getId()
+						+ " after " + attempt + " attempts", e);
+				this.abandonedCount.incrementAndGet();
+				markFailed(delivery, attempt, e);
+				return 0;
+			}
+
+			final int retryDelaySeconds = retryDelaySeconds(attempt);
+			logger.info("Hook delivery " + delivery.getId() + " failed, retrying in " + retryDelaySeconds
+					+ " seconds: " + e.getMessage());
+			postpone(delivery, attempt, retryDelaySeconds, e.getMessage());
+			return retryDelaySeconds;
+		} finally {
+			ThreadLocalContextUtil.clearTenant();
+		}
+
+		// also done when the hook was deleted in the meantime, there is
+		// nothing left to deliver to
+		try {
+			this.outbox.delete(delivery.getId());
+		} catch (final RuntimeException e) {
+			logger.error("Failed to remove delivered hook delivery " + delivery.getId(), e);
+		}
+		return 0;
+	}
+
+	private void postponeQueued(final Endpoint endpoint,
+			final int delaySeconds) {
+		HookDelivery delivery;
+		while ((delivery = endpoint.deliveries.poll()) != null) {
+			this.backlog.decrementAndGet();
+			if (holdsClaim(delivery)) {
+				postpone(delivery, delivery.getAttempts(), delaySeconds, null);
+			}
+		}
+	}
+
+	private void postpone(final HookDelivery delivery, final int attempts,
+			final int delaySeconds, final String error) {
+		try {
+			this.outbox.postpone(delivery.getId(), attempts, delaySeconds,
+					error);
+		} catch (final RuntimeException e) {
+			// the lease expires and the delivery is picked up again
+			logger.error("Failed to postpone hook delivery " + delivery.getId(), e);
+		}
+	}
+
+	private void markFailed(final HookDelivery delivery, final int attempts,
+			final RuntimeException error) {
+		try {
+			this.outbox.markFailed(delivery.getId(), attempts,
+					error.getMessage());
+		} catch (final RuntimeException e) {
+			logger.error("Failed to mark hook delivery " + delivery.getId() + " as failed", e);
+		}
+	}
+
+	private void recordDelivered(final HookDelivery delivery) {
+		final long latency = Math.max(0, currentTimeMillis()
+				- delivery.getCreatedTime());
+		this.deliveredCount.incrementAndGet();
+		this.totalLatencyMillis.addAndGet(latency);
+
+		long max = this.maxLatencyMillis.get();
+		while (latency > max
+				&& !this.maxLatencyMillis.compareAndSet(max, latency)) {
+			max = this.maxLatencyMillis.get();
+		}
+	}
+
+	void pollOutbox() {
+		try {
+			final int free = this.queueCapacity - this.backlog.get();
+			if (free <= 0) {
+				return;
+			}
+
+			for (final HookDelivery delivery : this.outbox.retrieveDue(Math
+					.min(free, BATCH_SIZE * this.deliveryThreads))) {
+				// left pending until the upgrade of the tenant's database
+				// completes
+				if (!this.tenantDatabaseUpgradeService
+						.isTenantAvailable(delivery.getTenantIdentifier())) {
+					continue;
+				}
+				final long claimedUntil = claimedUntil();
+				if (this.outbox.claim(delivery.getId(), this.leaseSeconds)
+						&& !enqueue(delivery.withClaimUntil(claimedUntil))) {
+					this.outbox.release(delivery.getId());
+				}
+			}
+		} catch (final RuntimeException e) {
+			// keep polling, a failure must not stop the scheduled task
+			logger.error("Failed to poll for hook deliveries", e);
+		}
+	}
+
+	/**
+	 * Extends the claim on the delivery, or takes it back if it expired and no
+	 * other node claimed it in the meantime.
+	 * 
+	 * @return <code>false</code> if the delivery is no longer claimed by this
+	 *         node and must be skipped
+	 */
+	private boolean renewClaim(final HookDelivery delivery) {
+		boolean claimed = false;
+		try {
+			if (holdsClaim(delivery)) {
+				claimed = this.outbox.extendClaim(delivery.getId(),
+						this.leaseSeconds);
+			}
+			if (!claimed) {
+				claimed = this.outbox.claim(delivery.getId(),
+						this.leaseSeconds);
+			}
+		} catch (final RuntimeException e) {
+			// the lease expires and the delivery is picked up again
+			logger.error("Failed to renew the claim on hook delivery " + delivery.getId(), e);
+			return false;
+		}
+		if (!claimed) {
+			logger.info("Hook delivery " + delivery.getId()
+					+ " was claimed elsewhere or is no longer pending, skipping it");
+		}
+		return claimed;
+	}
+
+	/**
+	 * A claim is taken as lost a tenth of the lease before it runs out, to
+	 * allow for the clocks of this node and the database to differ.
+	 */
+	private boolean holdsClaim(final HookDelivery delivery) {
+		return currentTimeMillis() < delivery.getClaimedUntil()
+				- this.leaseSeconds * 100L;
+	}
+
+	private long claimedUntil() {
+		return currentTimeMillis() + this.leaseSeconds * 1000L;
+	}
+
+	long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	private static int retryDelaySeconds(final int attempt) {
+		final long delay = (long) INITIAL_RETRY_DELAY_SECONDS << Math.min(
+				attempt - 1, 20);
+		return (int) Math.min(delay, MAX_RETRY_DELAY_SECONDS);
+	}
+
+	private static ThreadFactory daemonThreadFactory(final String name) {
+		final AtomicInteger threadNumber = new AtomicInteger();
+		return new ThreadFactory() {
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				final Thread thread = new Thread(runnable, name + "-"
+						+ threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	private static final class Endpoint {
+
+		private final Queue<HookDelivery> deliveries = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+	}
+}
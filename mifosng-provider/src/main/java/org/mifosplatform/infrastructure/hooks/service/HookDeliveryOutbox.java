@@ -0,0 +1,192 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.hooks.data.HookDelivery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Persistent outbox of hook deliveries, kept in the <code>hook_delivery</code>
+ * table of the tenants database so that a single poller serves all tenants
+ * and pending deliveries survive a restart.
+ * 
+ * A delivery is removed once delivered. A node claims the deliveries it works
+ * on for a lease period so that other nodes sharing the tenants database leave
+ * them alone; deliveries whose lease expired, e.g. because the node went
+ * down, are picked up again.
+ */
+@Component
+public class HookDeliveryOutbox {
+
+	public static final String STATUS_PENDING = "PENDING";
+	public static final String STATUS_FAILED = "FAILED";
+
+	private static final int MAX_ERROR_LENGTH = 500;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final HookDeliveryMapper mapper = new HookDeliveryMapper();
+
+	@Autowired
+	public HookDeliveryOutbox(
+			@Qualifier("tenantDataSourceJndi") final DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Saves the deliveries already claimed by the calling node.
+	 * 
+	 * @return the deliveries with their ids
+	 */
+	public List<HookDelivery> saveClaimed(final List<HookDelivery> deliveries,
+			final int leaseSeconds) {
+		final String sql = "insert into hook_delivery (tenant_identifier, hook_id, entity_name, action_name, payload, status, attempts, "
+				+ "next_attempt_time, locked_until, created_time) values (?, ?, ?, ?, ?, '"
+				+ STATUS_PENDING
+				+ "', 0, now(), date_add(now(), interval ? second), now())";
+
+		final List<HookDelivery> saved = new ArrayList<>(deliveries.size());
+		for (final HookDelivery delivery : deliveries) {
+			final KeyHolder keyHolder = new GeneratedKeyHolder();
+			this.jdbcTemplate.update(new PreparedStatementCreator() {
+
+				@Override
+				public PreparedStatement createPreparedStatement(
+						final Connection connection) throws SQLException {
+					final PreparedStatement ps = connection.prepareStatement(
+							sql, Statement.RETURN_GENERATED_KEYS);
+					ps.setString(1, delivery.getTenantIdentifier());
+					ps.setLong(2, delivery.getHookId());
+					ps.setString(3, delivery.getEntityName());
+					ps.setString(4, delivery.getActionName());
+					ps.setString(5, delivery.getPayload());
+					ps.setInt(6, leaseSeconds);
+					return ps;
+				}
+			}, keyHolder);
+			saved.add(delivery.withId(keyHolder.getKey().longValue()));
+		}
+		return saved;
+	}
+
+	/**
+	 * @return pending deliveries that are due and not claimed by any node,
+	 *         oldest first
+	 */
+	public List<HookDelivery> retrieveDue(final int limit) {
+		final String sql = "select " + this.mapper.schema()
+				+ " where d.status = ? and d.next_attempt_time <= now()"
+				+ " and (d.locked_until is null or d.locked_until < now()) order by d.id limit ?";
+		return this.jdbcTemplate.query(sql, this.mapper, STATUS_PENDING, limit);
+	}
+
+	/**
+	 * @return <code>true</code> if the calling node now holds the claim on the
+	 *         delivery, <code>false</code> if another node claimed it first
+	 */
+	public boolean claim(final Long id, final int leaseSeconds) {
+		final String sql = "update hook_delivery set locked_until = date_add(now(), interval ? second)"
+				+ " where id = ? and status = ? and next_attempt_time <= now() and (locked_until is null or locked_until < now())";
+		return this.jdbcTemplate.update(sql, leaseSeconds, id, STATUS_PENDING) == 1;
+	}
+
+	/**
+	 * Extends a claim the calling node holds. Only to be used while the claim
+	 * has not expired, an expired claim may have been taken by another node
+	 * in the meantime and has to be taken back with
+	 * {@link #claim(Long, int)}.
+	 * 
+	 * @return <code>false</code> if the claim had already expired or the
+	 *         delivery is gone
+	 */
+	public boolean extendClaim(final Long id, final int leaseSeconds) {
+		final String sql = "update hook_delivery set locked_until = date_add(now(), interval ? second)"
+				+ " where id = ? and status = ? and locked_until >= now()";
+		return this.jdbcTemplate.update(sql, leaseSeconds, id, STATUS_PENDING) == 1;
+	}
+
+	public void release(final Long id) {
+		this.jdbcTemplate.update("update hook_delivery set locked_until = null where id = ?", id);
+	}
+
+	public void delete(final Long id) {
+		this.jdbcTemplate.update("delete from hook_delivery where id = ?", id);
+	}
+
+	/**
+	 * Releases the delivery to be attempted again in the given number of
+	 * seconds.
+	 */
+	public void postpone(final Long id, final int attempts,
+			final int delaySeconds, final String error) {
+		final String sql = "update hook_delivery set attempts = ?, next_attempt_time = date_add(now(), interval ? second),"
+				+ " locked_until = null, last_error = ? where id = ?";
+		this.jdbcTemplate.update(sql, attempts, delaySeconds, truncate(error), id);
+	}
+
+	/**
+	 * Gives up on the delivery, it is kept with its last error for inspection.
+	 */
+	public void markFailed(final Long id, final int attempts,
+			final String error) {
+		final String sql = "update hook_delivery set status = ?, attempts = ?, locked_until = null, last_error = ? where id = ?";
+		this.jdbcTemplate.update(sql, STATUS_FAILED, attempts, truncate(error), id);
+	}
+
+	public long countPending() {
+		final Long count = this.jdbcTemplate.queryForObject(
+				"select count(*) from hook_delivery where status = ?",
+				Long.class, STATUS_PENDING);
+		return count == null ? 0 : count;
+	}
+
+	private static String truncate(final String error) {
+		return StringUtils.abbreviate(error, MAX_ERROR_LENGTH);
+	}
+
+	private static final class HookDeliveryMapper implements
+			RowMapper<HookDelivery> {
+
+		public String schema() {
+			return " d.id as id, d.tenant_identifier as tenantIdentifier, d.hook_id as hookId, d.entity_name as entityName,"
+					+ " d.action_name as actionName, d.payload as payload, d.attempts as attempts, d.created_time as createdTime"
+					+ " from hook_delivery d ";
+		}
+
+		@Override
+		public HookDelivery mapRow(final ResultSet rs,
+				@SuppressWarnings("unused") final int rowNum)
+				throws SQLException {
+			final Long id = rs.getLong("id");
+			final String tenantIdentifier = rs.getString("tenantIdentifier");
+			final Long hookId = rs.getLong("hookId");
+			final String entityName = rs.getString("entityName");
+			final String actionName = rs.getString("actionName");
+			final String payload = rs.getString("payload");
+			final int attempts = rs.getInt("attempts");
+			final long createdTime = rs.getTimestamp("createdTime").getTime();
+			return HookDelivery.existing(id, tenantIdentifier, hookId,
+					entityName, actionName, payload, attempts, createdTime);
+		}
+	}
+}
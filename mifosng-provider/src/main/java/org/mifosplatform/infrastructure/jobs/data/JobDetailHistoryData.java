@@ -5,6 +5,7 @@
  */
 package org.mifosplatform.infrastructure.jobs.data;
 
+import java.math.BigDecimal;
 import java.util.Date;
 
 public class JobDetailHistoryData {
@@ -30,8 +31,18 @@ public class JobDetailHistoryData {
     @SuppressWarnings("unused")
     private final String jobRunErrorLog;
 
+    @SuppressWarnings("unused")
+    private final Integer processedCount;
+
+    @SuppressWarnings("unused")
+    private final Integer failedCount;
+
+    @SuppressWarnings("unused")
+    private final BigDecimal itemsPerSecond;
+
     public JobDetailHistoryData(final Long version, final Date jobRunStartTime, final Date jobRunEndTime, final String status,
-            final String jobRunErrorMessage, final String triggerType, final String jobRunErrorLog) {
+            final String jobRunErrorMessage, final String triggerType, final String jobRunErrorLog,
+            final Integer processedCount, final Integer failedCount, final BigDecimal itemsPerSecond) {
         this.version = version;
         this.jobRunStartTime = jobRunStartTime;
         this.jobRunEndTime = jobRunEndTime;
@@ -39,5 +50,8 @@ public class JobDetailHistoryData {
         this.jobRunErrorMessage = jobRunErrorMessage;
         this.triggerType = triggerType;
         this.jobRunErrorLog = jobRunErrorLog;
+        this.processedCount = processedCount;
+        this.failedCount = failedCount;
+        this.itemsPerSecond = itemsPerSecond;
     }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a job run through the
+ * {@link org.mifosplatform.infrastructure.jobs.service.PartitionedJobRunner}.
+ */
+public class PartitionedJobResult {
+
+    private int processedCount;
+    private final List<String> errors = new ArrayList<>();
+    private long elapsedMillis;
+
+    public void itemProcessed() {
+        this.processedCount++;
+    }
+
+    public void itemFailed(final String error) {
+        this.processedCount++;
+        this.errors.add(error);
+    }
+
+    public void merge(final PartitionedJobResult other) {
+        this.processedCount += other.processedCount;
+        this.errors.addAll(other.errors);
+    }
+
+    public void completedIn(final long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getProcessedCount() {
+        return this.processedCount;
+    }
+
+    public int getFailedCount() {
+        return this.errors.size();
+    }
+
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(this.errors);
+    }
+
+    public boolean hasErrors() {
+        return !this.errors.isEmpty();
+    }
+
+    public long getElapsedMillis() {
+        return this.elapsedMillis;
+    }
+
+    public double getItemsPerSecond() {
+        if (this.elapsedMillis == 0) { return this.processedCount; }
+        return this.processedCount * 1000d / this.elapsedMillis;
+    }
+
+    public String errorMessage() {
+        final StringBuilder errorMsg = new StringBuilder();
+        for (final String error : this.errors) {
+            errorMsg.append(error);
+        }
+        return errorMsg.toString();
+    }
+}
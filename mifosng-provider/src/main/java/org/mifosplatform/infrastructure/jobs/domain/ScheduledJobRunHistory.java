@@ -5,6 +5,8 @@
  */
 package org.mifosplatform.infrastructure.jobs.domain;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.Date;
 
 import javax.persistence.Column;
@@ -15,6 +17,7 @@ import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 
+import org.mifosplatform.infrastructure.jobs.data.PartitionedJobResult;
 import org.springframework.data.jpa.domain.AbstractPersistable;
 
 @Entity
@@ -48,6 +51,15 @@ public class ScheduledJobRunHistory extends AbstractPersistable<Long> {
     @Column(name = "error_log")
     private String errorLog;
 
+    @Column(name = "processed_count")
+    private Integer processedCount;
+
+    @Column(name = "failed_count")
+    private Integer failedCount;
+
+    @Column(name = "items_per_second", scale = 2, precision = 19)
+    private BigDecimal itemsPerSecond;
+
     public ScheduledJobRunHistory() {
 
     }
@@ -64,4 +76,10 @@ public class ScheduledJobRunHistory extends AbstractPersistable<Long> {
         this.errorLog = errorLog;
     }
 
+    public void recordStatistics(final PartitionedJobResult result) {
+        this.processedCount = result.getProcessedCount();
+        this.failedCount = result.getFailedCount();
+        this.itemsPerSecond = BigDecimal.valueOf(result.getItemsPerSecond()).setScale(2, RoundingMode.HALF_UP);
+    }
+
 }
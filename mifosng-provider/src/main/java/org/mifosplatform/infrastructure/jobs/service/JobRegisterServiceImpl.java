@@ -7,15 +7,16 @@ package org.mifosplatform.infrastructure.jobs.service;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PostConstruct;
 
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.core.exception.PlatformInternalServerException;
+import org.mifosplatform.infrastructure.core.service.TenantDatabaseUpgradeService;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.jobs.annotation.CronMethodParser;
 import org.mifosplatform.infrastructure.jobs.annotation.CronMethodParser.ClassMethodNamesPair;
@@ -64,8 +65,10 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
     private SchedulerJobListener schedulerJobListener;
     private SchedulerStopListener schedulerStopListener;
     private SchedulerTriggerListener globalSchedulerTriggerListener;
+    private TenantDatabaseUpgradeService tenantDatabaseUpgradeService;
 
-    private final HashMap<String, Scheduler> schedulers = new HashMap<>(4);
+    // tenants upgraded in the background register their jobs concurrently
+    private final ConcurrentHashMap<String, Scheduler> schedulers = new ConcurrentHashMap<>(4);
 
     @Autowired
     public void setApplicationContext(ApplicationContext applicationContext) {
@@ -97,11 +100,36 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
         this.globalSchedulerTriggerListener = globalTriggerListener;
     }
 
+    @Autowired
+    public void setTenantDatabaseUpgradeService(TenantDatabaseUpgradeService tenantDatabaseUpgradeService) {
+        this.tenantDatabaseUpgradeService = tenantDatabaseUpgradeService;
+    }
+
+    /**
+     * Loads the jobs of every tenant whose database is upgraded; the jobs of a
+     * tenant still being upgraded in the background are loaded once its
+     * upgrade completes, those of a tenant whose upgrade failed are not.
+     */
     @PostConstruct
     public void loadAllJobs() {
         final List<MifosPlatformTenant> allTenants = this.tenantDetailsService.findAllTenants();
         for (final MifosPlatformTenant tenant : allTenants) {
-            ThreadLocalContextUtil.setTenant(tenant);
+            if (!this.tenantDatabaseUpgradeService.isTenantAvailable(tenant.getTenantIdentifier())) {
+                logger.info("Jobs of tenant " + tenant.getTenantIdentifier() + " are loaded once its database is upgraded");
+            }
+            this.tenantDatabaseUpgradeService.whenTenantAvailable(tenant.getTenantIdentifier(), new Runnable() {
+
+                @Override
+                public void run() {
+                    loadJobs(tenant);
+                }
+            });
+        }
+    }
+
+    private void loadJobs(final MifosPlatformTenant tenant) {
+        ThreadLocalContextUtil.setTenant(tenant);
+        try {
             final List<ScheduledJobDetail> scheduledJobDetails = this.schedularWritePlatformService.retrieveAllJobs();
             for (final ScheduledJobDetail jobDetails : scheduledJobDetails) {
                 scheduleJob(jobDetails);
@@ -113,6 +141,8 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
                 schedulerDetail.updateSuspendedState(false);
                 this.schedularWritePlatformService.updateSchedulerDetail(schedulerDetail);
             }
+        } finally {
+            ThreadLocalContextUtil.clearTenant();
         }
     }
 
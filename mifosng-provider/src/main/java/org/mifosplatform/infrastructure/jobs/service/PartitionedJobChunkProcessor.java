@@ -0,0 +1,23 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import java.util.List;
+
+/**
+ * A {@link PartitionedJobItemProcessor} that is handed each chunk before its
+ * items are processed, e.g. to load what the items need with one query per
+ * chunk rather than one per item.
+ */
+public interface PartitionedJobChunkProcessor<T> extends PartitionedJobItemProcessor<T> {
+
+    /**
+     * Called on the worker thread processing the chunk, outside of the chunk
+     * transaction. Items retried one transaction each after a failure of the
+     * chunk are not prepared again.
+     */
+    void prepareChunk(List<T> chunk);
+}
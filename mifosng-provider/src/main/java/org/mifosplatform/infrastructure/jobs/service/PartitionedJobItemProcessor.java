@@ -0,0 +1,28 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+/**
+ * Processes a single item of work on behalf of the {@link PartitionedJobRunner}.
+ */
+public interface PartitionedJobItemProcessor<T> {
+
+    /**
+     * Items that share a partition key (usually the account id) are always
+     * processed in the same chunk, in their original order, so that two
+     * workers never update the same account at the same time. Chunks are
+     * formed over ranges of ascending keys.
+     */
+    Long partitionKey(T item);
+
+    void process(T item);
+
+    /**
+     * Prefix used when recording a failure of this item, e.g.
+     * <code>"Apply annual fee failed for account:000000012"</code>.
+     */
+    String describeFailure(T item);
+}
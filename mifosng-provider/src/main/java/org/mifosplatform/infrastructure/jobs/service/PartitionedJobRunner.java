@@ -0,0 +1,189 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.mifosplatform.infrastructure.core.data.ApiParameterError;
+import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextAwareCallable;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.data.PartitionedJobResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+/**
+ * Runs the items of a batch job in chunks, optionally on a bounded pool of
+ * worker threads sized by the <code>job-worker-threads</code> global
+ * configuration.
+ *
+ * Each chunk is processed in a single transaction. Should any item of a chunk
+ * fail, the chunk is rolled back and its items are retried one transaction
+ * each, so a failing account is recorded in the result without aborting the
+ * rest of the job.
+ */
+@Component
+public class PartitionedJobRunner {
+
+    private final static Logger logger = LoggerFactory.getLogger(PartitionedJobRunner.class);
+
+    private final JpaTransactionManager transactionManager;
+    private final ConfigurationDomainService configurationDomainService;
+
+    @Autowired
+    public PartitionedJobRunner(final JpaTransactionManager transactionManager, final ConfigurationDomainService configurationDomainService) {
+        this.transactionManager = transactionManager;
+        this.configurationDomainService = configurationDomainService;
+    }
+
+    public <T> PartitionedJobResult run(final JobName jobName, final Collection<T> items, final int chunkSize,
+            final PartitionedJobItemProcessor<T> processor) {
+
+        final long startTime = System.currentTimeMillis();
+        final List<List<T>> chunks = partition(items, chunkSize, processor);
+        final PartitionedJobResult result = new PartitionedJobResult();
+
+        final Integer configuredPoolSize = this.configurationDomainService.retrieveJobWorkerThreadPoolSize();
+        final int poolSize = configuredPoolSize == null ? 1 : Math.max(1, Math.min(configuredPoolSize, chunks.size()));
+
+        if (poolSize == 1) {
+            for (final List<T> chunk : chunks) {
+                result.merge(processChunk(chunk, processor));
+            }
+        } else {
+            final ExecutorService executorService = Executors.newFixedThreadPool(poolSize);
+            try {
+                final List<Future<PartitionedJobResult>> chunkResults = new ArrayList<>(chunks.size());
+                for (final List<T> chunk : chunks) {
+                    chunkResults.add(executorService.submit(new ThreadLocalContextAwareCallable<PartitionedJobResult>() {
+
+                        @Override
+                        protected PartitionedJobResult callInContext() {
+                            return processChunk(chunk, processor);
+                        }
+                    }));
+                }
+                for (final Future<PartitionedJobResult> chunkResult : chunkResults) {
+                    try {
+                        result.merge(chunkResult.get());
+                    } catch (final ExecutionException e) {
+                        logger.error(jobName + ": chunk failed unexpectedly", e.getCause());
+                        result.itemFailed(jobName + " chunk failed with message " + e.getCause().getMessage());
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.itemFailed(jobName + " was interrupted");
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+
+        result.completedIn(System.currentTimeMillis() - startTime);
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": " + jobName + " processed " + result.getProcessedCount()
+                + " items in " + chunks.size() + " chunks on " + poolSize + " threads in " + result.getElapsedMillis() + " ms ("
+                + String.format("%.1f", result.getItemsPerSecond()) + " items/s), failures: " + result.getFailedCount());
+        return result;
+    }
+
+    private <T> List<List<T>> partition(final Collection<T> items, final int chunkSize, final PartitionedJobItemProcessor<T> processor) {
+        final Map<Long, List<T>> itemsByKey = new TreeMap<>();
+        for (final T item : items) {
+            final Long key = processor.partitionKey(item);
+            List<T> keyItems = itemsByKey.get(key);
+            if (keyItems == null) {
+                keyItems = new ArrayList<>(1);
+                itemsByKey.put(key, keyItems);
+            }
+            keyItems.add(item);
+        }
+
+        final List<List<T>> chunks = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        for (final List<T> keyItems : itemsByKey.values()) {
+            chunk.addAll(keyItems);
+            if (chunk.size() >= chunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private <T> PartitionedJobResult processChunk(final List<T> chunk, final PartitionedJobItemProcessor<T> processor) {
+        if (processor instanceof PartitionedJobChunkProcessor) {
+            ((PartitionedJobChunkProcessor<T>) processor).prepareChunk(chunk);
+        }
+        final TransactionStatus transactionStatus = this.transactionManager.getTransaction(new DefaultTransactionDefinition());
+        try {
+            for (final T item : chunk) {
+                processor.process(item);
+            }
+            this.transactionManager.commit(transactionStatus);
+        } catch (final RuntimeException e) {
+            if (!transactionStatus.isCompleted()) {
+                this.transactionManager.rollback(transactionStatus);
+            }
+            return processItemByItem(chunk, processor);
+        }
+
+        final PartitionedJobResult result = new PartitionedJobResult();
+        for (int i = 0; i < chunk.size(); i++) {
+            result.itemProcessed();
+        }
+        return result;
+    }
+
+    private <T> PartitionedJobResult processItemByItem(final List<T> chunk, final PartitionedJobItemProcessor<T> processor) {
+        final PartitionedJobResult result = new PartitionedJobResult();
+        for (final T item : chunk) {
+            final TransactionStatus transactionStatus = this.transactionManager.getTransaction(new DefaultTransactionDefinition());
+            try {
+                processor.process(item);
+                this.transactionManager.commit(transactionStatus);
+                result.itemProcessed();
+            } catch (final PlatformApiDataValidationException e) {
+                rollbackIfNecessary(transactionStatus);
+                final StringBuilder errorMsg = new StringBuilder();
+                for (final ApiParameterError error : e.getErrors()) {
+                    errorMsg.append(processor.describeFailure(item)).append(" with message ").append(error.getDeveloperMessage());
+                }
+                result.itemFailed(errorMsg.toString());
+            } catch (final RuntimeException e) {
+                rollbackIfNecessary(transactionStatus);
+                Throwable realCause = e;
+                if (e.getCause() != null) {
+                    realCause = e.getCause();
+                }
+                result.itemFailed(processor.describeFailure(item) + " with message " + realCause.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private void rollbackIfNecessary(final TransactionStatus transactionStatus) {
+        if (!transactionStatus.isCompleted()) {
+            this.transactionManager.rollback(transactionStatus);
+        }
+    }
+}
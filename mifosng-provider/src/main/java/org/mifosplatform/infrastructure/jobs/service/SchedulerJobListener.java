@@ -8,6 +8,7 @@ package org.mifosplatform.infrastructure.jobs.service;
 import java.util.Date;
 
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.data.PartitionedJobResult;
 import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetail;
 import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobRunHistory;
 import org.quartz.JobExecutionContext;
@@ -94,6 +95,9 @@ public class SchedulerJobListener implements JobListener {
         final ScheduledJobRunHistory runHistory = new ScheduledJobRunHistory(scheduledJobDetails, version, context.getFireTime(),
                 new Date(), status, errorMessage, triggerType, errorLog);
         // scheduledJobDetails.addRunHistory(runHistory);
+        if (context.getResult() instanceof PartitionedJobResult) {
+            runHistory.recordStatistics((PartitionedJobResult) context.getResult());
+        }
 
         this.schedularService.saveOrUpdate(scheduledJobDetails, runHistory);
 
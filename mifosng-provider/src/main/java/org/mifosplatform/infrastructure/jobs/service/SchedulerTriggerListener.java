@@ -6,6 +6,7 @@
 package org.mifosplatform.infrastructure.jobs.service;
 
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.TenantDatabaseUpgradeService;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
 import org.quartz.JobExecutionContext;
@@ -13,22 +14,30 @@ import org.quartz.JobKey;
 import org.quartz.Trigger;
 import org.quartz.Trigger.CompletedExecutionInstruction;
 import org.quartz.TriggerListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 public class SchedulerTriggerListener implements TriggerListener {
 
+    private final static Logger logger = LoggerFactory.getLogger(SchedulerTriggerListener.class);
+
     private final String name = "Global trigger Listner";
 
     private final SchedularWritePlatformService schedularService;
 
     private final TenantDetailsService tenantDetailsService;
 
+    private final TenantDatabaseUpgradeService tenantDatabaseUpgradeService;
+
     @Autowired
-    public SchedulerTriggerListener(final SchedularWritePlatformService schedularService, final TenantDetailsService tenantDetailsService) {
+    public SchedulerTriggerListener(final SchedularWritePlatformService schedularService, final TenantDetailsService tenantDetailsService,
+            final TenantDatabaseUpgradeService tenantDatabaseUpgradeService) {
         this.schedularService = schedularService;
         this.tenantDetailsService = tenantDetailsService;
+        this.tenantDatabaseUpgradeService = tenantDatabaseUpgradeService;
 
     }
 
@@ -47,6 +56,10 @@ public class SchedulerTriggerListener implements TriggerListener {
     public boolean vetoJobExecution(final Trigger trigger, final JobExecutionContext context) {
 
         final String tenantIdentifier = trigger.getJobDataMap().getString(SchedulerServiceConstants.TENANT_IDENTIFIER);
+        if (!this.tenantDatabaseUpgradeService.isTenantAvailable(tenantIdentifier)) {
+            logger.warn("Job " + trigger.getJobKey() + " skipped, the database of tenant " + tenantIdentifier + " is not upgraded");
+            return true;
+        }
         final MifosPlatformTenant tenant = this.tenantDetailsService.loadTenantById(tenantIdentifier);
         ThreadLocalContextUtil.setTenant(tenant);
         final JobKey key = trigger.getJobKey();
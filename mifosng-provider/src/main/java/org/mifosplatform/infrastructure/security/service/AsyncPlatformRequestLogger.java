@@ -0,0 +1,135 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.lang.time.StopWatch;
+import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
+import org.mifosplatform.infrastructure.security.data.PlatformRequestLog;
+import org.mifosplatform.infrastructure.security.filter.TenantAwareBasicAuthenticationFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs a {@link PlatformRequestLog} for API requests without holding up the
+ * request thread.
+ *
+ * Requests are sampled first, so unsampled requests allocate nothing. Sampled
+ * entries are put on a bounded queue and serialized and written to the log by
+ * a single background thread, in batches; should the queue fill up, entries
+ * are dropped and the number dropped is reported with the next batch.
+ *
+ * Configured through <code>mifos.requestlog.enabled</code> (true by default)
+ * and <code>mifos.requestlog.sample-every</code>, which logs one in every N
+ * requests (1, i.e. every request, by default).
+ */
+@Component
+public class AsyncPlatformRequestLogger {
+
+    private final static Logger logger = LoggerFactory.getLogger(AsyncPlatformRequestLogger.class);
+    // request logs keep the logger they were always written with
+    private final static Logger requestLogger = LoggerFactory.getLogger(TenantAwareBasicAuthenticationFilter.class);
+
+    public final static String ENABLED = "mifos.requestlog.enabled";
+    public final static String SAMPLE_EVERY = "mifos.requestlog.sample-every";
+
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private final ToApiJsonSerializer<PlatformRequestLog> toApiJsonSerializer;
+    private final boolean enabled;
+    private final int sampleEvery;
+    private final BlockingQueue<PlatformRequestLog> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private Thread writer;
+
+    @Autowired
+    public AsyncPlatformRequestLogger(final ToApiJsonSerializer<PlatformRequestLog> toApiJsonSerializer,
+            @Value("${" + ENABLED + ":true}") final boolean enabled, @Value("${" + SAMPLE_EVERY + ":1}") final int sampleEvery) {
+        this.toApiJsonSerializer = toApiJsonSerializer;
+        this.enabled = enabled;
+        this.sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!this.enabled) { return; }
+
+        this.writer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                writeUntilInterrupted();
+            }
+        }, "platform-request-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (this.writer != null) {
+            this.writer.interrupt();
+        }
+    }
+
+    public void log(final StopWatch task, final HttpServletRequest request) throws IOException {
+        if (!this.enabled || !requestLogger.isInfoEnabled()) { return; }
+        if (this.sampleEvery > 1 && this.requestCount.getAndIncrement() % this.sampleEvery != 0) { return; }
+
+        // the request parameters must be read on the request thread
+        final PlatformRequestLog log = PlatformRequestLog.from(task, request);
+        if (!this.queue.offer(log)) {
+            this.droppedCount.incrementAndGet();
+        }
+    }
+
+    private void writeUntilInterrupted() {
+        final List<PlatformRequestLog> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(this.queue.take());
+                this.queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                write(batch);
+                batch.clear();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.queue.drainTo(batch);
+        write(batch);
+    }
+
+    private void write(final List<PlatformRequestLog> batch) {
+        for (final PlatformRequestLog log : batch) {
+            try {
+                requestLogger.info(this.toApiJsonSerializer.serialize(log));
+            } catch (final RuntimeException e) {
+                logger.warn("Failed to write platform request log", e);
+            }
+        }
+
+        final long dropped = this.droppedCount.getAndSet(0);
+        if (dropped > 0) {
+            logger.warn("Dropped " + dropped + " platform request log entries as the log queue was full");
+        }
+    }
+}
@@ -7,14 +7,26 @@ package org.mifosplatform.infrastructure.security.service;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
 
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.security.exception.InvalidTenantIdentiferException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -23,15 +35,31 @@ import org.springframework.stereotype.Service;
 /**
  * A JDBC implementation of {@link BasicAuthTenantDetailsService} for loading a
  * tenants details by a <code>tenantIdentifier</code>.
+ * 
+ * As every API request looks up its tenant, all tenants are loaded into an
+ * in-memory registry on first use and reloaded in the background every
+ * <code>mifos.tenants.refresh-interval</code> seconds (60 by default).
+ * Lookups read an immutable map through a volatile reference and so never
+ * block; only identifiers missing from the registry, such as tenants created
+ * since the last refresh, go to the database.
  */
 @Service
 public class BasicAuthTenantDetailsServiceJdbc implements BasicAuthTenantDetailsService {
 
+    private final static Logger logger = LoggerFactory.getLogger(BasicAuthTenantDetailsServiceJdbc.class);
+
+    public final static String REFRESH_INTERVAL = "mifos.tenants.refresh-interval";
+
     private final JdbcTemplate jdbcTemplate;
+    private final int refreshIntervalSeconds;
+    private volatile Map<String, MifosPlatformTenant> tenantsByIdentifier;
+    private ScheduledExecutorService refresher;
 
     @Autowired
-    public BasicAuthTenantDetailsServiceJdbc(@Qualifier("tenantDataSourceJndi") final DataSource dataSource) {
+    public BasicAuthTenantDetailsServiceJdbc(@Qualifier("tenantDataSourceJndi") final DataSource dataSource,
+            @Value("${" + REFRESH_INTERVAL + ":60}") final int refreshIntervalSeconds) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.refreshIntervalSeconds = refreshIntervalSeconds;
     }
 
     private static final class TenantMapper implements RowMapper<MifosPlatformTenant> {
@@ -85,9 +113,85 @@ public class BasicAuthTenantDetailsServiceJdbc implements BasicAuthTenantDetails
     }
 
     @Override
-    @Cacheable(value = "tenantsById")
     public MifosPlatformTenant loadTenantById(final String tenantIdentifier) {
 
+        Map<String, MifosPlatformTenant> tenants = this.tenantsByIdentifier;
+        if (tenants == null) {
+            tenants = initializeRegistry();
+        }
+
+        final MifosPlatformTenant tenant = tenants.get(tenantIdentifier);
+        if (tenant != null) { return tenant; }
+
+        final MifosPlatformTenant loadedTenant = retrieveTenant(tenantIdentifier);
+        register(tenantIdentifier, loadedTenant);
+        return loadedTenant;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (this.refresher != null) {
+            this.refresher.shutdownNow();
+            this.refresher = null;
+        }
+    }
+
+    private synchronized Map<String, MifosPlatformTenant> initializeRegistry() {
+        if (this.tenantsByIdentifier == null) {
+            this.tenantsByIdentifier = retrieveAllTenants();
+
+            this.refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "tenant-registry-refresher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.refresher.scheduleWithFixedDelay(new Runnable() {
+
+                @Override
+                public void run() {
+                    refreshRegistry();
+                }
+            }, this.refreshIntervalSeconds, this.refreshIntervalSeconds, TimeUnit.SECONDS);
+        }
+        return this.tenantsByIdentifier;
+    }
+
+    private void refreshRegistry() {
+        try {
+            final Map<String, MifosPlatformTenant> tenants = retrieveAllTenants();
+            synchronized (this) {
+                this.tenantsByIdentifier = tenants;
+            }
+        } catch (final DataAccessException e) {
+            // keep serving the last known tenants until the next refresh
+            logger.error("Failed to refresh the tenant registry", e);
+        }
+    }
+
+    private synchronized void register(final String tenantIdentifier, final MifosPlatformTenant tenant) {
+        final Map<String, MifosPlatformTenant> tenants = new HashMap<>(this.tenantsByIdentifier);
+        tenants.put(tenantIdentifier, tenant);
+        this.tenantsByIdentifier = Collections.unmodifiableMap(tenants);
+    }
+
+    private Map<String, MifosPlatformTenant> retrieveAllTenants() {
+        final TenantMapper rm = new TenantMapper();
+        final String sql = "select  " + rm.schema();
+
+        final List<MifosPlatformTenant> tenants = this.jdbcTemplate.query(sql, rm);
+        final Map<String, MifosPlatformTenant> tenantsByIdentifier = new HashMap<>(tenants.size());
+        for (final MifosPlatformTenant tenant : tenants) {
+            tenantsByIdentifier.put(tenant.getTenantIdentifier(), tenant);
+        }
+        return Collections.unmodifiableMap(tenantsByIdentifier);
+    }
+
+    private MifosPlatformTenant retrieveTenant(final String tenantIdentifier) {
+
         try {
             final TenantMapper rm = new TenantMapper();
             final String sql = "select  " + rm.schema() + " where t.identifier like ?";
@@ -97,4 +201,4 @@ public class BasicAuthTenantDetailsServiceJdbc implements BasicAuthTenantDetails
             throw new InvalidTenantIdentiferException("The tenant identifier: " + tenantIdentifier + " is not valid.");
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link AuthenticationProvider} that answers repeated username/password
+ * authentications from the {@link VerifiedCredentialCache} and only hands
+ * credentials it has not verified recently to the provider loading users
+ * from the database and checking their password hash.
+ */
+@Component(value = "cachingAuthenticationProvider")
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final VerifiedCredentialCache verifiedCredentialCache;
+
+    @Autowired
+    public CachingAuthenticationProvider(@Qualifier("customAuthenticationProvider") final AuthenticationProvider delegate,
+            final VerifiedCredentialCache verifiedCredentialCache) {
+        this.delegate = delegate;
+        this.verifiedCredentialCache = verifiedCredentialCache;
+    }
+
+    @Override
+    public Authentication authenticate(final Authentication authentication) throws AuthenticationException {
+
+        if (!this.verifiedCredentialCache.isEnabled() || !(authentication.getCredentials() instanceof String)) { return this.delegate
+                .authenticate(authentication); }
+
+        final String key = this.verifiedCredentialCache.keyFor(authentication.getName(), (String) authentication.getCredentials());
+        if (key == null) { return this.delegate.authenticate(authentication); }
+
+        final Authentication verified = this.verifiedCredentialCache.get(key);
+        if (verified != null) { return verified; }
+
+        final Authentication result = this.delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            this.verifiedCredentialCache.put(key, result);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(final Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication) && this.delegate.supports(authentication);
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+
+/**
+ * Short lived cache of successful authentications so that the basic auth
+ * credentials sent with every API request are not loaded and hashed again on
+ * every call.
+ *
+ * Entries are keyed by tenant and a SHA-256 hash of the credentials, the
+ * plain text password is never held as a key, and live for
+ * <code>mifos.security.credential-cache-ttl</code> seconds (60 by default,
+ * 0 switches the cache off). Writes to users, roles and permissions drop all
+ * entries of the tenant, see {@link #invalidateCurrentTenant()}.
+ *
+ * Hit and miss counts are exposed over JMX.
+ */
+@Component
+@ManagedResource(objectName = "org.mifosplatform:type=VerifiedCredentialCache", description = "Cache of verified API credentials")
+public class VerifiedCredentialCache {
+
+    public final static String TIME_TO_LIVE = "mifos.security.credential-cache-ttl";
+
+    private static final int MAX_ENTRIES = 10000;
+
+    private final long timeToLiveMillis;
+    private final ConcurrentMap<String, VerifiedCredential> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public VerifiedCredentialCache(@Value("${" + TIME_TO_LIVE + ":60}") final int timeToLiveSeconds) {
+        this.timeToLiveMillis = timeToLiveSeconds * 1000L;
+    }
+
+    public boolean isEnabled() {
+        return this.timeToLiveMillis > 0;
+    }
+
+    /**
+     * @return the key of the credentials for the current tenant or
+     *         <code>null</code> if there is no current tenant
+     */
+    public String keyFor(final String username, final String password) {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null) { return null; }
+
+        final String credentialsHash = Hashing.sha256().hashString(username + ":" + password, Charsets.UTF_8).toString();
+        return tenant.getTenantIdentifier() + ":" + credentialsHash;
+    }
+
+    public Authentication get(final String key) {
+        final VerifiedCredential credential = this.entries.get(key);
+        if (credential == null || credential.isExpired(System.currentTimeMillis())) {
+            if (credential != null) {
+                this.entries.remove(key, credential);
+            }
+            this.misses.incrementAndGet();
+            return null;
+        }
+        this.hits.incrementAndGet();
+        return credential.authentication;
+    }
+
+    public void put(final String key, final Authentication authentication) {
+        if (this.entries.size() >= MAX_ENTRIES) {
+            removeExpired();
+            if (this.entries.size() >= MAX_ENTRIES) {
+                this.entries.clear();
+            }
+        }
+        final String tenantIdentifier = ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+        this.entries.put(key, new VerifiedCredential(tenantIdentifier, authentication, System.currentTimeMillis() + this.timeToLiveMillis));
+    }
+
+    /**
+     * Drops every verified credential of the current tenant, now and, when
+     * called within a transaction, again once it commits so that requests
+     * authenticated in between do not keep the previous user details.
+     */
+    public void invalidateCurrentTenant() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null) {
+            invalidateAll();
+            return;
+        }
+
+        final String tenantIdentifier = tenant.getTenantIdentifier();
+        invalidateTenant(tenantIdentifier);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(@SuppressWarnings("unused") final int status) {
+                    invalidateTenant(tenantIdentifier);
+                }
+            });
+        }
+    }
+
+    @ManagedOperation(description = "Drops all verified credentials")
+    public void invalidateAll() {
+        this.entries.clear();
+    }
+
+    @ManagedAttribute(description = "Number of authentications served from the cache")
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    @ManagedAttribute(description = "Number of authentications that had to be verified")
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    @ManagedAttribute(description = "Number of verified credentials held")
+    public int getSize() {
+        return this.entries.size();
+    }
+
+    private void invalidateTenant(final String tenantIdentifier) {
+        for (final Iterator<VerifiedCredential> iterator = this.entries.values().iterator(); iterator.hasNext();) {
+            if (iterator.next().tenantIdentifier.equals(tenantIdentifier)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void removeExpired() {
+        final long now = System.currentTimeMillis();
+        for (final Iterator<Map.Entry<String, VerifiedCredential>> iterator = this.entries.entrySet().iterator(); iterator.hasNext();) {
+            if (iterator.next().getValue().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class VerifiedCredential {
+
+        private final String tenantIdentifier;
+        private final Authentication authentication;
+        private final long expiresAt;
+
+        VerifiedCredential(final String tenantIdentifier, final Authentication authentication, final long expiresAt) {
+            this.tenantIdentifier = tenantIdentifier;
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(final long now) {
+            return now >= this.expiresAt;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.organisation.monetary.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Monetary amount held as a <code>long</code> count of the currency's minor
+ * units (e.g. cents for a currency with two digits after the decimal).
+ *
+ * Meant for calculations that add up or scale many amounts, such as summing
+ * the transactions or installments of an account: every operation gives
+ * exactly the amount the same operation on {@link Money} gives, including
+ * the rounding to <code>inMultiplesOf</code> for currencies without decimal
+ * digits, but without creating {@link BigDecimal}s along the way. Amounts are
+ * converted from and to {@link Money} at the edges of such a calculation.
+ *
+ * Operations throw {@link ArithmeticException} rather than overflow.
+ */
+public final class MinorUnitMoney implements Comparable<MinorUnitMoney> {
+
+    private final String currencyCode;
+    private final int currencyDigitsAfterDecimal;
+    private final Integer inMultiplesOf;
+    private final long minorUnits;
+
+    public static MinorUnitMoney zero(final MonetaryCurrency currency) {
+        return new MinorUnitMoney(currency.getCode(), currency.getDigitsAfterDecimal(), currency.getCurrencyInMultiplesOf(), 0);
+    }
+
+    public static MinorUnitMoney of(final Money money) {
+        return new MinorUnitMoney(money.getCurrencyCode(), money.getCurrencyDigitsAfterDecimal(), money.getCurrencyInMultiplesOf(),
+                toMinorUnits(money.getAmount(), money.getCurrencyDigitsAfterDecimal()));
+    }
+
+    /**
+     * @return the amount {@link Money#of(MonetaryCurrency, BigDecimal)} would
+     *         hold for <code>amount</code>
+     */
+    public static MinorUnitMoney of(final MonetaryCurrency currency, final BigDecimal amount) {
+        if (amount == null) { return zero(currency); }
+
+        final int digitsAfterDecimal = currency.getDigitsAfterDecimal();
+        if (isRoundedToMultiples(digitsAfterDecimal, currency.getCurrencyInMultiplesOf()) && amount.signum() > 0) {
+            // rare enough to leave the rounding of fractional amounts to Money
+            return of(Money.of(currency, amount));
+        }
+        return new MinorUnitMoney(currency.getCode(), digitsAfterDecimal, currency.getCurrencyInMultiplesOf(), toMinorUnits(
+                amount.setScale(digitsAfterDecimal, RoundingMode.HALF_EVEN), digitsAfterDecimal));
+    }
+
+    private static long toMinorUnits(final BigDecimal amount, final int digitsAfterDecimal) {
+        return amount.scaleByPowerOfTen(digitsAfterDecimal).longValueExact();
+    }
+
+    private static boolean isRoundedToMultiples(final int digitsAfterDecimal, final Integer inMultiplesOf) {
+        return digitsAfterDecimal == 0 && inMultiplesOf != null && inMultiplesOf > 0;
+    }
+
+    private MinorUnitMoney(final String currencyCode, final int digitsAfterDecimal, final Integer inMultiplesOf, final long minorUnits) {
+        this.currencyCode = currencyCode;
+        this.currencyDigitsAfterDecimal = digitsAfterDecimal;
+        this.inMultiplesOf = inMultiplesOf;
+        this.minorUnits = minorUnits;
+    }
+
+    /**
+     * Same as the rounding {@link Money} applies to every result: positive
+     * amounts of a currency without decimal digits are rounded to the nearest
+     * multiple of <code>inMultiplesOf</code>, halfway amounts upwards.
+     */
+    private MinorUnitMoney withMinorUnits(final long newMinorUnits) {
+        long rounded = newMinorUnits;
+        if (newMinorUnits > 0 && isRoundedToMultiples(this.currencyDigitsAfterDecimal, this.inMultiplesOf)) {
+            final long multiple = this.inMultiplesOf;
+            final long remainder = newMinorUnits % multiple;
+            if (remainder != 0) {
+                final long floor = newMinorUnits - remainder;
+                rounded = multiple - remainder > remainder ? floor : addExact(floor, multiple);
+            }
+        }
+        if (rounded == this.minorUnits) { return this; }
+        return new MinorUnitMoney(this.currencyCode, this.currencyDigitsAfterDecimal, this.inMultiplesOf, rounded);
+    }
+
+    public MinorUnitMoney plus(final MinorUnitMoney moneyToAdd) {
+        checkCurrencyEqual(moneyToAdd.currencyCode);
+        if (moneyToAdd.minorUnits == 0) { return this; }
+        return withMinorUnits(addExact(this.minorUnits, moneyToAdd.minorUnits));
+    }
+
+    public MinorUnitMoney plus(final Money moneyToAdd) {
+        checkCurrencyEqual(moneyToAdd.getCurrencyCode());
+        final BigDecimal amount = moneyToAdd.getAmount();
+        if (amount.signum() == 0) { return this; }
+        return withMinorUnits(addExact(this.minorUnits, toMinorUnits(amount, moneyToAdd.getCurrencyDigitsAfterDecimal())));
+    }
+
+    /**
+     * Same as <code>plus(Money.of(getCurrency(), amountToAdd))</code>, for
+     * adding up stored amounts without wrapping each of them in {@link Money}
+     * first.
+     */
+    public MinorUnitMoney plusAmountOf(final BigDecimal amountToAdd) {
+        if (amountToAdd == null || amountToAdd.signum() == 0) { return this; }
+        if (isRoundedToMultiples(this.currencyDigitsAfterDecimal, this.inMultiplesOf) && amountToAdd.signum() > 0) {
+            return plus(of(getCurrency(), amountToAdd));
+        }
+        final int digitsAfterDecimal = this.currencyDigitsAfterDecimal;
+        return withMinorUnits(addExact(this.minorUnits,
+                toMinorUnits(amountToAdd.setScale(digitsAfterDecimal, RoundingMode.HALF_EVEN), digitsAfterDecimal)));
+    }
+
+    public MinorUnitMoney minus(final MinorUnitMoney moneyToSubtract) {
+        checkCurrencyEqual(moneyToSubtract.currencyCode);
+        if (moneyToSubtract.minorUnits == 0) { return this; }
+        return withMinorUnits(subtractExact(this.minorUnits, moneyToSubtract.minorUnits));
+    }
+
+    public MinorUnitMoney minus(final Money moneyToSubtract) {
+        checkCurrencyEqual(moneyToSubtract.getCurrencyCode());
+        final BigDecimal amount = moneyToSubtract.getAmount();
+        if (amount.signum() == 0) { return this; }
+        return withMinorUnits(subtractExact(this.minorUnits, toMinorUnits(amount, moneyToSubtract.getCurrencyDigitsAfterDecimal())));
+    }
+
+    public MinorUnitMoney multipliedBy(final long valueToMultiplyBy) {
+        if (valueToMultiplyBy == 1) { return this; }
+        return withMinorUnits(multiplyExact(this.minorUnits, valueToMultiplyBy));
+    }
+
+    /**
+     * Same as {@link Money#dividedBy(long, RoundingMode)}, the quotient is
+     * rounded to minor units using <code>roundingMode</code>.
+     */
+    public MinorUnitMoney dividedBy(final long valueToDivideBy, final RoundingMode roundingMode) {
+        if (valueToDivideBy == 1) { return this; }
+        if (valueToDivideBy == 0) { throw new ArithmeticException("Division by zero"); }
+
+        final long quotient = this.minorUnits / valueToDivideBy;
+        final long remainder = this.minorUnits % valueToDivideBy;
+        if (remainder == 0) { return withMinorUnits(quotient); }
+
+        // the sign of the exact quotient, its magnitude lies between |quotient| and |quotient| + 1
+        final int signum = (this.minorUnits < 0) == (valueToDivideBy < 0) ? 1 : -1;
+        final int comparedToHalf = compareToHalf(Math.abs(remainder), Math.abs(valueToDivideBy));
+
+        final boolean awayFromZero;
+        switch (roundingMode) {
+            case UP:
+                awayFromZero = true;
+            break;
+            case DOWN:
+                awayFromZero = false;
+            break;
+            case CEILING:
+                awayFromZero = signum > 0;
+            break;
+            case FLOOR:
+                awayFromZero = signum < 0;
+            break;
+            case HALF_UP:
+                awayFromZero = comparedToHalf >= 0;
+            break;
+            case HALF_DOWN:
+                awayFromZero = comparedToHalf > 0;
+            break;
+            case HALF_EVEN:
+                awayFromZero = comparedToHalf > 0 || (comparedToHalf == 0 && (quotient & 1) != 0);
+            break;
+            default:
+                throw new ArithmeticException("Rounding necessary");
+        }
+        return withMinorUnits(awayFromZero ? addExact(quotient, signum) : quotient);
+    }
+
+    private static int compareToHalf(final long remainder, final long divisor) {
+        // remainder < divisor, so doubling can only overflow for huge divisors
+        final long doubled = remainder << 1;
+        if (doubled < 0) { return 1; }
+        return Long.compare(doubled, divisor);
+    }
+
+    public MinorUnitMoney negated() {
+        if (this.minorUnits == 0) { return this; }
+        return withMinorUnits(subtractExact(0, this.minorUnits));
+    }
+
+    public MinorUnitMoney abs() {
+        return isLessThanZero() ? negated() : this;
+    }
+
+    @Override
+    public int compareTo(final MinorUnitMoney other) {
+        checkCurrencyEqual(other.currencyCode);
+        return Long.compare(this.minorUnits, other.minorUnits);
+    }
+
+    public MinorUnitMoney zero() {
+        return withMinorUnits(0);
+    }
+
+    public boolean isZero() {
+        return this.minorUnits == 0;
+    }
+
+    public boolean isGreaterThanZero() {
+        return this.minorUnits > 0;
+    }
+
+    public boolean isLessThanZero() {
+        return this.minorUnits < 0;
+    }
+
+    public boolean isGreaterThan(final MinorUnitMoney other) {
+        return compareTo(other) > 0;
+    }
+
+    public boolean isLessThan(final MinorUnitMoney other) {
+        return compareTo(other) < 0;
+    }
+
+    public boolean isEqualTo(final MinorUnitMoney other) {
+        return compareTo(other) == 0;
+    }
+
+    public long getMinorUnits() {
+        return this.minorUnits;
+    }
+
+    /**
+     * @return the amount with the scale of the currency, just like
+     *         {@link Money#getAmount()}
+     */
+    public BigDecimal getAmount() {
+        return BigDecimal.valueOf(this.minorUnits, this.currencyDigitsAfterDecimal);
+    }
+
+    public BigDecimal getAmountDefaultedToNullIfZero() {
+        return this.minorUnits == 0 ? null : getAmount();
+    }
+
+    public MonetaryCurrency getCurrency() {
+        return new MonetaryCurrency(this.currencyCode, this.currencyDigitsAfterDecimal, this.inMultiplesOf);
+    }
+
+    public Money toMoney() {
+        return Money.of(getCurrency(), getAmount());
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder().append(this.currencyCode).append(' ').append(getAmount().toPlainString()).toString();
+    }
+
+    private void checkCurrencyEqual(final String otherCurrencyCode) {
+        if (!this.currencyCode.equals(otherCurrencyCode)) { throw new UnsupportedOperationException("currencies are different."); }
+    }
+
+    private static long addExact(final long x, final long y) {
+        final long result = x + y;
+        if (((x ^ result) & (y ^ result)) < 0) { throw new ArithmeticException("long overflow"); }
+        return result;
+    }
+
+    private static long subtractExact(final long x, final long y) {
+        final long result = x - y;
+        if (((x ^ y) & (x ^ result)) < 0) { throw new ArithmeticException("long overflow"); }
+        return result;
+    }
+
+    private static long multiplyExact(final long x, final long y) {
+        final long result = x * y;
+        final long absX = Math.abs(x);
+        final long absY = Math.abs(y);
+        if ((absX | absY) >>> 31 != 0) {
+            if ((y != 0 && result / y != x) || (x == Long.MIN_VALUE && y == -1)) { throw new ArithmeticException("long overflow"); }
+        }
+        return result;
+    }
+}
@@ -5,6 +5,7 @@
  */
 package org.mifosplatform.organisation.teller.handler;
 
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -12,6 +13,7 @@ import org.mifosplatform.organisation.teller.service.TellerWritePlatformService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+@CommandType(entity = "TELLER", action = "ALLOCATECASHIER")
 @Service
 public class AllocateCashierToTellerCommandHandler implements NewCommandSourceHandler {
 
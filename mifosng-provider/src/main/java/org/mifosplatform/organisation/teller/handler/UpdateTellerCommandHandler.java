@@ -5,6 +5,7 @@
  */
 package org.mifosplatform.organisation.teller.handler;
 
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -19,6 +20,7 @@ import org.springframework.stereotype.Service;
  * @see org.mifosplatform.organisation.teller.service.TellerWritePlatformService
  * @since 2.0.0
  */
+@CommandType(entity = "TELLER", action = "UPDATE")
 @Service
 public class UpdateTellerCommandHandler implements NewCommandSourceHandler {
 
@@ -5,6 +5,7 @@
  */
 package org.mifosplatform.portfolio.interestratechart.handler;
 
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -12,6 +13,7 @@ import org.mifosplatform.portfolio.interestratechart.service.InterestRateChartWr
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+@CommandType(entity = "INTERESTRATECHART", action = "DELETE")
 @Service
 public class DeleteInterestRateChartCommandHandler implements NewCommandSourceHandler {
 
@@ -0,0 +1,30 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.domain;
+
+/**
+ * What to fetch along with a {@link Loan} when loading it. Anything not
+ * fetched up front is still loaded lazily (in batches) on first use, so a plan
+ * only decides how many round trips an operation costs, never whether it
+ * works.
+ */
+public enum LoanFetchPlan {
+
+    /**
+     * Only the loan itself, for reads and operations that touch few or none
+     * of its collections.
+     */
+    DEFAULT,
+    /**
+     * The loan with its repayment schedule, for repayments, adjustments,
+     * waivers and charge application which all walk the installments.
+     */
+    REPAYMENT_SCHEDULE,
+    /**
+     * The loan with its (tranche) disbursement details, for disbursements.
+     */
+    DISBURSEMENT_DETAILS;
+}
@@ -19,6 +19,7 @@ import javax.persistence.TemporalType;
 
 import org.joda.time.LocalDate;
 import org.mifosplatform.infrastructure.core.domain.AbstractAuditableCustom;
+import org.mifosplatform.organisation.monetary.domain.MinorUnitMoney;
 import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
 import org.mifosplatform.organisation.monetary.domain.Money;
 import org.mifosplatform.useradministration.domain.AppUser;
@@ -184,8 +185,7 @@ public final class LoanRepaymentScheduleInstallment extends AbstractAuditableCus
     }
 
     public Money getPrincipalOutstanding(final MonetaryCurrency currency) {
-        final Money principalAccountedFor = getPrincipalCompleted(currency).plus(getPrincipalWrittenOff(currency));
-        return getPrincipal(currency).minus(principalAccountedFor);
+        return principalOutstanding(currency).toMoney();
     }
 
     public Money getInterestCharged(final MonetaryCurrency currency) {
@@ -205,9 +205,7 @@ public final class LoanRepaymentScheduleInstallment extends AbstractAuditableCus
     }
 
     public Money getInterestOutstanding(final MonetaryCurrency currency) {
-        final Money interestAccountedFor = getInterestPaid(currency).plus(getInterestWaived(currency))
-                .plus(getInterestWrittenOff(currency));
-        return getInterestCharged(currency).minus(interestAccountedFor);
+        return interestOutstanding(currency).toMoney();
     }
 
     public Money getInterestAccrued(final MonetaryCurrency currency) {
@@ -231,9 +229,7 @@ public final class LoanRepaymentScheduleInstallment extends AbstractAuditableCus
     }
 
     public Money getFeeChargesOutstanding(final MonetaryCurrency currency) {
-        final Money feeChargesAccountedFor = getFeeChargesPaid(currency).plus(getFeeChargesWaived(currency)).plus(
-                getFeeChargesWrittenOff(currency));
-        return getFeeChargesCharged(currency).minus(feeChargesAccountedFor);
+        return feeChargesOutstanding(currency).toMoney();
     }
 
     public Money getFeeAccrued(final MonetaryCurrency currency) {
@@ -257,9 +253,7 @@ public final class LoanRepaymentScheduleInstallment extends AbstractAuditableCus
     }
 
     public Money getPenaltyChargesOutstanding(final MonetaryCurrency currency) {
-        final Money feeChargesAccountedFor = getPenaltyChargesPaid(currency).plus(getPenaltyChargesWaived(currency)).plus(
-                getPenaltyChargesWrittenOff(currency));
-        return getPenaltyChargesCharged(currency).minus(feeChargesAccountedFor);
+        return penaltyChargesOutstanding(currency).toMoney();
     }
 
     public Money getPenaltyAccrued(final MonetaryCurrency currency) {
@@ -267,7 +261,7 @@ public final class LoanRepaymentScheduleInstallment extends AbstractAuditableCus
     }
 
     public boolean isInterestDue(final MonetaryCurrency currency) {
-        return getInterestOutstanding(currency).isGreaterThanZero();
+        return interestOutstanding(currency).isGreaterThanZero();
     }
 
     public Money getTotalPrincipalAndInterest(final MonetaryCurrency currency) {
@@ -275,8 +269,107 @@ public final class LoanRepaymentScheduleInstallment extends AbstractAuditableCus
     }
 
     public Money getTotalOutstanding(final MonetaryCurrency currency) {
-        return getPrincipalOutstanding(currency).plus(getInterestOutstanding(currency)).plus(getFeeChargesOutstanding(currency))
-                .plus(getPenaltyChargesOutstanding(currency));
+        return totalOutstanding(currency).toMoney();
+    }
+
+    /*
+     * The outstanding amounts are worked out in minor units straight from the
+     * stored amounts: the repayment processors check them after every
+     * payment component, and LoanSummaryWrapper adds them up over the
+     * schedule. Each step rounds the way the same step on Money does.
+     */
+
+    MinorUnitMoney principalOutstanding(final MonetaryCurrency currency) {
+        final MinorUnitMoney zero = MinorUnitMoney.zero(currency);
+        final MinorUnitMoney principalAccountedFor = zero.plusAmountOf(this.principalCompleted).plusAmountOf(this.principalWrittenOff);
+        return zero.plusAmountOf(this.principal).minus(principalAccountedFor);
+    }
+
+    MinorUnitMoney interestOutstanding(final MonetaryCurrency currency) {
+        final MinorUnitMoney zero = MinorUnitMoney.zero(currency);
+        final MinorUnitMoney interestAccountedFor = zero.plusAmountOf(this.interestPaid).plusAmountOf(this.interestWaived)
+                .plusAmountOf(this.interestWrittenOff);
+        return zero.plusAmountOf(this.interestCharged).minus(interestAccountedFor);
+    }
+
+    MinorUnitMoney feeChargesOutstanding(final MonetaryCurrency currency) {
+        final MinorUnitMoney zero = MinorUnitMoney.zero(currency);
+        final MinorUnitMoney feeChargesAccountedFor = zero.plusAmountOf(this.feeChargesPaid).plusAmountOf(this.feeChargesWaived)
+                .plusAmountOf(this.feeChargesWrittenOff);
+        return zero.plusAmountOf(this.feeChargesCharged).minus(feeChargesAccountedFor);
+    }
+
+    MinorUnitMoney penaltyChargesOutstanding(final MonetaryCurrency currency) {
+        final MinorUnitMoney zero = MinorUnitMoney.zero(currency);
+        final MinorUnitMoney penaltyChargesAccountedFor = zero.plusAmountOf(this.penaltyChargesPaid)
+                .plusAmountOf(this.penaltyChargesWaived).plusAmountOf(this.penaltyChargesWrittenOff);
+        return zero.plusAmountOf(this.penaltyCharges).minus(penaltyChargesAccountedFor);
+    }
+
+    MinorUnitMoney totalOutstanding(final MonetaryCurrency currency) {
+        return principalOutstanding(currency).plus(interestOutstanding(currency)).plus(feeChargesOutstanding(currency))
+                .plus(penaltyChargesOutstanding(currency));
+    }
+
+    /*
+     * Stored amounts, null when zero, for adding up with
+     * MinorUnitMoney#plusAmountOf.
+     */
+
+    BigDecimal principalCompleted() {
+        return this.principalCompleted;
+    }
+
+    BigDecimal principalWrittenOff() {
+        return this.principalWrittenOff;
+    }
+
+    BigDecimal interestCharged() {
+        return this.interestCharged;
+    }
+
+    BigDecimal interestPaid() {
+        return this.interestPaid;
+    }
+
+    BigDecimal interestWaived() {
+        return this.interestWaived;
+    }
+
+    BigDecimal interestWrittenOff() {
+        return this.interestWrittenOff;
+    }
+
+    BigDecimal feeChargesCharged() {
+        return this.feeChargesCharged;
+    }
+
+    BigDecimal feeChargesPaid() {
+        return this.feeChargesPaid;
+    }
+
+    BigDecimal feeChargesWaived() {
+        return this.feeChargesWaived;
+    }
+
+    BigDecimal feeChargesWrittenOff() {
+        return this.feeChargesWrittenOff;
+    }
+
+    BigDecimal penaltyChargesCharged() {
+        return this.penaltyCharges;
+    }
+
+    BigDecimal penaltyChargesPaid() {
+        return this.penaltyChargesPaid;
+    }
+
+    BigDecimal penaltyChargesWaived() {
+        return this.penaltyChargesWaived;
+    }
+
+    BigDecimal penaltyChargesWrittenOff() {
+        return this.penaltyChargesWrittenOff;
     }
 
     public void updateLoan(final Loan loan) {
@@ -300,7 +393,7 @@ public final class LoanRepaymentScheduleInstallment extends AbstractAuditableCus
     }
 
     public boolean isPrincipalCompleted(final MonetaryCurrency currency) {
-        return getPrincipalOutstanding(currency).isZero();
+        return principalOutstanding(currency).isZero();
     }
 
     public void resetDerivedComponents() {
@@ -531,7 +624,7 @@ public final class LoanRepaymentScheduleInstallment extends AbstractAuditableCus
     }
 
     public void updateDerivedFields(final MonetaryCurrency currency, final LocalDate actualDisbursementDate) {
-        if (!this.obligationsMet && getTotalOutstanding(currency).isZero()) {
+        if (!this.obligationsMet && totalOutstanding(currency).isZero()) {
             this.obligationsMet = true;
             this.obligationsMetOnDate = actualDisbursementDate.toDate();
         }
@@ -559,7 +652,7 @@ public final class LoanRepaymentScheduleInstallment extends AbstractAuditableCus
     }
 
     private void checkIfRepaymentPeriodObligationsAreMet(final LocalDate transactionDate, final MonetaryCurrency currency) {
-        this.obligationsMet = getTotalOutstanding(currency).isZero();
+        this.obligationsMet = totalOutstanding(currency).isZero();
         if (this.obligationsMet) {
             this.obligationsMetOnDate = transactionDate.toDate();
         }
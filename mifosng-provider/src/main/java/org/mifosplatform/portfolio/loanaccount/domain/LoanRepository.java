@@ -9,6 +9,8 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -52,6 +54,8 @@ public interface LoanRepository extends JpaRepository<Loan, Long>, JpaSpecificat
     public static final String FIND_ACTIVE_LOANS_PRODUCT_IDS_BY_GROUP = "Select loan.loanProduct.id from Loan loan where "
             + "loan.group.id = :groupId and loan.loanStatus = :loanStatus and loan.client.id is NULL group by loan.loanProduct.id";
 
+    public static final String FIND_LOAN_BY_ID = "select distinct loan from Loan loan where loan.id = :loanId";
+
     public static final String DOES_CLIENT_HAVE_NON_CLOSED_LOANS = "select case when (count (loan) > 0) then true else false end from Loan loan where loan.client.id = :clientId and loan.loanStatus in (100,200,300,303,304)";
 
     @Query(FIND_GROUP_LOANS_DISBURSED_AFTER)
@@ -123,4 +127,12 @@ public interface LoanRepository extends JpaRepository<Loan, Long>, JpaSpecificat
     @Query(DOES_CLIENT_HAVE_NON_CLOSED_LOANS)
     boolean doNonClosedLoanAccountsExistForClient(@Param("clientId") Long clientId);
 
+    @EntityGraph(value = Loan.REPAYMENT_SCHEDULE_GRAPH, type = EntityGraphType.LOAD)
+    @Query(FIND_LOAN_BY_ID)
+    Loan findOneWithRepaymentSchedule(@Param("loanId") Long loanId);
+
+    @EntityGraph(value = Loan.DISBURSEMENT_DETAILS_GRAPH, type = EntityGraphType.LOAD)
+    @Query(FIND_LOAN_BY_ID)
+    Loan findOneWithDisbursementDetails(@Param("loanId") Long loanId);
+
 }
\ No newline at end of file
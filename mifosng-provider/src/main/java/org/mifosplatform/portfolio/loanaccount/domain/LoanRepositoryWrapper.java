@@ -26,7 +26,22 @@ public class LoanRepositoryWrapper {
     }
 
     public Loan findOneWithNotFoundDetection(final Long id) {
-        final Loan loan = this.repository.findOne(id);
+        return findOneWithNotFoundDetection(id, LoanFetchPlan.DEFAULT);
+    }
+
+    public Loan findOneWithNotFoundDetection(final Long id, final LoanFetchPlan fetchPlan) {
+        final Loan loan;
+        switch (fetchPlan) {
+            case REPAYMENT_SCHEDULE:
+                loan = this.repository.findOneWithRepaymentSchedule(id);
+            break;
+            case DISBURSEMENT_DETAILS:
+                loan = this.repository.findOneWithDisbursementDetails(id);
+            break;
+            default:
+                loan = this.repository.findOne(id);
+            break;
+        }
         if (loan == null) { throw new LoanNotFoundException(id); }
         return loan;
     }
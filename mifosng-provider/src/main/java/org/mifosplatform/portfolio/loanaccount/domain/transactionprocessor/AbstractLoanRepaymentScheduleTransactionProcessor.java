@@ -42,6 +42,14 @@ import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.Recalculation
  */
 public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implements LoanRepaymentScheduleTransactionProcessor {
 
+    static final Comparator<LoanRepaymentScheduleInstallment> BY_DUE_DATE = new Comparator<LoanRepaymentScheduleInstallment>() {
+
+        @Override
+        public int compare(final LoanRepaymentScheduleInstallment ord1, final LoanRepaymentScheduleInstallment ord2) {
+            return ord1.getDueDate().compareTo(ord2.getDueDate());
+        }
+    };
+
     /**
      * Provides support for passing all {@link LoanTransaction}'s so it will
      * completely re-process the entire loan schedule. This is required in cases
@@ -122,8 +130,9 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
                     if (processAmt.isGreaterThan(unprocessed)) {
                         processAmt = unprocessed;
                     }
+                    final int firstUnpaidInstallment = 0;
                     unprocessed = handleTransactionAndCharges(loanTransaction, currency, processInstallments, transferCharges, processAmt,
-                            chargePaidDetail.isFeeCharge());
+                            chargePaidDetail.isFeeCharge(), firstUnpaidInstallment);
                     if (!unprocessed.isGreaterThanZero()) {
                         break;
                     }
@@ -139,22 +148,28 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
             }
         }
 
+        // payments, waivers and write-offs never undo the payment of an
+        // installment, so until the next refund each transaction only needs
+        // to be processed from the first installment not fully paid off
+        boolean installmentsSortedByDueDate = false;
+        int firstUnpaidInstallment = 0;
         for (final LoanTransaction loanTransaction : transactionstoBeProcessed) {
-        	
-        	 if(!loanTransaction.getTypeOf().equals(LoanTransactionType.REFUND_FOR_ACTIVE_LOAN)) {
-                 final Comparator<LoanRepaymentScheduleInstallment> byDate = new Comparator<LoanRepaymentScheduleInstallment>() {
-                     @Override
-					public int compare(LoanRepaymentScheduleInstallment ord1, LoanRepaymentScheduleInstallment ord2) {
-                         return ord1.getDueDate().compareTo(ord2.getDueDate());
-                     }
-                 };
-                 Collections.sort(installments,byDate);
-             }
+
+            if (!loanTransaction.getTypeOf().equals(LoanTransactionType.REFUND_FOR_ACTIVE_LOAN)) {
+                if (!installmentsSortedByDueDate) {
+                    Collections.sort(installments, BY_DUE_DATE);
+                    installmentsSortedByDueDate = true;
+                    firstUnpaidInstallment = 0;
+                }
+                while (firstUnpaidInstallment < installments.size() && !installments.get(firstUnpaidInstallment).isNotFullyPaidOff()) {
+                    firstUnpaidInstallment++;
+                }
+            }
 
             if (loanTransaction.isRepayment() || loanTransaction.isInterestWaiver() || loanTransaction.isRecoveryRepayment()) {
                 // pass through for new transactions
                 if (loanTransaction.getId() == null) {
-                    handleTransaction(loanTransaction, currency, installments, charges);
+                    handleTransaction(loanTransaction, currency, installments, charges, firstUnpaidInstallment);
                     loanTransaction.adjustInterestComponent(currency);
                 } else {
                     /**
@@ -166,7 +181,7 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
 
                     // Reset derived component of new loan transaction and
                     // re-process transaction
-                    handleTransaction(newLoanTransaction, currency, installments, charges);
+                    handleTransaction(newLoanTransaction, currency, installments, charges, firstUnpaidInstallment);
                     newLoanTransaction.adjustInterestComponent(currency);
                     /**
                      * Check if the transaction amounts have changed. If so,
@@ -188,6 +203,8 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
                 loanTransaction.resetDerivedComponents();
       
                handleRefund(loanTransaction, currency, installments,charges);
+               // leaves the installments in reverse order of due date
+               installmentsSortedByDueDate = false;
            }
         }
         return changedTransactionDetail;
@@ -201,18 +218,17 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
     public void handleTransaction(final LoanTransaction loanTransaction, final MonetaryCurrency currency,
             final List<LoanRepaymentScheduleInstallment> installments, final Set<LoanCharge> charges) {
 
-        final Money amountToProcess = null;
-        final boolean isChargeAmount = false;
-        handleTransaction(loanTransaction, currency, installments, charges, amountToProcess, isChargeAmount);
-
+        final int firstUnpaidInstallment = 0;
+        handleTransaction(loanTransaction, currency, installments, charges, firstUnpaidInstallment);
     }
 
     private void handleTransaction(final LoanTransaction loanTransaction, final MonetaryCurrency currency,
-            final List<LoanRepaymentScheduleInstallment> installments, final Set<LoanCharge> charges, final Money chargeAmountToProcess,
-            final boolean isFeeCharge) {
+            final List<LoanRepaymentScheduleInstallment> installments, final Set<LoanCharge> charges, final int firstUnpaidInstallment) {
 
+        final Money chargeAmountToProcess = null;
+        final boolean isFeeCharge = false;
         Money transactionAmountUnprocessed = handleTransactionAndCharges(loanTransaction, currency, installments, charges,
-                chargeAmountToProcess, isFeeCharge);
+                chargeAmountToProcess, isFeeCharge, firstUnpaidInstallment);
 
         if (transactionAmountUnprocessed.isGreaterThanZero()) {
             if (loanTransaction.isWaiver()) {
@@ -227,12 +243,13 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
 
     private Money handleTransactionAndCharges(final LoanTransaction loanTransaction, final MonetaryCurrency currency,
             final List<LoanRepaymentScheduleInstallment> installments, final Set<LoanCharge> charges, final Money chargeAmountToProcess,
-            final boolean isFeeCharge) {
+            final boolean isFeeCharge, final int firstUnpaidInstallment) {
         // to.
         if (loanTransaction.isRepayment() || loanTransaction.isInterestWaiver() || loanTransaction.isRecoveryRepayment()) {
             loanTransaction.resetDerivedComponents();
         }
-        Money transactionAmountUnprocessed = processTransaction(loanTransaction, currency, installments, chargeAmountToProcess);
+        Money transactionAmountUnprocessed = processTransaction(loanTransaction, currency, installments, chargeAmountToProcess,
+                firstUnpaidInstallment);
 
         final Set<LoanCharge> loanFees = extractFeeCharges(charges);
         final Set<LoanCharge> loanPenalties = extractPenaltyCharges(charges);
@@ -264,7 +281,17 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
 
     private Money processTransaction(final LoanTransaction loanTransaction, final MonetaryCurrency currency,
             final List<LoanRepaymentScheduleInstallment> installments, Money amountToProcess) {
-        int installmentIndex = 0;
+        final int firstUnpaidInstallment = 0;
+        return processTransaction(loanTransaction, currency, installments, amountToProcess, firstUnpaidInstallment);
+    }
+
+    /**
+     * @param firstUnpaidInstallment
+     *            index of the installment to start from, all installments
+     *            before it must be fully paid off
+     */
+    private Money processTransaction(final LoanTransaction loanTransaction, final MonetaryCurrency currency,
+            final List<LoanRepaymentScheduleInstallment> installments, Money amountToProcess, final int firstUnpaidInstallment) {
 
         final LocalDate transactionDate = loanTransaction.getTransactionDate();
         Money transactionAmountUnprocessed = loanTransaction.getAmount(currency);
@@ -272,31 +299,28 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
             transactionAmountUnprocessed = amountToProcess;
         }
 
-        for (final LoanRepaymentScheduleInstallment currentInstallment : installments) {
-            if (transactionAmountUnprocessed.isGreaterThanZero()) {
-                if (currentInstallment.isNotFullyPaidOff()) {
-
-                    // is this transaction early/late/on-time with respect to
-                    // the
-                    // current installment?
-                    if (isTransactionInAdvanceOfInstallment(installmentIndex, installments, transactionDate, transactionAmountUnprocessed)) {
-                        transactionAmountUnprocessed = handleTransactionThatIsPaymentInAdvanceOfInstallment(currentInstallment,
-                                installments, loanTransaction, transactionDate, transactionAmountUnprocessed);
-                    } else if (isTransactionALateRepaymentOnInstallment(installmentIndex, installments,
-                            loanTransaction.getTransactionDate())) {
-                        // does this result in a late payment of existing
-                        // installment?
-                        transactionAmountUnprocessed = handleTransactionThatIsALateRepaymentOfInstallment(currentInstallment, installments,
-                                loanTransaction, transactionAmountUnprocessed);
-                    } else {
-                        // standard transaction
-                        transactionAmountUnprocessed = handleTransactionThatIsOnTimePaymentOfInstallment(currentInstallment,
-                                loanTransaction, transactionAmountUnprocessed);
-                    }
+        for (int installmentIndex = firstUnpaidInstallment; installmentIndex < installments.size()
+                && transactionAmountUnprocessed.isGreaterThanZero(); installmentIndex++) {
+            final LoanRepaymentScheduleInstallment currentInstallment = installments.get(installmentIndex);
+            if (currentInstallment.isNotFullyPaidOff()) {
+
+                // is this transaction early/late/on-time with respect to
+                // the
+                // current installment?
+                if (isTransactionInAdvanceOfInstallment(installmentIndex, installments, transactionDate, transactionAmountUnprocessed)) {
+                    transactionAmountUnprocessed = handleTransactionThatIsPaymentInAdvanceOfInstallment(currentInstallment, installments,
+                            loanTransaction, transactionDate, transactionAmountUnprocessed);
+                } else if (isTransactionALateRepaymentOnInstallment(installmentIndex, installments, loanTransaction.getTransactionDate())) {
+                    // does this result in a late payment of existing
+                    // installment?
+                    transactionAmountUnprocessed = handleTransactionThatIsALateRepaymentOfInstallment(currentInstallment, installments,
+                            loanTransaction, transactionAmountUnprocessed);
+                } else {
+                    // standard transaction
+                    transactionAmountUnprocessed = handleTransactionThatIsOnTimePaymentOfInstallment(currentInstallment,
+                            loanTransaction, transactionAmountUnprocessed);
                 }
             }
-
-            installmentIndex++;
         }
         return transactionAmountUnprocessed;
     }
@@ -46,6 +46,7 @@ import org.mifosplatform.portfolio.loanproduct.exception.LoanProductNotFoundExce
 import org.mifosplatform.portfolio.loanproduct.serialization.LoanProductDataValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleCalculationPlatformService {
@@ -128,6 +129,7 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
     }
 
     @Override
+    @Transactional(readOnly = true)
     public void updateFutureSchedule(LoanScheduleData loanScheduleData, final Long loanId) {
 
         final Loan loan = this.loanAssembler.assembleFrom(loanId);
@@ -5,6 +5,7 @@
  */
 package org.mifosplatform.portfolio.loanaccount.rescheduleloan.handler;
 
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -13,6 +14,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+@CommandType(entity = "RESCHEDULELOAN", action = "APPROVE")
 @Service
 public class ApproveLoanRescheduleRequestCommandHandler implements NewCommandSourceHandler {
 	private final LoanRescheduleRequestWritePlatformService loanRescheduleRequestWritePlatformService;
@@ -8,15 +8,16 @@ package org.mifosplatform.portfolio.loanaccount.service;
 import java.util.Collection;
 
 import org.joda.time.LocalDate;
+import org.mifosplatform.infrastructure.jobs.data.PartitionedJobResult;
 import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
 import org.mifosplatform.portfolio.loanaccount.data.LoanScheduleAccrualData;
 
 
 public interface LoanAccrualWritePlatformService {
 
-    void addAccrualAccounting() throws JobExecutionException;
+    PartitionedJobResult addAccrualAccounting() throws JobExecutionException;
 
-    void addPeriodicAccruals() throws JobExecutionException;
+    PartitionedJobResult addPeriodicAccruals() throws JobExecutionException;
 
     String addPeriodicAccruals(LocalDate tilldate);
 
@@ -10,12 +10,10 @@ import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import javax.sql.DataSource;
 
@@ -25,8 +23,11 @@ import org.mifosplatform.accounting.journalentry.service.JournalEntryWritePlatfo
 import org.mifosplatform.infrastructure.core.service.DateUtils;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
+import org.mifosplatform.infrastructure.jobs.data.PartitionedJobResult;
 import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.PartitionedJobChunkProcessor;
+import org.mifosplatform.infrastructure.jobs.service.PartitionedJobRunner;
 import org.mifosplatform.portfolio.loanaccount.data.LoanChargeData;
 import org.mifosplatform.portfolio.loanaccount.data.LoanInstallmentChargeData;
 import org.mifosplatform.portfolio.loanaccount.data.LoanScheduleAccrualData;
@@ -35,83 +36,87 @@ import org.mifosplatform.portfolio.loanaccount.data.LoanTransactionEnumData;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionType;
 import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanSchedulePeriodData;
 import org.mifosplatform.portfolio.loanproduct.service.LoanEnumerations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.TransactionStatus;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 @Service
 public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlatformService {
 
+    private final static Logger logger = LoggerFactory.getLogger(LoanAccrualWritePlatformServiceImpl.class);
+
+    /**
+     * Number of loans accrued in one transaction, and whose charges and
+     * interest waivers are fetched together.
+     */
+    private static final int ACCRUAL_CHUNK_SIZE = 100;
+
     private final LoanReadPlatformService loanReadPlatformService;
     private final LoanChargeReadPlatformService loanChargeReadPlatformService;
     private final JdbcTemplate jdbcTemplate;
     private final DataSource dataSource;
     private final JournalEntryWritePlatformService journalEntryWritePlatformService;
     private final JpaTransactionManager transactionManager;
+    private final PartitionedJobRunner partitionedJobRunner;
 
     @Autowired
     public LoanAccrualWritePlatformServiceImpl(final RoutingDataSource dataSource, final LoanReadPlatformService loanReadPlatformService,
             final JournalEntryWritePlatformService journalEntryWritePlatformService, final JpaTransactionManager transactionManager,
-            final LoanChargeReadPlatformService loanChargeReadPlatformService) {
+            final LoanChargeReadPlatformService loanChargeReadPlatformService, final PartitionedJobRunner partitionedJobRunner) {
         this.loanReadPlatformService = loanReadPlatformService;
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(this.dataSource);
         this.journalEntryWritePlatformService = journalEntryWritePlatformService;
         this.transactionManager = transactionManager;
         this.loanChargeReadPlatformService = loanChargeReadPlatformService;
+        this.partitionedJobRunner = partitionedJobRunner;
     }
 
     @Override
     @CronTarget(jobName = JobName.ADD_ACCRUAL_ENTRIES)
-    public void addAccrualAccounting() throws JobExecutionException {
-        Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas = this.loanReadPlatformService.retriveScheduleAccrualData();
-        StringBuilder sb = new StringBuilder();
-        Set<Long> loansIds = new HashSet<>();
-        Map<Long, Collection<LoanChargeData>> loanChargeMap = new HashMap<>();
-        Map<Long, Collection<LoanTransactionData>> loanWaiverTansactions = new HashMap<>();
-        Map<Long, Collection<LoanSchedulePeriodData>> loanWaiverSchedules = new HashMap<>();
-        for (final LoanScheduleAccrualData accrualData : loanScheduleAccrualDatas) {
-            try {
-                if (!loansIds.contains(accrualData.getLoanId())) {
-                    if (!loanChargeMap.containsKey(accrualData.getLoanId())) {
-                        Collection<LoanChargeData> chargeData = this.loanChargeReadPlatformService
-                                .retrieveLoanChargesForAccural(accrualData.getLoanId());
-                        loanChargeMap.put(accrualData.getLoanId(), chargeData);
+    public PartitionedJobResult addAccrualAccounting() throws JobExecutionException {
+        final Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas = this.loanReadPlatformService.retriveScheduleAccrualData();
+        final PartitionedJobResult result = this.partitionedJobRunner.run(JobName.ADD_ACCRUAL_ENTRIES,
+                groupByLoan(loanScheduleAccrualDatas), ACCRUAL_CHUNK_SIZE, new LoanAccrualItemProcessor() {
+
+                    @Override
+                    public void process(final LoanAccruals loanAccruals) {
+                        addAccruals(loanAccruals);
                     }
-                    if (accrualData.getWaivedInterestIncome() != null && !loanWaiverTansactions.containsKey(accrualData.getLoanId())) {
-                        loanWaiverSchedules.put(accrualData.getLoanId(),
-                                this.loanReadPlatformService.fetchWaiverInterestRepaymentData(accrualData.getLoanId()));
-                        loanWaiverTansactions.put(accrualData.getLoanId(),
-                                this.loanReadPlatformService.retrieveWaiverLoanTransactions(accrualData.getLoanId()));
-                    }
-                    updateCharges(loanChargeMap.get(accrualData.getLoanId()), accrualData, accrualData.getFromDateAsLocaldate(),
-                            accrualData.getDueDateAsLocaldate());
-                    updateInterestIncome(accrualData, loanWaiverTansactions, loanWaiverSchedules, accrualData.getDueDateAsLocaldate());
-                    addAccrualAccounting(accrualData);
-                }
-            } catch (Exception e) {
-                loansIds.add(accrualData.getLoanId());
-                Throwable realCause = e;
-                if (e.getCause() != null) {
-                    realCause = e.getCause();
-                }
-                sb.append("failed to add accural transaction for repayment with id " + accrualData.getRepaymentScheduleId()
-                        + " with message " + realCause.getMessage());
-            }
-        }
+                });
 
-        if (sb.length() > 0) { throw new JobExecutionException(sb.toString()); }
+        for (final String error : result.getErrors()) {
+            logger.error(error);
+        }
+        if (result.hasErrors()) { throw new JobExecutionException(result.errorMessage()); }
+        return result;
     }
 
     @Override
     @CronTarget(jobName = JobName.ADD_PERIODIC_ACCRUAL_ENTRIES)
-    public void addPeriodicAccruals() throws JobExecutionException {
-        String errors = addPeriodicAccruals(LocalDate.now());
-        if (errors.length() > 0) { throw new JobExecutionException(errors); }
+    public PartitionedJobResult addPeriodicAccruals() throws JobExecutionException {
+        final LocalDate tilldate = LocalDate.now();
+        final Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas = this.loanReadPlatformService
+                .retrivePeriodicAccrualData(tilldate);
+        final PartitionedJobResult result = this.partitionedJobRunner.run(JobName.ADD_PERIODIC_ACCRUAL_ENTRIES,
+                groupByLoan(loanScheduleAccrualDatas), ACCRUAL_CHUNK_SIZE, new LoanAccrualItemProcessor() {
+
+                    @Override
+                    public void process(final LoanAccruals loanAccruals) {
+                        addPeriodicAccruals(tilldate, loanAccruals);
+                    }
+                });
+
+        for (final String error : result.getErrors()) {
+            logger.error(error);
+        }
+        if (result.hasErrors()) { throw new JobExecutionException(result.errorMessage()); }
+        return result;
     }
 
     @Override
@@ -120,63 +125,138 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
         return addPeriodicAccruals(tilldate, loanScheduleAccrualDatas);
     }
 
+    /**
+     * Accrues loan by loan on the calling thread, as part of the transaction
+     * the caller may already be in. Charges and interest waivers are still
+     * fetched for {@link #ACCRUAL_CHUNK_SIZE} loans at a time.
+     */
     @Override
     public String addPeriodicAccruals(final LocalDate tilldate, Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas) {
         StringBuilder sb = new StringBuilder();
-        Set<Long> loansIds = new HashSet<>();
-        LocalDate accruredTill = null;
-        Long lastLoanId = null;
-        Map<Long, Collection<LoanChargeData>> loanChargeMap = new HashMap<>();
-        Map<Long, Collection<LoanTransactionData>> loanWaiverTansactions = new HashMap<>();
-        Map<Long, Collection<LoanSchedulePeriodData>> loanWaiverSchedules = new HashMap<>();
-        for (final LoanScheduleAccrualData accrualData : loanScheduleAccrualDatas) {
-            try {
-                if (!loansIds.contains(accrualData.getLoanId())) {
-                    if (accrualData.getWaivedInterestIncome() != null && !loanWaiverTansactions.containsKey(accrualData.getLoanId())) {
-                        loanWaiverSchedules.put(accrualData.getLoanId(),
-                                this.loanReadPlatformService.fetchWaiverInterestRepaymentData(accrualData.getLoanId()));
-                        loanWaiverTansactions.put(accrualData.getLoanId(),
-                                this.loanReadPlatformService.retrieveWaiverLoanTransactions(accrualData.getLoanId()));
-                    }
-
-                    if (!loanChargeMap.containsKey(accrualData.getLoanId())) {
-                        Collection<LoanChargeData> chargeData = this.loanChargeReadPlatformService
-                                .retrieveLoanChargesForAccural(accrualData.getLoanId());
-                        loanChargeMap.put(accrualData.getLoanId(), chargeData);
+        final List<LoanAccruals> loans = groupByLoan(loanScheduleAccrualDatas);
+        for (int fromIndex = 0; fromIndex < loans.size(); fromIndex += ACCRUAL_CHUNK_SIZE) {
+            final List<LoanAccruals> chunk = loans.subList(fromIndex, Math.min(fromIndex + ACCRUAL_CHUNK_SIZE, loans.size()));
+            fetchChargesAndWaivers(chunk);
+            for (final LoanAccruals loanAccruals : chunk) {
+                final TransactionStatus transactionStatus = this.transactionManager.getTransaction(new DefaultTransactionDefinition());
+                try {
+                    addPeriodicAccruals(tilldate, loanAccruals);
+                    this.transactionManager.commit(transactionStatus);
+                } catch (RuntimeException e) {
+                    if (!transactionStatus.isCompleted()) {
+                        this.transactionManager.rollback(transactionStatus);
                     }
-                    if (accrualData.getDueDateAsLocaldate().isAfter(tilldate)) {
-                        if (accruredTill == null || lastLoanId == null || !lastLoanId.equals(accrualData.getLoanId())) {
-                            accruredTill = accrualData.getAccruedTill();
-                        }
-                        if (accruredTill == null || accruredTill.isBefore(tilldate)) {
-                            updateCharges(loanChargeMap.get(accrualData.getLoanId()), accrualData, accrualData.getFromDateAsLocaldate(),
-                                    tilldate);
-                            updateInterestIncome(accrualData, loanWaiverTansactions, loanWaiverSchedules, tilldate);
-                            addAccrualTillSpecificDate(tilldate, accrualData);
-                        }
-                    } else {
-                        updateCharges(loanChargeMap.get(accrualData.getLoanId()), accrualData, accrualData.getFromDateAsLocaldate(),
-                                accrualData.getDueDateAsLocaldate());
-                        updateInterestIncome(accrualData, loanWaiverTansactions, loanWaiverSchedules, tilldate);
-                        addAccrualAccounting(accrualData);
-                        accruredTill = accrualData.getDueDateAsLocaldate();
+                    Throwable realCause = e;
+                    if (e.getCause() != null) {
+                        realCause = e.getCause();
                     }
+                    sb.append("failed to add accural transaction for loan with id " + loanAccruals.getLoanId() + " with message "
+                            + realCause.getMessage());
                 }
-            } catch (Exception e) {
-                loansIds.add(accrualData.getLoanId());
-                Throwable realCause = e;
-                if (e.getCause() != null) {
-                    realCause = e.getCause();
-                }
-                sb.append("failed to add accural transaction for repayment with id " + accrualData.getRepaymentScheduleId()
-                        + " with message " + realCause.getMessage());
             }
-            lastLoanId = accrualData.getLoanId();
         }
         return sb.toString();
     }
 
-    private void addAccrualTillSpecificDate(final LocalDate tilldate, final LoanScheduleAccrualData accrualData) throws Exception {
+    private void addAccruals(final LoanAccruals loanAccruals) {
+        final LoanAccrualBatch batch = new LoanAccrualBatch();
+        for (final LoanScheduleAccrualData accrualData : loanAccruals.getInstallments()) {
+            updateCharges(loanAccruals.getCharges(), accrualData, accrualData.getFromDateAsLocaldate(),
+                    accrualData.getDueDateAsLocaldate());
+            updateInterestIncome(accrualData, loanAccruals, accrualData.getDueDateAsLocaldate());
+            addAccrualAccounting(accrualData, batch);
+        }
+        writeAccruals(batch);
+    }
+
+    private void addPeriodicAccruals(final LocalDate tilldate, final LoanAccruals loanAccruals) {
+        final LoanAccrualBatch batch = new LoanAccrualBatch();
+        LocalDate accruredTill = null;
+        for (final LoanScheduleAccrualData accrualData : loanAccruals.getInstallments()) {
+            if (accrualData.getDueDateAsLocaldate().isAfter(tilldate)) {
+                if (accruredTill == null) {
+                    accruredTill = accrualData.getAccruedTill();
+                }
+                if (accruredTill == null || accruredTill.isBefore(tilldate)) {
+                    updateCharges(loanAccruals.getCharges(), accrualData, accrualData.getFromDateAsLocaldate(), tilldate);
+                    updateInterestIncome(accrualData, loanAccruals, tilldate);
+                    addAccrualTillSpecificDate(tilldate, accrualData, batch);
+                }
+            } else {
+                updateCharges(loanAccruals.getCharges(), accrualData, accrualData.getFromDateAsLocaldate(),
+                        accrualData.getDueDateAsLocaldate());
+                updateInterestIncome(accrualData, loanAccruals, tilldate);
+                addAccrualAccounting(accrualData, batch);
+                accruredTill = accrualData.getDueDateAsLocaldate();
+            }
+        }
+        writeAccruals(batch);
+    }
+
+    private static List<LoanAccruals> groupByLoan(final Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas) {
+        final Map<Long, LoanAccruals> accrualsByLoan = new LinkedHashMap<>();
+        for (final LoanScheduleAccrualData accrualData : loanScheduleAccrualDatas) {
+            LoanAccruals loanAccruals = accrualsByLoan.get(accrualData.getLoanId());
+            if (loanAccruals == null) {
+                loanAccruals = new LoanAccruals(accrualData.getLoanId());
+                accrualsByLoan.put(accrualData.getLoanId(), loanAccruals);
+            }
+            loanAccruals.getInstallments().add(accrualData);
+        }
+        return new ArrayList<>(accrualsByLoan.values());
+    }
+
+    /**
+     * Fetches the charges of all the given loans, and the interest waivers of
+     * those with waived interest, with one query each rather than per loan.
+     */
+    private void fetchChargesAndWaivers(final List<LoanAccruals> loans) {
+        final List<Long> loanIds = new ArrayList<>(loans.size());
+        final List<Long> loanIdsWithWaivedInterest = new ArrayList<>();
+        for (final LoanAccruals loanAccruals : loans) {
+            loanIds.add(loanAccruals.getLoanId());
+            if (loanAccruals.hasWaivedInterest()) {
+                loanIdsWithWaivedInterest.add(loanAccruals.getLoanId());
+            }
+        }
+
+        final Map<Long, Collection<LoanChargeData>> charges = this.loanChargeReadPlatformService.retrieveLoanChargesForAccural(loanIds);
+        final Map<Long, Collection<LoanTransactionData>> interestWaivers = this.loanReadPlatformService
+                .retrieveWaiverLoanTransactions(loanIdsWithWaivedInterest);
+        final Map<Long, Collection<LoanSchedulePeriodData>> interestWaivedPeriods = this.loanReadPlatformService
+                .fetchWaiverInterestRepaymentData(loanIdsWithWaivedInterest);
+        for (final LoanAccruals loanAccruals : loans) {
+            loanAccruals.fetched(charges.get(loanAccruals.getLoanId()), interestWaivers.get(loanAccruals.getLoanId()),
+                    interestWaivedPeriods.get(loanAccruals.getLoanId()));
+        }
+    }
+
+    /**
+     * Inserts the charges paid by the accrual transactions of a loan and
+     * updates its installments with JDBC batches, then posts the journal
+     * entries of all of its accrual transactions at once.
+     */
+    private void writeAccruals(final LoanAccrualBatch batch) {
+        if (batch.isEmpty()) { return; }
+
+        if (!batch.getChargesPaidBy().isEmpty()) {
+            final String chargespaidSql = "INSERT INTO m_loan_charge_paid_by (loan_transaction_id, loan_charge_id, amount,installment_number) VALUES (?,?,?,?)";
+            this.jdbcTemplate.batchUpdate(chargespaidSql, batch.getChargesPaidBy());
+        }
+
+        final String repaymetUpdatesql = "UPDATE m_loan_repayment_schedule SET accrual_interest_derived=?, accrual_fee_charges_derived=?, "
+                + "accrual_penalty_charges_derived=? WHERE  id=?";
+        this.jdbcTemplate.batchUpdate(repaymetUpdatesql, batch.getInstallmentAccruals());
+
+        final String updateLoan = "UPDATE m_loan  SET accrued_till=?  WHERE  id=?";
+        this.jdbcTemplate.update(updateLoan, batch.getAccruedTill().toDate(), batch.getLastAccrual().getLoanId());
+
+        final Map<String, Object> accountingBridgeData = deriveAccountingBridgeData(batch.getLastAccrual(), batch.getAccrualTransactions());
+        this.journalEntryWritePlatformService.createJournalEntriesForLoan(accountingBridgeData);
+    }
+
+    private void addAccrualTillSpecificDate(final LocalDate tilldate, final LoanScheduleAccrualData accrualData,
+            final LoanAccrualBatch batch) {
         LocalDate interestStartDate = accrualData.getFromDateAsLocaldate();
         if (accrualData.getInterestCalculatedFrom() != null
                 && accrualData.getFromDateAsLocaldate().isBefore(accrualData.getInterestCalculatedFrom())) {
@@ -250,12 +330,11 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
         }
         if (amount.compareTo(BigDecimal.ZERO) == 1) {
             addAccrualAccounting(accrualData, amount, interestportion, totalAccInterest, feeportion, totalAccFee, penaltyportion,
-                    totalAccPenalty, tilldate);
+                    totalAccPenalty, tilldate, batch);
         }
     }
 
-    @Transactional
-    public void addAccrualAccounting(LoanScheduleAccrualData scheduleAccrualData) throws Exception {
+    private void addAccrualAccounting(final LoanScheduleAccrualData scheduleAccrualData, final LoanAccrualBatch batch) {
 
         BigDecimal amount = BigDecimal.ZERO;
         BigDecimal interestportion = null;
@@ -301,52 +380,42 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
         }
         if (amount.compareTo(BigDecimal.ZERO) == 1) {
             addAccrualAccounting(scheduleAccrualData, amount, interestportion, totalAccInterest, feeportion, totalAccFee, penaltyportion,
-                    totalAccPenalty, scheduleAccrualData.getDueDateAsLocaldate());
+                    totalAccPenalty, scheduleAccrualData.getDueDateAsLocaldate(), batch);
         }
     }
 
+    /**
+     * Inserts the accrual transaction, whose id the rest of the accrual
+     * refers to, and adds everything else it writes to the batch of its loan.
+     */
     private void addAccrualAccounting(LoanScheduleAccrualData scheduleAccrualData, BigDecimal amount, BigDecimal interestportion,
             BigDecimal totalAccInterest, BigDecimal feeportion, BigDecimal totalAccFee, BigDecimal penaltyportion,
-            BigDecimal totalAccPenalty, final LocalDate accruedTill) throws Exception {
-        TransactionStatus transactionStatus = this.transactionManager.getTransaction(new DefaultTransactionDefinition());
-        try {
-            String transactionSql = "INSERT INTO m_loan_transaction  (loan_id,office_id,is_reversed,transaction_type_enum,transaction_date,amount,interest_portion_derived,"
-                    + "fee_charges_portion_derived,penalty_charges_portion_derived, submitted_on_date) VALUES (?, ?, 0, ?, ?, ?, ?, ?, ?, ?)";
-            this.jdbcTemplate.update(transactionSql, scheduleAccrualData.getLoanId(), scheduleAccrualData.getOfficeId(),
-                    LoanTransactionType.ACCRUAL.getValue(), accruedTill.toDate(), amount, interestportion, feeportion, penaltyportion,
-                    DateUtils.getDateOfTenant());
-            @SuppressWarnings("deprecation")
-            final Long transactonId = this.jdbcTemplate.queryForLong("SELECT LAST_INSERT_ID()");
-
-            Map<LoanChargeData, BigDecimal> applicableCharges = scheduleAccrualData.getApplicableCharges();
-            String chargespaidSql = "INSERT INTO m_loan_charge_paid_by (loan_transaction_id, loan_charge_id, amount,installment_number) VALUES (?,?,?,?)";
-            for (Map.Entry<LoanChargeData, BigDecimal> entry : applicableCharges.entrySet()) {
-                LoanChargeData chargeData = entry.getKey();
-                this.jdbcTemplate.update(chargespaidSql, transactonId, chargeData.getId(), entry.getValue(),
-                        scheduleAccrualData.getInstallmentNumber());
-            }
-
-            Map<String, Object> transactionMap = toMapData(transactonId, amount, interestportion, feeportion, penaltyportion,
-                    scheduleAccrualData, accruedTill);
+            BigDecimal totalAccPenalty, final LocalDate accruedTill, final LoanAccrualBatch batch) {
+        String transactionSql = "INSERT INTO m_loan_transaction  (loan_id,office_id,is_reversed,transaction_type_enum,transaction_date,amount,interest_portion_derived,"
+                + "fee_charges_portion_derived,penalty_charges_portion_derived, submitted_on_date) VALUES (?, ?, 0, ?, ?, ?, ?, ?, ?, ?)";
+        this.jdbcTemplate.update(transactionSql, scheduleAccrualData.getLoanId(), scheduleAccrualData.getOfficeId(),
+                LoanTransactionType.ACCRUAL.getValue(), accruedTill.toDate(), amount, interestportion, feeportion, penaltyportion,
+                DateUtils.getDateOfTenant());
+        @SuppressWarnings("deprecation")
+        final Long transactonId = this.jdbcTemplate.queryForLong("SELECT LAST_INSERT_ID()");
+
+        Map<LoanChargeData, BigDecimal> applicableCharges = scheduleAccrualData.getApplicableCharges();
+        for (Map.Entry<LoanChargeData, BigDecimal> entry : applicableCharges.entrySet()) {
+            LoanChargeData chargeData = entry.getKey();
+            batch.getChargesPaidBy().add(
+                    new Object[] { transactonId, chargeData.getId(), entry.getValue(), scheduleAccrualData.getInstallmentNumber() });
+        }
 
-            String repaymetUpdatesql = "UPDATE m_loan_repayment_schedule SET accrual_interest_derived=?, accrual_fee_charges_derived=?, "
-                    + "accrual_penalty_charges_derived=? WHERE  id=?";
-            this.jdbcTemplate.update(repaymetUpdatesql, totalAccInterest, totalAccFee, totalAccPenalty,
-                    scheduleAccrualData.getRepaymentScheduleId());
+        batch.getInstallmentAccruals().add(
+                new Object[] { totalAccInterest, totalAccFee, totalAccPenalty, scheduleAccrualData.getRepaymentScheduleId() });
 
-            String updateLoan = "UPDATE m_loan  SET accrued_till=?  WHERE  id=?";
-            this.jdbcTemplate.update(updateLoan, accruedTill.toDate(), scheduleAccrualData.getLoanId());
-            final Map<String, Object> accountingBridgeData = deriveAccountingBridgeData(scheduleAccrualData, transactionMap);
-            this.journalEntryWritePlatformService.createJournalEntriesForLoan(accountingBridgeData);
-        } catch (Exception e) {
-            this.transactionManager.rollback(transactionStatus);
-            throw e;
-        }
-        this.transactionManager.commit(transactionStatus);
+        Map<String, Object> transactionMap = toMapData(transactonId, amount, interestportion, feeportion, penaltyportion,
+                scheduleAccrualData, accruedTill);
+        batch.accrued(scheduleAccrualData, transactionMap, accruedTill);
     }
 
     public Map<String, Object> deriveAccountingBridgeData(final LoanScheduleAccrualData loanScheduleAccrualData,
-            final Map<String, Object> transactionMap) {
+            final List<Map<String, Object>> transactionMaps) {
 
         final Map<String, Object> accountingBridgeData = new LinkedHashMap<>();
         accountingBridgeData.put("loanId", loanScheduleAccrualData.getLoanId());
@@ -358,8 +427,7 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
         accountingBridgeData.put("periodicAccrualBasedAccountingEnabled", true);
         accountingBridgeData.put("isAccountTransfer", false);
 
-        final List<Map<String, Object>> newLoanTransactions = new ArrayList<>();
-        newLoanTransactions.add(transactionMap);
+        final List<Map<String, Object>> newLoanTransactions = new ArrayList<>(transactionMaps);
 
         accountingBridgeData.put("newLoanTransactions", newLoanTransactions);
         return accountingBridgeData;
@@ -475,9 +543,8 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
         accrualData.updateChargeDetails(applicableCharges, dueDateFeeIncome, dueDatePenaltyIncome);
     }
 
-    private void updateInterestIncome(final LoanScheduleAccrualData accrualData,
-            final Map<Long, Collection<LoanTransactionData>> loanWaiverTansactions,
-            final Map<Long, Collection<LoanSchedulePeriodData>> loanWaiverSchedules, final LocalDate tilldate) {
+    private void updateInterestIncome(final LoanScheduleAccrualData accrualData, final LoanAccruals loanAccruals,
+            final LocalDate tilldate) {
 
         BigDecimal interestIncome = accrualData.getInterestIncome();
         if (accrualData.getWaivedInterestIncome() != null) {
@@ -485,9 +552,9 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
             BigDecimal unrecognized = BigDecimal.ZERO;
             BigDecimal remainingAmt = BigDecimal.ZERO;
             Collection<LoanTransactionData> loanTransactionDatas = new ArrayList<>();
-            Collection<LoanSchedulePeriodData> loanSchedulePeriodDatas = loanWaiverSchedules.get(accrualData.getLoanId());
+            Collection<LoanSchedulePeriodData> loanSchedulePeriodDatas = loanAccruals.getInterestWaivedPeriods();
 
-            for (LoanTransactionData loanTransactionData : loanWaiverTansactions.get(accrualData.getLoanId())) {
+            for (LoanTransactionData loanTransactionData : loanAccruals.getInterestWaivers()) {
                 if (!loanTransactionData.dateOf().isAfter(accrualData.getFromDateAsLocaldate())
                         || (loanTransactionData.dateOf().isAfter(accrualData.getFromDateAsLocaldate())
                                 && !loanTransactionData.dateOf().isAfter(accrualData.getDueDateAsLocaldate()) && !loanTransactionData
@@ -531,4 +598,121 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
 
         accrualData.updateAccruableIncome(interestIncome);
     }
+
+    /**
+     * The installments of one loan to be accrued, in order of due date, and
+     * what is needed to accrue them.
+     */
+    private static final class LoanAccruals {
+
+        private final Long loanId;
+        private final List<LoanScheduleAccrualData> installments = new ArrayList<>();
+        private Collection<LoanChargeData> charges;
+        private Collection<LoanTransactionData> interestWaivers;
+        private Collection<LoanSchedulePeriodData> interestWaivedPeriods;
+
+        public LoanAccruals(final Long loanId) {
+            this.loanId = loanId;
+        }
+
+        public Long getLoanId() {
+            return this.loanId;
+        }
+
+        public List<LoanScheduleAccrualData> getInstallments() {
+            return this.installments;
+        }
+
+        public boolean hasWaivedInterest() {
+            for (final LoanScheduleAccrualData accrualData : this.installments) {
+                if (accrualData.getWaivedInterestIncome() != null) { return true; }
+            }
+            return false;
+        }
+
+        public void fetched(final Collection<LoanChargeData> charges, final Collection<LoanTransactionData> interestWaivers,
+                final Collection<LoanSchedulePeriodData> interestWaivedPeriods) {
+            this.charges = charges == null ? new ArrayList<LoanChargeData>() : charges;
+            this.interestWaivers = interestWaivers == null ? new ArrayList<LoanTransactionData>() : interestWaivers;
+            this.interestWaivedPeriods = interestWaivedPeriods == null ? new ArrayList<LoanSchedulePeriodData>() : interestWaivedPeriods;
+        }
+
+        public Collection<LoanChargeData> getCharges() {
+            return this.charges;
+        }
+
+        public Collection<LoanTransactionData> getInterestWaivers() {
+            return this.interestWaivers;
+        }
+
+        public Collection<LoanSchedulePeriodData> getInterestWaivedPeriods() {
+            return this.interestWaivedPeriods;
+        }
+    }
+
+    /**
+     * What the accrual transactions of one loan write besides the transactions
+     * themselves, collected until all of its installments are accrued.
+     */
+    private static final class LoanAccrualBatch {
+
+        private final List<Object[]> chargesPaidBy = new ArrayList<>();
+        private final List<Object[]> installmentAccruals = new ArrayList<>();
+        private final List<Map<String, Object>> accrualTransactions = new ArrayList<>();
+        private LoanScheduleAccrualData lastAccrual;
+        private LocalDate accruedTill;
+
+        public void accrued(final LoanScheduleAccrualData accrualData, final Map<String, Object> accrualTransaction,
+                final LocalDate accruedTill) {
+            this.accrualTransactions.add(accrualTransaction);
+            this.lastAccrual = accrualData;
+            this.accruedTill = accruedTill;
+        }
+
+        public boolean isEmpty() {
+            return this.accrualTransactions.isEmpty();
+        }
+
+        public List<Object[]> getChargesPaidBy() {
+            return this.chargesPaidBy;
+        }
+
+        public List<Object[]> getInstallmentAccruals() {
+            return this.installmentAccruals;
+        }
+
+        public List<Map<String, Object>> getAccrualTransactions() {
+            return this.accrualTransactions;
+        }
+
+        public LoanScheduleAccrualData getLastAccrual() {
+            return this.lastAccrual;
+        }
+
+        public LocalDate getAccruedTill() {
+            return this.accruedTill;
+        }
+    }
+
+    /**
+     * Accrues a loan at a time, fetching the charges and interest waivers of a
+     * whole chunk of loans before it is processed.
+     */
+    private abstract class LoanAccrualItemProcessor implements PartitionedJobChunkProcessor<LoanAccruals> {
+
+        @Override
+        public void prepareChunk(final List<LoanAccruals> chunk) {
+            fetchChargesAndWaivers(chunk);
+        }
+
+        @Override
+        public Long partitionKey(final LoanAccruals loanAccruals) {
+            return loanAccruals.getLoanId();
+        }
+
+        @Override
+        public String describeFailure(final LoanAccruals loanAccruals) {
+            return "failed to add accural transaction for loan with id " + loanAccruals.getLoanId();
+        }
+    }
 }
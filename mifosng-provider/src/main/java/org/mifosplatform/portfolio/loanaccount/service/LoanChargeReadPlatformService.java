@@ -6,6 +6,7 @@
 package org.mifosplatform.portfolio.loanaccount.service;
 
 import java.util.Collection;
+import java.util.Map;
 
 import org.mifosplatform.portfolio.charge.data.ChargeData;
 import org.mifosplatform.portfolio.loanaccount.data.LoanChargeData;
@@ -29,5 +30,11 @@ public interface LoanChargeReadPlatformService {
     
     Collection<LoanChargeData> retrieveLoanChargesForAccural(Long loanId);
 
+    /**
+     * Accrual charges of several loans fetched together, keyed by loan id.
+     * Loans without active charges have no entry.
+     */
+    Map<Long, Collection<LoanChargeData>> retrieveLoanChargesForAccural(Collection<Long> loanIds);
+
     Collection<LoanChargePaidByData> retriveLoanChargesPaidBy(Long chargeId, LoanTransactionType transactionType, Integer installmentNumber);
 }
@@ -9,6 +9,7 @@ import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -30,13 +31,16 @@ import org.mifosplatform.portfolio.loanaccount.data.LoanInstallmentChargeData;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 
 @Service
 public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatformService {
 
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final PlatformSecurityContext context;
     private final ChargeDropdownReadPlatformService chargeDropdownReadPlatformService;
     private final DropdownReadPlatformService dropdownReadPlatformService;
@@ -48,6 +52,7 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
         this.context = context;
         this.chargeDropdownReadPlatformService = chargeDropdownReadPlatformService;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
         this.dropdownReadPlatformService = dropdownReadPlatformService;
     }
 
@@ -246,33 +251,71 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
 
     @Override
     public Collection<LoanChargeData> retrieveLoanChargesForAccural(final Long loanId) {
+        final Collection<LoanChargeData> charges = retrieveLoanChargesForAccural(Arrays.asList(loanId)).get(loanId);
+        if (charges == null) { return new ArrayList<>(); }
+        return charges;
+    }
+
+    @Override
+    public Map<Long, Collection<LoanChargeData>> retrieveLoanChargesForAccural(final Collection<Long> loanIds) {
+
+        final Map<Long, Collection<LoanChargeData>> chargesByLoan = new HashMap<>();
+        if (loanIds.isEmpty()) { return chargesByLoan; }
 
         final LoanChargeAccrualMapper rm = new LoanChargeAccrualMapper();
 
-        final String sql = "select " + rm.schema() + " where lc.loan_id=? AND lc.is_active = 1 group by  lc.id "
+        final String sql = "select " + rm.schema() + " where lc.loan_id in (:loanIds) AND lc.is_active = 1 group by  lc.id "
                 + " order by lc.charge_time_enum ASC, lc.due_for_collection_as_of_date ASC, lc.is_penalty ASC";
 
-        Collection<LoanChargeData> charges = this.jdbcTemplate.query(sql, rm,
-                new Object[] { LoanTransactionType.ACCRUAL.getValue(), loanId });
-        charges = updateLoanChargesWithUnrecognizedIncome(loanId, charges);
+        final Map<String, Object> paramMap = new HashMap<>(2);
+        paramMap.put("transactionType", LoanTransactionType.ACCRUAL.getValue());
+        paramMap.put("loanIds", loanIds);
 
-        Collection<LoanChargeData> removeCharges = new ArrayList<>();
-        for (LoanChargeData loanChargeData : charges) {
-            if (loanChargeData.isInstallmentFee()) {
-                removeCharges.add(loanChargeData);
+        final Map<Long, Long> loanIdsByCharge = new HashMap<>();
+        final List<LoanChargeData> charges = new ArrayList<>();
+        this.namedParameterJdbcTemplate.query(sql, paramMap, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final LoanChargeData chargeData = rm.mapRow(rs, charges.size());
+                loanIdsByCharge.put(chargeData.getId(), rs.getLong("loanId"));
+                charges.add(chargeData);
+            }
+        });
+        if (charges.isEmpty()) { return chargesByLoan; }
+
+        for (final LoanChargeData loanChargeData : updateLoanChargesWithUnrecognizedIncome(loanIds, charges)) {
+            final Long loanId = loanIdsByCharge.get(loanChargeData.getId());
+            Collection<LoanChargeData> loanCharges = chargesByLoan.get(loanId);
+            if (loanCharges == null) {
+                loanCharges = new ArrayList<>();
+                chargesByLoan.put(loanId, loanCharges);
             }
-        }
-        charges.removeAll(removeCharges);
-        for (LoanChargeData loanChargeData : removeCharges) {
             if (loanChargeData.isInstallmentFee()) {
-                Collection<LoanInstallmentChargeData> installmentChargeDatas = retrieveInstallmentLoanChargesForAccrual(loanChargeData
+                // installment fees are few, their breakup per installment is
+                // still looked up charge by charge
+                final Collection<LoanInstallmentChargeData> installmentChargeDatas = retrieveInstallmentLoanChargesForAccrual(loanChargeData
                         .getId());
-                LoanChargeData modifiedChargeData = new LoanChargeData(loanChargeData, installmentChargeDatas);
-                charges.add(modifiedChargeData);
+                loanCharges.add(new LoanChargeData(loanChargeData, installmentChargeDatas));
+            } else {
+                loanCharges.add(loanChargeData);
             }
         }
 
-        return charges;
+        // installment fees are moved after the other charges of the loan, as
+        // they always have been
+        for (final Collection<LoanChargeData> loanCharges : chargesByLoan.values()) {
+            final List<LoanChargeData> installmentFees = new ArrayList<>();
+            for (final LoanChargeData loanChargeData : loanCharges) {
+                if (loanChargeData.isInstallmentFee()) {
+                    installmentFees.add(loanChargeData);
+                }
+            }
+            loanCharges.removeAll(installmentFees);
+            loanCharges.addAll(installmentFees);
+        }
+
+        return chargesByLoan;
     }
 
     private static final class LoanChargeAccrualMapper implements RowMapper<LoanChargeData> {
@@ -281,7 +324,7 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
 
         public LoanChargeAccrualMapper() {
             StringBuilder sb = new StringBuilder(50);
-            sb.append("lc.id as id, lc.charge_id as chargeId, ");
+            sb.append("lc.id as id, lc.charge_id as chargeId, lc.loan_id as loanId, ");
             sb.append("lc.amount as amountDue, ");
             sb.append("lc.amount_waived_derived as amountWaived, ");
             sb.append("lc.charge_time_enum as chargeTime, ");
@@ -292,7 +335,7 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
             sb.append("left join (");
             sb.append("select lcp.loan_charge_id, lcp.amount");
             sb.append(" from m_loan_charge_paid_by lcp ");
-            sb.append("inner join m_loan_transaction lt on lt.id = lcp.loan_transaction_id and lt.is_reversed = 0 and lt.transaction_type_enum = ?");
+            sb.append("inner join m_loan_transaction lt on lt.id = lcp.loan_transaction_id and lt.is_reversed = 0 and lt.transaction_type_enum = :transactionType");
             sb.append(") cp on  cp.loan_charge_id= lc.id  ");
 
             schemaSql = sb.toString();
@@ -321,14 +364,19 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
         }
     }
 
-    private Collection<LoanChargeData> updateLoanChargesWithUnrecognizedIncome(final Long loanId, Collection<LoanChargeData> loanChargeDatas) {
+    private Collection<LoanChargeData> updateLoanChargesWithUnrecognizedIncome(final Collection<Long> loanIds,
+            final Collection<LoanChargeData> loanChargeDatas) {
 
         final LoanChargeUnRecognizedIncomeMapper rm = new LoanChargeUnRecognizedIncomeMapper(loanChargeDatas);
 
-        final String sql = "select " + rm.schema() + " where lc.loan_id=? AND lc.is_active = 1 group by  lc.id "
+        final String sql = "select " + rm.schema() + " where lc.loan_id in (:loanIds) AND lc.is_active = 1 group by  lc.id "
                 + " order by lc.charge_time_enum ASC, lc.due_for_collection_as_of_date ASC, lc.is_penalty ASC";
 
-        return this.jdbcTemplate.query(sql, rm, new Object[] { LoanTransactionType.WAIVE_CHARGES.getValue(), loanId });
+        final Map<String, Object> paramMap = new HashMap<>(2);
+        paramMap.put("transactionType", LoanTransactionType.WAIVE_CHARGES.getValue());
+        paramMap.put("loanIds", loanIds);
+
+        return this.namedParameterJdbcTemplate.query(sql, paramMap, rm);
 
     }
 
@@ -350,7 +398,7 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
             sb.append("left join (");
             sb.append("select cpb.loan_charge_id, lt.unrecognized_income_portion");
             sb.append(" from m_loan_charge_paid_by cpb ");
-            sb.append("inner join m_loan_transaction lt on lt.id = cpb.loan_transaction_id and lt.is_reversed = 0 and lt.transaction_type_enum = ?");
+            sb.append("inner join m_loan_transaction lt on lt.id = cpb.loan_transaction_id and lt.is_reversed = 0 and lt.transaction_type_enum = :transactionType");
             sb.append(") wt on  wt.loan_charge_id= lc.id  ");
 
             schemaSql = sb.toString();
@@ -7,6 +7,7 @@ package org.mifosplatform.portfolio.loanaccount.service;
 
 import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
 
 import org.joda.time.LocalDate;
 import org.mifosplatform.infrastructure.core.service.Page;
@@ -100,8 +101,19 @@ public interface LoanReadPlatformService {
 
     Collection<LoanTransactionData> retrieveWaiverLoanTransactions(Long loanId);
 
+    /**
+     * Interest waivers of several loans fetched together, keyed by loan id.
+     */
+    Map<Long, Collection<LoanTransactionData>> retrieveWaiverLoanTransactions(Collection<Long> loanIds);
+
     Collection<LoanSchedulePeriodData> fetchWaiverInterestRepaymentData(Long loanId);
 
+    /**
+     * Installments with waived interest of several loans fetched together,
+     * keyed by loan id.
+     */
+    Map<Long, Collection<LoanSchedulePeriodData>> fetchWaiverInterestRepaymentData(Collection<Long> loanIds);
+
     boolean isGuaranteeRequired(Long loanId);
 
     Date retrieveMinimumDateOfRepaymentTransaction(Long loanId);
@@ -98,9 +98,11 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 @Service
@@ -346,6 +348,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public LoanTransactionData retrieveLoanTransactionTemplate(final Long loanId) {
 
         this.context.authenticatedUser();
@@ -377,6 +380,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public LoanTransactionData retrieveLoanPrePaymentTemplate(final Long loanId) {
 
         this.context.authenticatedUser();
@@ -406,6 +410,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public LoanTransactionData retrieveWaiveInterestDetails(final Long loanId) {
 
         AppUser currentUser = this.context.authenticatedUser();
@@ -455,6 +460,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public LoanTransactionData retrieveDisbursalTemplate(final Long loanId, boolean paymentDetailsRequired) {
         final Loan loan = this.loanRepository.findOne(loanId);
         if (loan == null) { throw new LoanNotFoundException(loanId); }
@@ -472,6 +478,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public LoanTransactionData retrieveLoanTransaction(final Long loanId, final Long transactionId) {
 
         this.context.authenticatedUser();
@@ -1656,16 +1663,26 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
 
     @Override
     public Collection<LoanTransactionData> retrieveWaiverLoanTransactions(final Long loanId) {
-        try {
-
-            final LoanTransactionDerivedComponentMapper rm = new LoanTransactionDerivedComponentMapper();
+        final Collection<LoanTransactionData> waivers = retrieveWaiverLoanTransactions(Arrays.asList(loanId)).get(loanId);
+        if (waivers == null) { return new ArrayList<>(); }
+        return waivers;
+    }
 
-            final String sql = "select " + rm.schema()
-                    + " where tr.loan_id = ? and tr.transaction_type_enum = ? and tr.is_reversed=0 order by tr.transaction_date ASC,id ";
-            return this.jdbcTemplate.query(sql, rm, new Object[] { loanId, LoanTransactionType.WAIVE_INTEREST.getValue() });
-        } catch (final EmptyResultDataAccessException e) {
-            return null;
-        }
+    @Override
+    public Map<Long, Collection<LoanTransactionData>> retrieveWaiverLoanTransactions(final Collection<Long> loanIds) {
+        final LoanIdGroupingCallbackHandler<LoanTransactionData> waiversByLoan = new LoanIdGroupingCallbackHandler<>(
+                new LoanTransactionDerivedComponentMapper());
+        if (loanIds.isEmpty()) { return waiversByLoan.getRowsByLoan(); }
+
+        final String sql = "select tr.loan_id as loanId, " + new LoanTransactionDerivedComponentMapper().schema()
+                + " where tr.loan_id in (:loanIds) and tr.transaction_type_enum = :transactionType and tr.is_reversed=0"
+                + " order by tr.transaction_date ASC,id ";
+        final Map<String, Object> paramMap = new HashMap<>(2);
+        paramMap.put("loanIds", loanIds);
+        paramMap.put("transactionType", LoanTransactionType.WAIVE_INTEREST.getValue());
+
+        this.namedParameterJdbcTemplate.query(sql, paramMap, waiversByLoan);
+        return waiversByLoan.getRowsByLoan();
     }
 
     @Override
@@ -1709,17 +1726,54 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
 
     @Override
     public Collection<LoanSchedulePeriodData> fetchWaiverInterestRepaymentData(final Long loanId) {
-        try {
+        final Collection<LoanSchedulePeriodData> waivedPeriods = fetchWaiverInterestRepaymentData(Arrays.asList(loanId)).get(loanId);
+        if (waivedPeriods == null) { return new ArrayList<>(); }
+        return waivedPeriods;
+    }
+
+    @Override
+    public Map<Long, Collection<LoanSchedulePeriodData>> fetchWaiverInterestRepaymentData(final Collection<Long> loanIds) {
+        final LoanRepaymentWaiverMapper rm = new LoanRepaymentWaiverMapper();
+        final LoanIdGroupingCallbackHandler<LoanSchedulePeriodData> waivedPeriodsByLoan = new LoanIdGroupingCallbackHandler<>(rm);
+        if (loanIds.isEmpty()) { return waivedPeriodsByLoan.getRowsByLoan(); }
+
+        final String sql = "select lrs.loan_id as loanId, " + rm.getSchema()
+                + " where lrs.loan_id in (:loanIds) and lrs.interest_waived_derived is not null order by lrs.installment ASC ";
+        final Map<String, Object> paramMap = new HashMap<>(1);
+        paramMap.put("loanIds", loanIds);
+
+        this.namedParameterJdbcTemplate.query(sql, paramMap, waivedPeriodsByLoan);
+        return waivedPeriodsByLoan.getRowsByLoan();
+    }
 
-            final LoanRepaymentWaiverMapper rm = new LoanRepaymentWaiverMapper();
+    /**
+     * Maps the rows of a query over several loans, selecting the loan id as
+     * <code>loanId</code>, into a collection per loan kept in row order.
+     */
+    private static final class LoanIdGroupingCallbackHandler<T> implements RowCallbackHandler {
 
-            final String sql = "select " + rm.getSchema()
-                    + " where lrs.loan_id = ? and lrs.interest_waived_derived is not null order by lrs.installment ASC ";
-            return this.jdbcTemplate.query(sql, rm, new Object[] { loanId });
-        } catch (final EmptyResultDataAccessException e) {
-            return null;
+        private final RowMapper<T> rowMapper;
+        private final Map<Long, Collection<T>> rowsByLoan = new HashMap<>();
+        private int rowNum = 0;
+
+        public LoanIdGroupingCallbackHandler(final RowMapper<T> rowMapper) {
+            this.rowMapper = rowMapper;
         }
 
+        @Override
+        public void processRow(final ResultSet rs) throws SQLException {
+            final Long loanId = rs.getLong("loanId");
+            Collection<T> rows = this.rowsByLoan.get(loanId);
+            if (rows == null) {
+                rows = new ArrayList<>();
+                this.rowsByLoan.put(loanId, rows);
+            }
+            rows.add(this.rowMapper.mapRow(rs, this.rowNum++));
+        }
+
+        public Map<Long, Collection<T>> getRowsByLoan() {
+            return this.rowsByLoan;
+        }
     }
 
     private static final class LoanRepaymentWaiverMapper implements RowMapper<LoanSchedulePeriodData> {
@@ -773,6 +773,11 @@ public class FixedDepositAccount extends SavingsAccount {
         return this.accountTermAndPreClosure.isTransferInterestToLinkedAccount();
     }
 
+    @Override
+    protected boolean isBalanceSnapshotSupported() {
+        return false;
+    }
+
     @Override
     public boolean allowDeposit() {
         return false;
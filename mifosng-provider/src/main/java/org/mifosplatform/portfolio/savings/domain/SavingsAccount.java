@@ -66,6 +66,7 @@ import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidation
 import org.mifosplatform.infrastructure.core.service.DateUtils;
 import org.mifosplatform.infrastructure.security.service.RandomPasswordGenerator;
 import org.mifosplatform.organisation.monetary.data.CurrencyData;
+import org.mifosplatform.organisation.monetary.domain.MinorUnitMoney;
 import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
 import org.mifosplatform.organisation.monetary.domain.Money;
 import org.mifosplatform.organisation.office.domain.Office;
@@ -263,6 +264,9 @@ public class SavingsAccount extends AbstractPersistable<Long> {
     @Embedded
     protected SavingsAccountSummary summary;
 
+    @Embedded
+    private SavingsAccountBalanceSnapshot balanceSnapshot;
+
     @OrderBy(value = "dateOf, createdDate, id")
     @LazyCollection(LazyCollectionOption.FALSE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "savingsAccount", orphanRemoval = true)
@@ -462,17 +466,83 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         }
 
         if (recalucateDailyBalanceDetails) {
-            // no openingBalance concept supported yet but probably will to
-            // allow
-            // for migrations.
-            final Money openingAccountBalance = Money.zero(this.currency);
-
-            // update existing transactions so derived balance fields are
-            // correct.
-            recalculateDailyBalances(openingAccountBalance, interestPostingUpToDate);
+            if (this.balanceSnapshot != null) {
+                // the new postings all fall after the snapshot
+                recalculateDailyBalancesAfter(this.balanceSnapshot.getSnapshotDate(), interestPostingUpToDate);
+            } else {
+                // no openingBalance concept supported yet but probably will to
+                // allow
+                // for migrations.
+                final Money openingAccountBalance = Money.zero(this.currency);
+
+                // update existing transactions so derived balance fields are
+                // correct.
+                recalculateDailyBalances(openingAccountBalance, interestPostingUpToDate);
+            }
         }
 
         this.summary.updateSummary(this.currency, this.savingsAccountTransactionSummaryWrapper, this.transactions);
+
+        updateBalanceSnapshot(postingPeriods, interestPostingUpToDate);
+    }
+
+    /**
+     * Moves the balance snapshot to the end of the last posting period that is
+     * posted as of <code>interestPostingUpToDate</code>.
+     * <code>postingPeriods</code> are those calculated from the current
+     * snapshot, if there is one.
+     */
+    private void updateBalanceSnapshot(final List<PostingPeriod> postingPeriods, final LocalDate interestPostingUpToDate) {
+        if (!isBalanceSnapshotSupported()) { return; }
+
+        BigDecimal interestCarriedForward = BigDecimal.ZERO;
+        Money interestEarned = Money.zero(this.currency);
+        if (this.balanceSnapshot != null) {
+            interestCarriedForward = this.balanceSnapshot.getInterestCarriedForward();
+            interestEarned = this.balanceSnapshot.getInterestEarned(this.currency);
+        }
+
+        PostingPeriod lastPostedPeriod = null;
+        for (final PostingPeriod postingPeriod : postingPeriods) {
+            if (postingPeriod.dateOfPostingTransaction().isAfter(interestPostingUpToDate)) {
+                break;
+            }
+            interestCarriedForward = this.savingsHelper.interestCarriedForwardAfter(postingPeriod, interestCarriedForward,
+                    getLockedInUntilLocalDate(), isTransferInterestToOtherAccount());
+            interestEarned = interestEarned.plus(postingPeriod.getInterestEarned());
+            lastPostedPeriod = postingPeriod;
+        }
+
+        if (lastPostedPeriod != null) {
+            this.balanceSnapshot = SavingsAccountBalanceSnapshot.takenAt(lastPostedPeriod.periodInterval().endDate(),
+                    lastPostedPeriod.closingBalance(), interestCarriedForward, interestEarned, this.transactions);
+        }
+    }
+
+    /**
+     * Fixed and recurring deposits work out their interest rate and posting
+     * dates from the deposit term and so are always calculated in full. So
+     * are accounts that transfer their interest: whether the interest of the
+     * last posted period is carried forward depends on a transfer made after
+     * the period ends, i.e. after the snapshot.
+     */
+    protected boolean isBalanceSnapshotSupported() {
+        return !isTransferInterestToOtherAccount();
+    }
+
+    /**
+     * @return the balance snapshot if calculation up to
+     *         <code>upToInterestCalculationDate</code> can start from it,
+     *         otherwise <code>null</code>. A snapshot that cannot be used is
+     *         dropped, it is taken again on the next interest posting.
+     */
+    private SavingsAccountBalanceSnapshot usableBalanceSnapshot(final LocalDate upToInterestCalculationDate) {
+        if (this.balanceSnapshot == null) { return null; }
+        if (isBalanceSnapshotSupported() && this.balanceSnapshot.isUsableFor(upToInterestCalculationDate, this.transactions)) {
+            return this.balanceSnapshot;
+        }
+        this.balanceSnapshot = null;
+        return null;
     }
 
     protected SavingsAccountTransaction findInterestPostingTransactionFor(final LocalDate postingDate) {
@@ -518,12 +588,19 @@ public class SavingsAccount extends AbstractPersistable<Long> {
      * period check if an existing 'interest posting' transaction exists for
      * date and matches the amount posted
      * 
+     * When the account has a usable {@link SavingsAccountBalanceSnapshot} only
+     * the posting periods after it are calculated.
+     * 
      * @param isInterestTransfer
      *            TODO
      */
     public List<PostingPeriod> calculateInterestUsing(final MathContext mc, final LocalDate upToInterestCalculationDate,
             boolean isInterestTransfer, final boolean isSavingsInterestPostingAtCurrentPeriodEnd, final Integer financialYearBeginningMonth) {
 
+        final SavingsAccountBalanceSnapshot snapshot = usableBalanceSnapshot(upToInterestCalculationDate);
+        if (snapshot != null) { return calculateInterestFromBalanceSnapshot(snapshot, mc, upToInterestCalculationDate, isInterestTransfer,
+                isSavingsInterestPostingAtCurrentPeriodEnd, financialYearBeginningMonth); }
+
         // no openingBalance concept supported yet but probably will to allow
         // for migrations.
         final Money openingAccountBalance = Money.zero(this.currency);
@@ -539,12 +616,6 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         // A generate list of EndOfDayBalances (not including interest postings)
         final SavingsPostingInterestPeriodType postingPeriodType = SavingsPostingInterestPeriodType.fromInt(this.interestPostingPeriodType);
 
-        final SavingsCompoundingInterestPeriodType compoundingPeriodType = SavingsCompoundingInterestPeriodType
-                .fromInt(this.interestCompoundingPeriodType);
-
-        final SavingsInterestCalculationDaysInYearType daysInYearType = SavingsInterestCalculationDaysInYearType
-                .fromInt(this.interestCalculationDaysInYearType);
-
         final List<LocalDateInterval> postingPeriodIntervals = this.savingsHelper.determineInterestPostingPeriods(
                 getStartInterestCalculationDate(), upToInterestCalculationDate, postingPeriodType, financialYearBeginningMonth);
 
@@ -574,15 +645,77 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         } else
             periodStartingBalance = Money.zero(this.currency);
 
+        calculateInterestForPostingPeriods(mc, upToInterestCalculationDate, isInterestTransfer,
+                isSavingsInterestPostingAtCurrentPeriodEnd, postingPeriodIntervals, periodStartingBalance,
+                retreiveOrderedNonInterestPostingTransactions(), BigDecimal.ZERO, allPostingPeriods);
+
+        this.summary.updateFromInterestPeriodSummaries(this.currency, allPostingPeriods);
+        this.summary.updateSummary(this.currency, this.savingsAccountTransactionSummaryWrapper, this.transactions);
+
+        return allPostingPeriods;
+    }
+
+    /**
+     * Calculates the posting periods that follow the snapshot; the balances
+     * and interest of the periods up to it are taken from the snapshot.
+     */
+    private List<PostingPeriod> calculateInterestFromBalanceSnapshot(final SavingsAccountBalanceSnapshot snapshot, final MathContext mc,
+            final LocalDate upToInterestCalculationDate, final boolean isInterestTransfer,
+            final boolean isSavingsInterestPostingAtCurrentPeriodEnd, final Integer financialYearBeginningMonth) {
+
+        final LocalDate snapshotDate = snapshot.getSnapshotDate();
+        recalculateDailyBalancesAfter(snapshotDate, upToInterestCalculationDate);
+
+        final SavingsPostingInterestPeriodType postingPeriodType = SavingsPostingInterestPeriodType.fromInt(this.interestPostingPeriodType);
+        final List<LocalDateInterval> postingPeriodIntervals = this.savingsHelper.determineInterestPostingPeriods(snapshotDate.plusDays(1),
+                upToInterestCalculationDate, postingPeriodType, financialYearBeginningMonth);
+
+        // the balance of the last transaction before the snapshot may still
+        // run into the first period
+        final List<SavingsAccountTransaction> orderedTransactions = new ArrayList<>();
+        final SavingsAccountTransaction lastTransactionBeforeSnapshot = findLastTransactionOnOrBefore(snapshotDate, true);
+        if (lastTransactionBeforeSnapshot != null) {
+            orderedTransactions.add(lastTransactionBeforeSnapshot);
+        }
+        for (final SavingsAccountTransaction transaction : retreiveListOfTransactionsAfter(snapshotDate)) {
+            if (!transaction.isInterestPostingAndNotReversed() && transaction.isNotReversed()) {
+                orderedTransactions.add(transaction);
+            }
+        }
+
+        final List<PostingPeriod> postingPeriods = new ArrayList<>();
+        calculateInterestForPostingPeriods(mc, upToInterestCalculationDate, isInterestTransfer, isSavingsInterestPostingAtCurrentPeriodEnd,
+                postingPeriodIntervals, snapshot.getClosingBalance(this.currency), orderedTransactions,
+                snapshot.getInterestCarriedForward(), postingPeriods);
+
+        this.summary.updateFromInterestPeriodSummaries(this.currency, snapshot.getInterestEarned(this.currency), postingPeriods);
+        this.summary.updateSummary(this.currency, this.savingsAccountTransactionSummaryWrapper, this.transactions);
+
+        return postingPeriods;
+    }
+
+    private void calculateInterestForPostingPeriods(final MathContext mc, final LocalDate upToInterestCalculationDate,
+            final boolean isInterestTransfer, final boolean isSavingsInterestPostingAtCurrentPeriodEnd,
+            final List<LocalDateInterval> postingPeriodIntervals, final Money openingBalance,
+            final List<SavingsAccountTransaction> orderedNonInterestPostingTransactions, final BigDecimal interestCarriedForward,
+            final List<PostingPeriod> allPostingPeriods) {
+
+        final SavingsCompoundingInterestPeriodType compoundingPeriodType = SavingsCompoundingInterestPeriodType
+                .fromInt(this.interestCompoundingPeriodType);
+
+        final SavingsInterestCalculationDaysInYearType daysInYearType = SavingsInterestCalculationDaysInYearType
+                .fromInt(this.interestCalculationDaysInYearType);
+
         final SavingsInterestCalculationType interestCalculationType = SavingsInterestCalculationType.fromInt(this.interestCalculationType);
         final BigDecimal interestRateAsFraction = getEffectiveInterestRateAsFraction(mc, upToInterestCalculationDate);
         final Collection<Long> interestPostTransactions = this.savingsHelper.fetchPostInterestTransactionIds(getId());
         final Money minBalanceForInterestCalculation = Money.of(getCurrency(), minBalanceForInterestCalculation());
 
+        Money periodStartingBalance = openingBalance;
         for (final LocalDateInterval periodInterval : postingPeriodIntervals) {
 
             final PostingPeriod postingPeriod = PostingPeriod.createFrom(periodInterval, periodStartingBalance,
-                    retreiveOrderedNonInterestPostingTransactions(), this.currency, compoundingPeriodType, interestCalculationType,
+                    orderedNonInterestPostingTransactions, this.currency, compoundingPeriodType, interestCalculationType,
                     interestRateAsFraction, daysInYearType.getValue(), upToInterestCalculationDate, interestPostTransactions,
                     isInterestTransfer, minBalanceForInterestCalculation, isSavingsInterestPostingAtCurrentPeriodEnd);
 
@@ -592,12 +725,7 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         }
 
         this.savingsHelper.calculateInterestForAllPostingPeriods(this.currency, allPostingPeriods, getLockedInUntilLocalDate(),
-                isTransferInterestToOtherAccount());
-
-        this.summary.updateFromInterestPeriodSummaries(this.currency, allPostingPeriods);
-        this.summary.updateSummary(this.currency, this.savingsAccountTransactionSummaryWrapper, this.transactions);
-
-        return allPostingPeriods;
+                isTransferInterestToOtherAccount(), interestCarriedForward);
     }
 
     @SuppressWarnings("unused")
@@ -628,43 +756,112 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         return listOfTransactionsSorted;
     }
 
-    protected void recalculateDailyBalances(final Money openingAccountBalance, final LocalDate interestPostingUpToDate) {
+    /**
+     * Transactions dated after <code>date</code>, including reversed ones, in
+     * the order they apply to the balance.
+     */
+    private List<SavingsAccountTransaction> retreiveListOfTransactionsAfter(final LocalDate date) {
+        final List<SavingsAccountTransaction> listOfTransactionsSorted = new ArrayList<>();
+        for (final SavingsAccountTransaction transaction : this.transactions) {
+            if (transaction.transactionLocalDate().isAfter(date)) {
+                listOfTransactionsSorted.add(transaction);
+            }
+        }
+
+        Collections.sort(listOfTransactionsSorted, new SavingsAccountTransactionComparator());
+        return listOfTransactionsSorted;
+    }
+
+    private SavingsAccountTransaction findLastTransactionOnOrBefore(final LocalDate date, final boolean excludeInterestPostings) {
+        final SavingsAccountTransactionComparator transactionComparator = new SavingsAccountTransactionComparator();
+        SavingsAccountTransaction lastTransaction = null;
+        for (final SavingsAccountTransaction transaction : this.transactions) {
+            if (transaction.isReversed() || transaction.transactionLocalDate().isAfter(date)
+                    || (excludeInterestPostings && transaction.isInterestPostingAndNotReversed())) {
+                continue;
+            }
+            if (lastTransaction == null || transactionComparator.compare(transaction, lastTransaction) > 0) {
+                lastTransaction = transaction;
+            }
+        }
+        return lastTransaction;
+    }
+
+    /**
+     * Same as {@link #recalculateDailyBalances(Money, LocalDate)} for the
+     * transactions after <code>date</code>, those up to it keep their
+     * balances.
+     */
+    private void recalculateDailyBalancesAfter(final LocalDate date, final LocalDate interestPostingUpToDate) {
+
+        final SavingsAccountTransaction lastTransaction = findLastTransactionOnOrBefore(date, false);
+        final Money openingAccountBalance = lastTransaction == null ? Money.zero(this.currency) : lastTransaction
+                .getRunningBalance(this.currency);
+
+        List<SavingsAccountTransaction> accountTransactionsSorted = retreiveListOfTransactionsAfter(date);
+        if (updateRunningBalances(openingAccountBalance, accountTransactionsSorted)) {
+            accountTransactionsSorted = retreiveListOfTransactionsAfter(date);
+        }
+
+        // the balance of the last transaction up to the date now ends before
+        // the first transaction after it
+        final SavingsAccountTransaction lastBalanceTransaction = findLastTransactionOnOrBefore(date, true);
+        if (lastBalanceTransaction != null) {
+            accountTransactionsSorted.add(0, lastBalanceTransaction);
+        }
+        resetAccountTransactionsEndOfDayBalances(accountTransactionsSorted, interestPostingUpToDate);
+    }
 
-        Money runningBalance = openingAccountBalance.copy();
+    protected void recalculateDailyBalances(final Money openingAccountBalance, final LocalDate interestPostingUpToDate) {
 
         List<SavingsAccountTransaction> accountTransactionsSorted = retreiveListOfTransactions();
+        if (updateRunningBalances(openingAccountBalance, accountTransactionsSorted)) {
+            accountTransactionsSorted = retreiveListOfTransactions();
+        }
+        resetAccountTransactionsEndOfDayBalances(accountTransactionsSorted, interestPostingUpToDate);
+    }
+
+    /**
+     * @return true if transactions had to be replaced to correct their
+     *         overdraft amount
+     */
+    private boolean updateRunningBalances(final Money openingAccountBalance, final List<SavingsAccountTransaction> accountTransactionsSorted) {
+
+        MinorUnitMoney runningBalance = MinorUnitMoney.of(openingAccountBalance);
+
         boolean isTransactionsModified = false;
         for (final SavingsAccountTransaction transaction : accountTransactionsSorted) {
             if (transaction.isReversed()) {
                 transaction.zeroBalanceFields();
             } else {
-                Money overdraftAmount = Money.zero(this.currency);
-                Money transactionAmount = Money.zero(this.currency);
+                final MinorUnitMoney amount = MinorUnitMoney.of(this.currency, transaction.getAmount());
+                MinorUnitMoney overdraftAmount = MinorUnitMoney.zero(this.currency);
+                MinorUnitMoney transactionAmount = MinorUnitMoney.zero(this.currency);
                 if (transaction.isCredit()) {
                     if (runningBalance.isLessThanZero()) {
-                        Money diffAmount = transaction.getAmount(this.currency).plus(runningBalance);
+                        MinorUnitMoney diffAmount = amount.plus(runningBalance);
                         if (diffAmount.isGreaterThanZero()) {
-                            overdraftAmount = transaction.getAmount(this.currency).minus(diffAmount);
+                            overdraftAmount = amount.minus(diffAmount);
                         } else {
-                            overdraftAmount = transaction.getAmount(this.currency);
+                            overdraftAmount = amount;
                         }
                     }
-                    transactionAmount = transactionAmount.plus(transaction.getAmount(this.currency));
+                    transactionAmount = transactionAmount.plus(amount);
                 } else if (transaction.isDebit()) {
                     if (runningBalance.isLessThanZero()) {
-                        overdraftAmount = transaction.getAmount(this.currency);
+                        overdraftAmount = amount;
                     }
-                    transactionAmount = transactionAmount.minus(transaction.getAmount(this.currency));
+                    transactionAmount = transactionAmount.minus(amount);
                 }
 
                 runningBalance = runningBalance.plus(transactionAmount);
                 transaction.updateRunningBalance(runningBalance);
                 if (overdraftAmount.isZero() && runningBalance.isLessThanZero()) {
-                    overdraftAmount = overdraftAmount.plus(runningBalance.getAmount().negate());
+                    overdraftAmount = overdraftAmount.plus(runningBalance.negated());
                 }
                 if (transaction.getId() == null && overdraftAmount.isGreaterThanZero()) {
                     transaction.updateOverdraftAmount(overdraftAmount.getAmount());
-                } else if (overdraftAmount.isNotEqualTo(transaction.getOverdraftAmount(getCurrency()))) {
+                } else if (!overdraftAmount.isEqualTo(MinorUnitMoney.of(transaction.getOverdraftAmount(getCurrency())))) {
                     SavingsAccountTransaction accountTransaction = SavingsAccountTransaction.copyTransaction(transaction);
                     transaction.reverse();
                     if (overdraftAmount.isGreaterThanZero()) {
@@ -678,10 +875,7 @@ public class SavingsAccount extends AbstractPersistable<Long> {
             }
         }
 
-        if (isTransactionsModified) {
-            accountTransactionsSorted = retreiveListOfTransactions();
-        }
-        resetAccountTransactionsEndOfDayBalances(accountTransactionsSorted, interestPostingUpToDate);
+        return isTransactionsModified;
     }
 
     protected void resetAccountTransactionsEndOfDayBalances(final List<SavingsAccountTransaction> accountTransactionsSorted,
@@ -0,0 +1,125 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.savings.domain;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+
+/**
+ * {@link SavingsAccountBalanceSnapshot} holds the state of the interest
+ * calculation of a {@link SavingsAccount} at the end of its last posted
+ * interest posting period, so that later calculations can start from there
+ * instead of replaying the whole transaction history.
+ * 
+ * The number of transactions (and reversed transactions) dated on or before
+ * the snapshot date is recorded along with it; a back-dated transaction or
+ * reversal changes those counts and makes the snapshot unusable.
+ */
+@Embeddable
+public final class SavingsAccountBalanceSnapshot {
+
+    @Temporal(TemporalType.DATE)
+    @Column(name = "balance_snapshot_date")
+    private Date snapshotDate;
+
+    @Column(name = "balance_snapshot_closing_balance", scale = 6, precision = 19)
+    private BigDecimal closingBalance;
+
+    @Column(name = "balance_snapshot_interest_carried", scale = 6, precision = 19)
+    private BigDecimal interestCarriedForward;
+
+    @Column(name = "balance_snapshot_interest_earned", scale = 6, precision = 19)
+    private BigDecimal interestEarned;
+
+    @Column(name = "balance_snapshot_transaction_count")
+    private Integer transactionCount;
+
+    @Column(name = "balance_snapshot_reversed_count")
+    private Integer reversedTransactionCount;
+
+    public static SavingsAccountBalanceSnapshot takenAt(final LocalDate snapshotDate, final Money closingBalance,
+            final BigDecimal interestCarriedForward, final Money interestEarned, final List<SavingsAccountTransaction> transactions) {
+        final SavingsAccountBalanceSnapshot snapshot = new SavingsAccountBalanceSnapshot(snapshotDate.toDate(), closingBalance.getAmount(),
+                interestCarriedForward, interestEarned.getAmount());
+        final int[] counts = snapshot.countTransactionsUpToSnapshot(transactions);
+        snapshot.transactionCount = counts[0];
+        snapshot.reversedTransactionCount = counts[1];
+        return snapshot;
+    }
+
+    protected SavingsAccountBalanceSnapshot() {
+        //
+    }
+
+    private SavingsAccountBalanceSnapshot(final Date snapshotDate, final BigDecimal closingBalance, final BigDecimal interestCarriedForward,
+            final BigDecimal interestEarned) {
+        this.snapshotDate = snapshotDate;
+        this.closingBalance = closingBalance;
+        this.interestCarriedForward = interestCarriedForward;
+        this.interestEarned = interestEarned;
+    }
+
+    /**
+     * A snapshot can be used for a calculation that runs past its date,
+     * provided no transaction on or before that date was added or reversed
+     * since it was taken.
+     */
+    public boolean isUsableFor(final LocalDate upToInterestCalculationDate, final List<SavingsAccountTransaction> transactions) {
+        if (this.snapshotDate == null || this.transactionCount == null || this.reversedTransactionCount == null) { return false; }
+        if (!getSnapshotDate().isBefore(upToInterestCalculationDate)) { return false; }
+        final int[] counts = countTransactionsUpToSnapshot(transactions);
+        return this.transactionCount.intValue() == counts[0] && this.reversedTransactionCount.intValue() == counts[1];
+    }
+
+    /**
+     * The check still visits every loaded transaction, it only compares dates
+     * and flags though; the balance and interest work is what the snapshot
+     * saves.
+     * 
+     * @return the number of transactions and of reversed transactions dated
+     *         on or before the snapshot date
+     */
+    private int[] countTransactionsUpToSnapshot(final List<SavingsAccountTransaction> transactions) {
+        final LocalDate date = getSnapshotDate();
+        int count = 0;
+        int reversedCount = 0;
+        for (final SavingsAccountTransaction transaction : transactions) {
+            if (!transaction.transactionLocalDate().isAfter(date)) {
+                count++;
+                if (transaction.isReversed()) {
+                    reversedCount++;
+                }
+            }
+        }
+        return new int[] { count, reversedCount };
+    }
+
+    public LocalDate getSnapshotDate() {
+        return new LocalDate(this.snapshotDate);
+    }
+
+    public Money getClosingBalance(final MonetaryCurrency currency) {
+        return Money.of(currency, this.closingBalance);
+    }
+
+    public BigDecimal getInterestCarriedForward() {
+        return this.interestCarriedForward == null ? BigDecimal.ZERO : this.interestCarriedForward;
+    }
+
+    public Money getInterestEarned(final MonetaryCurrency currency) {
+        return Money.of(currency, this.interestEarned);
+    }
+}
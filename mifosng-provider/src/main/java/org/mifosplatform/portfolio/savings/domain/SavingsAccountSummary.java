@@ -80,8 +80,18 @@ public final class SavingsAccountSummary {
     }
 
     public void updateFromInterestPeriodSummaries(final MonetaryCurrency currency, final List<PostingPeriod> allPostingPeriods) {
+        updateFromInterestPeriodSummaries(currency, Money.zero(currency), allPostingPeriods);
+    }
+
+    /**
+     * @param interestEarnedBefore
+     *            interest earned in the periods before
+     *            <code>allPostingPeriods</code> that were not recalculated
+     */
+    public void updateFromInterestPeriodSummaries(final MonetaryCurrency currency, final Money interestEarnedBefore,
+            final List<PostingPeriod> allPostingPeriods) {
 
-        Money totalEarned = Money.zero(currency);
+        Money totalEarned = interestEarnedBefore;
 
         for (final PostingPeriod period : allPostingPeriods) {
             Money interestEarned = period.interest();
@@ -5,6 +5,7 @@
  */
 package org.mifosplatform.portfolio.savings.domain;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -132,6 +133,18 @@ public final class SavingsHelper {
                 immediateWithdrawalOfInterest);
     }
 
+    public Money calculateInterestForAllPostingPeriods(final MonetaryCurrency currency, final List<PostingPeriod> allPeriods,
+            final LocalDate accountLockedUntil, final Boolean immediateWithdrawalOfInterest, final BigDecimal interestCarriedForward) {
+        return this.compoundInterestHelper.calculateInterestForAllPostingPeriods(currency, allPeriods, accountLockedUntil,
+                immediateWithdrawalOfInterest, interestCarriedForward);
+    }
+
+    public BigDecimal interestCarriedForwardAfter(final PostingPeriod postingPeriod, final BigDecimal interestCarriedForward,
+            final LocalDate accountLockedUntil, final Boolean immediateWithdrawalOfInterest) {
+        return this.compoundInterestHelper.interestCarriedForwardAfter(postingPeriod, interestCarriedForward, accountLockedUntil,
+                immediateWithdrawalOfInterest);
+    }
+
     public Collection<Long> fetchPostInterestTransactionIds(Long accountId) {
         return this.accountTransfersReadPlatformService.fetchPostInterestTransactionIds(accountId);
     }
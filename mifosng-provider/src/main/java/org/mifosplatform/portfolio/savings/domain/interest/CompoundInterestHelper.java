@@ -28,12 +28,27 @@ public class CompoundInterestHelper {
      */
     public Money calculateInterestForAllPostingPeriods(final MonetaryCurrency currency, final List<PostingPeriod> allPeriods,
             LocalDate lockUntil, Boolean interestTransferEnabled) {
+        return calculateInterestForAllPostingPeriods(currency, allPeriods, lockUntil, interestTransferEnabled, BigDecimal.ZERO);
+    }
+
+    /**
+     * Same as
+     * {@link #calculateInterestForAllPostingPeriods(MonetaryCurrency, List, LocalDate, Boolean)}
+     * for posting periods that continue from earlier, already calculated
+     * periods.
+     * 
+     * @param interestCarriedForward
+     *            - interest of the earlier periods that is compounded into
+     *            the first of <code>allPeriods</code>
+     */
+    public Money calculateInterestForAllPostingPeriods(final MonetaryCurrency currency, final List<PostingPeriod> allPeriods,
+            LocalDate lockUntil, Boolean interestTransferEnabled, final BigDecimal interestCarriedForward) {
 
         // sum up the 'rounded' values that are posted each posting period
         Money interestEarned = Money.zero(currency);
 
         // total interest earned in previous periods but not yet recognised
-        BigDecimal interestEarnedButNotPosted = BigDecimal.ZERO;
+        BigDecimal interestEarnedButNotPosted = interestCarriedForward;
         for (final PostingPeriod postingPeriod : allPeriods) {
 
             final BigDecimal interestEarnedThisPeriod = postingPeriod.calculateInterest(interestEarnedButNotPosted);
@@ -45,12 +60,23 @@ public class CompoundInterestHelper {
             // interest for accounts which has post interest to linked savings
             // account and if already transfered then it includes in interest
             // calculation.
-            if (postingPeriod.isInterestTransfered() || !interestTransferEnabled
-                    || (lockUntil != null && !postingPeriod.dateOfPostingTransaction().isAfter(lockUntil))) {
-                interestEarnedButNotPosted = interestEarnedButNotPosted.add(moneyToBePostedForPeriod.getAmount());
-            }
+            interestEarnedButNotPosted = interestCarriedForwardAfter(postingPeriod, interestEarnedButNotPosted, lockUntil,
+                    interestTransferEnabled);
         }
 
         return interestEarned;
     }
+
+    /**
+     * @return the interest carried into the posting period that follows
+     *         <code>postingPeriod</code>, whose interest must already have
+     *         been calculated
+     */
+    public BigDecimal interestCarriedForwardAfter(final PostingPeriod postingPeriod, final BigDecimal interestCarriedForward,
+            final LocalDate lockUntil, final Boolean interestTransferEnabled) {
+        if (postingPeriod.isInterestTransfered() || !interestTransferEnabled
+                || (lockUntil != null && !postingPeriod.dateOfPostingTransaction().isAfter(lockUntil))) { return interestCarriedForward
+                .add(postingPeriod.getInterestEarned().getAmount()); }
+        return interestCarriedForward;
+    }
 }
\ No newline at end of file
@@ -143,6 +143,10 @@ public class PostingPeriod {
         return this.interestEarnedRounded;
     }
 
+    public LocalDateInterval periodInterval() {
+        return this.periodInterval;
+    }
+
     public LocalDate dateOfPostingTransaction() {
         return this.dateOfPostingTransaction;
     }
@@ -37,8 +37,13 @@ import org.mifosplatform.infrastructure.core.data.DataValidatorBuilder;
 import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
 import org.mifosplatform.infrastructure.core.exception.PlatformServiceUnavailableException;
 import org.mifosplatform.infrastructure.core.service.DateUtils;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
+import org.mifosplatform.infrastructure.jobs.data.PartitionedJobResult;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.PartitionedJobItemProcessor;
+import org.mifosplatform.infrastructure.jobs.service.PartitionedJobRunner;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.organisation.holiday.service.HolidayWritePlatformService;
 import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
@@ -85,7 +90,10 @@ import org.mifosplatform.portfolio.savings.exception.SavingsOfficerAssignmentExc
 import org.mifosplatform.portfolio.savings.exception.SavingsOfficerUnassignmentException;
 import org.mifosplatform.portfolio.savings.exception.TransactionUpdateNotAllowedException;
 import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
@@ -93,6 +101,11 @@ import org.springframework.util.CollectionUtils;
 @Service
 public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements SavingsAccountWritePlatformService {
 
+    private final static Logger logger = LoggerFactory.getLogger(SavingsAccountWritePlatformServiceJpaRepositoryImpl.class);
+
+    private static final int INTEREST_POSTING_PAGE_SIZE = 10000;
+    private static final int INTEREST_POSTING_CHUNK_SIZE = 100;
+
     private final PlatformSecurityContext context;
     private final SavingsAccountRepository savingAccountRepository;
     private final SavingsAccountDataValidator fromApiJsonDeserializer;
@@ -114,6 +127,8 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
     private final HolidayWritePlatformService holidayWritePlatformService;
     private final WorkingDaysWritePlatformService workingDaysWritePlatformService;
     private final ConfigurationDomainService configurationDomainService;
+    private final PartitionedJobRunner partitionedJobRunner;
+    private final JdbcTemplate jdbcTemplate;
 
     @Autowired
     public SavingsAccountWritePlatformServiceJpaRepositoryImpl(final PlatformSecurityContext context,
@@ -132,7 +147,8 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
             final HolidayWritePlatformService holidayWritePlatformService,
             final WorkingDaysWritePlatformService workingDaysWritePlatformService,
             final SavingsAccountDataValidator fromApiJsonDeserializer, final SavingsAccountRepositoryWrapper savingsRepository,
-            final StaffRepositoryWrapper staffRepository, final ConfigurationDomainService configurationDomainService) {
+            final StaffRepositoryWrapper staffRepository, final ConfigurationDomainService configurationDomainService,
+            final PartitionedJobRunner partitionedJobRunner, final RoutingDataSource dataSource) {
         this.context = context;
         this.savingAccountRepository = savingAccountRepository;
         this.savingsAccountTransactionRepository = savingsAccountTransactionRepository;
@@ -154,6 +170,8 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
         this.savingsRepository = savingsRepository;
         this.staffRepository = staffRepository;
         this.configurationDomainService = configurationDomainService;
+        this.partitionedJobRunner = partitionedJobRunner;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
     }
 
     @Transactional
@@ -386,15 +404,90 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
         }
     }
 
+    /**
+     * Posts interest to active accounts a page of account ids at a time rather
+     * than loading every active account up front. Each page is split into
+     * chunks posted in their own transaction by the
+     * {@link PartitionedJobRunner}, so an account failing to post is recorded
+     * and logged without rolling back other accounts. The last account id of
+     * every completed page is checkpointed, a run interrupted on the same
+     * posting date resumes after it.
+     */
     @CronTarget(jobName = JobName.POST_INTEREST_FOR_SAVINGS)
     @Override
-    public void postInterestForAccounts() {
-        final List<SavingsAccount> savingsAccounts = this.savingAccountRepository.findSavingAccountByStatus(SavingsAccountStatusType.ACTIVE
-                .getValue());
-        for (final SavingsAccount savingsAccount : savingsAccounts) {
-            this.savingAccountAssembler.assignSavingAccountHelpers(savingsAccount);
-            postInterest(savingsAccount);
+    public PartitionedJobResult postInterestForAccounts() {
+        final long startTime = System.currentTimeMillis();
+        final LocalDate postingDate = DateUtils.getLocalDateOfTenant();
+        final PartitionedJobResult result = new PartitionedJobResult();
+
+        final PartitionedJobItemProcessor<Long> processor = new PartitionedJobItemProcessor<Long>() {
+
+            @Override
+            public Long partitionKey(final Long savingsId) {
+                return savingsId;
+            }
+
+            @Override
+            public void process(final Long savingsId) {
+                final SavingsAccount account = SavingsAccountWritePlatformServiceJpaRepositoryImpl.this.savingAccountRepository
+                        .findOne(savingsId);
+                SavingsAccountWritePlatformServiceJpaRepositoryImpl.this.savingAccountAssembler.assignSavingAccountHelpers(account);
+                postInterest(account);
+            }
+
+            @Override
+            public String describeFailure(final Long savingsId) {
+                return "Post interest failed for account:" + savingsId;
+            }
+        };
+
+        final String sql = "select sa.id from m_savings_account sa where sa.status_enum = ? and sa.id > ? order by sa.id limit ?";
+        Long lastAccountId = resumeInterestPostingFrom(postingDate);
+        List<Long> savingsIds;
+        do {
+            savingsIds = this.jdbcTemplate.queryForList(sql, Long.class, SavingsAccountStatusType.ACTIVE.getValue(), lastAccountId,
+                    INTEREST_POSTING_PAGE_SIZE);
+            if (savingsIds.isEmpty()) {
+                break;
+            }
+            result.merge(this.partitionedJobRunner.run(JobName.POST_INTEREST_FOR_SAVINGS, savingsIds, INTEREST_POSTING_CHUNK_SIZE,
+                    processor));
+            lastAccountId = savingsIds.get(savingsIds.size() - 1);
+            saveInterestPostingCheckpoint(postingDate, lastAccountId);
+        } while (savingsIds.size() == INTEREST_POSTING_PAGE_SIZE);
+        clearInterestPostingCheckpoint();
+
+        result.completedIn(System.currentTimeMillis() - startTime);
+        for (final String error : result.getErrors()) {
+            logger.error(error);
         }
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Interest posted for " + result.getProcessedCount()
+                + " savings accounts in " + result.getElapsedMillis() + " ms, failures: " + result.getFailedCount());
+        return result;
+    }
+
+    /**
+     * A checkpoint left behind by a run on an earlier posting date is of no
+     * use, every account has to be posted again for the new date.
+     */
+    private Long resumeInterestPostingFrom(final LocalDate postingDate) {
+        final List<Long> lastAccountIds = this.jdbcTemplate.queryForList(
+                "select cp.last_account_id from m_savings_interest_posting_checkpoint cp where cp.posting_date = ?", Long.class,
+                postingDate.toDate());
+        if (lastAccountIds.isEmpty()) { return Long.valueOf(0); }
+        logger.info("Resuming interest posting for " + postingDate + " after savings account " + lastAccountIds.get(0));
+        return lastAccountIds.get(0);
+    }
+
+    private void saveInterestPostingCheckpoint(final LocalDate postingDate, final Long lastAccountId) {
+        clearInterestPostingCheckpoint();
+        this.jdbcTemplate.update(
+                "insert into m_savings_interest_posting_checkpoint (posting_date, last_account_id, lastmodified_date) values (?, ?, now())",
+                postingDate.toDate(), lastAccountId);
+    }
+
+    private void clearInterestPostingCheckpoint() {
+        this.jdbcTemplate.update("delete from m_savings_interest_posting_checkpoint");
     }
 
     @Override
@@ -5,6 +5,7 @@
  */
 package org.mifosplatform.scheduledjobs.service;
 
+import org.mifosplatform.infrastructure.jobs.data.PartitionedJobResult;
 import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
 
 public interface ScheduledJobRunnerService {
@@ -15,9 +16,9 @@ public interface ScheduledJobRunnerService {
 
     void updateLoanPaidInAdvance();
 
-    void applyAnnualFeeForSavings();
+    PartitionedJobResult applyAnnualFeeForSavings();
 
-    void applyDueChargesForSavings() throws JobExecutionException;
+    PartitionedJobResult applyDueChargesForSavings() throws JobExecutionException;
 
     void updateNPA();
 
@@ -6,15 +6,25 @@
 package org.mifosplatform.scheduledjobs.service;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
+import org.joda.time.DateTime;
+import org.joda.time.LocalDateTime;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.mifosplatform.infrastructure.core.data.ApiParameterError;
 import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.mifosplatform.infrastructure.core.service.DateUtils;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSourceServiceFactory;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
+import org.mifosplatform.infrastructure.jobs.data.PartitionedJobResult;
 import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.PartitionedJobItemProcessor;
+import org.mifosplatform.infrastructure.jobs.service.PartitionedJobRunner;
+import org.mifosplatform.infrastructure.jobs.service.SchedulerServiceConstants;
 import org.mifosplatform.portfolio.savings.DepositAccountType;
 import org.mifosplatform.portfolio.savings.data.DepositAccountData;
 import org.mifosplatform.portfolio.savings.data.SavingsAccountAnnualFeeData;
@@ -34,23 +44,38 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
 
     private final static Logger logger = LoggerFactory.getLogger(ScheduledJobRunnerServiceImpl.class);
 
+    private static final int SAVINGS_CHARGE_CHUNK_SIZE = 100;
+    private static final int WATERMARK_SAFETY_MARGIN_MINUTES = 10;
+
     private final RoutingDataSourceServiceFactory dataSourceServiceFactory;
     private final SavingsAccountWritePlatformService savingsAccountWritePlatformService;
     private final SavingsAccountChargeReadPlatformService savingsAccountChargeReadPlatformService;
     private final DepositAccountReadPlatformService depositAccountReadPlatformService;
     private final DepositAccountWritePlatformService depositAccountWritePlatformService;
+    private final PartitionedJobRunner partitionedJobRunner;
+    private final ConfigurationDomainService configurationDomainService;
+    /*
+     * bound to the surrounding transaction, unlike the templates created over
+     * the tenant data source below, so that deletes and inserts of an
+     * incremental refresh become visible to readers together
+     */
+    private final JdbcTemplate jdbcTemplate;
 
     @Autowired
     public ScheduledJobRunnerServiceImpl(final RoutingDataSourceServiceFactory dataSourceServiceFactory,
             final SavingsAccountWritePlatformService savingsAccountWritePlatformService,
             final SavingsAccountChargeReadPlatformService savingsAccountChargeReadPlatformService,
             final DepositAccountReadPlatformService depositAccountReadPlatformService,
-            final DepositAccountWritePlatformService depositAccountWritePlatformService) {
+            final DepositAccountWritePlatformService depositAccountWritePlatformService, final PartitionedJobRunner partitionedJobRunner,
+            final ConfigurationDomainService configurationDomainService, final RoutingDataSource dataSource) {
         this.dataSourceServiceFactory = dataSourceServiceFactory;
         this.savingsAccountWritePlatformService = savingsAccountWritePlatformService;
         this.savingsAccountChargeReadPlatformService = savingsAccountChargeReadPlatformService;
         this.depositAccountReadPlatformService = depositAccountReadPlatformService;
         this.depositAccountWritePlatformService = depositAccountWritePlatformService;
+        this.partitionedJobRunner = partitionedJobRunner;
+        this.configurationDomainService = configurationDomainService;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
     }
 
     @Transactional
@@ -58,7 +83,7 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
     @CronTarget(jobName = JobName.UPDATE_LOAN_SUMMARY)
     public void updateLoanSummaryDetails() {
 
-        final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSourceServiceFactory.determineDataSourceService().retrieveDataSource());
+        final Date watermark = retrieveIncrementalUpdateWatermark(JobName.UPDATE_LOAN_SUMMARY);
 
         final StringBuilder updateSqlBuilder = new StringBuilder(900);
         updateSqlBuilder.append("update m_loan ");
@@ -83,6 +108,9 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         updateSqlBuilder.append("SUM(IFNULL(mr.penalty_charges_writtenoff_derived,0)) as penalty_charges_writtenoff_derived ");
         updateSqlBuilder.append(" FROM m_loan ml ");
         updateSqlBuilder.append("INNER JOIN m_loan_repayment_schedule mr on mr.loan_id = ml.id ");
+        if (watermark != null) {
+            updateSqlBuilder.append("INNER JOIN (").append(loansTouchedSinceSql(null)).append(") touched on touched.loan_id = ml.id ");
+        }
         updateSqlBuilder.append("WHERE ml.disbursedon_date is not null ");
         updateSqlBuilder.append("GROUP BY ml.id ");
         updateSqlBuilder.append(") x on x.loanId = m_loan.id ");
@@ -131,7 +159,14 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         updateSqlBuilder
                 .append(" (x.penalty_charges_charged_derived - (x.penalty_charges_repaid_derived + x.penalty_charges_waived_derived + x.penalty_charges_writtenoff_derived))");
 
-        final int result = jdbcTemplate.update(updateSqlBuilder.toString());
+        final int result;
+        if (watermark == null) {
+            final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSourceServiceFactory.determineDataSourceService()
+                    .retrieveDataSource());
+            result = jdbcTemplate.update(updateSqlBuilder.toString());
+        } else {
+            result = this.jdbcTemplate.update(updateSqlBuilder.toString(), loansTouchedSinceParams(watermark, false));
+        }
 
         logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Results affected by update: " + result);
     }
@@ -141,14 +176,17 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
     @CronTarget(jobName = JobName.UPDATE_LOAN_ARREARS_AGEING)
     public void updateLoanArrearsAgeingDetails() {
 
-        final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSourceServiceFactory.determineDataSourceService().retrieveDataSource());
-
-        jdbcTemplate.execute("truncate table m_loan_arrears_aging");
+        final Date watermark = retrieveIncrementalUpdateWatermark(JobName.UPDATE_LOAN_ARREARS_AGEING);
+        // loans with an installment that went past its grace period since
+        // the last run are in arrears now without having been touched
+        final String becameOverdueSql = "select mr.loan_id from m_loan_repayment_schedule mr inner join m_loan ml on ml.id = mr.loan_id "
+                + "where mr.duedate >= SUBDATE(DATE(?),INTERVAL ifnull(ml.grace_on_arrears_ageing,0) day) "
+                + "and mr.duedate < SUBDATE(CURDATE(),INTERVAL ifnull(ml.grace_on_arrears_ageing,0) day)";
 
         final StringBuilder updateSqlBuilder = new StringBuilder(900);
 
         updateSqlBuilder
-                .append("INSERT INTO m_loan_arrears_aging(`loan_id`,`principal_overdue_derived`,`interest_overdue_derived`,`fee_charges_overdue_derived`,`penalty_charges_overdue_derived`,`total_overdue_derived`,`overdue_since_date_derived`)");
+                .append("(`loan_id`,`principal_overdue_derived`,`interest_overdue_derived`,`fee_charges_overdue_derived`,`penalty_charges_overdue_derived`,`total_overdue_derived`,`overdue_since_date_derived`)");
         updateSqlBuilder.append("select ml.id as loanId,");
         updateSqlBuilder
                 .append("SUM((ifnull(mr.principal_amount,0) - ifnull(mr.principal_completed_derived, 0))) as principal_overdue_derived,");
@@ -166,12 +204,22 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         updateSqlBuilder.append("MIN(mr.duedate) as overdue_since_date_derived ");
         updateSqlBuilder.append(" FROM m_loan ml ");
         updateSqlBuilder.append(" INNER JOIN m_loan_repayment_schedule mr on mr.loan_id = ml.id ");
+        if (watermark != null) {
+            updateSqlBuilder.append(" INNER JOIN (").append(loansTouchedSinceSql(becameOverdueSql))
+                    .append(") touched on touched.loan_id = ml.id ");
+        }
         updateSqlBuilder.append(" WHERE ml.loan_status_id = 300 "); // active
         updateSqlBuilder.append(" and mr.completed_derived is false ");
         updateSqlBuilder.append(" and mr.duedate < SUBDATE(CURDATE(),INTERVAL  ifnull(ml.grace_on_arrears_ageing,0) day) ");
         updateSqlBuilder.append(" GROUP BY ml.id");
 
-        final int result = jdbcTemplate.update(updateSqlBuilder.toString());
+        final int result;
+        if (watermark == null) {
+            result = rebuildUsingShadowTable("m_loan_arrears_aging", updateSqlBuilder.toString());
+        } else {
+            result = refreshTouchedLoans("m_loan_arrears_aging", updateSqlBuilder.toString(), loansTouchedSinceSql(becameOverdueSql),
+                    watermark);
+        }
 
         logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Results affected by update: " + result);
     }
@@ -181,14 +229,16 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
     @CronTarget(jobName = JobName.UPDATE_LOAN_PAID_IN_ADVANCE)
     public void updateLoanPaidInAdvance() {
 
-        final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSourceServiceFactory.determineDataSourceService().retrieveDataSource());
-
-        jdbcTemplate.execute("truncate table m_loan_paid_in_advance");
+        final Date watermark = retrieveIncrementalUpdateWatermark(JobName.UPDATE_LOAN_PAID_IN_ADVANCE);
+        // installments that fell due since the last run no longer count as
+        // paid in advance
+        final String fellDueSql = "select mr.loan_id from m_loan_repayment_schedule mr "
+                + "where mr.duedate >= DATE(?) and mr.duedate < CURDATE()";
 
         final StringBuilder updateSqlBuilder = new StringBuilder(900);
 
         updateSqlBuilder
-                .append("INSERT INTO m_loan_paid_in_advance(loan_id, principal_in_advance_derived, interest_in_advance_derived, fee_charges_in_advance_derived, penalty_charges_in_advance_derived, total_in_advance_derived)");
+                .append("(loan_id, principal_in_advance_derived, interest_in_advance_derived, fee_charges_in_advance_derived, penalty_charges_in_advance_derived, total_in_advance_derived)");
         updateSqlBuilder.append(" select ml.id as loanId,");
         updateSqlBuilder.append(" SUM(ifnull(mr.principal_completed_derived, 0)) as principal_in_advance_derived,");
         updateSqlBuilder.append(" SUM(ifnull(mr.interest_completed_derived, 0)) as interest_in_advance_derived,");
@@ -198,6 +248,9 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
                 .append(" (SUM(ifnull(mr.principal_completed_derived, 0)) + SUM(ifnull(mr.interest_completed_derived, 0)) + SUM(ifnull(mr.fee_charges_completed_derived, 0)) + SUM(ifnull(mr.penalty_charges_completed_derived, 0))) as total_in_advance_derived");
         updateSqlBuilder.append(" FROM m_loan ml ");
         updateSqlBuilder.append(" INNER JOIN m_loan_repayment_schedule mr on mr.loan_id = ml.id ");
+        if (watermark != null) {
+            updateSqlBuilder.append(" INNER JOIN (").append(loansTouchedSinceSql(fellDueSql)).append(") touched on touched.loan_id = ml.id ");
+        }
         updateSqlBuilder.append(" WHERE ml.loan_status_id = 300 ");
         updateSqlBuilder.append(" and mr.duedate >= CURDATE() ");
         updateSqlBuilder.append(" GROUP BY ml.id");
@@ -206,56 +259,60 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         updateSqlBuilder
                 .append(" SUM(ifnull(mr.fee_charges_completed_derived, 0)) + SUM(ifnull(mr.penalty_charges_completed_derived, 0))) > 0.0");
 
-        final int result = jdbcTemplate.update(updateSqlBuilder.toString());
+        final int result;
+        if (watermark == null) {
+            result = rebuildUsingShadowTable("m_loan_paid_in_advance", updateSqlBuilder.toString());
+        } else {
+            result = refreshTouchedLoans("m_loan_paid_in_advance", updateSqlBuilder.toString(), loansTouchedSinceSql(fellDueSql),
+                    watermark);
+        }
 
         logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Results affected by update: " + result);
     }
 
     @Override
     @CronTarget(jobName = JobName.APPLY_ANNUAL_FEE_FOR_SAVINGS)
-    public void applyAnnualFeeForSavings() {
+    public PartitionedJobResult applyAnnualFeeForSavings() {
 
         final Collection<SavingsAccountAnnualFeeData> annualFeeData = this.savingsAccountChargeReadPlatformService
                 .retrieveChargesWithAnnualFeeDue();
 
-        for (final SavingsAccountAnnualFeeData savingsAccountReference : annualFeeData) {
-            try {
-                this.savingsAccountWritePlatformService.applyAnnualFee(savingsAccountReference.getId(),
-                        savingsAccountReference.getAccountId());
-            } catch (final PlatformApiDataValidationException e) {
-                final List<ApiParameterError> errors = e.getErrors();
-                for (final ApiParameterError error : errors) {
-                    logger.error("Apply annual fee failed for account:" + savingsAccountReference.getAccountNo() + " with message "
-                            + error.getDeveloperMessage());
-                }
-            } catch (final Exception ex) {
-                // need to handle this scenario
-            }
+        final PartitionedJobResult result = this.partitionedJobRunner.run(JobName.APPLY_ANNUAL_FEE_FOR_SAVINGS, annualFeeData,
+                SAVINGS_CHARGE_CHUNK_SIZE, new SavingsAccountChargeItemProcessor("Apply annual fee failed for account:") {
+
+                    @Override
+                    public void process(final SavingsAccountAnnualFeeData savingsAccountReference) {
+                        ScheduledJobRunnerServiceImpl.this.savingsAccountWritePlatformService.applyAnnualFee(
+                                savingsAccountReference.getId(), savingsAccountReference.getAccountId());
+                    }
+                });
+
+        for (final String error : result.getErrors()) {
+            logger.error(error);
         }
 
         logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Savings accounts affected by update: " + annualFeeData.size());
+        return result;
     }
 
     @Override
     @CronTarget(jobName = JobName.PAY_DUE_SAVINGS_CHARGES)
-    public void applyDueChargesForSavings() throws JobExecutionException {
+    public PartitionedJobResult applyDueChargesForSavings() throws JobExecutionException {
         final Collection<SavingsAccountAnnualFeeData> chargesDueData = this.savingsAccountChargeReadPlatformService
                 .retrieveChargesWithDue();
-        final StringBuilder errorMsg = new StringBuilder();
 
-        for (final SavingsAccountAnnualFeeData savingsAccountReference : chargesDueData) {
-            try {
-                this.savingsAccountWritePlatformService.applyChargeDue(savingsAccountReference.getId(),
-                        savingsAccountReference.getAccountId());
-            } catch (final PlatformApiDataValidationException e) {
-                final List<ApiParameterError> errors = e.getErrors();
-                for (final ApiParameterError error : errors) {
-                    logger.error("Apply Charges due for savings failed for account:" + savingsAccountReference.getAccountNo()
-                            + " with message " + error.getDeveloperMessage());
-                    errorMsg.append("Apply Charges due for savings failed for account:").append(savingsAccountReference.getAccountNo())
-                            .append(" with message ").append(error.getDeveloperMessage());
-                }
-            }
+        final PartitionedJobResult result = this.partitionedJobRunner.run(JobName.PAY_DUE_SAVINGS_CHARGES, chargesDueData,
+                SAVINGS_CHARGE_CHUNK_SIZE, new SavingsAccountChargeItemProcessor("Apply Charges due for savings failed for account:") {
+
+                    @Override
+                    public void process(final SavingsAccountAnnualFeeData savingsAccountReference) {
+                        ScheduledJobRunnerServiceImpl.this.savingsAccountWritePlatformService.applyChargeDue(
+                                savingsAccountReference.getId(), savingsAccountReference.getAccountId());
+                    }
+                });
+
+        for (final String error : result.getErrors()) {
+            logger.error(error);
         }
 
         logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Savings accounts affected by update: " + chargesDueData.size());
@@ -263,7 +320,8 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         /*
          * throw exception if any charge payment fails.
          */
-        if (errorMsg.length() > 0) { throw new JobExecutionException(errorMsg.toString()); }
+        if (result.hasErrors()) { throw new JobExecutionException(result.errorMessage()); }
+        return result;
     }
 
     @Transactional
@@ -315,4 +373,104 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Deposit accounts affected by update: " + depositAccounts.size());
     }
 
-}
\ No newline at end of file
+    /**
+     * Start of the last successful run of the job, on the clock of this JVM
+     * and less {@link #WATERMARK_SAFETY_MARGIN_MINUTES} for changes that were
+     * still being committed when it started. Null when the job has never
+     * succeeded or incremental updates are switched off, in which case the
+     * derived data is rebuilt for the whole loan book.
+     */
+    private Date retrieveIncrementalUpdateWatermark(final JobName jobName) {
+        if (!this.configurationDomainService.isIncrementalLoanJobsUpdateEnabled()) { return null; }
+        final Date lastRunStart = this.jdbcTemplate.queryForObject(
+                "select max(h.start_time) from job_run_history h inner join job j on j.id = h.job_id where j.name = ? and h.status = ?",
+                Date.class, jobName.toString(), SchedulerServiceConstants.STATUS_SUCCESS);
+        if (lastRunStart == null) { return null; }
+        return new DateTime(lastRunStart).minusMinutes(WATERMARK_SAFETY_MARGIN_MINUTES).toDate();
+    }
+
+    /**
+     * Parameters of {@link #loansTouchedSinceSql(String)}. The last modified
+     * date of a schedule is audited on the clock of this JVM but the created
+     * date of a transaction is the local time of the tenant, so the watermark
+     * is converted for the latter. The date driven selection gets the earlier
+     * of the two.
+     */
+    private static Object[] loansTouchedSinceParams(final Date watermark, final boolean withDateDrivenLoans) {
+        final Date tenantLocalWatermark = new LocalDateTime(watermark.getTime(), DateUtils.getDateTimeZoneOfTenant()).toDate();
+        if (!withDateDrivenLoans) { return new Object[] { watermark, tenantLocalWatermark }; }
+        final Date earlierWatermark = tenantLocalWatermark.before(watermark) ? tenantLocalWatermark : watermark;
+        return new Object[] { watermark, tenantLocalWatermark, earlierWatermark };
+    }
+
+    /**
+     * Loans whose schedule changed or that got a new transaction since the
+     * watermark, optionally combined with a date driven selection that takes
+     * the watermark as its only parameter.
+     */
+    private String loansTouchedSinceSql(final String dateDrivenLoansSql) {
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select mr.loan_id from m_loan_repayment_schedule mr where mr.lastmodified_date >= ? ");
+        sqlBuilder.append("union select lt.loan_id from m_loan_transaction lt where lt.created_date >= ? ");
+        if (dateDrivenLoansSql != null) {
+            sqlBuilder.append("union ").append(dateDrivenLoansSql);
+        }
+        return sqlBuilder.toString();
+    }
+
+    /**
+     * Replaces the rows of the touched loans in the surrounding transaction,
+     * so readers see either the previous or the refreshed rows of a loan but
+     * never a missing one.
+     */
+    private int refreshTouchedLoans(final String tableName, final String insertColumnsAndSelectSql, final String touchedLoansSql,
+            final Date watermark) {
+        final Object[] params = loansTouchedSinceParams(watermark, true);
+        this.jdbcTemplate.update("DELETE derived FROM " + tableName + " derived INNER JOIN (" + touchedLoansSql
+                + ") touched on touched.loan_id = derived.loan_id", params);
+        return this.jdbcTemplate.update("INSERT INTO " + tableName + insertColumnsAndSelectSql, params);
+    }
+
+    /**
+     * Rebuilds a derived table in a shadow copy and swaps it in with an atomic
+     * RENAME TABLE, rather than truncating the live table, so that reports
+     * never see it partially filled.
+     */
+    private int rebuildUsingShadowTable(final String tableName, final String insertColumnsAndSelectSql) {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSourceServiceFactory.determineDataSourceService().retrieveDataSource());
+        final String shadowTableName = tableName + "_shadow";
+        final String previousTableName = tableName + "_previous";
+
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + shadowTableName);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + previousTableName);
+        jdbcTemplate.execute("CREATE TABLE " + shadowTableName + " LIKE " + tableName);
+        final int result = jdbcTemplate.update("INSERT INTO " + shadowTableName + insertColumnsAndSelectSql);
+        jdbcTemplate.execute("RENAME TABLE " + tableName + " TO " + previousTableName + ", " + shadowTableName + " TO " + tableName);
+        jdbcTemplate.execute("DROP TABLE " + previousTableName);
+        return result;
+    }
+
+    /**
+     * Charges of the same savings account always land in the same chunk, so
+     * concurrent workers never update one account at the same time.
+     */
+    private static abstract class SavingsAccountChargeItemProcessor implements PartitionedJobItemProcessor<SavingsAccountAnnualFeeData> {
+
+        private final String failureMessage;
+
+        SavingsAccountChargeItemProcessor(final String failureMessage) {
+            this.failureMessage = failureMessage;
+        }
+
+        @Override
+        public Long partitionKey(final SavingsAccountAnnualFeeData savingsAccountReference) {
+            return savingsAccountReference.getAccountId();
+        }
+
+        @Override
+        public String describeFailure(final SavingsAccountAnnualFeeData savingsAccountReference) {
+            return this.failureMessage + savingsAccountReference.getAccountNo();
+        }
+    }
+
+}
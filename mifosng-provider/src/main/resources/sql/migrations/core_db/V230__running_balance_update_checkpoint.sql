@@ -0,0 +1,12 @@
+-- Resume point for the chunked running balance update. A row is written as each chunk of
+-- acc_gl_journal_entry updates is committed and removed once a run completes, so a run that
+-- is interrupted restarts from the last committed entry date instead of silently leaving
+-- already flagged entries with stale balances. office_id is null for organization level runs.
+CREATE TABLE `acc_gl_running_balance_checkpoint` (
+	`id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+	`office_id` BIGINT(20) NULL DEFAULT NULL,
+	`resume_from_date` DATE NOT NULL,
+	`lastmodified_date` DATETIME NOT NULL,
+	PRIMARY KEY (`id`),
+	INDEX `IDX_running_balance_checkpoint_office` (`office_id`)
+);
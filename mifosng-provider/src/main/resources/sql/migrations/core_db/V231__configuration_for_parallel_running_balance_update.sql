@@ -0,0 +1,3 @@
+insert into c_configuration (name, value, enabled, description)
+	values ('parallel-running-balance-update', 4, 0,
+	'Compute office running balances for each office concurrently during the running balance update. The value is the number of worker threads, each of which holds its own database connection, so it must stay well below the tenant connection pool size.');
@@ -0,0 +1,3 @@
+insert into c_configuration (name, value, enabled, description)
+	values ('job-worker-threads', 4, 0,
+	'Number of worker threads used by partitioned batch jobs (savings annual fees and due charges). Each worker holds its own database connection while processing a chunk of accounts. When disabled, chunks are processed one after another on the scheduler thread.');
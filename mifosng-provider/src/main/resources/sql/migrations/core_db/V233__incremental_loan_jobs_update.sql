@@ -0,0 +1,17 @@
+-- The arrears ageing and paid in advance tables are now rebuilt into a shadow copy that is swapped in with
+-- RENAME TABLE. CREATE TABLE ... LIKE does not carry foreign keys over, so they are dropped up front to keep
+-- the schema the same before and after a rebuild. Both tables are derived data keyed by loan_id.
+ALTER TABLE `m_loan_arrears_aging` DROP FOREIGN KEY `m_loan_arrears_aging_ibfk_1`;
+ALTER TABLE `m_loan_paid_in_advance` DROP FOREIGN KEY `m_loan_paid_in_advance_ibfk_1`;
+
+-- Used to find loans touched since the last successful run of the loan jobs
+ALTER TABLE `m_loan_repayment_schedule`
+	ADD INDEX `IDX_m_loan_repayment_schedule_lastmodified_date` (`lastmodified_date`),
+	ADD INDEX `IDX_m_loan_repayment_schedule_duedate` (`duedate`);
+
+ALTER TABLE `m_loan_transaction`
+	ADD INDEX `IDX_m_loan_transaction_created_date` (`created_date`);
+
+insert into c_configuration (name, value, enabled, description)
+	values ('incremental-loan-jobs-update', NULL, 0,
+	'Update loan summary, arrears ageing and paid in advance details only for loans touched since the last successful run of each job, instead of the whole loan book.');
@@ -0,0 +1,16 @@
+-- Throughput and failure counts of jobs that run through the partitioned job runner.
+ALTER TABLE `job_run_history`
+	ADD COLUMN `processed_count` INT(11) NULL DEFAULT NULL AFTER `error_log`,
+	ADD COLUMN `failed_count` INT(11) NULL DEFAULT NULL AFTER `processed_count`,
+	ADD COLUMN `items_per_second` DECIMAL(19,2) NULL DEFAULT NULL AFTER `failed_count`;
+
+-- Resume point for the paged savings interest posting job. The row is updated as each page of
+-- accounts is posted and removed once a run completes, so a run interrupted on the same posting
+-- date carries on after the last posted page instead of starting over.
+CREATE TABLE `m_savings_interest_posting_checkpoint` (
+	`id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+	`posting_date` DATE NOT NULL,
+	`last_account_id` BIGINT(20) NOT NULL,
+	`lastmodified_date` DATETIME NOT NULL,
+	PRIMARY KEY (`id`)
+);
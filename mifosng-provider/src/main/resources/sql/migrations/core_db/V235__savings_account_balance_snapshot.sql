@@ -0,0 +1,11 @@
+-- State of the interest calculation at the end of the last posted interest posting period of a savings account.
+-- Calculations resume from it rather than replaying the entire transaction history; the transaction counts are
+-- used to detect back-dated transactions and reversals on or before the snapshot date, which force a full recalculation.
+-- Accounts start without a snapshot, one is taken on their next interest posting.
+ALTER TABLE `m_savings_account`
+	ADD COLUMN `balance_snapshot_date` DATE NULL DEFAULT NULL,
+	ADD COLUMN `balance_snapshot_closing_balance` DECIMAL(19,6) NULL DEFAULT NULL,
+	ADD COLUMN `balance_snapshot_interest_carried` DECIMAL(19,6) NULL DEFAULT NULL,
+	ADD COLUMN `balance_snapshot_interest_earned` DECIMAL(19,6) NULL DEFAULT NULL,
+	ADD COLUMN `balance_snapshot_transaction_count` INT(11) NULL DEFAULT NULL,
+	ADD COLUMN `balance_snapshot_reversed_count` INT(11) NULL DEFAULT NULL;
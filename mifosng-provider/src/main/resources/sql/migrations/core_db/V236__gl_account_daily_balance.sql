@@ -0,0 +1,27 @@
+-- Per office, GL account and day totals of acc_gl_journal_entry together with the office running balance at
+-- the end of that day. Rows are rewritten by the running balance update job from the first recomputed date
+-- onwards, so balance queries read the latest row on or before a date and only add entries the job has not
+-- yet processed. Existing data is snapshotted by the next run, which the checkpoints below force to start
+-- from the first journal entry of every office.
+CREATE TABLE `acc_gl_account_daily_balance` (
+	`office_id` BIGINT(20) NOT NULL,
+	`account_id` BIGINT(20) NOT NULL,
+	`balance_date` DATE NOT NULL,
+	`debit_amount` DECIMAL(19,6) NOT NULL,
+	`credit_amount` DECIMAL(19,6) NOT NULL,
+	`closing_balance` DECIMAL(19,6) NOT NULL,
+	PRIMARY KEY (`office_id`, `account_id`, `balance_date`),
+	INDEX `IDX_gl_account_daily_balance_date` (`balance_date`),
+	CONSTRAINT `FK_gl_account_daily_balance_office` FOREIGN KEY (`office_id`) REFERENCES `m_office` (`id`),
+	CONSTRAINT `FK_gl_account_daily_balance_account` FOREIGN KEY (`account_id`) REFERENCES `acc_gl_account` (`id`)
+);
+
+-- finds the first entry the running balance job has not processed, which bounds how far the snapshot can be trusted
+ALTER TABLE `acc_gl_journal_entry`
+	ADD INDEX `IDX_journal_entry_running_balance_pending` (`is_running_balance_calculated`, `entry_date`);
+
+INSERT INTO `acc_gl_running_balance_checkpoint` (`office_id`, `resume_from_date`, `lastmodified_date`)
+SELECT je.office_id, MIN(je.entry_date), NOW() FROM acc_gl_journal_entry je GROUP BY je.office_id;
+
+INSERT INTO `acc_gl_running_balance_checkpoint` (`office_id`, `resume_from_date`, `lastmodified_date`)
+SELECT NULL, MIN(je.entry_date), NOW() FROM acc_gl_journal_entry je HAVING MIN(je.entry_date) IS NOT NULL;
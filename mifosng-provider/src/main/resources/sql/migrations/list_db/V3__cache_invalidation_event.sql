@@ -0,0 +1,9 @@
+CREATE TABLE `cache_invalidation_event` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `node_id` varchar(36) NOT NULL,
+  `cache_name` varchar(100) NOT NULL,
+  `cache_key` varchar(500) DEFAULT NULL,
+  `created_time` datetime NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `idx_cache_invalidation_event_created_time` (`created_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
@@ -0,0 +1,16 @@
+CREATE TABLE `hook_delivery` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `tenant_identifier` varchar(100) NOT NULL,
+  `hook_id` bigint(20) NOT NULL,
+  `entity_name` varchar(100) NOT NULL,
+  `action_name` varchar(100) NOT NULL,
+  `payload` longtext NOT NULL,
+  `status` varchar(10) NOT NULL,
+  `attempts` int(11) NOT NULL DEFAULT '0',
+  `next_attempt_time` datetime NOT NULL,
+  `locked_until` datetime DEFAULT NULL,
+  `last_error` varchar(500) DEFAULT NULL,
+  `created_time` datetime NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `idx_hook_delivery_status_next_attempt_time` (`status`,`next_attempt_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
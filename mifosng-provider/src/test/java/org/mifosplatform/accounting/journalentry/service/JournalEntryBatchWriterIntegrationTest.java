@@ -0,0 +1,216 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.accounting.glaccount.domain.GLAccount;
+import org.mifosplatform.accounting.glaccount.domain.GLAccountRepository;
+import org.mifosplatform.accounting.journalentry.data.JournalEntryAssociationParametersData;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntry;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryRepository;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryType;
+import org.mifosplatform.commands.service.CommandWrapperBuilder;
+import org.mifosplatform.commands.service.PortfolioCommandSourceWritePlatformService;
+import org.mifosplatform.infrastructure.core.boot.tests.AbstractSpringBootWithMariaDB4jIntegrationTest;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.SearchParameters;
+import org.mifosplatform.infrastructure.security.service.PlatformUserDetailsService;
+import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
+import org.mifosplatform.organisation.office.domain.Office;
+import org.mifosplatform.organisation.office.domain.OfficeRepository;
+import org.mifosplatform.portfolio.account.PortfolioAccountType;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCommandFixture;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.gson.Gson;
+
+/**
+ * Checks the rows {@link JournalEntryBatchWriter} inserts against the ones
+ * the {@link JournalEntry} mapping writes for the same entry, and that
+ * entries still buffered in a transaction are seen by the journal entry reads
+ * made later in that transaction.
+ */
+public class JournalEntryBatchWriterIntegrationTest extends AbstractSpringBootWithMariaDB4jIntegrationTest {
+
+    private static final Long OFFICE_ID = 1L;
+    private static final Long ENTITY_ID = 7L;
+
+    /** columns that differ between any two entries, whoever writes them */
+    private static final String[] ENTRY_IDENTITY_COLUMNS = { "id", "transaction_id", "created_date", "lastmodified_date" };
+
+    @Autowired
+    private PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
+
+    @Autowired
+    private TenantDetailsService tenantDetailsService;
+
+    @Autowired
+    private PlatformUserDetailsService userDetailsService;
+
+    @Autowired
+    private JournalEntryBatchWriter journalEntryBatchWriter;
+
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    @Autowired
+    private JournalEntryReadPlatformService journalEntryReadPlatformService;
+
+    @Autowired
+    private GLAccountRepository glAccountRepository;
+
+    @Autowired
+    private OfficeRepository officeRepository;
+
+    @Autowired
+    private RoutingDataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private LoanCommandFixture loans;
+    private Long accountId;
+
+    @Before
+    public void setUp() {
+        // only used to run as the "mifos" user of the default tenant
+        this.loans = new LoanCommandFixture(this.commandsSourceWritePlatformService, this.tenantDetailsService, this.userDetailsService);
+        this.accountId = createGLAccount();
+    }
+
+    @After
+    public void tearDown() {
+        this.loans.logout();
+    }
+
+    @Test
+    public void insertedRowsMatchTheRowsOfTheJpaMapping() {
+        final String batchTransactionId = uniqueTransactionId();
+        final String jpaTransactionId = uniqueTransactionId();
+        final Date entryDate = LoanCommandFixture.DISBURSEMENT_DATE.toDate();
+
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                final JournalEntryBatchWriterIntegrationTest test = JournalEntryBatchWriterIntegrationTest.this;
+                final Office office = test.officeRepository.findOne(OFFICE_ID);
+                final GLAccount account = test.glAccountRepository.findOne(test.accountId);
+
+                test.journalEntryBatchWriter.write(OFFICE_ID, test.accountId, "USD", batchTransactionId, null, null, entryDate,
+                        JournalEntryType.DEBIT, new BigDecimal("125.50"), PortfolioAccountType.LOAN.getValue(), ENTITY_ID);
+                test.journalEntryRepository.saveAndFlush(JournalEntry.createNew(office, null, account, "USD", jpaTransactionId, false,
+                        entryDate, JournalEntryType.DEBIT, new BigDecimal("125.50"), null, PortfolioAccountType.LOAN.getValue(),
+                        ENTITY_ID, null, null, null));
+            }
+        });
+
+        final Map<String, Object> batchRow = entryRow(batchTransactionId);
+        final Map<String, Object> jpaRow = entryRow(jpaTransactionId);
+
+        assertNotNull(batchRow.get("created_date"));
+        assertNotNull(batchRow.get("lastmodified_date"));
+        assertNotNull(batchRow.get("createdby_id"));
+        assertEquals(0, ((Number) batchRow.get("is_running_balance_calculated")).intValue());
+        assertEquals(withoutIdentity(jpaRow), withoutIdentity(batchRow));
+    }
+
+    @Test
+    public void bufferedEntriesAreReadInTheTransactionThatWroteThem() {
+        final String transactionId = uniqueTransactionId();
+
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                final JournalEntryBatchWriterIntegrationTest test = JournalEntryBatchWriterIntegrationTest.this;
+                test.journalEntryBatchWriter.write(OFFICE_ID, test.accountId, "USD", transactionId, null, null,
+                        LoanCommandFixture.DISBURSEMENT_DATE.toDate(), JournalEntryType.CREDIT, BigDecimal.TEN,
+                        PortfolioAccountType.LOAN.getValue(), ENTITY_ID);
+
+                assertEquals(1, test.journalEntryRepository.findFirstJournalEntryForAccount(test.accountId).size());
+                assertEquals(1, test.journalEntryReadPlatformService
+                        .retrieveAll(SearchParameters.forJournalEntries(null, 0, 10, null, null), null, null, null, null, transactionId,
+                                null, new JournalEntryAssociationParametersData()).getTotalFilteredRecords());
+            }
+        });
+
+        assertEquals(1, entryCount(transactionId));
+    }
+
+    @Test
+    public void rolledBackEntriesAreNeverInserted() {
+        final String transactionId = uniqueTransactionId();
+
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                final JournalEntryBatchWriterIntegrationTest test = JournalEntryBatchWriterIntegrationTest.this;
+                test.journalEntryBatchWriter.write(OFFICE_ID, test.accountId, "USD", transactionId, null, null,
+                        LoanCommandFixture.DISBURSEMENT_DATE.toDate(), JournalEntryType.CREDIT, BigDecimal.TEN,
+                        PortfolioAccountType.LOAN.getValue(), ENTITY_ID);
+                status.setRollbackOnly();
+            }
+        });
+
+        assertEquals(0, entryCount(transactionId));
+    }
+
+    private Long createGLAccount() {
+        final String glCode = uniqueTransactionId();
+        final Map<String, Object> account = new HashMap<>();
+        account.put("name", "Account " + glCode);
+        account.put("glCode", glCode);
+        account.put("manualEntriesAllowed", true);
+        account.put("type", 1);
+        account.put("usage", 1);
+        return this.commandsSourceWritePlatformService.logCommandSource(
+                new CommandWrapperBuilder().createGLAccount().withJson(new Gson().toJson(account)).build()).resourceId();
+    }
+
+    private Map<String, Object> entryRow(final String transactionId) {
+        final List<Map<String, Object>> rows = new JdbcTemplate(this.dataSource).queryForList(
+                "select * from acc_gl_journal_entry where transaction_id = ?", transactionId);
+        assertEquals(1, rows.size());
+        return rows.get(0);
+    }
+
+    private int entryCount(final String transactionId) {
+        return new JdbcTemplate(this.dataSource).queryForObject("select count(*) from acc_gl_journal_entry where transaction_id = ?",
+                Integer.class, transactionId);
+    }
+
+    private static Map<String, Object> withoutIdentity(final Map<String, Object> row) {
+        final Map<String, Object> columns = new HashMap<>(row);
+        for (final String column : ENTRY_IDENTITY_COLUMNS) {
+            assertTrue(column, columns.containsKey(column));
+            columns.remove(column);
+        }
+        return columns;
+    }
+
+    private static String uniqueTransactionId() {
+        // loan transaction ids are "L" followed by the id of the transaction
+        return "L" + System.nanoTime();
+    }
+}
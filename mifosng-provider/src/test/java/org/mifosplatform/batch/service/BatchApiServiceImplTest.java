@@ -0,0 +1,235 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.batch.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.batch.command.CommandContext;
+import org.mifosplatform.batch.command.CommandStrategy;
+import org.mifosplatform.batch.command.CommandStrategyProvider;
+import org.mifosplatform.batch.domain.BatchRequest;
+import org.mifosplatform.batch.domain.BatchResponse;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs batches in parallel with a command strategy that records the context
+ * each request is executed in, and lets requests finish out of order.
+ */
+public class BatchApiServiceImplTest {
+
+    private static final long WAIT_SECONDS = 10;
+
+    private final Map<Long, ExecutionContext> executions = new ConcurrentHashMap<>();
+    private final CountDownLatch lastRootExecuted = new CountDownLatch(1);
+    private volatile Long failingRequestId;
+    private final UriInfo uriInfo = mock(UriInfo.class);
+
+    private CommandStrategyProvider strategyProvider;
+    private BatchApiServiceImpl batchApiService;
+
+    @Before
+    public void setUp() {
+        this.strategyProvider = mock(CommandStrategyProvider.class);
+        when(this.strategyProvider.getCommandStrategy(any(CommandContext.class))).thenReturn(new RecordingCommandStrategy());
+        this.batchApiService = batchApiService(4);
+    }
+
+    @After
+    public void tearDown() {
+        this.batchApiService.shutdown();
+        SecurityContextHolder.clearContext();
+        ThreadLocalContextUtil.clearTenant();
+        ThreadLocalContextUtil.setAuthToken(null);
+    }
+
+    @Test
+    public void responsesAreInRequestOrderWhateverOrderTheRequestsFinishIn() {
+        login(mock(MifosPlatformTenant.class), "mifos", "token");
+
+        // request 1 only finishes once request 3 has been executed
+        final List<BatchResponse> responses = this.batchApiService.handleBatchRequestsInParallelWithoutEnclosingTransaction(
+                Arrays.asList(request(1L, null), request(2L, null), request(3L, null), request(4L, 1L), request(5L, 3L)), this.uriInfo);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), requestIds(responses));
+        for (final BatchResponse response : responses) {
+            assertEquals(Integer.valueOf(200), response.getStatusCode());
+            assertEquals("{\"resourceId\":" + response.getRequestId() + "}", response.getBody());
+        }
+        assertEquals(this.executions.get(1L).thread, this.executions.get(4L).thread);
+        assertEquals(this.executions.get(3L).thread, this.executions.get(5L).thread);
+        assertFalse(this.executions.get(1L).thread.equals(this.executions.get(3L).thread));
+    }
+
+    @Test
+    public void requestsRunInTheTenantAndSecurityContextOfTheCaller() {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        final Authentication user = login(tenant, "mifos", "token");
+
+        this.batchApiService.handleBatchRequestsInParallelWithoutEnclosingTransaction(
+                Arrays.asList(request(1L, null), request(2L, null), request(3L, null), request(4L, 2L)), this.uriInfo);
+
+        assertEquals(4, this.executions.size());
+        for (final ExecutionContext execution : this.executions.values()) {
+            assertSame(tenant, execution.tenant);
+            assertSame(user, execution.authentication);
+            assertEquals("token", execution.authToken);
+            assertTrue(execution.thread, execution.thread.startsWith("batch-request-worker-"));
+        }
+
+        // the caller keeps its own context
+        assertSame(tenant, ThreadLocalContextUtil.getTenant());
+        assertSame(user, SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    public void workerThreadsTakeTheContextOfEachBatch() {
+        // a single worker runs the requests of both batches
+        final BatchApiServiceImpl singleThreadedService = batchApiService(1);
+        try {
+            login(mock(MifosPlatformTenant.class), "mifos", "first token");
+            singleThreadedService.handleBatchRequestsInParallelWithoutEnclosingTransaction(
+                    Arrays.asList(request(2L, null), request(4L, null)), this.uriInfo);
+            final String worker = this.executions.get(2L).thread;
+
+            SecurityContextHolder.clearContext();
+            final MifosPlatformTenant secondTenant = mock(MifosPlatformTenant.class);
+            final Authentication secondUser = login(secondTenant, "other", "second token");
+            this.executions.clear();
+            singleThreadedService.handleBatchRequestsInParallelWithoutEnclosingTransaction(
+                    Arrays.asList(request(2L, null), request(6L, null)), this.uriInfo);
+
+            assertEquals(2, this.executions.size());
+            for (final ExecutionContext execution : this.executions.values()) {
+                assertEquals(worker, execution.thread);
+                assertSame(secondTenant, execution.tenant);
+                assertSame(secondUser, execution.authentication);
+                assertEquals("second token", execution.authToken);
+            }
+        } finally {
+            singleThreadedService.shutdown();
+        }
+    }
+
+    @Test
+    public void failedRootIsAnsweredInOrderAndItsDependentsWithAConflict() {
+        login(mock(MifosPlatformTenant.class), "mifos", "token");
+        this.failingRequestId = 2L;
+
+        final List<BatchResponse> responses = this.batchApiService.handleBatchRequestsInParallelWithoutEnclosingTransaction(
+                Arrays.asList(request(1L, null), request(2L, null), request(3L, null), request(4L, 2L), request(5L, 1L)), this.uriInfo);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), requestIds(responses));
+        assertEquals(Arrays.asList(200, 500, 200, 409, 200), statusCodes(responses));
+        assertFalse(this.executions.containsKey(4L));
+    }
+
+    private BatchApiServiceImpl batchApiService(final int parallelThreads) {
+        return new BatchApiServiceImpl(this.strategyProvider, new ResolutionHelper(new FromJsonHelper()), mock(TransactionTemplate.class),
+                parallelThreads);
+    }
+
+    private static Authentication login(final MifosPlatformTenant tenant, final String username, final String authToken) {
+        final Authentication authentication = new UsernamePasswordAuthenticationToken(username, null);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        ThreadLocalContextUtil.setTenant(tenant);
+        ThreadLocalContextUtil.setAuthToken(authToken);
+        return authentication;
+    }
+
+    private static BatchRequest request(final Long requestId, final Long reference) {
+        final BatchRequest request = new BatchRequest();
+        request.setRequestId(requestId);
+        request.setReference(reference);
+        request.setRelativeUrl("clients");
+        request.setMethod("POST");
+        request.setBody("{}");
+        return request;
+    }
+
+    private static List<Long> requestIds(final List<BatchResponse> responses) {
+        final List<Long> requestIds = new ArrayList<>(responses.size());
+        for (final BatchResponse response : responses) {
+            requestIds.add(response.getRequestId());
+        }
+        return requestIds;
+    }
+
+    private static List<Integer> statusCodes(final List<BatchResponse> responses) {
+        final List<Integer> statusCodes = new ArrayList<>(responses.size());
+        for (final BatchResponse response : responses) {
+            statusCodes.add(response.getStatusCode());
+        }
+        return statusCodes;
+    }
+
+    private static final class ExecutionContext {
+
+        private final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        private final String authToken = ThreadLocalContextUtil.getAuthToken();
+        private final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        private final String thread = Thread.currentThread().getName();
+    }
+
+    /**
+     * Records the context of each request, holds request 1 back until request
+     * 3 has been executed, and fails the request with the failing request id.
+     */
+    private final class RecordingCommandStrategy implements CommandStrategy {
+
+        @Override
+        public BatchResponse execute(final BatchRequest batchRequest, @SuppressWarnings("unused") final UriInfo uriInfo) {
+            final Long requestId = batchRequest.getRequestId();
+            final BatchApiServiceImplTest test = BatchApiServiceImplTest.this;
+            test.executions.put(requestId, new ExecutionContext());
+
+            if (requestId.equals(3L)) {
+                test.lastRootExecuted.countDown();
+            } else if (requestId.equals(1L)) {
+                try {
+                    if (test.lastRootExecuted.getCount() > 0 && !test.lastRootExecuted.await(WAIT_SECONDS, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("request 3 was not executed in parallel with request 1");
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            } else if (requestId.equals(test.failingRequestId)) {
+                throw new IllegalStateException("request " + requestId + " failed");
+            }
+
+            final BatchResponse response = new BatchResponse();
+            response.setRequestId(requestId);
+            response.setStatusCode(200);
+            response.setBody("{\"resourceId\":" + requestId + "}");
+            return response;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.provider;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.mifosplatform.commands.annotation.CommandType;
+import org.mifosplatform.commands.exception.UnsupportedCommandException;
+import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+import org.mifosplatform.commands.service.CommandWrapperBuilder;
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+public class CommandHandlerProviderTest {
+
+    @Test
+    public void returnsTheHandlerDeclaredForEntityAndAction() {
+        final CommandHandlerProvider provider = providerFor(CreateClientHandler.class, UpdateOneToManyDatatableEntryHandler.class);
+
+        assertTrue(provider.getHandler(new CommandWrapperBuilder().createClient().build()) instanceof CreateClientHandler);
+        assertTrue(provider.getHandler(new CommandWrapperBuilder().updateDatatable("m_guarantor_details", 1L, 2L).build())
+                instanceof UpdateOneToManyDatatableEntryHandler);
+    }
+
+    @Test(expected = UnsupportedCommandException.class)
+    public void rejectsCommandWithoutHandler() {
+        final CommandHandlerProvider provider = providerFor(CreateClientHandler.class);
+
+        provider.getHandler(new CommandWrapperBuilder().updateDatatable("m_guarantor_details", 1L, null).build());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failsOnTwoHandlersForTheSameCommand() {
+        providerFor(CreateClientHandler.class, OtherCreateClientHandler.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failsOnHandlerWithoutCommandType() {
+        providerFor(CreateClientHandler.class, UndeclaredHandler.class);
+    }
+
+    private static CommandHandlerProvider providerFor(final Class<?>... handlerClasses) {
+        final AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext();
+        applicationContext.register(handlerClasses);
+        applicationContext.register(CommandHandlerProvider.class);
+        applicationContext.refresh();
+        return applicationContext.getBean(CommandHandlerProvider.class);
+    }
+
+    private abstract static class TestHandler implements NewCommandSourceHandler {
+
+        @Override
+        public CommandProcessingResult processCommand(@SuppressWarnings("unused") final JsonCommand command) {
+            return null;
+        }
+    }
+
+    @CommandType(entity = "CLIENT", action = "CREATE")
+    static class CreateClientHandler extends TestHandler {}
+
+    @CommandType(entity = "client", action = "create")
+    static class OtherCreateClientHandler extends TestHandler {}
+
+    @CommandType(entity = CommandHandlerProvider.DATATABLE_ENTRY, action = CommandHandlerProvider.UPDATE_ONE_TO_MANY)
+    static class UpdateOneToManyDatatableEntryHandler extends TestHandler {}
+
+    static class UndeclaredHandler extends TestHandler {}
+}
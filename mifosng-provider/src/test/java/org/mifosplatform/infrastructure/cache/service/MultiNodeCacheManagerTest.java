@@ -0,0 +1,84 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+public class MultiNodeCacheManagerTest {
+
+    private static final String CACHE_NAME = "offices";
+
+    private MultiNodeCacheManager firstNode;
+    private MultiNodeCacheManager secondNode;
+
+    @Before
+    public void setUp() {
+        final LoopbackCacheInvalidationTransport transport = new LoopbackCacheInvalidationTransport();
+        this.firstNode = new MultiNodeCacheManager(new ConcurrentMapCacheManager(CACHE_NAME), transport);
+        this.secondNode = new MultiNodeCacheManager(new ConcurrentMapCacheManager(CACHE_NAME), transport);
+        this.firstNode.start();
+        this.secondNode.start();
+    }
+
+    @Test
+    public void evictOnOneNodeEvictsSameKeyOnOtherNodes() {
+        this.firstNode.getCache(CACHE_NAME).put("default1", "office 1");
+        this.firstNode.getCache(CACHE_NAME).put("default2", "office 2");
+        this.secondNode.getCache(CACHE_NAME).put("default1", "office 1");
+        this.secondNode.getCache(CACHE_NAME).put("default2", "office 2");
+
+        this.firstNode.getCache(CACHE_NAME).evict("default1");
+
+        final Cache otherNodeCache = this.secondNode.getCache(CACHE_NAME);
+        assertNull(otherNodeCache.get("default1"));
+        assertEquals("office 2", otherNodeCache.get("default2").get());
+    }
+
+    @Test
+    public void clearOnOneNodeClearsOtherNodes() {
+        this.secondNode.getCache(CACHE_NAME).put("default1", "office 1");
+
+        this.firstNode.getCache(CACHE_NAME).clear();
+
+        assertNull(this.secondNode.getCache(CACHE_NAME).get("default1"));
+    }
+
+    @Test
+    public void evictOfNonStringKeyClearsOtherNodes() {
+        this.secondNode.getCache(CACHE_NAME).put("default1", "office 1");
+
+        this.firstNode.getCache(CACHE_NAME).evict(Long.valueOf(1));
+
+        assertNull(this.secondNode.getCache(CACHE_NAME).get("default1"));
+    }
+
+    @Test
+    public void putIsNotPropagatedToOtherNodes() {
+        this.secondNode.getCache(CACHE_NAME).put("default1", "office 1");
+
+        this.firstNode.getCache(CACHE_NAME).put("default1", "office 1 renamed");
+
+        assertEquals("office 1", this.secondNode.getCache(CACHE_NAME).get("default1").get());
+        assertNotNull(this.firstNode.getCache(CACHE_NAME).get("default1"));
+    }
+
+    @Test
+    public void stoppedNodeNoLongerReceivesInvalidations() {
+        this.secondNode.stop();
+        this.secondNode.getCache(CACHE_NAME).put("default1", "office 1");
+
+        this.firstNode.getCache(CACHE_NAME).evict("default1");
+
+        assertNotNull(this.secondNode.getCache(CACHE_NAME).get("default1"));
+    }
+}
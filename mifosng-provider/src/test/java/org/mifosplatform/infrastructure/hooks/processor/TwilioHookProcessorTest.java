@@ -0,0 +1,49 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.processor;
+
+import static org.mifosplatform.infrastructure.hooks.api.HookApiConstants.apiKeyName;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.hooks.domain.Hook;
+import org.mifosplatform.infrastructure.hooks.domain.HookConfiguration;
+import org.mifosplatform.infrastructure.hooks.domain.HookConfigurationRepository;
+import org.mifosplatform.infrastructure.hooks.exception.HookDeliveryDeferredException;
+
+public class TwilioHookProcessorTest {
+
+    private HookConfigurationRepository hookConfigurationRepository;
+    private Hook hook;
+    private TwilioHookProcessor processor;
+
+    @Before
+    public void setUp() {
+        this.hookConfigurationRepository = mock(HookConfigurationRepository.class);
+        this.hook = mock(Hook.class);
+        when(this.hook.getId()).thenReturn(1L);
+        when(this.hook.getHookConfig()).thenReturn(new HashSet<HookConfiguration>());
+        this.processor = new TwilioHookProcessor(this.hookConfigurationRepository);
+    }
+
+    @Test(expected = HookDeliveryDeferredException.class)
+    public void deliveryWithoutAuthTokenIsDeferredWhileTheBridgeIsNotConfigured() {
+        when(this.hookConfigurationRepository.findOneByHookIdAndFieldName(1L, apiKeyName)).thenReturn(null);
+
+        try {
+            this.processor.process(this.hook, null, "{}", "CLIENT", "CREATE", "default", null);
+        } finally {
+            verify(this.hookConfigurationRepository, never()).save(any(HookConfiguration.class));
+        }
+    }
+}
@@ -0,0 +1,524 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.TenantDatabaseUpgradeService;
+import org.mifosplatform.infrastructure.hooks.data.HookDelivery;
+import org.mifosplatform.infrastructure.hooks.domain.Hook;
+import org.mifosplatform.infrastructure.hooks.domain.HookRepository;
+import org.mifosplatform.infrastructure.hooks.exception.HookDeliveryDeferredException;
+import org.mifosplatform.infrastructure.hooks.processor.HookProcessor;
+import org.mifosplatform.infrastructure.hooks.processor.HookProcessorProvider;
+import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Drives the dispatcher on a clock and a worker queue that are both under the
+ * control of the test, so that deliveries can be made to wait in memory
+ * longer than their claim on the outbox without any real waiting.
+ */
+public class HookDeliveryDispatcherTest {
+
+    private static final int LEASE_SECONDS = 60;
+    private static final int QUEUE_CAPACITY = 70;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final List<String> delivered = new ArrayList<>();
+    private final Set<String> upgradingTenants = new HashSet<>();
+    private long now = 1000000L;
+
+    private InMemoryOutbox outbox;
+    private QueuedExecutor workers;
+    private HookProcessor processor;
+    private HookDeliveryDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        this.outbox = new InMemoryOutbox();
+        this.workers = new QueuedExecutor();
+        this.processor = mock(HookProcessor.class);
+
+        final HookRepository hookRepository = mock(HookRepository.class);
+        when(hookRepository.findOne(anyLong())).thenReturn(mock(Hook.class));
+        final HookProcessorProvider hookProcessorProvider = mock(HookProcessorProvider.class);
+        when(hookProcessorProvider.getProcessor(any(Hook.class))).thenReturn(this.processor);
+        final TenantDetailsService tenantDetailsService = mock(TenantDetailsService.class);
+        when(tenantDetailsService.loadTenantById(anyString())).thenReturn(mock(MifosPlatformTenant.class));
+        final TenantDatabaseUpgradeService tenantDatabaseUpgradeService = new TenantDatabaseUpgradeService(null, null, null) {
+
+            @Override
+            public boolean isTenantAvailable(final String tenantIdentifier) {
+                return !HookDeliveryDispatcherTest.this.upgradingTenants.contains(tenantIdentifier);
+            }
+        };
+
+        this.dispatcher = new HookDeliveryDispatcher(this.outbox, hookRepository, hookProcessorProvider, tenantDetailsService,
+                tenantDatabaseUpgradeService, 1, QUEUE_CAPACITY, MAX_ATTEMPTS, LEASE_SECONDS) {
+
+            @Override
+            long currentTimeMillis() {
+                return HookDeliveryDispatcherTest.this.now;
+            }
+        };
+        // polls are run by the tests themselves
+        this.dispatcher.start(this.workers, mock(ScheduledExecutorService.class));
+    }
+
+    @After
+    public void tearDown() {
+        this.dispatcher.stop();
+    }
+
+    @Test
+    public void deliveriesClaimedByAnotherNodeWhileQueuedAreNotSentAgain() {
+        final List<Boolean> otherNodeClaims = new ArrayList<>();
+        endpoint(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                final String payload = payload(invocation);
+                advanceSeconds(20);
+                if (payload.equals("payload-3")) {
+                    // the original lease runs out while the third delivery is
+                    // being sent and another node polls the outbox
+                    advanceSeconds(5);
+                    otherNodeClaims.add(HookDeliveryDispatcherTest.this.outbox.claim(3L, LEASE_SECONDS));
+                    otherNodeClaims.add(HookDeliveryDispatcherTest.this.outbox.claim(4L, LEASE_SECONDS));
+                    otherNodeClaims.add(HookDeliveryDispatcherTest.this.outbox.claim(5L, LEASE_SECONDS));
+                }
+                HookDeliveryDispatcherTest.this.delivered.add(payload);
+                return null;
+            }
+        });
+
+        this.dispatcher.dispatch(deliveries("default", 5));
+        this.workers.runAll();
+
+        // the delivery in progress had its claim extended before it was sent
+        assertEquals(Arrays.asList(false, true, true), otherNodeClaims);
+        assertEquals(Arrays.asList("payload-1", "payload-2", "payload-3"), this.delivered);
+        assertEquals(Arrays.asList(4L, 5L), this.outbox.remainingIds());
+        assertEquals(0, this.dispatcher.getBacklog());
+    }
+
+    @Test
+    public void expiredClaimNobodyElseTookIsTakenBack() {
+        endpoint(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                advanceSeconds(LEASE_SECONDS + 1);
+                HookDeliveryDispatcherTest.this.delivered.add(payload(invocation));
+                return null;
+            }
+        });
+
+        this.dispatcher.dispatch(deliveries("default", 2));
+        this.workers.runAll();
+
+        assertEquals(Arrays.asList("payload-1", "payload-2"), this.delivered);
+        assertTrue(this.outbox.remainingIds().isEmpty());
+    }
+
+    @Test
+    public void failedDeliveryIsRetriedWithExponentialBackoffUntilItIsGivenUp() {
+        endpoint(new Answer<Void>() {
+
+            @Override
+            public Void answer(@SuppressWarnings("unused") final InvocationOnMock invocation) {
+                throw new IllegalStateException("endpoint down");
+            }
+        });
+
+        this.dispatcher.dispatch(deliveries("default", 2));
+        this.workers.runAll();
+
+        // the delivery queued behind the failed one is postponed with it
+        // without using up an attempt
+        assertEquals(Arrays.asList(1, 0), this.outbox.attempts());
+        assertEquals(Arrays.asList(10L, 10L), this.outbox.secondsUntilNextAttempt());
+
+        advanceSeconds(10);
+        this.dispatcher.pollOutbox();
+        this.workers.runAll();
+
+        assertEquals(Arrays.asList(2, 0), this.outbox.attempts());
+        assertEquals(Arrays.asList(20L, 20L), this.outbox.secondsUntilNextAttempt());
+
+        advanceSeconds(20);
+        this.dispatcher.pollOutbox();
+        this.workers.runAll();
+
+        // given up on, so the next one is tried
+        assertEquals(Arrays.asList(3, 1), this.outbox.attempts());
+        assertTrue(this.outbox.isFailed(1L));
+        assertFalse(this.outbox.isFailed(2L));
+        assertEquals(1, this.dispatcher.getAbandonedCount());
+        assertEquals(4, this.dispatcher.getFailedAttemptCount());
+    }
+
+    @Test
+    public void deferredDeliveryStaysPendingWithoutUsingUpAnAttempt() {
+        endpoint(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                final String payload = payload(invocation);
+                if (payload.equals("payload-1")) { throw new HookDeliveryDeferredException("not configured yet"); }
+                HookDeliveryDispatcherTest.this.delivered.add(payload);
+                return null;
+            }
+        });
+
+        this.dispatcher.dispatch(deliveries("default", 2));
+        this.workers.runAll();
+
+        assertEquals(Arrays.asList("payload-2"), this.delivered);
+        assertEquals(Arrays.asList(1L), this.outbox.remainingIds());
+        assertEquals(Arrays.asList(0), this.outbox.attempts());
+        assertEquals(Arrays.asList(300L), this.outbox.secondsUntilNextAttempt());
+        assertEquals(0, this.dispatcher.getFailedAttemptCount());
+    }
+
+    @Test
+    public void pollClaimsDueDeliveriesUpToTheFreeQueueCapacity() {
+        recordingEndpoint();
+        this.dispatcher.dispatch(deliveries("default", 30));
+        this.outbox.addDue("default", 100);
+
+        this.dispatcher.pollOutbox();
+
+        assertEquals(QUEUE_CAPACITY, this.dispatcher.getBacklog());
+        assertEquals(QUEUE_CAPACITY, this.outbox.claimedCount());
+
+        this.workers.runAll();
+        assertEquals(QUEUE_CAPACITY, this.delivered.size());
+
+        // at most a batch per worker thread is claimed by a poll
+        this.dispatcher.pollOutbox();
+        assertEquals(50, this.dispatcher.getBacklog());
+        this.workers.runAll();
+        this.dispatcher.pollOutbox();
+        this.workers.runAll();
+
+        assertEquals(130, this.delivered.size());
+        assertTrue(this.outbox.remainingIds().isEmpty());
+    }
+
+    @Test
+    public void workerTakesABatchOfDeliveriesOfOneEndpointAtATime() {
+        recordingEndpoint();
+        this.dispatcher.dispatch(deliveries("default", 60));
+
+        // one task per endpoint, a batch is at most 50 deliveries
+        assertEquals(1, this.workers.queued());
+        this.workers.runNext();
+        assertEquals(50, this.delivered.size());
+        assertEquals(1, this.workers.queued());
+        this.workers.runAll();
+        assertEquals(60, this.delivered.size());
+    }
+
+    @Test
+    public void pollLeavesDeliveriesOfATenantBeingUpgradedInTheOutbox() {
+        recordingEndpoint();
+        this.upgradingTenants.add("upgrading");
+        this.outbox.addDue("upgrading", 2);
+        this.outbox.addDue("default", 1);
+
+        this.dispatcher.pollOutbox();
+        this.workers.runAll();
+
+        assertEquals(Arrays.asList("payload-1"), this.delivered);
+        assertEquals(Arrays.asList(1L, 2L), this.outbox.remainingIds());
+        assertEquals(0, this.outbox.claimedCount());
+
+        this.upgradingTenants.remove("upgrading");
+        this.dispatcher.pollOutbox();
+        this.workers.runAll();
+
+        assertTrue(this.outbox.remainingIds().isEmpty());
+    }
+
+    private void recordingEndpoint() {
+        endpoint(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                HookDeliveryDispatcherTest.this.delivered.add(payload(invocation));
+                return null;
+            }
+        });
+    }
+
+    private void endpoint(final Answer<Void> answer) {
+        doAnswer(answer).when(this.processor).process(any(Hook.class), any(AppUser.class), anyString(), anyString(), anyString(),
+                anyString(), anyString());
+    }
+
+    private static String payload(final InvocationOnMock invocation) {
+        return (String) invocation.getArguments()[2];
+    }
+
+    private void advanceSeconds(final int seconds) {
+        this.now += seconds * 1000L;
+    }
+
+    private static List<HookDelivery> deliveries(final String tenantIdentifier, final int count) {
+        final List<HookDelivery> deliveries = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            deliveries.add(HookDelivery.newDelivery(tenantIdentifier, 1L, "CLIENT", "CREATE", "payload-" + i, null, null));
+        }
+        return deliveries;
+    }
+
+    /**
+     * Runs the tasks handed to it only when the test asks for it, on the
+     * thread of the test.
+     */
+    private static final class QueuedExecutor extends AbstractExecutorService {
+
+        private final Queue<Runnable> tasks = new LinkedList<>();
+
+        @Override
+        public void execute(final Runnable command) {
+            this.tasks.add(command);
+        }
+
+        int queued() {
+            return this.tasks.size();
+        }
+
+        void runNext() {
+            this.tasks.poll().run();
+        }
+
+        void runAll() {
+            while (!this.tasks.isEmpty()) {
+                runNext();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            this.tasks.clear();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            final List<Runnable> pending = new ArrayList<>(this.tasks);
+            this.tasks.clear();
+            return pending;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(@SuppressWarnings("unused") final long timeout, @SuppressWarnings("unused") final TimeUnit unit) {
+            return true;
+        }
+    }
+
+    /**
+     * Keeps the outbox rows in memory, with the lease semantics of the
+     * hook_delivery table, on the clock of the test.
+     */
+    private final class InMemoryOutbox extends HookDeliveryOutbox {
+
+        private final Map<Long, Row> rows = new HashMap<>();
+        private long nextId = 1;
+
+        InMemoryOutbox() {
+            super(mock(DataSource.class));
+        }
+
+        @Override
+        public List<HookDelivery> saveClaimed(final List<HookDelivery> deliveries, final int leaseSeconds) {
+            final List<HookDelivery> saved = new ArrayList<>();
+            for (final HookDelivery delivery : deliveries) {
+                final HookDelivery withId = delivery.withId(this.nextId++);
+                final Row row = new Row(withId);
+                row.lockedUntil = HookDeliveryDispatcherTest.this.now + leaseSeconds * 1000L;
+                this.rows.put(withId.getId(), row);
+                saved.add(withId);
+            }
+            return saved;
+        }
+
+        /**
+         * Pending deliveries nobody holds a claim on, as left over by a
+         * restart.
+         */
+        void addDue(final String tenantIdentifier, final int count) {
+            for (final HookDelivery delivery : deliveries(tenantIdentifier, count)) {
+                final HookDelivery withId = delivery.withId(this.nextId++);
+                this.rows.put(withId.getId(), new Row(withId));
+            }
+        }
+
+        @Override
+        public List<HookDelivery> retrieveDue(final int limit) {
+            final List<HookDelivery> due = new ArrayList<>();
+            for (final Long id : remainingIds()) {
+                final Row row = this.rows.get(id);
+                if (due.size() < limit && row.isClaimable()) {
+                    due.add(HookDelivery.existing(id, row.delivery.getTenantIdentifier(), row.delivery.getHookId(),
+                            row.delivery.getEntityName(), row.delivery.getActionName(), row.delivery.getPayload(), row.attempts,
+                            row.delivery.getCreatedTime()));
+                }
+            }
+            return due;
+        }
+
+        @Override
+        public boolean claim(final Long id, final int leaseSeconds) {
+            final Row row = this.rows.get(id);
+            if (row == null || !row.isClaimable()) { return false; }
+            row.lockedUntil = HookDeliveryDispatcherTest.this.now + leaseSeconds * 1000L;
+            return true;
+        }
+
+        @Override
+        public boolean extendClaim(final Long id, final int leaseSeconds) {
+            final Row row = this.rows.get(id);
+            if (row == null || row.failed || row.lockedUntil < HookDeliveryDispatcherTest.this.now) { return false; }
+            row.lockedUntil = HookDeliveryDispatcherTest.this.now + leaseSeconds * 1000L;
+            return true;
+        }
+
+        @Override
+        public void release(final Long id) {
+            final Row row = this.rows.get(id);
+            if (row != null) {
+                row.lockedUntil = 0;
+            }
+        }
+
+        @Override
+        public void delete(final Long id) {
+            this.rows.remove(id);
+        }
+
+        @Override
+        public void postpone(final Long id, final int attempts, final int delaySeconds, @SuppressWarnings("unused") final String error) {
+            final Row row = this.rows.get(id);
+            if (row != null) {
+                row.lockedUntil = 0;
+                row.attempts = attempts;
+                row.nextAttemptTime = HookDeliveryDispatcherTest.this.now + delaySeconds * 1000L;
+            }
+        }
+
+        @Override
+        public void markFailed(final Long id, final int attempts, @SuppressWarnings("unused") final String error) {
+            final Row row = this.rows.get(id);
+            if (row != null) {
+                row.lockedUntil = 0;
+                row.attempts = attempts;
+                row.failed = true;
+            }
+        }
+
+        @Override
+        public long countPending() {
+            return this.rows.size();
+        }
+
+        List<Long> remainingIds() {
+            final List<Long> ids = new ArrayList<>(this.rows.keySet());
+            Collections.sort(ids);
+            return ids;
+        }
+
+        List<Integer> attempts() {
+            final List<Integer> attempts = new ArrayList<>();
+            for (final Long id : remainingIds()) {
+                attempts.add(this.rows.get(id).attempts);
+            }
+            return attempts;
+        }
+
+        List<Long> secondsUntilNextAttempt() {
+            final List<Long> seconds = new ArrayList<>();
+            for (final Long id : remainingIds()) {
+                seconds.add((this.rows.get(id).nextAttemptTime - HookDeliveryDispatcherTest.this.now) / 1000);
+            }
+            return seconds;
+        }
+
+        boolean isFailed(final Long id) {
+            return this.rows.get(id).failed;
+        }
+
+        int claimedCount() {
+            int claimed = 0;
+            for (final Row row : this.rows.values()) {
+                if (row.lockedUntil >= HookDeliveryDispatcherTest.this.now) {
+                    claimed++;
+                }
+            }
+            return claimed;
+        }
+
+        private final class Row {
+
+            private final HookDelivery delivery;
+            private long lockedUntil;
+            private long nextAttemptTime;
+            private int attempts;
+            private boolean failed;
+
+            Row(final HookDelivery delivery) {
+                this.delivery = delivery;
+            }
+
+            boolean isClaimable() {
+                return !this.failed && this.nextAttemptTime <= HookDeliveryDispatcherTest.this.now
+                        && this.lockedUntil < HookDeliveryDispatcherTest.this.now;
+            }
+        }
+    }
+}
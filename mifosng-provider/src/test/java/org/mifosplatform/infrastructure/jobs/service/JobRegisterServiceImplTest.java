@@ -0,0 +1,108 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.TenantDatabaseUpgradeService;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetail;
+import org.mifosplatform.infrastructure.jobs.domain.SchedulerDetail;
+import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Loads jobs with one tenant whose database is upgraded and one whose upgrade
+ * is still pending in the background.
+ */
+public class JobRegisterServiceImplTest {
+
+    private final Map<String, Runnable> pendingTenants = new HashMap<>();
+    private final List<String> tenantsLoaded = new ArrayList<>();
+
+    private SchedularWritePlatformService schedularWritePlatformService;
+    private JobRegisterServiceImpl jobRegisterService;
+
+    @Before
+    public void setUp() {
+        this.schedularWritePlatformService = mock(SchedularWritePlatformService.class);
+        when(this.schedularWritePlatformService.retrieveAllJobs()).thenAnswer(new Answer<List<ScheduledJobDetail>>() {
+
+            @Override
+            public List<ScheduledJobDetail> answer(final InvocationOnMock invocation) {
+                JobRegisterServiceImplTest.this.tenantsLoaded.add(ThreadLocalContextUtil.getTenant().getTenantIdentifier());
+                return new ArrayList<>();
+            }
+        });
+        when(this.schedularWritePlatformService.retriveSchedulerDetail()).thenReturn(mock(SchedulerDetail.class));
+
+        final TenantDetailsService tenantDetailsService = mock(TenantDetailsService.class);
+        when(tenantDetailsService.findAllTenants()).thenReturn(Arrays.asList(tenant("default"), tenant("pending")));
+
+        this.pendingTenants.put("pending", null);
+        this.jobRegisterService = new JobRegisterServiceImpl();
+        this.jobRegisterService.setSchedularWritePlatformService(this.schedularWritePlatformService);
+        this.jobRegisterService.setTenantDetailsService(tenantDetailsService);
+        this.jobRegisterService.setTenantDatabaseUpgradeService(new TenantDatabaseUpgradeService(null, null, null) {
+
+            @Override
+            public boolean isTenantAvailable(final String tenantIdentifier) {
+                return !JobRegisterServiceImplTest.this.pendingTenants.containsKey(tenantIdentifier);
+            }
+
+            @Override
+            public void whenTenantAvailable(final String tenantIdentifier, final Runnable callback) {
+                if (isTenantAvailable(tenantIdentifier)) {
+                    callback.run();
+                } else {
+                    JobRegisterServiceImplTest.this.pendingTenants.put(tenantIdentifier, callback);
+                }
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void jobsOfATenantPendingUpgradeAreLoadedOnceItsUpgradeCompletes() {
+        this.jobRegisterService.loadAllJobs();
+
+        assertEquals(Arrays.asList("default"), this.tenantsLoaded);
+        verify(this.schedularWritePlatformService, times(1)).retriveSchedulerDetail();
+
+        // the upgrade of the pending tenant completes
+        this.pendingTenants.remove("pending").run();
+
+        assertEquals(Arrays.asList("default", "pending"), this.tenantsLoaded);
+        verify(this.schedularWritePlatformService, times(2)).retriveSchedulerDetail();
+        assertNull(ThreadLocalContextUtil.getTenant());
+    }
+
+    private static MifosPlatformTenant tenant(final String tenantIdentifier) {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn(tenantIdentifier);
+        return tenant;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.organisation.monetary.domain;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Runs the same random sequences of operations on {@link Money} and
+ * {@link MinorUnitMoney} and expects identical amounts after every step.
+ */
+public class MinorUnitMoneyTest {
+
+    private static final int STEPS = 2000;
+    private static final Integer[] MULTIPLES = { null, 0, 5, 10, 50 };
+    private static final RoundingMode[] ROUNDING_MODES = { RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR,
+            RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN };
+
+    @Test
+    public void givenAnyCurrencyEveryOperationGivesTheSameAmountAsMoney() {
+        final Random random = new Random(20141017L);
+        for (int digits = 0; digits <= 6; digits++) {
+            for (final Integer inMultiplesOf : MULTIPLES) {
+                final MonetaryCurrency currency = new MonetaryCurrency("XXX", digits, inMultiplesOf);
+                runRandomOperations(currency, random);
+            }
+        }
+    }
+
+    @Test
+    public void givenMultiplesOfCurrencyHalfwayAmountsAreRoundedUpLikeMoney() {
+        final MonetaryCurrency currency = new MonetaryCurrency("XOF", 0, 50);
+        for (final String amount : new String[] { "25", "75", "24", "26", "124.5", "-25", "0" }) {
+            assertSameAmount(Money.of(currency, new BigDecimal(amount)), MinorUnitMoney.of(currency, new BigDecimal(amount)));
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void givenOverflowingSumExceptionIsThrown() {
+        final MonetaryCurrency currency = new MonetaryCurrency("USD", 2, null);
+        final MinorUnitMoney large = MinorUnitMoney.of(currency, BigDecimal.valueOf(Long.MAX_VALUE / 100));
+        large.plus(large);
+    }
+
+    private static void runRandomOperations(final MonetaryCurrency currency, final Random random) {
+        Money expected = Money.zero(currency);
+        MinorUnitMoney actual = MinorUnitMoney.zero(currency);
+
+        for (int step = 0; step < STEPS; step++) {
+            // amounts stay well inside the range a double represents exactly
+            final int scale = random.nextInt(currency.getDigitsAfterDecimal() + 3);
+            final BigDecimal amount = BigDecimal.valueOf(random.nextInt(2000000) - 1000000, scale);
+            final Money operand = Money.of(currency, amount);
+            switch (random.nextInt(11)) {
+                case 0:
+                    expected = expected.plus(operand);
+                    actual = actual.plus(MinorUnitMoney.of(operand));
+                break;
+                case 1:
+                    expected = expected.minus(operand);
+                    actual = actual.minus(MinorUnitMoney.of(operand));
+                break;
+                case 2:
+                    final long factor = random.nextInt(7) - 3;
+                    expected = Money.of(currency, amount).multipliedBy(factor);
+                    actual = MinorUnitMoney.of(currency, amount).multipliedBy(factor);
+                break;
+                case 3:
+                    long divisor = random.nextInt(25) - 12;
+                    divisor = divisor == 0 ? 7 : divisor;
+                    final RoundingMode roundingMode = ROUNDING_MODES[random.nextInt(ROUNDING_MODES.length)];
+                    expected = expected.dividedBy(divisor, roundingMode);
+                    actual = actual.dividedBy(divisor, roundingMode);
+                break;
+                case 4:
+                    expected = expected.negated();
+                    actual = actual.negated();
+                break;
+                case 5:
+                    expected = expected.abs();
+                    actual = actual.abs();
+                break;
+                case 6:
+                    assertEquals(Integer.signum(expected.compareTo(operand)), Integer.signum(actual.compareTo(MinorUnitMoney.of(operand))));
+                break;
+                case 7:
+                    expected = expected.plus(operand);
+                    actual = actual.plus(operand);
+                break;
+                case 8:
+                    expected = expected.minus(operand);
+                    actual = actual.minus(operand);
+                break;
+                case 9:
+                    // a stored amount, with more digits than the currency
+                    expected = expected.plus(Money.of(currency, amount));
+                    actual = actual.plusAmountOf(amount);
+                break;
+                default:
+                    expected = Money.of(currency, amount);
+                    actual = MinorUnitMoney.of(currency, amount);
+                break;
+            }
+            assertSameAmount(expected, actual);
+        }
+    }
+
+    private static void assertSameAmount(final Money expected, final MinorUnitMoney actual) {
+        assertEquals(expected.getAmount(), actual.getAmount());
+        assertEquals(expected.getAmount(), actual.toMoney().getAmount());
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.domain;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.accounting.common.AccountingConstants.LOAN_PRODUCT_ACCOUNTING_PARAMS;
+import org.mifosplatform.accounting.glaccount.domain.GLAccountType;
+import org.mifosplatform.accounting.glaccount.domain.GLAccountUsage;
+import org.mifosplatform.commands.domain.CommandWrapper;
+import org.mifosplatform.commands.service.CommandWrapperBuilder;
+import org.mifosplatform.commands.service.PortfolioCommandSourceWritePlatformService;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.security.service.PlatformUserDetailsService;
+import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.google.gson.Gson;
+
+/**
+ * Sets up loans in the default tenant by running the same commands the API
+ * runs, as the "mifos" user. Each loan is for 12000 USD over 12 monthly
+ * repayments of 1240, disbursed on 1 January 2014, with a fee of 10 due on
+ * 15 January 2014. Its product has no accounting, or periodic accrual
+ * accounting against GL accounts of its own.
+ */
+public class LoanCommandFixture {
+
+    public static final LocalDate DISBURSEMENT_DATE = new LocalDate(2014, 1, 1);
+    public static final String REPAYMENT_AMOUNT = "1240";
+
+    private static final String DATE_FORMAT = "dd MMMM yyyy";
+    private static final String LOCALE = "en";
+
+    private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
+    private final Long productId;
+    private final Long chargeId;
+
+    public LoanCommandFixture(final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService,
+            final TenantDetailsService tenantDetailsService, final PlatformUserDetailsService userDetailsService) {
+        this(commandsSourceWritePlatformService, tenantDetailsService, userDetailsService, false);
+    }
+
+    public LoanCommandFixture(final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService,
+            final TenantDetailsService tenantDetailsService, final PlatformUserDetailsService userDetailsService,
+            final boolean periodicAccrualAccounting) {
+        this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
+
+        ThreadLocalContextUtil.setTenant(tenantDetailsService.loadTenantById("default"));
+        final UserDetails user = userDetailsService.loadUserByUsername("mifos");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, user.getPassword(), user.getAuthorities()));
+
+        this.productId = createLoanProduct(periodicAccrualAccounting);
+        this.chargeId = createLoanCharge();
+    }
+
+    public void logout() {
+        SecurityContextHolder.clearContext();
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    public Long approvedLoan() {
+        final Map<String, Object> application = withDateFormat();
+        application.put("clientId", createClient());
+        application.put("productId", this.productId);
+        application.put("principal", "12000");
+        application.put("loanTermFrequency", "12");
+        application.put("loanTermFrequencyType", "2");
+        application.put("numberOfRepayments", "12");
+        application.put("repaymentEvery", "1");
+        application.put("repaymentFrequencyType", "2");
+        application.put("interestRatePerPeriod", "2");
+        application.put("amortizationType", "1");
+        application.put("interestType", "1");
+        application.put("interestCalculationPeriodType", "1");
+        application.put("transactionProcessingStrategyId", "1");
+        application.put("expectedDisbursementDate", format(DISBURSEMENT_DATE));
+        application.put("submittedOnDate", format(DISBURSEMENT_DATE));
+        application.put("loanType", "individual");
+        final Long loanId = execute(new CommandWrapperBuilder().createLoanApplication(), application);
+
+        final Map<String, Object> approval = withDateFormat();
+        approval.put("approvedOnDate", format(DISBURSEMENT_DATE));
+        execute(new CommandWrapperBuilder().approveLoanApplication(loanId), approval);
+        return loanId;
+    }
+
+    /**
+     * A disbursed loan with the fee applied and the first
+     * <code>numberOfRepayments</code> installments repaid on their due dates.
+     */
+    public Long disbursedLoan(final int numberOfRepayments) {
+        final Long loanId = approvedLoan();
+        disburse(loanId);
+        addCharge(loanId, DISBURSEMENT_DATE.plusDays(14));
+        for (int month = 1; month <= numberOfRepayments; month++) {
+            repay(loanId, DISBURSEMENT_DATE.plusMonths(month));
+        }
+        return loanId;
+    }
+
+    public void disburse(final Long loanId) {
+        final Map<String, Object> disbursement = withDateFormat();
+        disbursement.put("actualDisbursementDate", format(DISBURSEMENT_DATE));
+        execute(new CommandWrapperBuilder().disburseLoanApplication(loanId), disbursement);
+    }
+
+    public void addCharge(final Long loanId, final LocalDate dueDate) {
+        final Map<String, Object> loanCharge = withDateFormat();
+        loanCharge.put("chargeId", this.chargeId);
+        loanCharge.put("amount", "10");
+        loanCharge.put("dueDate", format(dueDate));
+        execute(new CommandWrapperBuilder().createLoanCharge(loanId), loanCharge);
+    }
+
+    public void repay(final Long loanId, final LocalDate transactionDate) {
+        final Map<String, Object> repayment = withDateFormat();
+        repayment.put("transactionDate", format(transactionDate));
+        repayment.put("transactionAmount", REPAYMENT_AMOUNT);
+        execute(new CommandWrapperBuilder().loanRepaymentTransaction(loanId), repayment);
+    }
+
+    public void waiveInterest(final Long loanId, final LocalDate transactionDate, final String amount) {
+        final Map<String, Object> waiver = withDateFormat();
+        waiver.put("transactionDate", format(transactionDate));
+        waiver.put("transactionAmount", amount);
+        execute(new CommandWrapperBuilder().waiveInterestPortionTransaction(loanId), waiver);
+    }
+
+    private Long createClient() {
+        final Map<String, Object> client = withDateFormat();
+        client.put("officeId", "1");
+        client.put("firstname", "Client");
+        client.put("lastname", uniqueName());
+        client.put("active", "true");
+        client.put("activationDate", format(DISBURSEMENT_DATE));
+        return execute(new CommandWrapperBuilder().createClient(), client);
+    }
+
+    private Long createLoanProduct(final boolean periodicAccrualAccounting) {
+        final Map<String, Object> product = withDateFormat();
+        product.put("name", "Product " + uniqueName());
+        product.put("shortName", uniqueName().substring(0, 4));
+        product.put("currencyCode", "USD");
+        product.put("digitsAfterDecimal", "2");
+        product.put("inMultiplesOf", "0");
+        product.put("principal", "12000");
+        product.put("minPrincipal", "1000");
+        product.put("maxPrincipal", "100000");
+        product.put("numberOfRepayments", "12");
+        product.put("repaymentEvery", "1");
+        product.put("repaymentFrequencyType", "2");
+        product.put("interestRatePerPeriod", "2");
+        product.put("interestRateFrequencyType", "2");
+        product.put("amortizationType", "1");
+        product.put("interestType", "1");
+        product.put("interestCalculationPeriodType", "1");
+        product.put("inArrearsTolerance", "0");
+        product.put("transactionProcessingStrategyId", "1");
+        if (periodicAccrualAccounting) {
+            product.put("accountingRule", "3");
+            addAccrualAccountMappings(product);
+        } else {
+            product.put("accountingRule", "1");
+        }
+        product.put("daysInMonthType", "1");
+        product.put("daysInYearType", "1");
+        product.put("isInterestRecalculationEnabled", false);
+        return execute(new CommandWrapperBuilder().createLoanProduct(), product);
+    }
+
+    private void addAccrualAccountMappings(final Map<String, Object> product) {
+        final Long assetAccountId = createGLAccount(GLAccountType.ASSET);
+        final Long incomeAccountId = createGLAccount(GLAccountType.INCOME);
+        product.put(LOAN_PRODUCT_ACCOUNTING_PARAMS.FUND_SOURCE.getValue(), assetAccountId);
+        product.put(LOAN_PRODUCT_ACCOUNTING_PARAMS.LOAN_PORTFOLIO.getValue(), assetAccountId);
+        product.put(LOAN_PRODUCT_ACCOUNTING_PARAMS.TRANSFERS_SUSPENSE.getValue(), assetAccountId);
+        product.put(LOAN_PRODUCT_ACCOUNTING_PARAMS.INTEREST_RECEIVABLE.getValue(), createGLAccount(GLAccountType.ASSET));
+        product.put(LOAN_PRODUCT_ACCOUNTING_PARAMS.FEES_RECEIVABLE.getValue(), createGLAccount(GLAccountType.ASSET));
+        product.put(LOAN_PRODUCT_ACCOUNTING_PARAMS.PENALTIES_RECEIVABLE.getValue(), createGLAccount(GLAccountType.ASSET));
+        product.put(LOAN_PRODUCT_ACCOUNTING_PARAMS.INTEREST_ON_LOANS.getValue(), createGLAccount(GLAccountType.INCOME));
+        product.put(LOAN_PRODUCT_ACCOUNTING_PARAMS.INCOME_FROM_FEES.getValue(), createGLAccount(GLAccountType.INCOME));
+        product.put(LOAN_PRODUCT_ACCOUNTING_PARAMS.INCOME_FROM_PENALTIES.getValue(), incomeAccountId);
+        product.put(LOAN_PRODUCT_ACCOUNTING_PARAMS.INCOME_FROM_RECOVERY.getValue(), incomeAccountId);
+        product.put(LOAN_PRODUCT_ACCOUNTING_PARAMS.LOSSES_WRITTEN_OFF.getValue(), createGLAccount(GLAccountType.EXPENSE));
+        product.put(LOAN_PRODUCT_ACCOUNTING_PARAMS.OVERPAYMENT.getValue(), createGLAccount(GLAccountType.LIABILITY));
+    }
+
+    private Long createGLAccount(final GLAccountType type) {
+        final String glCode = uniqueName();
+        final Map<String, Object> account = new HashMap<>();
+        account.put("name", "Account " + glCode);
+        account.put("glCode", glCode);
+        account.put("manualEntriesAllowed", true);
+        account.put("type", type.getValue());
+        account.put("usage", GLAccountUsage.DETAIL.getValue());
+        return execute(new CommandWrapperBuilder().createGLAccount(), account);
+    }
+
+    private Long createLoanCharge() {
+        final Map<String, Object> charge = new HashMap<>();
+        charge.put("locale", LOCALE);
+        charge.put("monthDayFormat", "dd MMM");
+        charge.put("name", "Fee " + uniqueName());
+        charge.put("currencyCode", "USD");
+        charge.put("amount", "10");
+        charge.put("active", true);
+        charge.put("penalty", false);
+        charge.put("chargeAppliesTo", 1);
+        charge.put("chargeTimeType", 2);
+        charge.put("chargeCalculationType", 1);
+        charge.put("chargePaymentMode", 0);
+        return execute(new CommandWrapperBuilder().createCharge(), charge);
+    }
+
+    private Long execute(final CommandWrapperBuilder builder, final Map<String, Object> json) {
+        final CommandWrapper commandRequest = builder.withJson(new Gson().toJson(json)).build();
+        return this.commandsSourceWritePlatformService.logCommandSource(commandRequest).resourceId();
+    }
+
+    private static Map<String, Object> withDateFormat() {
+        final Map<String, Object> json = new HashMap<>();
+        json.put("locale", LOCALE);
+        json.put("dateFormat", DATE_FORMAT);
+        return json;
+    }
+
+    private static String format(final LocalDate date) {
+        return date.toString(DATE_FORMAT, Locale.ENGLISH);
+    }
+
+    private static String uniqueName() {
+        // base 36 keeps the first four characters usable as a short name
+        final String shortName = Long.toString(Math.abs(System.nanoTime() % 1679616) + 1679616, 36).substring(1);
+        return shortName + Long.toString(System.currentTimeMillis(), 36);
+    }
+}
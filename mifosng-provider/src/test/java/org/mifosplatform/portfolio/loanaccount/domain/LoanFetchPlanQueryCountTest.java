@@ -0,0 +1,204 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.commands.service.PortfolioCommandSourceWritePlatformService;
+import org.mifosplatform.infrastructure.core.boot.tests.AbstractSpringBootWithMariaDB4jIntegrationTest;
+import org.mifosplatform.infrastructure.security.service.PlatformUserDetailsService;
+import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Counts, with Hibernate statistics, the queries run to load the collections
+ * of a {@link Loan}: none up front by default, the collection of the
+ * {@link LoanFetchPlan} together with the loan, and one query per batch
+ * rather than per owner for the rest.
+ */
+public class LoanFetchPlanQueryCountTest extends AbstractSpringBootWithMariaDB4jIntegrationTest {
+
+    private static final String[] LOAN_COLLECTIONS = { "charges", "collateral", "loanOfficerHistory", "repaymentScheduleInstallments",
+            "loanTransactions", "disbursementDetails", "loanTermVariations" };
+
+    @Autowired
+    private PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
+
+    @Autowired
+    private TenantDetailsService tenantDetailsService;
+
+    @Autowired
+    private PlatformUserDetailsService userDetailsService;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private LoanCommandFixture loans;
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        this.loans = new LoanCommandFixture(this.commandsSourceWritePlatformService, this.tenantDetailsService, this.userDetailsService);
+        this.statistics = ((HibernateEntityManagerFactory) this.entityManagerFactory).getSessionFactory().getStatistics();
+        this.statistics.setStatisticsEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        this.statistics.setStatisticsEnabled(false);
+        this.loans.logout();
+    }
+
+    @Test
+    public void findingALoanLoadsNoneOfItsCollections() {
+        final Long loanId = this.loans.disbursedLoan(2);
+
+        this.statistics.clear();
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                assertNotNull(LoanFetchPlanQueryCountTest.this.loanRepository.findOne(loanId));
+            }
+        });
+
+        for (final String collection : LOAN_COLLECTIONS) {
+            assertEquals(collection, 0, loanCollection(collection).getLoadCount());
+        }
+    }
+
+    @Test
+    public void repaymentSchedulePlanLoadsTheScheduleInTheQueryForTheLoan() {
+        final Long loanId = this.loans.disbursedLoan(2);
+
+        this.statistics.clear();
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                final Loan loan = LoanFetchPlanQueryCountTest.this.loanRepository.findOneWithRepaymentSchedule(loanId);
+                final long statementsForLoan = statementCount();
+
+                assertEquals(12, loan.getRepaymentScheduleInstallments().size());
+                assertEquals(statementsForLoan, statementCount());
+            }
+        });
+
+        assertEquals(0, loanCollection("repaymentScheduleInstallments").getFetchCount());
+        assertEquals(1, loanCollection("repaymentScheduleInstallments").getLoadCount());
+    }
+
+    @Test
+    public void collectionsOfLoansInTheSameSessionAreLoadedInOneQueryPerBatch() {
+        final Long firstLoanId = this.loans.disbursedLoan(2);
+        final Long secondLoanId = this.loans.disbursedLoan(3);
+
+        this.statistics.clear();
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                final Loan first = LoanFetchPlanQueryCountTest.this.loanRepository.findOne(firstLoanId);
+                final Loan second = LoanFetchPlanQueryCountTest.this.loanRepository.findOne(secondLoanId);
+
+                // disbursement and repayments
+                assertEquals(3, first.getLoanTransactions().size());
+                final long statementsForFirst = statementCount();
+                assertEquals(4, second.getLoanTransactions().size());
+                assertEquals(statementsForFirst, statementCount());
+
+                for (final Loan loan : new Loan[] { first, second }) {
+                    for (final LoanTransaction transaction : loan.getLoanTransactions()) {
+                        transaction.getLoanChargesPaid().size();
+                    }
+                    for (final LoanCharge charge : loan.charges()) {
+                        charge.installmentCharges().size();
+                    }
+                }
+            }
+        });
+
+        assertEquals(1, loanCollection("loanTransactions").getFetchCount());
+        assertEquals(2, loanCollection("loanTransactions").getLoadCount());
+        assertEquals(1, collection(LoanTransaction.class, "loanChargesPaid").getFetchCount());
+        assertEquals(7, collection(LoanTransaction.class, "loanChargesPaid").getLoadCount());
+        assertEquals(1, loanCollection("charges").getFetchCount());
+        assertEquals(1, collection(LoanCharge.class, "loanInstallmentCharge").getFetchCount());
+        assertEquals(2, collection(LoanCharge.class, "loanInstallmentCharge").getLoadCount());
+    }
+
+    @Test
+    public void repaymentLoadsTheScheduleWithTheLoanAndCostsTheSameForAnyNumberOfTransactions() {
+        // first command of its kind warms up caches that would skew the counts
+        this.loans.repay(this.loans.disbursedLoan(1), LoanCommandFixture.DISBURSEMENT_DATE.plusMonths(2));
+
+        final Long fewTransactions = this.loans.disbursedLoan(1);
+        final Long manyTransactions = this.loans.disbursedLoan(6);
+
+        final long fetchesWithFewTransactions = collectionFetchesForRepayment(fewTransactions);
+        final long fetchesWithManyTransactions = collectionFetchesForRepayment(manyTransactions);
+
+        assertEquals(fetchesWithFewTransactions, fetchesWithManyTransactions);
+    }
+
+    @Test
+    public void disbursementLoadsTheDisbursementDetailsWithTheLoan() {
+        final Long loanId = this.loans.approvedLoan();
+
+        this.statistics.clear();
+        this.loans.disburse(loanId);
+
+        assertEquals(0, loanCollection("disbursementDetails").getFetchCount());
+    }
+
+    @Test
+    public void addingAChargeLoadsTheScheduleWithTheLoan() {
+        final Long loanId = this.loans.disbursedLoan(1);
+
+        this.statistics.clear();
+        this.loans.addCharge(loanId, LoanCommandFixture.DISBURSEMENT_DATE.plusMonths(3));
+
+        assertEquals(0, loanCollection("repaymentScheduleInstallments").getFetchCount());
+    }
+
+    private long collectionFetchesForRepayment(final Long loanId) {
+        this.statistics.clear();
+        this.loans.repay(loanId, LoanCommandFixture.DISBURSEMENT_DATE.plusMonths(8));
+
+        assertEquals(0, loanCollection("repaymentScheduleInstallments").getFetchCount());
+        return this.statistics.getCollectionFetchCount();
+    }
+
+    private long statementCount() {
+        return this.statistics.getPrepareStatementCount();
+    }
+
+    private CollectionStatistics loanCollection(final String property) {
+        return collection(Loan.class, property);
+    }
+
+    private CollectionStatistics collection(final Class<?> owner, final String property) {
+        return this.statistics.getCollectionStatistics(owner.getName() + "." + property);
+    }
+}
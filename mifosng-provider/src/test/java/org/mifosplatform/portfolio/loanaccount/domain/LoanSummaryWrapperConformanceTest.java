@@ -0,0 +1,207 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.domain;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.junit.Test;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.portfolio.loanaccount.LoanScheduleTestDataHelper;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.LoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.CreocoreLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.EarlyPaymentLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.HeavensFamilyLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.MifosStyleLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.RBILoanRepaymentScheduleTransactionProcessor;
+
+/**
+ * Processes the schedules used by the processor tests, and schedules whose
+ * stored amounts have more digits than the currency, with every repayment
+ * strategy and checks the schedule totals and outstanding amounts worked out
+ * in minor units against the same sums done with {@link Money}.
+ */
+public class LoanSummaryWrapperConformanceTest {
+
+    private static final LocalDate FIRST_DUE_DATE = new LocalDate(2012, 7, 2);
+    private static final LocalDate DISBURSEMENT_DATE = FIRST_DUE_DATE.minusMonths(1);
+    private static final MonetaryCurrency[] CURRENCIES = { new MonetaryCurrency("USD", 2, null), new MonetaryCurrency("KWD", 3, null),
+            new MonetaryCurrency("JPY", 0, null), new MonetaryCurrency("XOF", 0, 50) };
+
+    private final LoanSummaryWrapper wrapper = new LoanSummaryWrapper();
+
+    @Test
+    public void totalsOverProcessedFixtureSchedulesMatchMoneySums() {
+        for (final MonetaryCurrency currency : CURRENCIES) {
+            for (final LoanRepaymentScheduleTransactionProcessor processor : processors()) {
+                for (int schedule = 0; schedule < 3; schedule++) {
+                    final String[][] transactions = { { "2012-06-20", "333.335" }, { "2012-07-02", "0.01" },
+                            { "2012-07-15", "waive", "17.49" }, { "2012-08-09", "517.995" }, { "2012-09-30", "1234.56" },
+                            { "2012-10-01", "writeoff" } };
+                    for (int processed = 0; processed <= transactions.length; processed++) {
+                        final List<LoanRepaymentScheduleInstallment> installments = schedule(schedule, currency);
+                        processor.handleTransaction(DISBURSEMENT_DATE, transactions(transactions, processed, currency), currency,
+                                installments, new HashSet<LoanCharge>(), null);
+
+                        assertSameTotals(processor + " " + currency.getCode() + " schedule " + schedule + " after " + processed,
+                                installments, currency);
+                    }
+                }
+            }
+        }
+    }
+
+    private void assertSameTotals(final String message, final List<LoanRepaymentScheduleInstallment> installments,
+            final MonetaryCurrency currency) {
+        Money principalRepaid = Money.zero(currency);
+        Money principalWrittenOff = Money.zero(currency);
+        Money interestCharged = Money.zero(currency);
+        Money interestRepaid = Money.zero(currency);
+        Money interestWaived = Money.zero(currency);
+        Money interestWrittenOff = Money.zero(currency);
+        Money feeChargesCharged = Money.zero(currency);
+        Money feeChargesRepaid = Money.zero(currency);
+        Money feeChargesWaived = Money.zero(currency);
+        Money feeChargesWrittenOff = Money.zero(currency);
+        Money penaltyChargesCharged = Money.zero(currency);
+        Money penaltyChargesRepaid = Money.zero(currency);
+        Money penaltyChargesWaived = Money.zero(currency);
+        Money penaltyChargesWrittenOff = Money.zero(currency);
+        for (final LoanRepaymentScheduleInstallment installment : installments) {
+            principalRepaid = principalRepaid.plus(installment.getPrincipalCompleted(currency));
+            principalWrittenOff = principalWrittenOff.plus(installment.getPrincipalWrittenOff(currency));
+            interestCharged = interestCharged.plus(installment.getInterestCharged(currency));
+            interestRepaid = interestRepaid.plus(installment.getInterestPaid(currency));
+            interestWaived = interestWaived.plus(installment.getInterestWaived(currency));
+            interestWrittenOff = interestWrittenOff.plus(installment.getInterestWrittenOff(currency));
+            feeChargesCharged = feeChargesCharged.plus(installment.getFeeChargesCharged(currency));
+            feeChargesRepaid = feeChargesRepaid.plus(installment.getFeeChargesPaid(currency));
+            feeChargesWaived = feeChargesWaived.plus(installment.getFeeChargesWaived(currency));
+            feeChargesWrittenOff = feeChargesWrittenOff.plus(installment.getFeeChargesWrittenOff(currency));
+            penaltyChargesCharged = penaltyChargesCharged.plus(installment.getPenaltyChargesCharged(currency));
+            penaltyChargesRepaid = penaltyChargesRepaid.plus(installment.getPenaltyChargesPaid(currency));
+            penaltyChargesWaived = penaltyChargesWaived.plus(installment.getPenaltyChargesWaived(currency));
+            penaltyChargesWrittenOff = penaltyChargesWrittenOff.plus(installment.getPenaltyChargesWrittenOff(currency));
+
+            final Money[] outstanding = outstanding(installment, currency);
+            assertEquals(message, outstanding[0].getAmount(), installment.getPrincipalOutstanding(currency).getAmount());
+            assertEquals(message, outstanding[1].getAmount(), installment.getInterestOutstanding(currency).getAmount());
+            assertEquals(message, outstanding[2].getAmount(), installment.getFeeChargesOutstanding(currency).getAmount());
+            assertEquals(message, outstanding[3].getAmount(), installment.getPenaltyChargesOutstanding(currency).getAmount());
+            assertEquals(message, outstanding[0].plus(outstanding[1]).plus(outstanding[2]).plus(outstanding[3]).getAmount(), installment
+                    .getTotalOutstanding(currency).getAmount());
+        }
+
+        assertSameAmount(message, principalRepaid, this.wrapper.calculateTotalPrincipalRepaid(installments, currency));
+        assertSameAmount(message, principalWrittenOff, this.wrapper.calculateTotalPrincipalWrittenOff(installments, currency));
+        assertSameAmount(message, interestCharged, this.wrapper.calculateTotalInterestCharged(installments, currency));
+        assertSameAmount(message, interestRepaid, this.wrapper.calculateTotalInterestRepaid(installments, currency));
+        assertSameAmount(message, interestWaived, this.wrapper.calculateTotalInterestWaived(installments, currency));
+        assertSameAmount(message, interestWrittenOff, this.wrapper.calculateTotalInterestWrittenOff(installments, currency));
+        assertSameAmount(message, feeChargesCharged, this.wrapper.calculateTotalFeeChargesCharged(installments, currency));
+        assertSameAmount(message, feeChargesRepaid, this.wrapper.calculateTotalFeeChargesRepaid(installments, currency));
+        assertSameAmount(message, feeChargesWaived, this.wrapper.calculateTotalFeeChargesWaived(installments, currency));
+        assertSameAmount(message, feeChargesWrittenOff, this.wrapper.calculateTotalFeeChargesWrittenOff(installments, currency));
+        assertSameAmount(message, penaltyChargesCharged, this.wrapper.calculateTotalPenaltyChargesCharged(installments, currency));
+        assertSameAmount(message, penaltyChargesRepaid, this.wrapper.calculateTotalPenaltyChargesRepaid(installments, currency));
+        assertSameAmount(message, penaltyChargesWaived, this.wrapper.calculateTotalPenaltyChargesWaived(installments, currency));
+        assertSameAmount(message, penaltyChargesWrittenOff, this.wrapper.calculateTotalPenaltyChargesWrittenOff(installments, currency));
+
+        for (final LocalDate overdueAsOf : new LocalDate[] { FIRST_DUE_DATE, FIRST_DUE_DATE.plusMonths(1).plusDays(1),
+                FIRST_DUE_DATE.plusYears(1) }) {
+            Money totalOverdue = Money.zero(currency);
+            for (final LoanRepaymentScheduleInstallment installment : installments) {
+                if (installment.isOverdueOn(overdueAsOf)) {
+                    final Money[] outstanding = outstanding(installment, currency);
+                    totalOverdue = totalOverdue.plus(outstanding[0]).plus(outstanding[1]).plus(outstanding[2]).plus(outstanding[3]);
+                }
+            }
+            assertSameAmount(message + " overdue on " + overdueAsOf, totalOverdue,
+                    this.wrapper.calculateTotalOverdueOn(installments, currency, overdueAsOf));
+        }
+    }
+
+    /**
+     * The outstanding principal, interest, fees and penalties as they were
+     * worked out with {@link Money}.
+     */
+    private static Money[] outstanding(final LoanRepaymentScheduleInstallment installment, final MonetaryCurrency currency) {
+        return new Money[] {
+                installment.getPrincipal(currency).minus(
+                        installment.getPrincipalCompleted(currency).plus(installment.getPrincipalWrittenOff(currency))),
+                installment.getInterestCharged(currency).minus(
+                        installment.getInterestPaid(currency).plus(installment.getInterestWaived(currency))
+                                .plus(installment.getInterestWrittenOff(currency))),
+                installment.getFeeChargesCharged(currency).minus(
+                        installment.getFeeChargesPaid(currency).plus(installment.getFeeChargesWaived(currency))
+                                .plus(installment.getFeeChargesWrittenOff(currency))),
+                installment.getPenaltyChargesCharged(currency).minus(
+                        installment.getPenaltyChargesPaid(currency).plus(installment.getPenaltyChargesWaived(currency))
+                                .plus(installment.getPenaltyChargesWrittenOff(currency))) };
+    }
+
+    private static void assertSameAmount(final String message, final Money expected, final Money actual) {
+        assertEquals(message, expected.getAmount(), actual.getAmount());
+    }
+
+    private static List<LoanRepaymentScheduleInstallment> schedule(final int schedule, final MonetaryCurrency currency) {
+        switch (schedule) {
+            case 0:
+                return new ArrayList<>(LoanScheduleTestDataHelper.createSimpleLoanSchedule(FIRST_DUE_DATE, currency));
+            case 1:
+                return new ArrayList<>(LoanScheduleTestDataHelper.createSimpleLoanScheduleWithFirstInstallmentFullyPaid(FIRST_DUE_DATE,
+                        currency));
+            default:
+                // stored amounts with more digits than the currency has
+                final List<LoanRepaymentScheduleInstallment> installments = new ArrayList<>();
+                for (int number = 1; number <= 4; number++) {
+                    installments.add(new LoanRepaymentScheduleInstallment(null, number, FIRST_DUE_DATE.plusMonths(number - 2),
+                            FIRST_DUE_DATE.plusMonths(number - 1), new BigDecimal("333.335"), new BigDecimal("41.6650"), new BigDecimal(
+                                    "2.505"), new BigDecimal("0.125"), false));
+                }
+                return installments;
+        }
+    }
+
+    private static List<LoanTransaction> transactions(final String[][] details, final int count, final MonetaryCurrency currency) {
+        final LocalDateTime createdDate = new LocalDateTime(2012, 6, 2, 0, 0);
+        final List<LoanTransaction> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final LocalDate date = new LocalDate(details[i][0]);
+            if ("writeoff".equals(details[i][1])) {
+                transactions.add(LoanTransaction.writeoff(null, null, date, null, createdDate, null));
+            } else if ("waive".equals(details[i][1])) {
+                final Money amount = Money.of(currency, new BigDecimal(details[i][2]));
+                transactions.add(LoanTransaction.waiver(null, null, amount, date, amount, Money.zero(currency), createdDate, null));
+            } else {
+                transactions.add(LoanTransaction.repayment(null, Money.of(currency, new BigDecimal(details[i][1])), null, date, null,
+                        createdDate, null));
+            }
+        }
+        return transactions;
+    }
+
+    private static List<LoanRepaymentScheduleTransactionProcessor> processors() {
+        final List<LoanRepaymentScheduleTransactionProcessor> processors = new ArrayList<>();
+        processors.add(new MifosStyleLoanRepaymentScheduleTransactionProcessor());
+        processors.add(new HeavensFamilyLoanRepaymentScheduleTransactionProcessor());
+        processors.add(new CreocoreLoanRepaymentScheduleTransactionProcessor());
+        processors.add(new RBILoanRepaymentScheduleTransactionProcessor());
+        processors.add(new PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor());
+        processors.add(new InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor());
+        processors.add(new EarlyPaymentLoanRepaymentScheduleTransactionProcessor());
+        return processors;
+    }
+}
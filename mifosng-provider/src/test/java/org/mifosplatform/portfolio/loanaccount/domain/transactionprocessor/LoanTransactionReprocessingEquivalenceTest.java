@@ -0,0 +1,288 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.junit.Test;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.portfolio.loanaccount.MonetaryCurrencyBuilder;
+import org.mifosplatform.portfolio.loanaccount.domain.ChangedTransactionDetail;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleProcessingWrapper;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionType;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.CreocoreLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.EarlyPaymentLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.HeavensFamilyLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.MifosStyleLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.RBILoanRepaymentScheduleTransactionProcessor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Checks reprocessing from the first unpaid installment against a plain replay of every transaction over every installment, for
+ * every transaction processing strategy and random mixes of early, late,
+ * partial and over payments, interest waivers and write-offs.
+ */
+public class LoanTransactionReprocessingEquivalenceTest {
+
+    private static final MonetaryCurrency USD = new MonetaryCurrencyBuilder().withCode("USD").withDigitsAfterDecimal(2).build();
+    private static final LocalDate DISBURSEMENT_DATE = new LocalDate(2014, 1, 6);
+    private static final int NUMBER_OF_INSTALLMENTS = 40;
+    private static final int NUMBER_OF_LOANS = 25;
+
+    private static final String[] INSTALLMENT_FIELDS = { "installmentNumber", "fromDate", "dueDate", "principal", "principalCompleted",
+            "principalWrittenOff", "interestCharged", "interestPaid", "interestWaived", "interestWrittenOff", "feeChargesCharged",
+            "feeChargesPaid", "feeChargesWrittenOff", "feeChargesWaived", "penaltyCharges", "penaltyChargesPaid",
+            "penaltyChargesWrittenOff", "penaltyChargesWaived", "totalPaidInAdvance", "totalPaidLate", "obligationsMet",
+            "obligationsMetOnDate" };
+    private static final String[] TRANSACTION_FIELDS = { "id", "typeOf", "dateOf", "amount", "principalPortion", "interestPortion",
+            "feeChargesPortion", "penaltyChargesPortion", "overPaymentPortion", "reversed" };
+
+    @Test
+    public void reprocessingFromFirstUnpaidInstallmentMatchesFullReplay() {
+        for (final LoanRepaymentScheduleTransactionProcessor processor : processors()) {
+            for (int seed = 0; seed < NUMBER_OF_LOANS; seed++) {
+                final List<TransactionDetail> details = randomTransactions(new Random(seed));
+
+                final List<LoanRepaymentScheduleInstallment> installments = installments();
+                final List<LoanTransaction> transactions = transactions(details);
+                final ChangedTransactionDetail changed = processor.handleTransaction(DISBURSEMENT_DATE, transactions, USD, installments,
+                        new HashSet<LoanCharge>(), null);
+
+                final List<LoanRepaymentScheduleInstallment> expectedInstallments = installments();
+                final List<LoanTransaction> expectedTransactions = transactions(details);
+                final ChangedTransactionDetail expectedChanged = fullReplay(processor, expectedTransactions, expectedInstallments);
+
+                assertSameState(processor + " seed " + seed, expectedInstallments, expectedTransactions, expectedChanged, installments,
+                        transactions, changed);
+            }
+        }
+    }
+
+    @Test
+    public void reprocessingAfterBackdatedRepaymentMatchesFullReplay() {
+        for (final LoanRepaymentScheduleTransactionProcessor processor : processors()) {
+            for (int seed = 0; seed < NUMBER_OF_LOANS; seed++) {
+                final Random random = new Random(seed);
+                final List<TransactionDetail> details = randomRepayments(random);
+                final int backdatedAt = random.nextInt(details.size());
+                final TransactionDetail backdated = new TransactionDetail(LoanTransactionType.REPAYMENT, details.get(backdatedAt).date,
+                        randomAmount(random));
+
+                final List<LoanRepaymentScheduleInstallment> installments = installments();
+                final List<LoanTransaction> transactions = existingTransactions(processor, details, installments);
+                transactions.add(backdatedAt, transaction(backdated));
+                final ChangedTransactionDetail changed = processor.handleTransaction(DISBURSEMENT_DATE, transactions, USD, installments,
+                        new HashSet<LoanCharge>(), null);
+
+                final List<LoanRepaymentScheduleInstallment> expectedInstallments = installments();
+                final List<LoanTransaction> expectedTransactions = existingTransactions(processor, details, expectedInstallments);
+                expectedTransactions.add(backdatedAt, transaction(backdated));
+                final ChangedTransactionDetail expectedChanged = fullReplay(processor, expectedTransactions, expectedInstallments);
+
+                assertSameState(processor + " seed " + seed, expectedInstallments, expectedTransactions, expectedChanged, installments,
+                        transactions, changed);
+            }
+        }
+    }
+
+    /**
+     * Reprocessing as it was done before it started from the first unpaid
+     * installment: the installments are sorted again for every transaction
+     * and each transaction goes over all of them.
+     */
+    private static ChangedTransactionDetail fullReplay(final LoanRepaymentScheduleTransactionProcessor processor,
+            final List<LoanTransaction> transactions, final List<LoanRepaymentScheduleInstallment> installments) {
+        final Set<LoanCharge> charges = new HashSet<>();
+        for (final LoanRepaymentScheduleInstallment installment : installments) {
+            installment.resetDerivedComponents();
+            installment.updateDerivedFields(USD, DISBURSEMENT_DATE);
+        }
+        new LoanRepaymentScheduleProcessingWrapper().reprocess(USD, DISBURSEMENT_DATE, installments, charges, null);
+
+        final ChangedTransactionDetail changedTransactionDetail = new ChangedTransactionDetail();
+        for (final LoanTransaction loanTransaction : transactions) {
+            Collections.sort(installments, AbstractLoanRepaymentScheduleTransactionProcessor.BY_DUE_DATE);
+            if (loanTransaction.isWriteOff()) {
+                loanTransaction.resetDerivedComponents();
+                processor.handleWriteOff(loanTransaction, USD, installments);
+            } else if (loanTransaction.getId() == null) {
+                processor.handleTransaction(loanTransaction, USD, installments, charges);
+                loanTransaction.adjustInterestComponent(USD);
+            } else {
+                final LoanTransaction newLoanTransaction = LoanTransaction.copyTransactionProperties(loanTransaction);
+                processor.handleTransaction(newLoanTransaction, USD, installments, charges);
+                newLoanTransaction.adjustInterestComponent(USD);
+                if (!LoanTransaction.transactionAmountsMatch(USD, loanTransaction, newLoanTransaction)) {
+                    loanTransaction.reverse();
+                    loanTransaction.updateExternalId(null);
+                    changedTransactionDetail.getNewTransactionMappings().put(loanTransaction.getId(), newLoanTransaction);
+                }
+            }
+        }
+        return changedTransactionDetail;
+    }
+
+    private static void assertSameState(final String message, final List<LoanRepaymentScheduleInstallment> expectedInstallments,
+            final List<LoanTransaction> expectedTransactions, final ChangedTransactionDetail expectedChanged,
+            final List<LoanRepaymentScheduleInstallment> installments, final List<LoanTransaction> transactions,
+            final ChangedTransactionDetail changed) {
+        for (int i = 0; i < expectedInstallments.size(); i++) {
+            assertArrayEquals(message + " installment " + i, stateOf(expectedInstallments.get(i), INSTALLMENT_FIELDS),
+                    stateOf(installments.get(i), INSTALLMENT_FIELDS));
+        }
+        for (int i = 0; i < expectedTransactions.size(); i++) {
+            assertArrayEquals(message + " transaction " + i, stateOf(expectedTransactions.get(i), TRANSACTION_FIELDS),
+                    stateOf(transactions.get(i), TRANSACTION_FIELDS));
+        }
+        final Map<Long, LoanTransaction> expectedMappings = expectedChanged.getNewTransactionMappings();
+        assertEquals(message, expectedMappings.keySet(), changed.getNewTransactionMappings().keySet());
+        for (final Map.Entry<Long, LoanTransaction> expected : expectedMappings.entrySet()) {
+            assertArrayEquals(message + " replacing transaction " + expected.getKey(), stateOf(expected.getValue(), TRANSACTION_FIELDS),
+                    stateOf(changed.getNewTransactionMappings().get(expected.getKey()), TRANSACTION_FIELDS));
+        }
+    }
+
+    private static Object[] stateOf(final Object entity, final String[] fields) {
+        final Object[] state = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            state[i] = ReflectionTestUtils.getField(entity, fields[i]);
+        }
+        return state;
+    }
+
+    private static List<LoanRepaymentScheduleTransactionProcessor> processors() {
+        final List<LoanRepaymentScheduleTransactionProcessor> processors = new ArrayList<>();
+        processors.add(new MifosStyleLoanRepaymentScheduleTransactionProcessor());
+        processors.add(new HeavensFamilyLoanRepaymentScheduleTransactionProcessor());
+        processors.add(new CreocoreLoanRepaymentScheduleTransactionProcessor());
+        processors.add(new RBILoanRepaymentScheduleTransactionProcessor());
+        processors.add(new PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor());
+        processors.add(new InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor());
+        processors.add(new EarlyPaymentLoanRepaymentScheduleTransactionProcessor());
+        return processors;
+    }
+
+    /**
+     * Weekly installments of 250.00 principal and 12.50 interest.
+     */
+    private static List<LoanRepaymentScheduleInstallment> installments() {
+        final List<LoanRepaymentScheduleInstallment> installments = new ArrayList<>();
+        for (int number = 1; number <= NUMBER_OF_INSTALLMENTS; number++) {
+            installments.add(new LoanRepaymentScheduleInstallment(null, number, DISBURSEMENT_DATE.plusWeeks(number - 1), DISBURSEMENT_DATE
+                    .plusWeeks(number), new BigDecimal("250.00"), new BigDecimal("12.50"), BigDecimal.ZERO, BigDecimal.ZERO, false));
+        }
+        return installments;
+    }
+
+    /**
+     * Repayments mixed with interest waivers, recovery repayments and
+     * possibly a final write-off.
+     */
+    private static List<TransactionDetail> randomTransactions(final Random random) {
+        final List<TransactionDetail> details = randomRepayments(random);
+        for (int i = 0; i < details.size(); i++) {
+            final TransactionDetail repayment = details.get(i);
+            final int kind = random.nextInt(10);
+            if (kind == 0) {
+                details.set(i, new TransactionDetail(LoanTransactionType.WAIVE_INTEREST, repayment.date, new BigDecimal("5.00")));
+            } else if (kind == 1) {
+                details.set(i, new TransactionDetail(LoanTransactionType.RECOVERY_REPAYMENT, repayment.date, repayment.amount));
+            }
+        }
+        if (random.nextBoolean()) {
+            details.add(new TransactionDetail(LoanTransactionType.WRITEOFF, details.get(details.size() - 1).date.plusDays(1), null));
+        }
+        return details;
+    }
+
+    /**
+     * Roughly one repayment per installment, early, on time or late, short,
+     * exact or over the installment amount.
+     */
+    private static List<TransactionDetail> randomRepayments(final Random random) {
+        final List<TransactionDetail> details = new ArrayList<>();
+        final int numberOfRepayments = NUMBER_OF_INSTALLMENTS / 2 + random.nextInt(NUMBER_OF_INSTALLMENTS);
+        LocalDate date = DISBURSEMENT_DATE;
+        for (int i = 0; i < numberOfRepayments; i++) {
+            date = date.plusDays(1 + random.nextInt(9));
+            details.add(new TransactionDetail(LoanTransactionType.REPAYMENT, date, randomAmount(random)));
+        }
+        return details;
+    }
+
+    private static BigDecimal randomAmount(final Random random) {
+        return BigDecimal.valueOf(5000 + random.nextInt(50000), 2);
+    }
+
+    private static List<LoanTransaction> transactions(final List<TransactionDetail> details) {
+        final List<LoanTransaction> transactions = new ArrayList<>();
+        for (final TransactionDetail detail : details) {
+            transactions.add(transaction(detail));
+        }
+        return transactions;
+    }
+
+    /**
+     * Transactions as they are once processed and saved, with an id and the
+     * breakup of the amount worked out.
+     */
+    private static List<LoanTransaction> existingTransactions(final LoanRepaymentScheduleTransactionProcessor processor,
+            final List<TransactionDetail> details, final List<LoanRepaymentScheduleInstallment> installments) {
+        final List<LoanTransaction> transactions = transactions(details);
+        fullReplay(processor, transactions, installments);
+        long id = 1;
+        for (final LoanTransaction transaction : transactions) {
+            ReflectionTestUtils.setField(transaction, "id", Long.valueOf(id++));
+        }
+        return transactions;
+    }
+
+    private static LoanTransaction transaction(final TransactionDetail detail) {
+        final LocalDateTime createdDate = new LocalDateTime(2014, 1, 6, 0, 0);
+        switch (detail.type) {
+            case WAIVE_INTEREST:
+                return LoanTransaction.waiver(null, null, Money.of(USD, detail.amount), detail.date, Money.of(USD, detail.amount),
+                        Money.zero(USD), createdDate, null);
+            case RECOVERY_REPAYMENT:
+                return LoanTransaction.recoveryRepayment(null, Money.of(USD, detail.amount), null, detail.date, null, createdDate, null);
+            case WRITEOFF:
+                return LoanTransaction.writeoff(null, null, detail.date, null, createdDate, null);
+            default:
+                return LoanTransaction.repayment(null, Money.of(USD, detail.amount), null, detail.date, null, createdDate, null);
+        }
+    }
+
+    private static final class TransactionDetail {
+
+        private final LoanTransactionType type;
+        private final LocalDate date;
+        private final BigDecimal amount;
+
+        TransactionDetail(final LoanTransactionType type, final LocalDate date, final BigDecimal amount) {
+            this.type = type;
+            this.date = date;
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.commands.service.PortfolioCommandSourceWritePlatformService;
+import org.mifosplatform.infrastructure.core.boot.tests.AbstractSpringBootWithMariaDB4jIntegrationTest;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.jobs.data.PartitionedJobResult;
+import org.mifosplatform.infrastructure.security.service.PlatformUserDetailsService;
+import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
+import org.mifosplatform.portfolio.loanaccount.data.LoanChargeData;
+import org.mifosplatform.portfolio.loanaccount.data.LoanScheduleAccrualData;
+import org.mifosplatform.portfolio.loanaccount.data.LoanTransactionData;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCommandFixture;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanSchedulePeriodData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Accrues pairs of identical loans with periodic accrual accounting, one of
+ * each pair loan by loan on the calling thread, the other through the
+ * partitioned accrual job with the charges and interest waivers of all its
+ * loans fetched at once, and checks both end up with the same accruals.
+ */
+public class LoanAccrualPartitionedJobEquivalenceTest extends AbstractSpringBootWithMariaDB4jIntegrationTest {
+
+    private static final LocalDate WAIVER_DATE = LoanCommandFixture.DISBURSEMENT_DATE.plusMonths(2).plusDays(10);
+
+    @Autowired
+    private PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
+
+    @Autowired
+    private TenantDetailsService tenantDetailsService;
+
+    @Autowired
+    private PlatformUserDetailsService userDetailsService;
+
+    @Autowired
+    private LoanAccrualWritePlatformService loanAccrualWritePlatformService;
+
+    @Autowired
+    private LoanReadPlatformService loanReadPlatformService;
+
+    @Autowired
+    private LoanChargeReadPlatformService loanChargeReadPlatformService;
+
+    @Autowired
+    private RoutingDataSource dataSource;
+
+    private LoanCommandFixture loans;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        this.loans = new LoanCommandFixture(this.commandsSourceWritePlatformService, this.tenantDetailsService, this.userDetailsService,
+                true);
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+    }
+
+    @After
+    public void tearDown() {
+        this.loans.logout();
+    }
+
+    @Test
+    public void partitionedJobAccruesLikeTheLoanByLoanPath() throws Exception {
+        final List<Long> loanByLoan = createLoans();
+        final List<Long> partitioned = createLoans();
+
+        // the job runs till today, all installments of the loans are due by
+        // then and the loans accrued loan by loan are left with nothing to do
+        final LocalDate tilldate = LocalDate.now();
+        for (final Long loanId : loanByLoan) {
+            assertEquals("", this.loanAccrualWritePlatformService.addPeriodicAccruals(tilldate, accrualDataOf(loanId, tilldate)));
+        }
+        final PartitionedJobResult result = this.loanAccrualWritePlatformService.addPeriodicAccruals();
+        assertFalse(result.errorMessage(), result.hasErrors());
+
+        for (int i = 0; i < loanByLoan.size(); i++) {
+            final Long expectedLoanId = loanByLoan.get(i);
+            final Long loanId = partitioned.get(i);
+
+            final List<Map<String, Object>> accrualTransactions = accrualTransactions(loanId);
+            assertFalse(accrualTransactions.isEmpty());
+            assertEquals(accrualTransactions(expectedLoanId), accrualTransactions);
+            assertEquals(installmentAccruals(expectedLoanId), installmentAccruals(loanId));
+            assertEquals(accruedTill(expectedLoanId), accruedTill(loanId));
+            assertEquals(accrualChargesPaidBy(expectedLoanId), accrualChargesPaidBy(loanId));
+            assertEquals(accrualJournalEntries(expectedLoanId), accrualJournalEntries(loanId));
+        }
+        assertFalse(accrualChargesPaidBy(partitioned.get(0)).isEmpty());
+    }
+
+    @Test
+    public void chargesAndInterestWaiversOfSeveralLoansAreFetchedPerLoan() {
+        final List<Long> loanIds = createLoans();
+        final Long chargedLoanId = loanIds.get(0);
+        final Long waivedLoanId = loanIds.get(1);
+
+        final Map<Long, Collection<LoanChargeData>> charges = this.loanChargeReadPlatformService.retrieveLoanChargesForAccural(loanIds);
+        for (final Long loanId : loanIds) {
+            assertEquals(loanChargeIds(loanId), chargeIds(charges.get(loanId)));
+        }
+
+        final Map<Long, Collection<LoanTransactionData>> interestWaivers = this.loanReadPlatformService
+                .retrieveWaiverLoanTransactions(loanIds);
+        assertNull(interestWaivers.get(chargedLoanId));
+        assertEquals(1, interestWaivers.get(waivedLoanId).size());
+        assertEquals(WAIVER_DATE, interestWaivers.get(waivedLoanId).iterator().next().dateOf());
+
+        final Map<Long, Collection<LoanSchedulePeriodData>> interestWaivedPeriods = this.loanReadPlatformService
+                .fetchWaiverInterestRepaymentData(loanIds);
+        assertNull(interestWaivedPeriods.get(chargedLoanId));
+        assertFalse(interestWaivedPeriods.get(waivedLoanId).isEmpty());
+
+        assertTrue(this.loanChargeReadPlatformService.retrieveLoanChargesForAccural(new ArrayList<Long>()).isEmpty());
+        assertTrue(this.loanReadPlatformService.retrieveWaiverLoanTransactions(new ArrayList<Long>()).isEmpty());
+        assertTrue(this.loanReadPlatformService.fetchWaiverInterestRepaymentData(new ArrayList<Long>()).isEmpty());
+    }
+
+    /**
+     * A loan with its fee and a couple of repayments, and the same loan with
+     * some of its interest waived.
+     */
+    private List<Long> createLoans() {
+        final Long chargedLoanId = this.loans.disbursedLoan(2);
+        final Long waivedLoanId = this.loans.disbursedLoan(2);
+        this.loans.waiveInterest(waivedLoanId, WAIVER_DATE, "100");
+        return Arrays.asList(chargedLoanId, waivedLoanId);
+    }
+
+    private Collection<LoanScheduleAccrualData> accrualDataOf(final Long loanId, final LocalDate tilldate) {
+        final Collection<LoanScheduleAccrualData> accrualData = new ArrayList<>();
+        for (final LoanScheduleAccrualData installment : this.loanReadPlatformService.retrivePeriodicAccrualData(tilldate)) {
+            if (installment.getLoanId().equals(loanId)) {
+                accrualData.add(installment);
+            }
+        }
+        return accrualData;
+    }
+
+    private List<Map<String, Object>> accrualTransactions(final Long loanId) {
+        return this.jdbcTemplate.queryForList("select tr.office_id, tr.transaction_date, tr.amount, tr.interest_portion_derived, "
+                + "tr.fee_charges_portion_derived, tr.penalty_charges_portion_derived from m_loan_transaction tr "
+                + "where tr.loan_id = ? and tr.transaction_type_enum = 10 and tr.is_reversed = 0 order by tr.transaction_date, tr.id",
+                loanId);
+    }
+
+    private List<Map<String, Object>> installmentAccruals(final Long loanId) {
+        return this.jdbcTemplate.queryForList("select ls.installment, ls.accrual_interest_derived, ls.accrual_fee_charges_derived, "
+                + "ls.accrual_penalty_charges_derived from m_loan_repayment_schedule ls where ls.loan_id = ? order by ls.installment",
+                loanId);
+    }
+
+    private Object accruedTill(final Long loanId) {
+        return this.jdbcTemplate.queryForObject("select accrued_till from m_loan where id = ?", Object.class, loanId);
+    }
+
+    private List<Map<String, Object>> accrualChargesPaidBy(final Long loanId) {
+        return this.jdbcTemplate.queryForList("select tr.transaction_date, pb.amount, pb.installment_number from m_loan_charge_paid_by pb "
+                + "join m_loan_transaction tr on tr.id = pb.loan_transaction_id where tr.loan_id = ? and tr.transaction_type_enum = 10 "
+                + "order by tr.transaction_date, pb.installment_number", loanId);
+    }
+
+    private List<Map<String, Object>> accrualJournalEntries(final Long loanId) {
+        return this.jdbcTemplate.queryForList("select je.entry_date, je.type_enum, je.account_id, je.amount, je.created_date is not null "
+                + "as audited from acc_gl_journal_entry je join m_loan_transaction tr on tr.id = je.loan_transaction_id "
+                + "where tr.loan_id = ? and tr.transaction_type_enum = 10 order by je.entry_date, je.type_enum, je.account_id, je.amount",
+                loanId);
+    }
+
+    private Set<Long> loanChargeIds(final Long loanId) {
+        return new HashSet<>(this.jdbcTemplate.queryForList("select id from m_loan_charge where loan_id = ? and is_active = 1", Long.class,
+                loanId));
+    }
+
+    private static Set<Long> chargeIds(final Collection<LoanChargeData> charges) {
+        final Set<Long> chargeIds = new HashSet<>();
+        for (final LoanChargeData charge : charges) {
+            chargeIds.add(charge.getId());
+        }
+        return chargeIds;
+    }
+}
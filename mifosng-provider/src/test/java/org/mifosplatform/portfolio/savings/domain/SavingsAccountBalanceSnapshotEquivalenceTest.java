@@ -0,0 +1,351 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.savings.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.portfolio.account.service.AccountTransfersReadPlatformService;
+import org.mifosplatform.portfolio.accountdetails.domain.AccountType;
+import org.mifosplatform.portfolio.client.domain.Client;
+import org.mifosplatform.portfolio.loanaccount.MonetaryCurrencyBuilder;
+import org.mifosplatform.portfolio.savings.SavingsCompoundingInterestPeriodType;
+import org.mifosplatform.portfolio.savings.SavingsInterestCalculationDaysInYearType;
+import org.mifosplatform.portfolio.savings.SavingsInterestCalculationType;
+import org.mifosplatform.portfolio.savings.SavingsPostingInterestPeriodType;
+import org.mifosplatform.portfolio.savings.domain.interest.PostingPeriod;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Posts interest on two identical accounts, one calculating from its
+ * {@link SavingsAccountBalanceSnapshot} and one always calculating from the
+ * first transaction, and checks that postings, balances and summaries stay
+ * the same.
+ */
+public class SavingsAccountBalanceSnapshotEquivalenceTest {
+
+    private static final MonetaryCurrency USD = new MonetaryCurrencyBuilder().withCode("USD").withDigitsAfterDecimal(2).build();
+    private static final MathContext MC = new MathContext(15, RoundingMode.HALF_EVEN);
+    private static final LocalDate ACTIVATION_DATE = new LocalDate(2014, 1, 1);
+    private static final Integer FINANCIAL_YEAR_BEGINNING_MONTH = 1;
+
+    @Test
+    public void postingFromSnapshotOverManyPeriodsMatchesFullCalculation() {
+        for (final boolean postingAtPeriodEnd : new boolean[] { true, false }) {
+            final Scenario scenario = new Scenario(false, postingAtPeriodEnd);
+            scenario.deposit(ACTIVATION_DATE, "1000");
+
+            int postingsFromSnapshot = 0;
+            for (int month = 1; month <= 14; month++) {
+                final LocalDate monthStart = ACTIVATION_DATE.plusMonths(month - 1);
+                scenario.deposit(monthStart.plusDays(4), "250");
+                scenario.withdraw(monthStart.plusDays(17), "120.50");
+                if (month % 3 == 0) {
+                    // interest calculated in the middle of a period
+                    if (scenario.postInterest(monthStart.plusDays(20))) {
+                        postingsFromSnapshot++;
+                    }
+                }
+                if (scenario.postInterest(monthStart.plusMonths(1))) {
+                    postingsFromSnapshot++;
+                }
+            }
+            scenario.assertSameInterestUpTo(ACTIVATION_DATE.plusMonths(14).plusDays(12));
+
+            assertTrue("postings at period end " + postingAtPeriodEnd, postingsFromSnapshot >= 15);
+        }
+    }
+
+    @Test
+    public void transactionsOnPeriodEndAndOnPostingDayMatchFullCalculation() {
+        for (final boolean postingAtPeriodEnd : new boolean[] { true, false }) {
+            final Scenario scenario = new Scenario(false, postingAtPeriodEnd);
+            scenario.deposit(ACTIVATION_DATE, "500");
+
+            for (int month = 1; month <= 6; month++) {
+                final LocalDate nextPeriodStart = ACTIVATION_DATE.plusMonths(month);
+                scenario.deposit(nextPeriodStart.minusDays(1), "75");
+                scenario.withdraw(nextPeriodStart, "30");
+                scenario.postInterest(nextPeriodStart);
+                // the posting day again, after the posting was made
+                scenario.deposit(nextPeriodStart, "10");
+                scenario.postInterest(nextPeriodStart);
+            }
+            scenario.assertSameInterestUpTo(ACTIVATION_DATE.plusMonths(6).plusDays(9));
+        }
+    }
+
+    @Test
+    public void lockedInAccountPostingFromSnapshotMatchesFullCalculation() {
+        for (final boolean postingAtPeriodEnd : new boolean[] { true, false }) {
+            final Scenario scenario = new Scenario(false, postingAtPeriodEnd);
+            scenario.lockInUntil(ACTIVATION_DATE.plusMonths(4).minusDays(1));
+            scenario.deposit(ACTIVATION_DATE, "2000");
+
+            int postingsFromSnapshot = 0;
+            for (int month = 1; month <= 8; month++) {
+                final LocalDate monthStart = ACTIVATION_DATE.plusMonths(month - 1);
+                scenario.deposit(monthStart.plusDays(9), "100");
+                if (scenario.postInterest(monthStart.plusMonths(1))) {
+                    postingsFromSnapshot++;
+                }
+            }
+            scenario.assertSameInterestUpTo(ACTIVATION_DATE.plusMonths(8).plusDays(5));
+
+            assertEquals(7, postingsFromSnapshot);
+        }
+    }
+
+    @Test
+    public void interestTransferAccountIsAlwaysCalculatedInFull() {
+        for (final boolean postingAtPeriodEnd : new boolean[] { true, false }) {
+            final Scenario scenario = new Scenario(true, postingAtPeriodEnd);
+            scenario.lockInUntil(ACTIVATION_DATE.plusMonths(2).minusDays(1));
+            scenario.deposit(ACTIVATION_DATE, "3000");
+
+            for (int month = 1; month <= 6; month++) {
+                final LocalDate nextPeriodStart = ACTIVATION_DATE.plusMonths(month);
+                scenario.deposit(nextPeriodStart.minusDays(12), "40");
+                // the interest of the period leaves the account the next day
+                scenario.withdraw(nextPeriodStart, "5");
+                assertFalse(scenario.postInterest(nextPeriodStart));
+                assertNull(scenario.snapshot());
+            }
+            scenario.assertSameInterestUpTo(ACTIVATION_DATE.plusMonths(6).plusDays(15));
+        }
+    }
+
+    @Test
+    public void backDatedTransactionBeforeSnapshotIsCalculatedInFull() {
+        for (final boolean postingAtPeriodEnd : new boolean[] { true, false }) {
+            final Scenario scenario = new Scenario(false, postingAtPeriodEnd);
+            scenario.deposit(ACTIVATION_DATE, "1000");
+            for (int month = 1; month <= 4; month++) {
+                scenario.deposit(ACTIVATION_DATE.plusMonths(month - 1).plusDays(14), "200");
+                scenario.postInterest(ACTIVATION_DATE.plusMonths(month));
+            }
+            final LocalDate snapshotDate = scenario.snapshot().getSnapshotDate();
+
+            scenario.deposit(snapshotDate.minusMonths(2), "300");
+            assertFalse(scenario.postInterest(ACTIVATION_DATE.plusMonths(4).plusDays(10)));
+
+            scenario.withdraw(snapshotDate, "150");
+            assertFalse(scenario.postInterest(ACTIVATION_DATE.plusMonths(5)));
+
+            scenario.deposit(ACTIVATION_DATE.plusMonths(5).plusDays(3), "50");
+            assertTrue(scenario.postInterest(ACTIVATION_DATE.plusMonths(6)));
+            scenario.assertSameInterestUpTo(ACTIVATION_DATE.plusMonths(6).plusDays(20));
+        }
+    }
+
+    @Test
+    public void reversalOnOrBeforeSnapshotIsCalculatedInFull() {
+        for (final boolean postingAtPeriodEnd : new boolean[] { true, false }) {
+            final Scenario scenario = new Scenario(false, postingAtPeriodEnd);
+            scenario.deposit(ACTIVATION_DATE, "1000");
+            final int early = scenario.deposit(ACTIVATION_DATE.plusDays(9), "400");
+            final int onPeriodEnd = scenario.deposit(ACTIVATION_DATE.plusMonths(3).minusDays(1), "250");
+            for (int month = 1; month <= 3; month++) {
+                scenario.postInterest(ACTIVATION_DATE.plusMonths(month));
+            }
+            assertEquals(ACTIVATION_DATE.plusMonths(3).minusDays(1), scenario.snapshot().getSnapshotDate());
+
+            scenario.reverse(onPeriodEnd);
+            assertFalse(scenario.postInterest(ACTIVATION_DATE.plusMonths(3).plusDays(1)));
+
+            scenario.reverse(early);
+            assertFalse(scenario.postInterest(ACTIVATION_DATE.plusMonths(4)));
+
+            scenario.deposit(ACTIVATION_DATE.plusMonths(4).plusDays(6), "80");
+            assertTrue(scenario.postInterest(ACTIVATION_DATE.plusMonths(5)));
+            scenario.assertSameInterestUpTo(ACTIVATION_DATE.plusMonths(5).plusDays(17));
+        }
+    }
+
+    /**
+     * Applies every step to an account that keeps its snapshot and to one
+     * whose snapshot is dropped before each calculation.
+     */
+    private static final class Scenario {
+
+        private final SavingsAccount fromSnapshot;
+        private final SavingsAccount full;
+        private final boolean interestTransfer;
+        private final boolean postingAtPeriodEnd;
+        private final List<SavingsAccountTransaction[]> added = new ArrayList<>();
+
+        Scenario(final boolean interestTransfer, final boolean postingAtPeriodEnd) {
+            this.fromSnapshot = account(interestTransfer);
+            this.full = account(interestTransfer);
+            this.interestTransfer = interestTransfer;
+            this.postingAtPeriodEnd = postingAtPeriodEnd;
+        }
+
+        void lockInUntil(final LocalDate date) {
+            this.fromSnapshot.lockedInUntilDate = date.toDate();
+            this.full.lockedInUntilDate = date.toDate();
+        }
+
+        int deposit(final LocalDate date, final String amount) {
+            return add(SavingsAccountTransaction.deposit(this.fromSnapshot, null, null, date, Money.of(USD, new BigDecimal(amount)),
+                    createdDate(), null), SavingsAccountTransaction.deposit(this.full, null, null, date,
+                    Money.of(USD, new BigDecimal(amount)), createdDate(), null));
+        }
+
+        int withdraw(final LocalDate date, final String amount) {
+            return add(SavingsAccountTransaction.withdrawal(this.fromSnapshot, null, null, date, Money.of(USD, new BigDecimal(amount)),
+                    createdDate(), null), SavingsAccountTransaction.withdrawal(this.full, null, null, date,
+                    Money.of(USD, new BigDecimal(amount)), createdDate(), null));
+        }
+
+        void reverse(final int transaction) {
+            for (final SavingsAccountTransaction accountTransaction : this.added.get(transaction)) {
+                accountTransaction.reverse();
+            }
+        }
+
+        /**
+         * @return true if the interest was calculated from the snapshot
+         */
+        boolean postInterest(final LocalDate upToDate) {
+            final SavingsAccountBalanceSnapshot snapshot = snapshot();
+            final boolean usedSnapshot = snapshot != null && snapshot.isUsableFor(upToDate, this.fromSnapshot.getTransactions());
+
+            this.fromSnapshot.postInterest(MC, upToDate, this.interestTransfer, this.postingAtPeriodEnd, FINANCIAL_YEAR_BEGINNING_MONTH);
+            ReflectionTestUtils.setField(this.full, "balanceSnapshot", null);
+            this.full.postInterest(MC, upToDate, this.interestTransfer, this.postingAtPeriodEnd, FINANCIAL_YEAR_BEGINNING_MONTH);
+
+            assertSameState("posting up to " + upToDate);
+            return usedSnapshot;
+        }
+
+        void assertSameInterestUpTo(final LocalDate upToDate) {
+            final List<PostingPeriod> periods = this.fromSnapshot.calculateInterestUsing(MC, upToDate, this.interestTransfer,
+                    this.postingAtPeriodEnd, FINANCIAL_YEAR_BEGINNING_MONTH);
+            ReflectionTestUtils.setField(this.full, "balanceSnapshot", null);
+            final List<PostingPeriod> expectedPeriods = this.full.calculateInterestUsing(MC, upToDate, this.interestTransfer,
+                    this.postingAtPeriodEnd, FINANCIAL_YEAR_BEGINNING_MONTH);
+
+            // the snapshot leaves out the periods up to it
+            assertTrue(periods.size() <= expectedPeriods.size());
+            final int offset = expectedPeriods.size() - periods.size();
+            for (int i = 0; i < periods.size(); i++) {
+                final PostingPeriod expected = expectedPeriods.get(offset + i);
+                final PostingPeriod actual = periods.get(i);
+                final String message = "period ending " + expected.periodInterval().endDate();
+                assertEquals(message, expected.periodInterval().startDate(), actual.periodInterval().startDate());
+                assertEquals(message, amount(expected.getInterestEarned().getAmount()), amount(actual.getInterestEarned().getAmount()));
+                assertEquals(message, amount(expected.closingBalance().getAmount()), amount(actual.closingBalance().getAmount()));
+            }
+            assertSameState("interest up to " + upToDate);
+        }
+
+        SavingsAccountBalanceSnapshot snapshot() {
+            return (SavingsAccountBalanceSnapshot) ReflectionTestUtils.getField(this.fromSnapshot, "balanceSnapshot");
+        }
+
+        private void assertSameState(final String message) {
+            assertEquals(message, transactions(this.full), transactions(this.fromSnapshot));
+            for (final String field : new String[] { "totalInterestEarned", "totalInterestPosted", "accountBalance" }) {
+                assertEquals(message + " " + field, amount((BigDecimal) ReflectionTestUtils.getField(this.full.getSummary(), field)),
+                        amount((BigDecimal) ReflectionTestUtils.getField(this.fromSnapshot.getSummary(), field)));
+            }
+        }
+
+        private int add(final SavingsAccountTransaction toSnapshotAccount, final SavingsAccountTransaction toFullAccount) {
+            this.fromSnapshot.getTransactions().add(toSnapshotAccount);
+            this.full.getTransactions().add(toFullAccount);
+            this.added.add(new SavingsAccountTransaction[] { toSnapshotAccount, toFullAccount });
+            return this.added.size() - 1;
+        }
+
+        /**
+         * Keeps transactions made on the same day in the order they were
+         * added, and ahead of the interest postings of that day.
+         */
+        private Date createdDate() {
+            return new Date(this.added.size() + 1);
+        }
+    }
+
+    private static SavingsAccount account(final boolean interestTransfer) {
+        final SavingsProduct product = mock(SavingsProduct.class);
+        when(product.currency()).thenReturn(USD);
+
+        final SavingsAccount account;
+        if (interestTransfer) {
+            account = new SavingsAccount(client(), null, product, null, "000000001", null, SavingsAccountStatusType.ACTIVE,
+                    AccountType.INDIVIDUAL, ACTIVATION_DATE, null, BigDecimal.valueOf(6), SavingsCompoundingInterestPeriodType.DAILY,
+                    SavingsPostingInterestPeriodType.MONTHLY, SavingsInterestCalculationType.DAILY_BALANCE,
+                    SavingsInterestCalculationDaysInYearType.DAYS_365, null, null, null, false, null, false, null, false, null) {
+
+                @Override
+                protected boolean isTransferInterestToOtherAccount() {
+                    return true;
+                }
+            };
+        } else {
+            account = new SavingsAccount(client(), null, product, null, "000000001", null, SavingsAccountStatusType.ACTIVE,
+                    AccountType.INDIVIDUAL, ACTIVATION_DATE, null, BigDecimal.valueOf(6), SavingsCompoundingInterestPeriodType.DAILY,
+                    SavingsPostingInterestPeriodType.MONTHLY, SavingsInterestCalculationType.DAILY_BALANCE,
+                    SavingsInterestCalculationDaysInYearType.DAYS_365, null, null, null, false, null, false, null, false, null);
+        }
+        account.activatedOnDate = ACTIVATION_DATE.toDate();
+        final SavingsHelper savingsHelper = new SavingsHelper(mock(AccountTransfersReadPlatformService.class));
+        account.setHelpers(new SavingsAccountTransactionSummaryWrapper(), savingsHelper);
+        return account;
+    }
+
+    private static Client client() {
+        try {
+            final Constructor<Client> constructor = Client.class.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Describes the transactions that are not reversed, with the balances
+     * derived for them.
+     */
+    private static List<String> transactions(final SavingsAccount account) {
+        final List<String> descriptions = new ArrayList<>();
+        for (final SavingsAccountTransaction transaction : account.getTransactions()) {
+            if (transaction.isReversed()) {
+                continue;
+            }
+            descriptions.add(transaction.transactionLocalDate() + " " + ReflectionTestUtils.getField(transaction, "typeOf") + " "
+                    + amount(transaction.getAmount()) + " running " + amount(transaction.getRunningBalance(USD).getAmount())
+                    + " cumulative " + amount((BigDecimal) ReflectionTestUtils.getField(transaction, "cumulativeBalance")) + " until "
+                    + ReflectionTestUtils.getField(transaction, "balanceEndDate"));
+        }
+        Collections.sort(descriptions);
+        return descriptions;
+    }
+
+    private static String amount(final BigDecimal amount) {
+        return amount == null ? "0.000000" : amount.setScale(6, RoundingMode.HALF_EVEN).toPlainString();
+    }
+}